@@ -0,0 +1,83 @@
+package edu.ucalgary.oop;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Stress test for StockReservations with several intake desks at once.
+ * Every desk thread reserves one unit at a time until stock runs out. The run
+ * fails if more units are handed out than were in stock, and reports
+ * throughput and CAS retries for each desk count, both when every desk
+ * draws from the same location and type and when they are spread over
+ * several locations.
+ *
+ * Run with: java -cp bin:bench-bin edu.ucalgary.oop.AllocationStressBenchmark [-Dthreads=1,2,4,8] [-Dstock=2000000]
+ *
+ * @author Devante Kwizera
+ * @version 1.0
+ * @since 2025-04-17
+ */
+public class AllocationStressBenchmark {
+    private static final int LOCATIONS = 8;
+
+    public static void main(String[] args) throws Exception {
+        int stock = Integer.getInteger("stock", 2_000_000);
+        int[] threadCounts = Bench.sizes("threads", 1, 2, 4, 8);
+
+        // Warm up the CAS loop before timing anything
+        run(2, 1, 200_000, false);
+        for (boolean spread : new boolean[] { false, true }) {
+            System.out.println(spread ? "\nDesks spread over " + LOCATIONS + " locations"
+                                      : "\nAll desks on one location and type");
+            for (int threads : threadCounts) {
+                run(threads, spread ? LOCATIONS : 1, stock, true);
+            }
+        }
+    }
+
+    private static void run(int threads, int locations, int stock, boolean print) throws InterruptedException {
+        StockReservations reservations = new StockReservations();
+        for (int location = 1; location <= locations; location++) {
+            reservations.setAvailable(location, "water", stock / locations);
+        }
+        int totalStock = stock / locations * locations;
+
+        LongAdder handedOut = new LongAdder();
+        CountDownLatch start = new CountDownLatch(1);
+        Thread[] desks = new Thread[threads];
+        for (int t = 0; t < threads; t++) {
+            int location = 1 + t % locations;
+            desks[t] = new Thread(() -> {
+                try {
+                    start.await();
+                } catch (InterruptedException e) {
+                    return;
+                }
+                // Stay on this desk's location, then help drain the others
+                for (int offset = 0; offset < locations; offset++) {
+                    int id = 1 + (location - 1 + offset) % locations;
+                    while (reservations.tryReserve(id, "water", 1)) {
+                        handedOut.increment();
+                    }
+                }
+            }, "desk-" + t);
+            desks[t].start();
+        }
+
+        long begin = System.nanoTime();
+        start.countDown();
+        for (Thread desk : desks) {
+            desk.join();
+        }
+        long nanos = System.nanoTime() - begin;
+
+        if (handedOut.sum() != totalStock) {
+            throw new IllegalStateException("Handed out " + handedOut.sum() + " units from a stock of " + totalStock);
+        }
+        if (print) {
+            System.out.printf("%2d desks: %,12.0f reservations/s, %,10d CAS retries, %,d of %,d units handed out%n",
+                              threads, totalStock / (nanos / 1e9), reservations.getRetryCount(),
+                              handedOut.sum(), totalStock);
+        }
+    }
+}
@@ -0,0 +1,99 @@
+package edu.ucalgary.oop;
+
+import java.util.Arrays;
+
+/**
+ * Minimal timing harness for the benchmarks in this directory.
+ * Runs a task for a number of warm-up iterations, then times each measured
+ * iteration separately and reports latency percentiles.
+ *
+ * @author Devante Kwizera
+ * @version 1.0
+ * @since 2025-04-16
+ */
+final class Bench {
+    // Written by every task so the JIT cannot discard their results
+    static volatile Object sink;
+
+    private Bench() {
+    }
+
+    /**
+     * A single benchmark iteration. The iteration number lets a task vary its input.
+     */
+    interface Task {
+        Object run(int iteration) throws Exception;
+    }
+
+    /**
+     * Latency percentiles of one benchmark, in microseconds.
+     */
+    static final class Result {
+        final String name;
+        final int iterations;
+        final double meanMicros;
+        final double p50Micros;
+        final double p99Micros;
+        final double maxMicros;
+
+        private Result(String name, long[] nanos) {
+            long[] sorted = nanos.clone();
+            Arrays.sort(sorted);
+            long total = 0;
+            for (long n : sorted) {
+                total += n;
+            }
+            this.name = name;
+            this.iterations = sorted.length;
+            this.meanMicros = total / 1000.0 / sorted.length;
+            this.p50Micros = sorted[percentileIndex(sorted.length, 0.50)] / 1000.0;
+            this.p99Micros = sorted[percentileIndex(sorted.length, 0.99)] / 1000.0;
+            this.maxMicros = sorted[sorted.length - 1] / 1000.0;
+        }
+
+        @Override
+        public String toString() {
+            return String.format("%-40s %8d iter  mean %10.1f us  p50 %10.1f us  p99 %10.1f us  max %10.1f us",
+                                 name, iterations, meanMicros, p50Micros, p99Micros, maxMicros);
+        }
+    }
+
+    /**
+     * Runs a benchmark and prints its result.
+     *
+     * @param name Label printed with the result
+     * @param warmup Iterations run before timing starts
+     * @param iterations Timed iterations
+     * @param task The code to time
+     * @return The timing result
+     */
+    static Result run(String name, int warmup, int iterations, Task task) throws Exception {
+        for (int i = 0; i < warmup; i++) {
+            sink = task.run(i);
+        }
+        long[] nanos = new long[iterations];
+        for (int i = 0; i < iterations; i++) {
+            long start = System.nanoTime();
+            sink = task.run(warmup + i);
+            nanos[i] = System.nanoTime() - start;
+        }
+        Result result = new Result(name, nanos);
+        System.out.println(result);
+        return result;
+    }
+
+    /**
+     * Reads comma-separated sizes from a system property, e.g. -Dsizes=1000,10000.
+     */
+    static int[] sizes(String property, int... defaults) {
+        String value = System.getProperty(property);
+        if (value == null || value.trim().isEmpty()) {
+            return defaults;
+        }
+        return Arrays.stream(value.split(",")).map(String::trim).mapToInt(Integer::parseInt).toArray();
+    }
+
+    private static int percentileIndex(int length, double percentile) {
+        return Math.min(length - 1, (int) Math.ceil(percentile * length) - 1);
+    }
+}
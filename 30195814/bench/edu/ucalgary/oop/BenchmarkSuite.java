@@ -0,0 +1,63 @@
+package edu.ucalgary.oop;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Runs every benchmark in this directory, one after another.
+ * Sizes are set per benchmark with -Dsizes=..., which applies to all of
+ * them, and -Dbench=Domain,Search picks which ones run. There is no build
+ * file, so compile the sources and benchmarks into separate directories
+ * from the project root:
+ *
+ *   javac -d bin src/edu/ucalgary/oop/*.java
+ *   javac -cp bin -d bench-bin bench/edu/ucalgary/oop/*.java
+ *   java -cp bin:bench-bin edu.ucalgary.oop.BenchmarkSuite [-Dbench=Domain,Language] [-Dsizes=1000,100000]
+ *
+ * LoadBenchmark and StatementCacheBenchmark need the JDBC driver on the class path and -Ddb.url;
+ * they are skipped without it.
+ *
+ * @author Devante Kwizera
+ * @version 1.0
+ * @since 2025-04-18
+ */
+public class BenchmarkSuite {
+    /**
+     * Entry point of one benchmark.
+     */
+    private interface Benchmark {
+        void main(String[] args) throws Exception;
+    }
+
+    private static final Map<String, Benchmark> BENCHMARKS = new LinkedHashMap<>();
+
+    static {
+        BENCHMARKS.put("Domain", DomainBenchmark::main);
+        BENCHMARKS.put("Date", DateBenchmark::main);
+        BENCHMARKS.put("Language", LanguageBenchmark::main);
+        BENCHMARKS.put("Search", SearchBenchmark::main);
+        BENCHMARKS.put("InquiryMatch", InquiryMatchBenchmark::main);
+        BENCHMARKS.put("AllocationStress", AllocationStressBenchmark::main);
+        BENCHMARKS.put("Snapshot", SnapshotBenchmark::main);
+        BENCHMARKS.put("ErrorLog", ErrorLogBenchmark::main);
+        BENCHMARKS.put("Load", LoadBenchmark::main);
+        BENCHMARKS.put("StatementCache", StatementCacheBenchmark::main);
+    }
+
+    public static void main(String[] args) throws Exception {
+        String selected = System.getProperty("bench");
+        List<String> names = selected == null ? new ArrayList<>(BENCHMARKS.keySet())
+                                              : Arrays.asList(selected.split(","));
+        for (String name : names) {
+            Benchmark benchmark = BENCHMARKS.get(name.trim());
+            if (benchmark == null) {
+                throw new IllegalArgumentException("Unknown benchmark " + name + ", expected one of " + BENCHMARKS.keySet());
+            }
+            System.out.println("\n===== " + name.trim() + " =====");
+            benchmark.main(args);
+        }
+    }
+}
@@ -0,0 +1,338 @@
+package edu.ucalgary.oop;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.time.LocalDate;
+import java.util.Random;
+
+/**
+ * Generates a disaster-sized data set in the schema of database/project.sql.
+ * Output is one CSV file per table plus load.sql, which loads them with
+ * psql's \copy and moves the ID sequences past the generated rows:
+ *
+ *   psql -U oop -d ensf380project -f generated/load.sql
+ *
+ * The same seed, size and date always produce the same files. Generated IDs
+ * start above -Doffset so they never collide with rows already in the
+ * database. For each person the generator writes a location, a cot, blankets,
+ * personal items and a stream of water allocations over the past two weeks;
+ * most persons belong to family groups of two to six, and a share of them have
+ * medical records or inquiries about them. Locations also receive stock, and
+ * the InventoryLedger rows match it.
+ *
+ * With the defaults (100,000 persons) this is roughly 21,000 family groups,
+ * 2 million supplies and allocations, 60,000 medical records and 20,000 inquiries.
+ *
+ * Run with: java -cp bin:bench-bin edu.ucalgary.oop.DataGenerator [-Dpersons=100000] [-Dseed=42]
+ *           [-Dout=generated] [-Doffset=1000000] [-Dtoday=2025-04-18] [-Dwater=15]
+ *
+ * @author Devante Kwizera
+ * @version 1.0
+ * @since 2025-04-18
+ */
+public class DataGenerator {
+    private static final String[] FIRST_NAMES = {
+        "Aur\u00e9lie", "Beno\u00eet", "Chlo\u00e9", "\u00c9tienne", "Fran\u00e7ois", "Genevi\u00e8ve", "H\u00e9l\u00e8ne", "Jean-Luc",
+        "L\u00e9a", "Mathieu", "Nathalie", "Oc\u00e9ane", "Philippe", "R\u00e9mi", "S\u00e9bastien", "Th\u00e9r\u00e8se",
+        "Amelia", "Benjamin", "Charlotte", "Daniel", "Emily", "Grace", "Harper", "Isaac",
+        "Jacob", "Liam", "Madison", "Noah", "Olivia", "Samuel", "Sophia", "William",
+        "Raman", "Chinoso", "Chanida", "Ngozi", "Priya", "Arjun", "Mei", "Hiroshi"
+    };
+    private static final String[] LAST_NAMES = {
+        "Tremblay", "Gagnon", "Roy", "C\u00f4t\u00e9", "Bouchard", "Gauthier", "Morin", "Lavoie",
+        "Fortin", "Gagn\u00e9", "Ouellet", "Pelletier", "B\u00e9langer", "L\u00e9vesque", "Bergeron", "Leblanc",
+        "Smith", "Brown", "Wilson", "MacDonald", "Johnson", "Taylor", "Anderson", "Campbell",
+        "Narayan", "Nwosu", "Chaiyapong", "Okafor", "Singh", "Patel", "Nguyen", "Tanaka"
+    };
+    private static final String[] GENDERS = { "Man", "Woman", "Non-binary" };
+    private static final String[] PERSON_COMMENTS = {
+        "Speaks only French", "Needs insulin, twice daily", "Hearing impaired", "Travelling with a dog",
+        "Arrived by bus from \"Zone B\"", "Requires wheelchair access"
+    };
+    private static final String[] PERSONAL_ITEMS = {
+        "green leather suitcase", "backpack", "family photos", "laptop", "wedding ring",
+        "prescription glasses", "teddy bear", "passport, birth certificate"
+    };
+    private static final String[] TREATMENTS = {
+        "Broken arm", "Dehydration", "Smoke inhalation", "Sprained ankle", "Burns, first degree",
+        "Hypothermia", "Laceration", "Asthma attack"
+    };
+    private static final String[] STREETS = {
+        "8 Ave SE", "University Dr NW", "Crowchild Trl NW", "17 Ave SW", "Macleod Trl SE", "Memorial Dr NE"
+    };
+    private static final int GRID_ROWS = 26;
+    private static final int GRID_COLUMNS = CotAllocator.DEFAULT_COLUMNS;
+    private static final int DAYS = 14;
+
+    private final Random random;
+    private final int persons;
+    private final int offset;
+    private final int waterPerPerson;
+    private final int today;
+    private final Path out;
+
+    private int locations;
+    private int[] locationOf;
+    private int[] familyOf;
+    private int familyGroups = 0;
+    private int supplies = 0;
+    private int medicalRecords = 0;
+    private int inquiries = 0;
+
+    DataGenerator(long seed, int persons, int offset, int waterPerPerson, LocalDate today, Path out) {
+        if (persons <= 0) {
+            throw new IllegalArgumentException("Number of persons must be positive: " + persons);
+        }
+        this.random = new Random(seed);
+        this.persons = persons;
+        this.offset = offset;
+        this.waterPerPerson = waterPerPerson;
+        this.today = (int) today.toEpochDay();
+        this.out = out;
+    }
+
+    public static void main(String[] args) throws IOException {
+        String todayProperty = System.getProperty("today");
+        DataGenerator generator = new DataGenerator(
+            Long.getLong("seed", 42),
+            Integer.getInteger("persons", 100_000),
+            Integer.getInteger("offset", 1_000_000),
+            Integer.getInteger("water", 15),
+            todayProperty == null ? LocalDate.now() : LocalDate.parse(todayProperty),
+            Paths.get(System.getProperty("out", "generated")));
+
+        long start = System.nanoTime();
+        generator.generate();
+        System.out.printf("%,d persons, %,d family groups, %,d locations, %,d supplies and allocations, " +
+                          "%,d medical records, %,d inquiries written to %s in %d ms%n",
+                          generator.persons, generator.familyGroups, generator.locations, generator.supplies,
+                          generator.medicalRecords, generator.inquiries, generator.out,
+                          (System.nanoTime() - start) / 1_000_000);
+    }
+
+    /**
+     * Writes every CSV file and load.sql.
+     */
+    void generate() throws IOException {
+        Files.createDirectories(out);
+        // About 2,000 persons per shelter, like a large school gym or arena
+        locations = Math.max(2, persons / 2_000);
+        locationOf = new int[persons];
+        familyOf = new int[persons];
+
+        writeLocations();
+        writePersons();
+        int[][] stock = writeSupplies();
+        writeLedger(stock);
+        writeMedicalRecords();
+        writeInquiries();
+        writeLoadScript();
+    }
+
+    private void writeLocations() throws IOException {
+        try (BufferedWriter w = writer("location.csv")) {
+            for (int l = 0; l < locations; l++) {
+                row(w, offset + l + 1, "Shelter " + (l + 1),
+                    (100 + random.nextInt(9900)) + " " + pick(STREETS));
+            }
+        }
+    }
+
+    private void writePersons() throws IOException {
+        try (BufferedWriter w = writer("person.csv");
+             BufferedWriter placed = writer("person_location.csv")) {
+            int p = 0;
+            while (p < persons) {
+                // Most arrivals come as families who share a last name, a group and a shelter
+                int size = random.nextInt(10) < 6 ? 2 + random.nextInt(5) : 1;
+                size = Math.min(size, persons - p);
+                int family = size > 1 ? offset + ++familyGroups : 0;
+                String lastName = pick(LAST_NAMES);
+                int location = (int) ((long) p * locations / persons);
+                for (int m = 0; m < size; m++, p++) {
+                    locationOf[p] = location;
+                    familyOf[p] = family;
+                    boolean knownBirth = random.nextInt(10) < 8;
+                    row(w, personId(p), pick(FIRST_NAMES), lastName,
+                        knownBirth ? Dates.format(today - random.nextInt(90 * 365)) : null,
+                        random.nextInt(10) < 9 ? pick(GENDERS) : null,
+                        random.nextInt(10) == 0 ? pick(PERSON_COMMENTS) : null,
+                        random.nextInt(3) == 0 ? String.format("555-%04d", random.nextInt(10_000)) : null,
+                        family == 0 ? null : family);
+                    row(placed, personId(p), locationId(location));
+                }
+            }
+        }
+    }
+
+    /**
+     * Writes supplies with their allocations and returns the stock given to each location by type.
+     */
+    private int[][] writeSupplies() throws IOException {
+        int[][] stock = new int[locations][2];
+        try (BufferedWriter w = writer("supply.csv");
+             BufferedWriter allocations = writer("supply_allocation.csv")) {
+            int cotsPerRoom = GRID_ROWS * GRID_COLUMNS;
+            for (int p = 0; p < persons; p++) {
+                // Cots fill rooms in order, so every room and grid cell is used once; rooms are numbered from offset / 1000
+                int room = offset / 1000 + p / cotsPerRoom;
+                int cell = p % cotsPerRoom;
+                String grid = (char) ('A' + cell / GRID_COLUMNS) + String.valueOf(cell % GRID_COLUMNS + 1);
+                supply(w, allocations, "cot", null, room, grid, p, -1);
+
+                for (int b = 1 + random.nextInt(2); b > 0; b--) {
+                    supply(w, allocations, "blanket", null, null, null, p, -1);
+                }
+                for (int i = random.nextInt(4); i > 0; i--) {
+                    supply(w, allocations, "personal item", pick(PERSONAL_ITEMS), null, null, p, -1);
+                }
+                for (int i = 0; i < waterPerPerson; i++) {
+                    supply(w, allocations, "water", null, null, null, p, -1);
+                }
+            }
+
+            for (int p = 0; p < persons; p++) {
+                // Shelters keep about two bottles and half a blanket in reserve per person
+                int location = locationOf[p];
+                for (int i = 0; i < 2; i++) {
+                    supply(w, allocations, "water", null, null, null, -1, location);
+                    stock[location][0]++;
+                }
+                if (random.nextBoolean()) {
+                    supply(w, allocations, "blanket", null, null, null, -1, location);
+                    stock[location][1]++;
+                }
+            }
+        }
+        return stock;
+    }
+
+    private void supply(BufferedWriter w, BufferedWriter allocations, String type, String comments,
+                        Integer room, String grid, int person, int location) throws IOException {
+        int supplyId = offset + ++supplies;
+        row(w, supplyId, type, comments, room, grid);
+        row(allocations, supplyId, person < 0 ? null : personId(person),
+            location < 0 ? null : locationId(location), timestamp());
+    }
+
+    private void writeLedger(int[][] stock) throws IOException {
+        try (BufferedWriter w = writer("inventory_ledger.csv")) {
+            for (int l = 0; l < locations; l++) {
+                row(w, locationId(l), "water", stock[l][0]);
+                row(w, locationId(l), "blanket", stock[l][1]);
+            }
+        }
+    }
+
+    private void writeMedicalRecords() throws IOException {
+        try (BufferedWriter w = writer("medical_record.csv")) {
+            for (int p = 0; p < persons; p++) {
+                if (random.nextInt(10) < 3) {
+                    for (int r = 1 + random.nextInt(3); r > 0; r--) {
+                        row(w, offset + ++medicalRecords, locationId(locationOf[p]), personId(p),
+                            timestamp(), pick(TREATMENTS));
+                    }
+                }
+            }
+        }
+    }
+
+    private void writeInquiries() throws IOException {
+        try (BufferedWriter w = writer("inquiry.csv")) {
+            for (int p = 0; p < persons; p++) {
+                if (random.nextInt(5) != 0) {
+                    continue;
+                }
+                // Usually a relative asks about someone in the same family, otherwise anyone
+                int inquirer = p > 0 && familyOf[p] != 0 && familyOf[p - 1] == familyOf[p]
+                               ? p - 1 : random.nextInt(persons);
+                if (inquirer == p) {
+                    continue;
+                }
+                row(w, offset + ++inquiries, personId(inquirer), personId(p),
+                    locationId(locationOf[p]), timestamp(),
+                    familyOf[p] != 0 && familyOf[inquirer] == familyOf[p] ? "Family member missing" : "Seeking friend");
+            }
+        }
+    }
+
+    private void writeLoadScript() throws IOException {
+        try (BufferedWriter w = writer("load.sql")) {
+            w.write("-- Generated by DataGenerator: " + persons + " persons, IDs above " + offset + "\n");
+            w.write("BEGIN;\n");
+            copy(w, "Location (location_id, name, address)", "location.csv");
+            copy(w, "Person (person_id, first_name, last_name, date_of_birth, gender, comments, " +
+                    "phone_number, family_group)", "person.csv");
+            copy(w, "PersonLocation (person_id, location_id)", "person_location.csv");
+            copy(w, "Supply (supply_id, type, comments, room, grid)", "supply.csv");
+            copy(w, "SupplyAllocation (supply_id, person_id, location_id, allocation_date)",
+                 "supply_allocation.csv");
+            copy(w, "InventoryLedger (location_id, supply_type, quantity)", "inventory_ledger.csv");
+            copy(w, "MedicalRecord (medical_record_id, location_id, person_id, date_of_treatment, " +
+                    "treatment_details)", "medical_record.csv");
+            copy(w, "Inquiry (inquiry_id, inquirer_id, seeking_id, location_id, date_of_inquiry, comments)",
+                 "inquiry.csv");
+            for (String[] sequence : new String[][] {
+                    { "Person", "person_id" }, { "Location", "location_id" }, { "Supply", "supply_id" },
+                    { "MedicalRecord", "medical_record_id" }, { "Inquiry", "inquiry_id" } }) {
+                w.write("SELECT setval(pg_get_serial_sequence('" + sequence[0].toLowerCase() + "', '"
+                        + sequence[1] + "'), (SELECT MAX(" + sequence[1] + ") FROM " + sequence[0] + "));\n");
+            }
+            w.write("COMMIT;\n");
+            w.write("ANALYZE;\n");
+        }
+    }
+
+    private void copy(BufferedWriter w, String table, String file) throws IOException {
+        w.write("\\copy " + table + " FROM '" + out.resolve(file).toAbsolutePath()
+                + "' WITH (FORMAT csv, NULL '')\n");
+    }
+
+    // A time within the last DAYS days, to the second
+    private String timestamp() {
+        int seconds = random.nextInt(86_400);
+        return Dates.format(today - random.nextInt(DAYS))
+               + String.format(" %02d:%02d:%02d", seconds / 3600, seconds / 60 % 60, seconds % 60);
+    }
+
+    private int personId(int person) {
+        return offset + person + 1;
+    }
+
+    private int locationId(int location) {
+        return offset + location + 1;
+    }
+
+    private String pick(String[] values) {
+        return values[random.nextInt(values.length)];
+    }
+
+    private BufferedWriter writer(String file) throws IOException {
+        return Files.newBufferedWriter(out.resolve(file), StandardCharsets.UTF_8);
+    }
+
+    /**
+     * Writes one CSV row. Nulls are written as empty fields, which \copy reads as NULL,
+     * and text is always quoted so an empty string stays distinct from NULL.
+     */
+    static void row(BufferedWriter w, Object... values) throws IOException {
+        for (int i = 0; i < values.length; i++) {
+            if (i > 0) {
+                w.write(',');
+            }
+            Object value = values[i];
+            if (value instanceof String) {
+                w.write('"');
+                w.write(((String) value).replace("\"", "\"\""));
+                w.write('"');
+            } else if (value != null) {
+                w.write(value.toString());
+            }
+        }
+        w.write('\n');
+    }
+}
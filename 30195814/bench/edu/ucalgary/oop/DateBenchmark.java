@@ -0,0 +1,114 @@
+package edu.ucalgary.oop;
+
+import java.time.LocalDate;
+import java.time.format.DateTimeFormatter;
+import java.util.Random;
+
+/**
+ * Compares date validation and bulk victim construction before and after
+ * dates became epoch days. The "string" variants repeat what the domain
+ * classes used to do: String.matches and replaceAll per date in
+ * DisasterVictim, and LocalDate.parse inside try/catch in MedicalRecord and
+ * ReliefService. Each iteration handles one batch of dates.
+ *
+ * Run with: java -cp bin:bench-bin edu.ucalgary.oop.DateBenchmark [-Dsizes=1000,10000,100000]
+ *
+ * @author Devante Kwizera
+ * @version 1.0
+ * @since 2025-04-17
+ */
+public class DateBenchmark {
+    private static final int WARMUP = 30;
+    private static final int ITERATIONS = 100;
+
+    public static void main(String[] args) throws Exception {
+        for (int size : Bench.sizes("sizes", 1_000, 10_000, 100_000)) {
+            String[] dates = dates(size);
+            System.out.println("\n" + size + " dates");
+
+            Bench.run("validate regex", WARMUP, ITERATIONS, i -> {
+                int valid = 0;
+                for (String date : dates) {
+                    if (date.matches("^\\d{4}-\\d{2}-\\d{2}$")) {
+                        valid++;
+                    }
+                }
+                return valid;
+            });
+            Bench.run("validate LocalDate.parse", WARMUP, ITERATIONS, i -> {
+                int valid = 0;
+                for (String date : dates) {
+                    try {
+                        LocalDate.parse(date, DateTimeFormatter.ISO_DATE);
+                        valid++;
+                    } catch (Exception e) {
+                        // Invalid dates are counted by omission
+                    }
+                }
+                return valid;
+            });
+            Bench.run("validate Dates.parse", WARMUP, ITERATIONS, i -> {
+                int valid = 0;
+                for (String date : dates) {
+                    if (Dates.parse(date) != Dates.NONE) {
+                        valid++;
+                    }
+                }
+                return valid;
+            });
+
+            Bench.run("compare replaceAll+parseInt", WARMUP, ITERATIONS, i -> {
+                int before = 0;
+                for (int d = 1; d < dates.length; d++) {
+                    if (Integer.parseInt(dates[d - 1].replaceAll("-", ""))
+                            <= Integer.parseInt(dates[d].replaceAll("-", ""))) {
+                        before++;
+                    }
+                }
+                return before;
+            });
+            int[] epochDays = new int[dates.length];
+            for (int d = 0; d < dates.length; d++) {
+                epochDays[d] = Dates.parse(dates[d]);
+            }
+            Bench.run("compare epoch days", WARMUP, ITERATIONS, i -> {
+                int before = 0;
+                for (int d = 1; d < epochDays.length; d++) {
+                    if (epochDays[d - 1] <= epochDays[d]) {
+                        before++;
+                    }
+                }
+                return before;
+            });
+
+            Bench.run("construct DisasterVictim", WARMUP, ITERATIONS, i -> {
+                DisasterVictim last = null;
+                for (String date : dates) {
+                    last = new DisasterVictim("Raman", "2025-04-17", date);
+                }
+                return last;
+            });
+            Bench.run("construct from epoch days (mapper)", WARMUP, ITERATIONS, i -> {
+                DisasterVictim last = null;
+                int entry = Dates.today();
+                for (int epochDay : epochDays) {
+                    last = new DisasterVictim("Raman", entry);
+                    last.setDateOfBirthEpochDay(epochDay);
+                }
+                return last;
+            });
+        }
+    }
+
+    // Valid dates of birth between 1930 and 2024 in random order
+    private static String[] dates(int size) {
+        Random random = new Random(42);
+        int first = (int) LocalDate.of(1930, 1, 1).toEpochDay();
+        int last = (int) LocalDate.of(2024, 12, 31).toEpochDay();
+        String[] dates = new String[size];
+        for (int i = 0; i < size; i++) {
+            dates[i] = LocalDate.ofEpochDay(first + random.nextInt(last - first)).toString();
+        }
+        return dates;
+    }
+}
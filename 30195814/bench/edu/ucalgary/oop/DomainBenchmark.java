@@ -0,0 +1,86 @@
+package edu.ucalgary.oop;
+
+import java.time.LocalDate;
+import java.util.Random;
+
+/**
+ * Measures the domain model on its own, without a database: creating and
+ * validating victims, and adding belongings and retiring expired water.
+ * Each size is the number of victims handled per timed iteration.
+ *
+ * Run with: java -cp bin:bench-bin edu.ucalgary.oop.DomainBenchmark [-Dsizes=100,10000,100000]
+ *
+ * @author Devante Kwizera
+ * @version 1.0
+ * @since 2025-04-18
+ */
+public class DomainBenchmark {
+    private static final int WARMUP = 20;
+    private static final int ITERATIONS = 50;
+    private static final int BELONGINGS_PER_VICTIM = 8;
+
+    public static void main(String[] args) throws Exception {
+        for (int size : Bench.sizes("sizes", 100, 10_000, 100_000)) {
+            run(size);
+        }
+    }
+
+    private static void run(int size) throws Exception {
+        System.out.printf("%n%,d victims%n", size);
+        Random random = new Random(42);
+        String[] birthDates = new String[size];
+        String[] invalidDates = new String[size];
+        int firstDay = (int) LocalDate.of(1930, 1, 1).toEpochDay();
+        for (int i = 0; i < size; i++) {
+            birthDates[i] = Dates.format(firstDay + random.nextInt(34_000));
+            invalidDates[i] = birthDates[i].substring(0, 8) + "3" + (2 + random.nextInt(8));
+        }
+
+        Bench.run("construct with date of birth", WARMUP, ITERATIONS, i -> {
+            DisasterVictim last = null;
+            for (String birthDate : birthDates) {
+                last = new DisasterVictim("Raman", "2025-04-18", birthDate);
+                last.setGender("woman");
+            }
+            return last;
+        });
+        Bench.run("reject invalid dates of birth", WARMUP, ITERATIONS, i -> {
+            DisasterVictim victim = new DisasterVictim("Raman", "2025-04-18");
+            int rejected = 0;
+            for (String date : invalidDates) {
+                try {
+                    victim.setDateOfBirth(date);
+                } catch (IllegalArgumentException e) {
+                    rejected++;
+                }
+            }
+            return rejected;
+        });
+
+        DisasterVictim[] victims = new DisasterVictim[size];
+        for (int i = 0; i < size; i++) {
+            victims[i] = new DisasterVictim("Raman", "2025-04-18");
+        }
+        LocalDate today = LocalDate.now();
+        Bench.run("add belongings x" + BELONGINGS_PER_VICTIM, WARMUP, ITERATIONS, i -> {
+            for (DisasterVictim victim : victims) {
+                victim.setPersonalBelongings(null);
+                for (int b = 0; b < BELONGINGS_PER_VICTIM; b++) {
+                    victim.addPersonalBelonging(new Supply("blanket", 1));
+                }
+            }
+            return victims[size - 1];
+        });
+        Bench.run("removeExpiredWater (half expired)", WARMUP, ITERATIONS, i -> {
+            // Refilling is timed too; it is the same for every run, so comparisons still hold
+            for (DisasterVictim victim : victims) {
+                victim.setPersonalBelongings(null);
+                for (int b = 0; b < BELONGINGS_PER_VICTIM; b++) {
+                    victim.addPersonalBelonging(new Water(today.minusDays(b % 2 == 0 ? 0 : 3), 1));
+                }
+                victim.removeExpiredWater();
+            }
+            return victims[size - 1];
+        });
+    }
+}
@@ -0,0 +1,82 @@
+package edu.ucalgary.oop;
+
+import java.io.FileWriter;
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.sql.SQLException;
+import java.time.LocalDate;
+import java.time.LocalTime;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+
+/**
+ * Measures what logging a burst of errors costs the caller, as during a
+ * database outage. Each size is the number of errors per timed iteration.
+ * "FileWriter per error" is how DatabaseManager.logError() used to write;
+ * "ErrorLog.log" only counts the caller's time, and "ErrorLog.log + flush"
+ * includes waiting for the writer thread. Logs go to a temporary directory.
+ *
+ * Run with: java -cp bin:bench-bin edu.ucalgary.oop.ErrorLogBenchmark [-Dsizes=100,1000]
+ *
+ * @author Devante Kwizera
+ * @version 1.0
+ * @since 2025-04-18
+ */
+public class ErrorLogBenchmark {
+    private static final int WARMUP = 5;
+    private static final int ITERATIONS = 20;
+
+    public static void main(String[] args) throws Exception {
+        Path dir = Files.createTempDirectory("errorlog-bench");
+        SQLException error = new SQLException("Connection refused", "08001");
+        try {
+            for (int size : Bench.sizes("sizes", 100, 1_000)) {
+                System.out.printf("%n%,d errors%n", size);
+                Path plain = dir.resolve("plain-" + size + ".txt");
+                Bench.run("FileWriter per error", WARMUP, ITERATIONS, i -> {
+                    for (int n = 0; n < size; n++) {
+                        logWithFileWriter(plain, "Failed to save person", error);
+                    }
+                    return size;
+                });
+
+                ErrorLog log = new ErrorLog(dir.resolve("async-" + size + ".txt"), ErrorLog.DEFAULT_CAPACITY,
+                                            ErrorLog.DEFAULT_MAX_BYTES, TimeUnit.DAYS.toMillis(1), 1);
+                Bench.run("ErrorLog.log", WARMUP, ITERATIONS, i -> {
+                    for (int n = 0; n < size; n++) {
+                        log.log("Failed to save person", error, n);
+                    }
+                    return size;
+                });
+                log.flush(60_000);
+                Bench.run("ErrorLog.log + flush", WARMUP, ITERATIONS, i -> {
+                    for (int n = 0; n < size; n++) {
+                        log.log("Failed to save person", error, n);
+                    }
+                    log.flush(60_000);
+                    return size;
+                });
+                log.close();
+                System.out.println(log.getStats());
+            }
+        } finally {
+            try (Stream<Path> files = Files.list(dir)) {
+                for (Path file : (Iterable<Path>) files::iterator) {
+                    Files.delete(file);
+                }
+            }
+            Files.delete(dir);
+        }
+    }
+
+    private static void logWithFileWriter(Path file, String message, Exception e) throws IOException {
+        try (FileWriter fw = new FileWriter(file.toFile(), true);
+             PrintWriter pw = new PrintWriter(fw)) {
+            pw.println("[" + LocalDate.now() + " " + LocalTime.now() + "] " + message + ": " + e.getMessage());
+            e.printStackTrace(pw);
+            pw.println("-------------------------");
+        }
+    }
+}
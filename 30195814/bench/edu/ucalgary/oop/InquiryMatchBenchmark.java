@@ -0,0 +1,90 @@
+package edu.ucalgary.oop;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * Measures matching relief inquiries to registered victims as the registry grows.
+ * Each inquiry seeks a registered victim by name as the inquirer spelled it,
+ * which is the registered name with one typo in about half the inquiries.
+ * An inquiry is matched when the sought victim is among the search results.
+ *
+ * Run with: java -cp bin:bench-bin edu.ucalgary.oop.InquiryMatchBenchmark [-Dsizes=1000,10000,100000] [-Dinquiries=500]
+ *
+ * @author Devante Kwizera
+ * @version 1.0
+ * @since 2025-04-18
+ */
+public class InquiryMatchBenchmark {
+    private static final String[] FIRST_NAMES = {
+        "Aur\u00e9lie", "Beno\u00eet", "Chlo\u00e9", "\u00c9tienne", "Fran\u00e7ois", "Genevi\u00e8ve", "H\u00e9l\u00e8ne", "L\u00e9a",
+        "Amelia", "Benjamin", "Charlotte", "Daniel", "Emily", "Grace", "Isaac", "Olivia"
+    };
+    private static final String[] LAST_NAMES = {
+        "Tremblay", "Gagnon", "C\u00f4t\u00e9", "Bouchard", "Gauthier", "Lavoie", "Pelletier", "L\u00e9vesque",
+        "Smith", "Brown", "Wilson", "MacDonald", "Taylor", "Campbell", "Thompson", "Robinson"
+    };
+
+    public static void main(String[] args) throws Exception {
+        int inquiryCount = Integer.getInteger("inquiries", 500);
+        for (int size : Bench.sizes("sizes", 1_000, 10_000, 100_000)) {
+            run(size, inquiryCount);
+        }
+    }
+
+    private static void run(int size, int inquiryCount) throws Exception {
+        Random random = new Random(42);
+        VictimRegistry registry = new VictimRegistry();
+        VictimSearchEngine engine = new VictimSearchEngine(registry);
+        List<DisasterVictim> victims = new ArrayList<>();
+        for (int i = 0; i < size; i++) {
+            DisasterVictim victim = new DisasterVictim(pick(random, FIRST_NAMES), "2025-01-18");
+            victim.setLastName(pick(random, LAST_NAMES) + (i % 13 == 0 ? "-" + pick(random, LAST_NAMES) : ""));
+            registry.add(victim);
+            victims.add(victim);
+        }
+
+        Location shelter = new Location("Shelter A", "140 8 Ave NW");
+        List<ReliefService> inquiries = new ArrayList<>();
+        List<String> spellings = new ArrayList<>();
+        for (int i = 0; i < inquiryCount; i++) {
+            DisasterVictim sought = victims.get(random.nextInt(size));
+            Inquirer inquirer = new Inquirer("Dominik", "Pollak", "+1-123-456-7890", "");
+            inquiries.add(new ReliefService(inquirer, sought, "2025-04-18", "Looking for family", shelter));
+            String lastName = sought.getLastName();
+            spellings.add(sought.getFirstName() + " " + (random.nextBoolean() ? typo(random, lastName) : lastName));
+        }
+
+        System.out.printf("%n%,d victims, %,d inquiries%n", size, inquiryCount);
+        int[] matched = new int[1];
+        Bench.run("match inquiries", 5, 20, iteration -> {
+            int found = 0;
+            for (int i = 0; i < inquiries.size(); i++) {
+                DisasterVictim sought = inquiries.get(i).getMissingPerson();
+                for (VictimSearchEngine.Match match : engine.search(spellings.get(i))) {
+                    if (match.getVictim() == sought) {
+                        found++;
+                        break;
+                    }
+                }
+            }
+            matched[0] = found;
+            return found;
+        });
+        System.out.printf("matched %d of %d inquiries%n", matched[0], inquiries.size());
+    }
+
+    private static String pick(Random random, String[] values) {
+        return values[random.nextInt(values.length)];
+    }
+
+    // Swaps two neighbouring letters
+    private static String typo(Random random, String word) {
+        if (word.length() < 3) {
+            return word;
+        }
+        int i = 1 + random.nextInt(word.length() - 2);
+        return word.substring(0, i) + word.charAt(i + 1) + word.charAt(i) + word.substring(i + 2);
+    }
+}
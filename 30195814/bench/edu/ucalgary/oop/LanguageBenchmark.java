@@ -0,0 +1,68 @@
+package edu.ucalgary.oop;
+
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Measures loading the translation files and looking up strings in them.
+ * Each size is the number of lookups per timed iteration; keys are drawn
+ * from the English file, with one lookup in ten for a missing key.
+ * Run from the project root so that data/ is found.
+ *
+ * Run with: java -cp bin:bench-bin edu.ucalgary.oop.LanguageBenchmark [-Dsizes=100,10000,1000000]
+ *
+ * @author Devante Kwizera
+ * @version 1.0
+ * @since 2025-04-18
+ */
+public class LanguageBenchmark {
+    private static final Pattern KEY = Pattern.compile("<key>([^<]+)</key>");
+
+    public static void main(String[] args) throws Exception {
+        List<String> keys = new ArrayList<>();
+        Matcher matcher = KEY.matcher(new String(Files.readAllBytes(Paths.get("data", "en-CA.xml")),
+                                                 StandardCharsets.UTF_8));
+        while (matcher.find()) {
+            keys.add(matcher.group(1));
+        }
+        System.out.println(keys.size() + " translation keys");
+
+        Bench.run("compile en-CA (no cache)", 20, 200, i -> TranslationCatalog.compile(Paths.get("data", "en-CA.xml")).size());
+        LanguageManager lang = new LanguageManager("en-CA");
+        Bench.run("loadLanguage en-CA", 20, 200, i -> lang.loadLanguage("en-CA"));
+        Bench.run("loadLanguage fr-CA", 20, 200, i -> lang.loadLanguage("fr-CA"));
+        Bench.run("switch en-CA/fr-CA", 20, 200, i -> lang.loadLanguage(i % 2 == 0 ? "en-CA" : "fr-CA"));
+        Bench.run("new LanguageManager (shared cache)", 20, 200,
+                  i -> new LanguageManager(i % 2 == 0 ? "en-CA" : "fr-CA").getCurrentLanguage());
+        lang.loadLanguage("en-CA");
+
+        for (int size : Bench.sizes("sizes", 100, 10_000, 1_000_000)) {
+            Random random = new Random(42);
+            String[] lookups = new String[size];
+            for (int i = 0; i < size; i++) {
+                lookups[i] = random.nextInt(10) == 0 ? "missing_key_" + i : keys.get(random.nextInt(keys.size()));
+            }
+            System.out.printf("%n%,d lookups%n", size);
+            Bench.run("getString", 20, 50, i -> {
+                int length = 0;
+                for (String key : lookups) {
+                    length += lang.getString(key).length();
+                }
+                return length;
+            });
+            Bench.run("getString with argument", 20, 50, i -> {
+                int length = 0;
+                for (String key : lookups) {
+                    length += lang.getString(key, i).length();
+                }
+                return length;
+            });
+        }
+    }
+}
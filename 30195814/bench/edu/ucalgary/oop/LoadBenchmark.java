@@ -0,0 +1,100 @@
+package edu.ucalgary.oop;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.stream.Stream;
+
+/**
+ * Measures the DatabaseManager load paths as the Person table grows.
+ * Persons are inserted with saveAll() until the table holds each requested
+ * number of seeded rows, then loadPersons(), streamPersons() and
+ * loadAllData() are timed. Seeded rows are marked in their comments and
+ * deleted again at the end.
+ *
+ * The benchmark writes to the database, so it only runs against a database
+ * named with -Ddb.url; point it at a scratch copy with project.sql loaded.
+ *
+ * Run with: java -cp bin:bench-bin:postgresql.jar -Ddb.url=jdbc:postgresql://localhost:5432/ensf380bench
+ *           [-Ddb.user=oop] [-Ddb.password=ucalgary] edu.ucalgary.oop.LoadBenchmark [-Dsizes=100,1000,10000]
+ *
+ * @author Devante Kwizera
+ * @version 1.0
+ * @since 2025-04-18
+ */
+public class LoadBenchmark {
+    private static final String SEED_COMMENT = "load-benchmark seed";
+    private static final int WARMUP = 3;
+    private static final int ITERATIONS = 10;
+
+    public static void main(String[] args) throws Exception {
+        String url = System.getProperty("db.url");
+        if (url == null) {
+            System.out.println("LoadBenchmark skipped: set -Ddb.url to a scratch database");
+            return;
+        }
+        DatabaseManager dbManager = new DatabaseManager(url, System.getProperty("db.user", "oop"),
+                                                        System.getProperty("db.password", "ucalgary"));
+        if (!dbManager.createConnection()) {
+            System.out.println("LoadBenchmark skipped: cannot connect to " + url + ", see data/errorlog.txt");
+            dbManager.closeConnection();
+            return;
+        }
+
+        try {
+            Random random = new Random(42);
+            int seeded = 0;
+            for (int size : Bench.sizes("sizes", 100, 1_000, 10_000)) {
+                seeded += seed(dbManager, random, size - seeded);
+                System.out.printf("%n%,d seeded persons%n", seeded);
+
+                Bench.run("loadPersons", WARMUP, ITERATIONS, i -> dbManager.loadPersons());
+                Bench.run("streamPersons count", WARMUP, ITERATIONS, i -> {
+                    try (Stream<DisasterVictim> persons = dbManager.streamPersons()) {
+                        return persons.count();
+                    }
+                });
+                Bench.run("loadAllData", WARMUP, ITERATIONS, i -> {
+                    Map<String, Object> data = dbManager.loadAllData();
+                    return data.get("timings");
+                });
+            }
+        } finally {
+            deleteSeeds(dbManager);
+            dbManager.closeConnection();
+        }
+    }
+
+    private static int seed(DatabaseManager dbManager, Random random, int count) {
+        if (count <= 0) {
+            return 0;
+        }
+        List<DisasterVictim> victims = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            DisasterVictim victim = new DisasterVictim("Seed" + random.nextInt(1000), "2025-04-18");
+            victim.setLastName("Person" + random.nextInt(1000));
+            victim.setDateOfBirthEpochDay(Dates.parse("1930-01-01") + random.nextInt(34_000));
+            victim.setComments(SEED_COMMENT);
+            victims.add(victim);
+        }
+        BatchResult<DisasterVictim> result = dbManager.saveAll(victims);
+        if (!result.isSuccessful()) {
+            throw new IllegalStateException("Seeding failed: " + result.getFailures().values());
+        }
+        return count;
+    }
+
+    private static void deleteSeeds(DatabaseManager dbManager) {
+        try (Connection conn = dbManager.getConnectionPool().borrow();
+             PreparedStatement stmt = conn.prepareStatement("DELETE FROM Person WHERE comments = ?")) {
+            stmt.setString(1, SEED_COMMENT);
+            System.out.println("\nDeleted " + stmt.executeUpdate() + " seeded persons");
+        } catch (SQLException e) {
+            dbManager.logError("Failed to delete benchmark seed rows", e);
+        }
+    }
+}
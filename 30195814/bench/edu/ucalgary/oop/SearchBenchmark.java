@@ -0,0 +1,88 @@
+package edu.ucalgary.oop;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * Measures fuzzy name search latency as the victim registry grows.
+ * Names are drawn from French and English first and last names, and queries
+ * are registered names with one random typo, so every query has to go through
+ * the trigram and phonetic indexes rather than an exact prefix match.
+ *
+ * Run with: java -cp bin:bench-bin edu.ucalgary.oop.SearchBenchmark [-Dsizes=1000,10000,100000]
+ *
+ * @author Devante Kwizera
+ * @version 1.0
+ * @since 2025-04-16
+ */
+public class SearchBenchmark {
+    private static final String[] FIRST_NAMES = {
+        "Aur\u00e9lie", "Beno\u00eet", "Chlo\u00e9", "\u00c9tienne", "Fran\u00e7ois", "Genevi\u00e8ve", "H\u00e9l\u00e8ne", "Jean-Luc",
+        "L\u00e9a", "Mathieu", "Nathalie", "Oc\u00e9ane", "Philippe", "R\u00e9mi", "S\u00e9bastien", "Th\u00e9r\u00e8se",
+        "Amelia", "Benjamin", "Charlotte", "Daniel", "Emily", "Grace", "Harper", "Isaac",
+        "Jacob", "Liam", "Madison", "Noah", "Olivia", "Samuel", "Sophia", "William"
+    };
+    private static final String[] LAST_NAMES = {
+        "Tremblay", "Gagnon", "Roy", "C\u00f4t\u00e9", "Bouchard", "Gauthier", "Morin", "Lavoie",
+        "Fortin", "Gagn\u00e9", "Ouellet", "Pelletier", "B\u00e9langer", "L\u00e9vesque", "Bergeron", "Leblanc",
+        "Thibeault", "Dupont", "Beaulieu", "Desjardins", "Smith", "Brown", "Wilson", "MacDonald",
+        "Johnson", "Taylor", "Anderson", "Campbell", "Thompson", "Martin", "Clark", "Robinson"
+    };
+    private static final int QUERIES = 2000;
+
+    public static void main(String[] args) throws Exception {
+        for (int size : Bench.sizes("sizes", 1_000, 10_000, 100_000)) {
+            run(size);
+        }
+    }
+
+    private static void run(int size) throws Exception {
+        Random random = new Random(42);
+        VictimRegistry registry = new VictimRegistry();
+        long start = System.nanoTime();
+        VictimSearchEngine engine = new VictimSearchEngine(registry);
+        for (int i = 0; i < size; i++) {
+            DisasterVictim victim = new DisasterVictim(pick(random, FIRST_NAMES), "2025-01-18");
+            // A numeric suffix on some last names keeps the token count growing with the registry
+            String lastName = pick(random, LAST_NAMES);
+            victim.setLastName(random.nextInt(4) == 0 ? lastName + "-" + pick(random, LAST_NAMES) + (i % 997) : lastName);
+            registry.add(victim);
+        }
+        System.out.printf("%n%,d victims, %,d distinct tokens, indexed in %d ms%n",
+                          size, engine.getTokenCount(), (System.nanoTime() - start) / 1_000_000);
+
+        List<String> queries = new ArrayList<>();
+        for (int i = 0; i < QUERIES; i++) {
+            queries.add(typo(random, VictimRegistry.normalize(pick(random, FIRST_NAMES)))
+                        + " " + typo(random, VictimRegistry.normalize(pick(random, LAST_NAMES))));
+        }
+
+        Bench.run("search (" + size + " victims)", QUERIES / 2, QUERIES,
+                  i -> engine.search(queries.get(i % queries.size())));
+        Bench.run("prefix findByName (" + size + " victims)", QUERIES / 2, QUERIES,
+                  i -> registry.findByName(queries.get(i % queries.size()).substring(0, 3)));
+    }
+
+    private static String pick(Random random, String[] values) {
+        return values[random.nextInt(values.length)];
+    }
+
+    /**
+     * Deletes, replaces or swaps one letter.
+     */
+    private static String typo(Random random, String word) {
+        if (word.length() < 3) {
+            return word;
+        }
+        int i = 1 + random.nextInt(word.length() - 2);
+        switch (random.nextInt(3)) {
+            case 0:
+                return word.substring(0, i) + word.substring(i + 1);
+            case 1:
+                return word.substring(0, i) + (char) ('a' + random.nextInt(26)) + word.substring(i + 1);
+            default:
+                return word.substring(0, i) + word.charAt(i + 1) + word.charAt(i) + word.substring(i + 2);
+        }
+    }
+}
@@ -0,0 +1,92 @@
+package edu.ucalgary.oop;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * Measures writing and reading the startup snapshot, without a database.
+ * Each size is the number of victims; every victim has one medical record,
+ * every fourth is in a family group, and there are two supplies and one
+ * inquiry per ten victims. "open" only maps and checks the file; "open and
+ * decode all" is what the CLI does at startup.
+ *
+ * Run with: java -cp bin:bench-bin edu.ucalgary.oop.SnapshotBenchmark [-Dsizes=10000,100000]
+ *
+ * @author Devante Kwizera
+ * @version 1.0
+ * @since 2025-04-18
+ */
+public class SnapshotBenchmark {
+    private static final int WARMUP = 3;
+    private static final int ITERATIONS = 10;
+    private static final int LOCATIONS = 50;
+
+    public static void main(String[] args) throws Exception {
+        for (int size : Bench.sizes("sizes", 10_000, 100_000)) {
+            run(size);
+        }
+    }
+
+    private static void run(int size) throws Exception {
+        System.out.printf("%n%,d victims%n", size);
+        Random random = new Random(42);
+        List<Location> locations = new ArrayList<>();
+        for (int i = 0; i < LOCATIONS; i++) {
+            Location location = new Location("Shelter " + i, i + " Centre St");
+            location.setDatabaseId(i + 1);
+            locations.add(location);
+        }
+
+        List<DisasterVictim> persons = new ArrayList<>();
+        List<Supply> supplies = new ArrayList<>();
+        List<ReliefService> inquiries = new ArrayList<>();
+        FamilyGroup group = null;
+        for (int i = 0; i < size; i++) {
+            DisasterVictim person = new DisasterVictim("Raman", "2025-04-18", "1985-03-15");
+            person.setLastName("Singh " + i);
+            person.setDatabaseId(i + 1);
+            Location location = locations.get(random.nextInt(LOCATIONS));
+            person.addMedicalRecord(new MedicalRecord(location, "Checked on arrival", "2025-04-18"));
+            if (i % 4 == 0) {
+                group = new FamilyGroup(String.valueOf(i));
+            }
+            if (i % 4 < 2) {
+                group.addMember(person);
+            }
+            persons.add(person);
+
+            if (i % 10 == 0) {
+                Supply blanket = new Blanket(1);
+                blanket.setDatabaseId(i + 1);
+                Supply cot = new Cot(100 + i / 10 % 50, "A" + (i % 9 + 1), 1);
+                cot.setDatabaseId(i + 2);
+                supplies.add(blanket);
+                supplies.add(cot);
+                Inquirer inquirer = new Inquirer("Jo", "Singh", "555-0100", "Family member");
+                inquiries.add(new ReliefService(inquirer, person, "2025-04-18", "Last seen downtown", location));
+            }
+        }
+
+        DatabaseManager dbManager = new DatabaseManager();
+        Path path = Files.createTempFile("snapshot-benchmark", ".bin");
+        try {
+            Bench.run("write", WARMUP, ITERATIONS, i -> {
+                Snapshot.write(path, dbManager, persons, locations, supplies, inquiries);
+                return path;
+            });
+            System.out.printf("  snapshot size: %,d bytes%n", Files.size(path));
+            Bench.run("open", WARMUP, ITERATIONS, i -> Snapshot.open(path));
+            Bench.run("open and decode all", WARMUP, ITERATIONS, i -> {
+                Snapshot snapshot = Snapshot.open(path);
+                snapshot.getPersons();
+                snapshot.getSupplies();
+                return snapshot.getInquiries();
+            });
+        } finally {
+            Files.deleteIfExists(path);
+        }
+    }
+}
@@ -0,0 +1,122 @@
+package edu.ucalgary.oop;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+
+/**
+ * Measures intake throughput with the prepared-statement cache of
+ * ConnectionPool turned off and on. One intake saves a new person with
+ * savePerson() and files an inquiry for them with saveInquiry(), which looks
+ * up the inquirer by name, so each intake prepares three statements. Each
+ * size is the number of intakes per timed iteration. Rows written are
+ * marked in their comments and deleted again at the end.
+ *
+ * The benchmark writes to the database, so it only runs against a database
+ * named with -Ddb.url; point it at a scratch copy with project.sql loaded.
+ *
+ * Run with: java -cp bin:bench-bin:postgresql.jar -Ddb.url=jdbc:postgresql://localhost:5432/ensf380bench
+ *           [-Ddb.user=oop] [-Ddb.password=ucalgary] edu.ucalgary.oop.StatementCacheBenchmark [-Dsizes=100,1000]
+ *
+ * @author Devante Kwizera
+ * @version 1.0
+ * @since 2025-04-18
+ */
+public class StatementCacheBenchmark {
+    private static final String SEED_COMMENT = "statement-cache-benchmark seed";
+    private static final String INQUIRER_FIRST_NAME = "Benchmark";
+    private static final String INQUIRER_LAST_NAME = "Inquirer";
+    private static final int WARMUP = 2;
+    private static final int ITERATIONS = 5;
+
+    public static void main(String[] args) throws Exception {
+        String url = System.getProperty("db.url");
+        if (url == null) {
+            System.out.println("StatementCacheBenchmark skipped: set -Ddb.url to a scratch database");
+            return;
+        }
+        String configured = System.getProperty("db.statementCacheSize");
+        try {
+            for (int size : Bench.sizes("sizes", 100, 1_000)) {
+                System.out.printf("%n%,d intakes%n", size);
+                for (int cacheSize : new int[] { 0, ConnectionPool.DEFAULT_STATEMENT_CACHE_SIZE }) {
+                    if (!run(url, size, cacheSize)) {
+                        return;
+                    }
+                }
+            }
+        } finally {
+            if (configured == null) {
+                System.clearProperty("db.statementCacheSize");
+            } else {
+                System.setProperty("db.statementCacheSize", configured);
+            }
+        }
+    }
+
+    private static boolean run(String url, int size, int cacheSize) throws Exception {
+        // The manager's pool reads its statement cache size when it is created
+        System.setProperty("db.statementCacheSize", Integer.toString(cacheSize));
+        DatabaseManager dbManager = new DatabaseManager(url, System.getProperty("db.user", "oop"),
+                                                        System.getProperty("db.password", "ucalgary"));
+        if (!dbManager.createConnection()) {
+            System.out.println("StatementCacheBenchmark skipped: cannot connect to " + url +
+                               ", see data/errorlog.txt");
+            dbManager.closeConnection();
+            return false;
+        }
+
+        try {
+            Location location = new Location("Statement cache benchmark", "1 Benchmark Way");
+            DisasterVictim inquirerPerson = new DisasterVictim(INQUIRER_FIRST_NAME, "2025-04-18");
+            inquirerPerson.setLastName(INQUIRER_LAST_NAME);
+            inquirerPerson.setComments(SEED_COMMENT);
+            if (!dbManager.saveLocation(location) || !dbManager.savePerson(inquirerPerson)) {
+                throw new IllegalStateException("Seeding failed, see data/errorlog.txt");
+            }
+            // No database ID, so every inquiry looks the inquirer up by name
+            Inquirer inquirer = new Inquirer(INQUIRER_FIRST_NAME, INQUIRER_LAST_NAME, "403-555-0100", "Benchmark");
+
+            String label = cacheSize == 0 ? "intake, no statement cache" : "intake, statement cache " + cacheSize;
+            Bench.Result result = Bench.run(label, WARMUP, ITERATIONS, i -> {
+                int saved = 0;
+                for (int n = 0; n < size; n++) {
+                    DisasterVictim victim = new DisasterVictim("Intake" + n, "2025-04-18");
+                    victim.setComments(SEED_COMMENT);
+                    ReliefService inquiry = new ReliefService(inquirer, victim, "2025-04-18", SEED_COMMENT, location);
+                    if (dbManager.savePerson(victim) && dbManager.saveInquiry(inquiry)) {
+                        saved++;
+                    }
+                }
+                return saved;
+            });
+            ConnectionPool pool = dbManager.getConnectionPool();
+            System.out.printf("  %,.0f intakes/s, statement cache hits=%d misses=%d%n",
+                              size / (result.meanMicros / 1e6), pool.getStatementCacheHits(),
+                              pool.getStatementCacheMisses());
+        } finally {
+            deleteSeeds(dbManager);
+            dbManager.closeConnection();
+        }
+        return true;
+    }
+
+    private static void deleteSeeds(DatabaseManager dbManager) {
+        try (Connection conn = dbManager.getConnectionPool().borrow()) {
+            conn.setAutoCommit(false);
+            try (PreparedStatement inquiries = conn.prepareStatement("DELETE FROM Inquiry WHERE comments = ?");
+                 PreparedStatement persons = conn.prepareStatement("DELETE FROM Person WHERE comments = ?");
+                 PreparedStatement locations = conn.prepareStatement("DELETE FROM Location WHERE name = ?")) {
+                inquiries.setString(1, SEED_COMMENT);
+                inquiries.executeUpdate();
+                persons.setString(1, SEED_COMMENT);
+                persons.executeUpdate();
+                locations.setString(1, "Statement cache benchmark");
+                locations.executeUpdate();
+            }
+            conn.commit();
+        } catch (SQLException e) {
+            dbManager.logError("Failed to delete benchmark seed rows", e);
+        }
+    }
+}
@@ -0,0 +1,122 @@
+-- Schema for the embedded SQLite database used at shelters without a server.
+-- DatabaseManager runs this file once, when it opens a database file that has no tables yet.
+-- Tables, columns and indexes match project.sql; only the SQLite spelling differs:
+-- AUTOINCREMENT keys instead of SERIAL, and timestamps as yyyy-MM-dd HH:mm:ss.SSS text.
+-- Statements end with a semicolon at the end of a line; trigger bodies end with "END;".
+
+CREATE TABLE Person (
+    person_id INTEGER PRIMARY KEY AUTOINCREMENT,
+    first_name VARCHAR,
+    last_name VARCHAR,
+    date_of_birth DATE,
+    gender VARCHAR,
+    comments VARCHAR,
+    phone_number VARCHAR,
+    family_group INT,
+    updated_at TIMESTAMP NOT NULL DEFAULT (strftime('%Y-%m-%d %H:%M:%f', 'now', 'localtime'))
+);
+
+CREATE TABLE Location (
+    location_id INTEGER PRIMARY KEY AUTOINCREMENT,
+    name VARCHAR,
+    address VARCHAR,
+    updated_at TIMESTAMP NOT NULL DEFAULT (strftime('%Y-%m-%d %H:%M:%f', 'now', 'localtime'))
+);
+
+CREATE TABLE Inquiry (
+    inquiry_id INTEGER PRIMARY KEY AUTOINCREMENT,
+    inquirer_id INT REFERENCES Person(person_id),
+    seeking_id INT REFERENCES Person(person_id),
+    location_id INT REFERENCES Location(location_id),
+    date_of_inquiry TIMESTAMP,
+    comments VARCHAR,
+    updated_at TIMESTAMP NOT NULL DEFAULT (strftime('%Y-%m-%d %H:%M:%f', 'now', 'localtime'))
+);
+
+CREATE TABLE Supply (
+    supply_id INTEGER PRIMARY KEY AUTOINCREMENT,
+    type VARCHAR,
+    comments VARCHAR,
+    room INT,
+    grid VARCHAR,
+    updated_at TIMESTAMP NOT NULL DEFAULT (strftime('%Y-%m-%d %H:%M:%f', 'now', 'localtime'))
+);
+
+CREATE TABLE MedicalRecord (
+    medical_record_id INTEGER PRIMARY KEY AUTOINCREMENT,
+    location_id INT REFERENCES Location(location_id),
+    person_id INT REFERENCES Person(person_id),
+    date_of_treatment TIMESTAMP,
+    treatment_details VARCHAR,
+    updated_at TIMESTAMP NOT NULL DEFAULT (strftime('%Y-%m-%d %H:%M:%f', 'now', 'localtime'))
+);
+
+-- Association tables
+CREATE TABLE PersonLocation (
+    person_id INT REFERENCES Person(person_id),
+    location_id INT REFERENCES Location(location_id),
+    PRIMARY KEY (person_id, location_id)
+);
+
+CREATE TABLE SupplyAllocation (
+    supply_id INT REFERENCES Supply(supply_id),
+    person_id INT REFERENCES Person(person_id),
+    location_id INT REFERENCES Location(location_id),
+    allocation_date TIMESTAMP DEFAULT (strftime('%Y-%m-%d %H:%M:%f', 'now', 'localtime')),
+    PRIMARY KEY (supply_id, allocation_date)
+);
+
+-- Running stock per location and supply type, kept up to date on every allocation
+CREATE TABLE InventoryLedger (
+    location_id INT REFERENCES Location(location_id),
+    supply_type VARCHAR,
+    quantity INT NOT NULL DEFAULT 0 CHECK (quantity >= 0),
+    PRIMARY KEY (location_id, supply_type)
+);
+
+-- IDs of journaled offline operations already written, so replaying the journal never applies one twice
+CREATE TABLE AppliedOperation (
+    operation_id VARCHAR PRIMARY KEY,
+    -- Row created by the operation, so a repeated replay can give the new victim or supply its ID
+    entity_id INT,
+    applied_at TIMESTAMP NOT NULL DEFAULT (strftime('%Y-%m-%d %H:%M:%f', 'now', 'localtime'))
+);
+
+-- Change tracking: updated_at is refreshed on every update that does not set it itself
+CREATE TRIGGER person_touch AFTER UPDATE ON Person FOR EACH ROW WHEN NEW.updated_at = OLD.updated_at
+BEGIN
+    UPDATE Person SET updated_at = strftime('%Y-%m-%d %H:%M:%f', 'now', 'localtime') WHERE person_id = NEW.person_id;
+END;
+
+CREATE TRIGGER location_touch AFTER UPDATE ON Location FOR EACH ROW WHEN NEW.updated_at = OLD.updated_at
+BEGIN
+    UPDATE Location SET updated_at = strftime('%Y-%m-%d %H:%M:%f', 'now', 'localtime') WHERE location_id = NEW.location_id;
+END;
+
+CREATE TRIGGER inquiry_touch AFTER UPDATE ON Inquiry FOR EACH ROW WHEN NEW.updated_at = OLD.updated_at
+BEGIN
+    UPDATE Inquiry SET updated_at = strftime('%Y-%m-%d %H:%M:%f', 'now', 'localtime') WHERE inquiry_id = NEW.inquiry_id;
+END;
+
+CREATE TRIGGER supply_touch AFTER UPDATE ON Supply FOR EACH ROW WHEN NEW.updated_at = OLD.updated_at
+BEGIN
+    UPDATE Supply SET updated_at = strftime('%Y-%m-%d %H:%M:%f', 'now', 'localtime') WHERE supply_id = NEW.supply_id;
+END;
+
+CREATE TRIGGER medical_record_touch AFTER UPDATE ON MedicalRecord FOR EACH ROW WHEN NEW.updated_at = OLD.updated_at
+BEGIN
+    UPDATE MedicalRecord SET updated_at = strftime('%Y-%m-%d %H:%M:%f', 'now', 'localtime') WHERE medical_record_id = NEW.medical_record_id;
+END;
+
+CREATE INDEX person_updated_at ON Person (updated_at);
+CREATE INDEX location_updated_at ON Location (updated_at);
+CREATE INDEX inquiry_updated_at ON Inquiry (updated_at);
+CREATE INDEX supply_updated_at ON Supply (updated_at);
+CREATE INDEX medical_record_updated_at ON MedicalRecord (updated_at);
+
+-- Water expiry: the sweeper finds water by type and expired allocations by date
+CREATE INDEX supply_type ON Supply (type);
+CREATE INDEX supply_allocation_date ON SupplyAllocation (allocation_date);
+
+-- Cot positions: each room/grid cell holds at most one cot
+CREATE UNIQUE INDEX cot_position ON Supply (room, grid) WHERE type = 'cot';
@@ -16,13 +16,15 @@ CREATE TABLE Person (
     gender VARCHAR,
     comments VARCHAR,
     phone_number VARCHAR,
-    family_group INT
+    family_group INT,
+    updated_at TIMESTAMP WITHOUT TIME ZONE NOT NULL DEFAULT LOCALTIMESTAMP
 );
 
 CREATE TABLE Location (
     location_id SERIAL PRIMARY KEY,
     name VARCHAR,
-    address VARCHAR
+    address VARCHAR,
+    updated_at TIMESTAMP WITHOUT TIME ZONE NOT NULL DEFAULT LOCALTIMESTAMP
 );
 
 CREATE TABLE Inquiry (
@@ -31,13 +33,17 @@ CREATE TABLE Inquiry (
     seeking_id INT REFERENCES Person(person_id),
     location_id INT REFERENCES Location(location_id),
     date_of_inquiry TIMESTAMP WITHOUT TIME ZONE,
-    comments VARCHAR
+    comments VARCHAR,
+    updated_at TIMESTAMP WITHOUT TIME ZONE NOT NULL DEFAULT LOCALTIMESTAMP
 );
 
 CREATE TABLE Supply (
     supply_id SERIAL PRIMARY KEY,
     type VARCHAR,
-    comments VARCHAR
+    comments VARCHAR,
+    room INT,
+    grid VARCHAR,
+    updated_at TIMESTAMP WITHOUT TIME ZONE NOT NULL DEFAULT LOCALTIMESTAMP
 );
 
 CREATE TABLE MedicalRecord (
@@ -45,7 +51,8 @@ CREATE TABLE MedicalRecord (
     location_id INT REFERENCES Location(location_id),
     person_id INT REFERENCES Person(person_id),
     date_of_treatment TIMESTAMP WITHOUT TIME ZONE,
-    treatment_details VARCHAR
+    treatment_details VARCHAR,
+    updated_at TIMESTAMP WITHOUT TIME ZONE NOT NULL DEFAULT LOCALTIMESTAMP
 );
 
 -- Association tables
@@ -63,6 +70,50 @@ CREATE TABLE SupplyAllocation (
     PRIMARY KEY (supply_id, allocation_date)
 );
 
+-- Running stock per location and supply type, kept up to date on every allocation
+CREATE TABLE InventoryLedger (
+    location_id INT REFERENCES Location(location_id),
+    supply_type VARCHAR,
+    quantity INT NOT NULL DEFAULT 0 CHECK (quantity >= 0),
+    PRIMARY KEY (location_id, supply_type)
+);
+
+-- IDs of journaled offline operations already written, so replaying the journal never applies one twice
+CREATE TABLE AppliedOperation (
+    operation_id VARCHAR PRIMARY KEY,
+    -- Row created by the operation, so a repeated replay can give the new victim or supply its ID
+    entity_id INT,
+    applied_at TIMESTAMP NOT NULL DEFAULT LOCALTIMESTAMP
+);
+
+-- Change tracking: updated_at is refreshed on every update, so clients can
+-- sync only the rows changed since the newest updated_at they have seen
+CREATE FUNCTION touch_updated_at() RETURNS TRIGGER AS $$
+BEGIN
+    NEW.updated_at := LOCALTIMESTAMP;
+    RETURN NEW;
+END;
+$$ LANGUAGE plpgsql;
+
+CREATE TRIGGER person_touch BEFORE UPDATE ON Person FOR EACH ROW EXECUTE FUNCTION touch_updated_at();
+CREATE TRIGGER location_touch BEFORE UPDATE ON Location FOR EACH ROW EXECUTE FUNCTION touch_updated_at();
+CREATE TRIGGER inquiry_touch BEFORE UPDATE ON Inquiry FOR EACH ROW EXECUTE FUNCTION touch_updated_at();
+CREATE TRIGGER supply_touch BEFORE UPDATE ON Supply FOR EACH ROW EXECUTE FUNCTION touch_updated_at();
+CREATE TRIGGER medical_record_touch BEFORE UPDATE ON MedicalRecord FOR EACH ROW EXECUTE FUNCTION touch_updated_at();
+
+CREATE INDEX person_updated_at ON Person (updated_at);
+CREATE INDEX location_updated_at ON Location (updated_at);
+CREATE INDEX inquiry_updated_at ON Inquiry (updated_at);
+CREATE INDEX supply_updated_at ON Supply (updated_at);
+CREATE INDEX medical_record_updated_at ON MedicalRecord (updated_at);
+
+-- Water expiry: the sweeper finds water by type and expired allocations by date
+CREATE INDEX supply_type ON Supply (type);
+CREATE INDEX supply_allocation_date ON SupplyAllocation (allocation_date);
+
+-- Cot positions: each room/grid cell holds at most one cot
+CREATE UNIQUE INDEX cot_position ON Supply (room, grid) WHERE type = 'cot';
+
 -- Insert example data
 INSERT INTO Person (first_name, last_name, date_of_birth, gender, comments, phone_number, family_group)
 VALUES
@@ -83,15 +134,15 @@ VALUES
 (4, 1, 1, '2025-01-02', 'Checking on neighbor'),
 (1, 5, 1, '2025-01-02', 'Daughter missing');
 
-INSERT INTO Supply (type, comments)
+INSERT INTO Supply (type, comments, room, grid)
 VALUES
-('water', NULL),
-('blanket', NULL),
-('cot', '410 G16'),
-('personal item', 'green leather suitcase'),
-('water', NULL),
-('water', NULL),
-('water', NULL);
+('water', NULL, NULL, NULL),
+('blanket', NULL, NULL, NULL),
+('cot', NULL, 410, 'G16'),
+('personal item', 'green leather suitcase', NULL, NULL),
+('water', NULL, NULL, NULL),
+('water', NULL, NULL, NULL),
+('water', NULL, NULL, NULL);
 
 INSERT INTO MedicalRecord (location_id, person_id, date_of_treatment, treatment_details)
 VALUES
@@ -114,3 +165,10 @@ VALUES
 (6, NULL, 1, CURRENT_TIMESTAMP),
 (7, NULL, 2, CURRENT_TIMESTAMP);
 
+-- Seed the ledger from the example allocations above
+INSERT INTO InventoryLedger (location_id, supply_type, quantity)
+SELECT sa.location_id, LOWER(s.type), COUNT(*)
+FROM SupplyAllocation sa
+JOIN Supply s ON s.supply_id = sa.supply_id
+WHERE sa.location_id IS NOT NULL
+GROUP BY sa.location_id, LOWER(s.type);
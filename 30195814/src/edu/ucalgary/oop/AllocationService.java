@@ -0,0 +1,154 @@
+package edu.ucalgary.oop;
+
+import java.util.Map;
+
+/**
+ * Hands out supplies from several intake desks at once without over-allocating.
+ * Units are first reserved in StockReservations, which only succeeds while
+ * stock is left, and only then written to the database. If the write fails
+ * the units are returned. InventoryLedger's conditional update stays the
+ * final check for desks running in other processes.
+ * DatabaseManager.allocateSupply() hands allocations at saved locations to
+ * the manager's own service, see DatabaseManager.getAllocationService().
+ * The counters are reloaded from InventoryLedger whenever the manager loads
+ * or syncs its stock, which also picks up allocations replayed by
+ * MutationJournal and restocks made by other processes.
+ *
+ * @author Devante Kwizera
+ * @version 1.0
+ * @since 2025-04-17
+ */
+public class AllocationService {
+    private final DatabaseManager dbManager;
+    private final StockReservations reservations;
+    // Held while a counter is seeded from InventoryLedger and while a restock
+    // is written, so a seed reads the ledger either before or after a restock
+    // and the restock is counted exactly once
+    private final Object seedLock = new Object();
+
+    /**
+     * @param dbManager Manager used to read stock and write allocations
+     */
+    public AllocationService(DatabaseManager dbManager) {
+        this(dbManager, new StockReservations());
+    }
+
+    /**
+     * @param dbManager Manager used to read stock and write allocations
+     * @param reservations Counters shared by every desk in this process
+     */
+    public AllocationService(DatabaseManager dbManager, StockReservations reservations) {
+        this.dbManager = dbManager;
+        this.reservations = reservations;
+    }
+
+    /**
+     * Gives a person a supply drawn from a location's stock.
+     *
+     * @param supply The supply to hand out
+     * @param person The receiving person
+     * @param location The location the supply is taken from
+     * @return true if allocated, false if the location is out of stock or the write failed
+     */
+    public boolean allocate(Supply supply, DisasterVictim person, Location location) {
+        int locationId = location.getDatabaseId();
+        String type = supply.getType();
+        int quantity = supply.getQuantity();
+
+        if (!seed(location, type)) {
+            return false;
+        }
+        if (!reservations.tryReserve(locationId, type, quantity)) {
+            // The counter may lag behind a restock made elsewhere; read the ledger once more
+            refresh(location, type);
+            if (!reservations.tryReserve(locationId, type, quantity)) {
+                return false;
+            }
+        }
+
+        if (dbManager.writeAllocation(supply, person, location)) {
+            return true;
+        }
+        reservations.release(locationId, type, quantity);
+        return false;
+    }
+
+    /**
+     * Adds a supply to a location's stock.
+     *
+     * @param supply The supply to store
+     * @param location The receiving location
+     * @return true if stored, false if the write failed
+     */
+    public boolean restock(Supply supply, Location location) {
+        synchronized (seedLock) {
+            if (!dbManager.writeAllocation(supply, null, location)) {
+                return false;
+            }
+            // A counter seeded later reads the new stock from the ledger
+            if (reservations.isTracked(location.getDatabaseId(), supply.getType())) {
+                reservations.release(location.getDatabaseId(), supply.getType(), supply.getQuantity());
+            }
+            return true;
+        }
+    }
+
+    /**
+     * Starts counting a location and type from InventoryLedger unless it is counted already.
+     *
+     * @return true if the counter exists, false if the ledger could not be read
+     */
+    private boolean seed(Location location, String type) {
+        if (reservations.isTracked(location.getDatabaseId(), type)) {
+            return true;
+        }
+        synchronized (seedLock) {
+            if (reservations.isTracked(location.getDatabaseId(), type)) {
+                return true;
+            }
+            int stock = dbManager.readStock(location, type);
+            if (stock < 0) {
+                return false;
+            }
+            reservations.track(location.getDatabaseId(), type, stock);
+            return true;
+        }
+    }
+
+    /**
+     * Reloads the available count for one location and type from InventoryLedger,
+     * e.g. after another process changed its stock. Reservations in flight at the
+     * same time are not reflected in the reloaded count. If the ledger cannot
+     * be read the count is left as it was.
+     *
+     * @param location The location
+     * @param type The supply type
+     */
+    public void refresh(Location location, String type) {
+        synchronized (seedLock) {
+            int stock = dbManager.readStock(location, type);
+            if (stock >= 0) {
+                reservations.setAvailable(location.getDatabaseId(), type, stock);
+            }
+        }
+    }
+
+    /**
+     * Reloads every tracked counter from InventoryLedger rows the manager has
+     * just read. As with refresh(), reservations in flight are not reflected.
+     *
+     * @param stockByLocation Units per supply type, keyed by Location.location_id
+     */
+    void reload(Map<Integer, Map<String, Integer>> stockByLocation) {
+        synchronized (seedLock) {
+            reservations.reload(stockByLocation);
+        }
+    }
+
+    /**
+     * @return The reservation counters, e.g. to report contention
+     */
+    public StockReservations getReservations() {
+        return reservations;
+    }
+}
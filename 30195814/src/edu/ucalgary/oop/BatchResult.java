@@ -0,0 +1,76 @@
+package edu.ucalgary.oop;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Outcome of a bulk save: which entities were stored and why the others were not.
+ * 
+ * @param <T> The entity type
+ * @author Devante Kwizera
+ * @version 1.0
+ * @since 2025-04-15
+ */
+public class BatchResult<T> {
+    private final List<T> saved = new ArrayList<>();
+    private final Map<T, String> failures = new LinkedHashMap<>();
+
+    void addSaved(T entity) {
+        saved.add(entity);
+    }
+
+    void addFailure(T entity, String reason) {
+        failures.put(entity, reason);
+    }
+
+    /**
+     * Marks every entity as failed after the transaction was rolled back.
+     * Entities that already failed keep their original reason.
+     * 
+     * @param entities All entities in the bulk save
+     * @param reason Why the transaction was rolled back
+     */
+    void abort(Collection<T> entities, String reason) {
+        saved.clear();
+        Map<T, String> previous = new IdentityHashMap<>();
+        previous.putAll(failures);
+        failures.clear();
+        for (T entity : entities) {
+            failures.put(entity, previous.getOrDefault(entity, reason));
+        }
+    }
+
+    /**
+     * @return the entities that were saved, in the order they were sent
+     */
+    public List<T> getSaved() {
+        return Collections.unmodifiableList(saved);
+    }
+
+    /**
+     * @return the entities that were not saved, each with the reason
+     */
+    public Map<T, String> getFailures() {
+        return Collections.unmodifiableMap(failures);
+    }
+
+    public int getSavedCount() {
+        return saved.size();
+    }
+
+    public int getFailedCount() {
+        return failures.size();
+    }
+
+    /**
+     * @return true if every entity was saved
+     */
+    public boolean isSuccessful() {
+        return failures.isEmpty();
+    }
+}
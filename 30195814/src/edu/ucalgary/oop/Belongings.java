@@ -0,0 +1,153 @@
+package edu.ucalgary.oop;
+
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+
+/**
+ * Compact, growable storage for a victim's personal belongings.
+ * Items live in one array that doubles when full, so adding is amortized
+ * constant time. Removing swaps the last item into the freed slot instead
+ * of shifting or copying, and expired water is compacted out in place in a
+ * single pass. Item order is therefore not preserved across removals.
+ *
+ * @author Devante Kwizera
+ * @version 1.0
+ * @since 2025-04-17
+ */
+public class Belongings implements Iterable<Supply> {
+    private static final Supply[] EMPTY = new Supply[0];
+    private static final int INITIAL_CAPACITY = 4;
+
+    private Supply[] items = EMPTY;
+    private int size = 0;
+
+    /**
+     * Adds an item.
+     *
+     * @param supply The item to add
+     * @throws IllegalArgumentException if supply is null
+     */
+    public void add(Supply supply) throws IllegalArgumentException {
+        if (supply == null) {
+            throw new IllegalArgumentException("Belongings cannot contain null");
+        }
+        if (size == items.length) {
+            items = Arrays.copyOf(items, Math.max(INITIAL_CAPACITY, items.length * 2));
+        }
+        items[size++] = supply;
+    }
+
+    /**
+     * Removes one occurrence of an item, compared by identity.
+     *
+     * @param supply The item to remove
+     * @return true if the item was found and removed
+     */
+    public boolean remove(Supply supply) {
+        for (int i = 0; i < size; i++) {
+            if (items[i] == supply) {
+                items[i] = items[--size];
+                items[size] = null;
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Removes water that has expired on the given day, without allocating.
+     *
+     * @param todayEpochDay The current day as LocalDate.toEpochDay()
+     * @return The number of items removed
+     */
+    public int removeExpiredWater(long todayEpochDay) {
+        int kept = 0;
+        for (int i = 0; i < size; i++) {
+            Supply supply = items[i];
+            if (!(supply instanceof Water && ((Water) supply).isExpired(todayEpochDay))) {
+                items[kept++] = supply;
+            }
+        }
+        int removed = size - kept;
+        Arrays.fill(items, kept, size, null);
+        size = kept;
+        return removed;
+    }
+
+    /**
+     * Replaces every item with the given ones.
+     *
+     * @param supplies The new items; null clears the belongings
+     * @throws IllegalArgumentException if an item is null
+     */
+    public void setAll(Supply[] supplies) throws IllegalArgumentException {
+        clear();
+        if (supplies == null) {
+            return;
+        }
+        items = supplies.length == 0 ? EMPTY : new Supply[supplies.length];
+        for (Supply supply : supplies) {
+            add(supply);
+        }
+    }
+
+    public boolean contains(Supply supply) {
+        for (int i = 0; i < size; i++) {
+            if (items[i] == supply) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    public Supply get(int index) {
+        if (index < 0 || index >= size) {
+            throw new IndexOutOfBoundsException("Index " + index + " out of bounds for size " + size);
+        }
+        return items[index];
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    /**
+     * Removes every item and releases the storage.
+     */
+    public void clear() {
+        items = EMPTY;
+        size = 0;
+    }
+
+    /**
+     * @return A copy of the items
+     */
+    public Supply[] toArray() {
+        return Arrays.copyOf(items, size);
+    }
+
+    @Override
+    public Iterator<Supply> iterator() {
+        return new Iterator<Supply>() {
+            private int next = 0;
+
+            @Override
+            public boolean hasNext() {
+                return next < size;
+            }
+
+            @Override
+            public Supply next() {
+                if (next >= size) {
+                    throw new NoSuchElementException();
+                }
+                return items[next++];
+            }
+        };
+    }
+}
@@ -1,7 +1,15 @@
 package edu.ucalgary.oop;
 
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
 import java.util.Scanner;
 import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.CompletableFuture;
 import java.time.LocalDate;
 import java.time.format.DateTimeFormatter;
 import java.time.format.DateTimeParseException;
@@ -15,14 +23,23 @@ import java.time.format.DateTimeParseException;
  * @since 2025-04-14
  */
 public class CLI {
+    // How stale the in-memory data may get before the main menu pulls changes from other desks
+    private static final long SYNC_INTERVAL_MILLIS = 30_000;
+    // Copy of the in-memory data written at exit, so the next start does not wait for a full load
+    private static final Path SNAPSHOT_PATH = Paths.get("data", "snapshot.bin");
+    
     private Scanner scanner;
     private LanguageManager lang;
     private DatabaseManager dbManager;
-    private ArrayList<DisasterVictim> persons;
+    private MutationJournal journal;
+    private VictimRegistry persons;
+    private VictimSearchEngine personSearch;
     private ArrayList<Location> locations;
     private ArrayList<Supply> supplies;
     private ArrayList<ReliefService> inquiries;
     private ArrayList<FamilyGroup> familyGroups;
+    private long lastSync;
+    private CompletableFuture<SyncResult> reconciling;
     
     /**
      * Constructor initializes the CLI with a specific language.
@@ -33,7 +50,9 @@ public class CLI {
         this.scanner = new Scanner(System.in);
         this.lang = new LanguageManager(languageCode);
         this.dbManager = new DatabaseManager();
-        this.persons = new ArrayList<>();
+        this.journal = new MutationJournal(dbManager);
+        this.persons = new VictimRegistry();
+        this.personSearch = new VictimSearchEngine(persons);
         this.locations = new ArrayList<>();
         this.supplies = new ArrayList<>();
         this.inquiries = new ArrayList<>();
@@ -48,14 +67,32 @@ public class CLI {
         System.out.println("=".repeat(30));
         System.out.println(lang.getString("loading_data"));
         
-        if (!dbManager.createConnection()) {
+        // Without a database, intake carries on from the snapshot; edits are journaled
+        // and written once the database is reachable again
+        boolean connected = dbManager.createConnection();
+        if (!connected) {
             System.err.println(lang.getString("error_database_connection"));
-            return;
         }
         
-        // Load all data from the database
+        // Start from the last snapshot if there is one, otherwise load all data from the database
         try {
-            loadData();
+            boolean restored = loadSnapshot();
+            if (!restored && connected) {
+                loadData();
+            }
+            recoverQueuedEdits();
+            if (restored) {
+                // Recovered edits are written first so the reconcile does not overwrite them with older rows
+                reconciling = CompletableFuture.supplyAsync(() -> {
+                    journal.replay();
+                    return dbManager.reconcile();
+                });
+            }
+            dbManager.getWaterExpirySweeper().start();
+            // Translators' edits to data/*.xml reach every desk without a restart
+            CatalogCache.shared().startWatching();
+            dbManager.getMetrics().startExport(Paths.get(OperationMetrics.DEFAULT_PROMETHEUS_PATH),
+                                               OperationMetrics.DEFAULT_EXPORT_INTERVAL_MILLIS);
             System.out.println(lang.getString("operation_successful"));
         } catch (Exception e) {
             System.err.println("Error loading data: " + e.getMessage());
@@ -66,6 +103,7 @@ public class CLI {
     /**
      * Loads all data from the database.
      */
+    @SuppressWarnings("unchecked")
     private void loadData() {
         // Clear existing data
         persons.clear();
@@ -74,29 +112,198 @@ public class CLI {
         inquiries.clear();
         familyGroups.clear();
         
-        // Remove expired water supplies
-        dbManager.removeExpiredWater();
+        // Expired water is removed and all tables are loaded and linked in one pass
+        Map<String, Object> data = dbManager.loadAllData();
         
-        // Load locations
-        locations.addAll(dbManager.loadLocations());
+        locations.addAll((ArrayList<Location>) data.get("locations"));
         System.out.println("Loaded " + locations.size() + " locations");
         
-        // Load persons
-        persons.addAll(dbManager.loadPersons());
+        persons.addAll((ArrayList<DisasterVictim>) data.get("persons"));
         System.out.println("Loaded " + persons.size() + " people");
         
-        // Load family groups
-        // This would be done as part of loading persons in a real implementation
+        familyGroups.addAll((ArrayList<FamilyGroup>) data.get("familyGroups"));
         
-        // Load supplies
-        supplies.addAll(dbManager.loadSupplies());
+        supplies.addAll((ArrayList<Supply>) data.get("supplies"));
         System.out.println("Loaded " + supplies.size() + " supplies");
         
-        // Load inquiries
-        // This would be done in a real implementation
+        inquiries.addAll((ArrayList<ReliefService>) data.get("inquiries"));
+        System.out.println("Loaded " + inquiries.size() + " inquiries");
+        
+        System.out.println("Load times (ms): " + data.get("timings"));
+        lastSync = System.currentTimeMillis();
+    }
+    
+    /**
+     * Loads the data written by saveSnapshot() at the end of the last session.
+     * 
+     * @return true if the snapshot was loaded; false if there is none or it cannot be read
+     */
+    private boolean loadSnapshot() {
+        if (!Files.exists(SNAPSHOT_PATH)) {
+            return false;
+        }
+        long start = System.nanoTime();
+        try {
+            Snapshot snapshot = Snapshot.open(SNAPSHOT_PATH);
+            persons.clear();
+            locations.clear();
+            supplies.clear();
+            inquiries.clear();
+            familyGroups.clear();
+            
+            dbManager.restore(snapshot);
+            locations.addAll(snapshot.getLocations());
+            // Snapshots of earlier versions also hold unsaved people, whom the journal rebuilds
+            for (DisasterVictim person : snapshot.getPersons()) {
+                if (person.getDatabaseId() > 0) {
+                    persons.add(person);
+                }
+            }
+            familyGroups.addAll(snapshot.getFamilyGroups());
+            supplies.addAll(snapshot.getSupplies());
+            for (ReliefService inquiry : snapshot.getInquiries()) {
+                if (isAboutSavedPerson(inquiry)) {
+                    inquiries.add(inquiry);
+                }
+            }
+        } catch (IOException | RuntimeException e) {
+            dbManager.logError("Failed to load snapshot, loading from the database instead", e);
+            return false;
+        }
+        
+        System.out.println("Loaded " + persons.size() + " people, " + locations.size() + " locations, " +
+                           supplies.size() + " supplies and " + inquiries.size() + " inquiries from the snapshot in " +
+                           (System.nanoTime() - start) / 1_000_000 + " ms");
+        lastSync = System.currentTimeMillis();
+        return true;
+    }
+    
+    /**
+     * Writes the in-memory data to the snapshot for the next start.
+     * People not yet saved to the database are left out, with the inquiries
+     * about them: their operations are still in the mutation journal, which
+     * rebuilds them on the next start, so the snapshot must not hold a copy too.
+     */
+    private void saveSnapshot() {
+        ArrayList<DisasterVictim> savedPersons = new ArrayList<>();
+        for (DisasterVictim person : persons.getAll()) {
+            if (person.getDatabaseId() > 0) {
+                savedPersons.add(person);
+            }
+        }
+        ArrayList<ReliefService> savedInquiries = new ArrayList<>();
+        for (ReliefService inquiry : inquiries) {
+            if (isAboutSavedPerson(inquiry)) {
+                savedInquiries.add(inquiry);
+            }
+        }
+        try {
+            Snapshot.write(SNAPSHOT_PATH, dbManager, savedPersons, locations, supplies, savedInquiries);
+        } catch (IOException | RuntimeException e) {
+            dbManager.logError("Failed to save snapshot", e);
+        }
+    }
+    
+    private static boolean isAboutSavedPerson(ReliefService inquiry) {
+        return inquiry.getMissingPerson() == null || inquiry.getMissingPerson().getDatabaseId() > 0;
+    }
+    
+    /**
+     * Applies the changes found by the startup reconcile once it has finished.
+     * Until then the reconcile may change loaded people, so nothing may edit them.
+     * 
+     * @param wait true to wait for the reconcile instead of returning while it runs
+     */
+    private void applyReconcile(boolean wait) {
+        if (reconciling == null || (!wait && !reconciling.isDone())) {
+            return;
+        }
+        try {
+            applyChanges(reconciling.join());
+        } catch (RuntimeException e) {
+            dbManager.logError("Failed to reconcile snapshot with the database", e);
+        }
+        reconciling = null;
+        lastSync = System.currentTimeMillis();
+    }
+    
+    /**
+     * Pulls changes made by other desks once the data is older than SYNC_INTERVAL_MILLIS.
+     * Journaled operations are written first so a sync never overwrites them with older rows.
+     */
+    private void syncIfStale() {
+        long now = System.currentTimeMillis();
+        if (reconciling != null || now - lastSync < SYNC_INTERVAL_MILLIS) {
+            return;
+        }
+        lastSync = now;
+        if (!journal.replay()) {
+            return;
+        }
         
-        // Link data relationships
-        // This would be done in a real implementation
+        applyChanges(dbManager.syncChanges());
+    }
+    
+    /**
+     * Adds the new and changed rows of a sync to the in-memory lists.
+     */
+    private void applyChanges(SyncResult changes) {
+        for (DisasterVictim person : changes.getPersons().getAdded()) {
+            persons.add(person);
+        }
+        for (DisasterVictim person : changes.getPersons().getUpdated()) {
+            persons.update(person);
+        }
+        locations.addAll(changes.getLocations().getAdded());
+        supplies.removeAll(changes.getSupplies().getRemoved());
+        supplies.addAll(changes.getSupplies().getAdded());
+        inquiries.addAll(changes.getInquiries());
+        
+        if (!changes.isEmpty()) {
+            System.out.println("Synced " + changes.getChangeCount() + " changes from the database");
+        }
+    }
+    
+    /**
+     * Re-queues operations that a previous session journaled but never wrote to the database,
+     * and, if the user agrees, the ones the database refused and that were set aside.
+     */
+    private void recoverQueuedEdits() {
+        int recovered = 0;
+        int deadLetters = journal.countDeadLetters();
+        if (deadLetters > 0) {
+            System.out.print(deadLetters + " journaled operations were refused by the database. Retry them now? (y/n) ");
+            String input = scanner.nextLine().trim().toLowerCase();
+            if (input.equals("y") || input.equals("yes") || input.equals("o") || input.equals("oui")) {
+                journal.requeueDeadLetters();
+            }
+        }
+        MutationJournal.Recovery operations = journal.recover();
+        for (DisasterVictim person : operations.getPersons()) {
+            persons.add(person);
+            recovered++;
+        }
+        for (ReliefService inquiry : operations.getInquiries()) {
+            // The snapshot already holds inquiries logged before the last exit
+            if (!hasInquiry(inquiry)) {
+                inquiries.add(inquiry);
+                recovered++;
+            }
+        }
+        if (recovered > 0) {
+            System.out.println("Recovered " + recovered + " unsaved edits");
+        }
+    }
+    
+    private boolean hasInquiry(ReliefService inquiry) {
+        for (ReliefService existing : inquiries) {
+            if (existing.getMissingPerson() == inquiry.getMissingPerson()
+                    && existing.getDateOfInquiryEpochDay() == inquiry.getDateOfInquiryEpochDay()
+                    && Objects.equals(existing.getInfoProvided(), inquiry.getInfoProvided())) {
+                return true;
+            }
+        }
+        return false;
     }
     
     /**
@@ -106,8 +313,10 @@ public class CLI {
         boolean running = true;
         
         while (running) {
+            applyReconcile(false);
+            syncIfStale();
             displayMainMenu();
-            int choice = getIntInput(1, 5);
+            int choice = getIntInput(1, 6);
             
             switch (choice) {
                 case 1:
@@ -129,17 +338,52 @@ public class CLI {
                     waitForEnter();
                     break;
                 case 5:
+                    showMetrics();
+                    waitForEnter();
+                    break;
+                case 6:
                     running = confirmExit();
                     break;
             }
         }
         
-        // Close scanner and database connection
+        // Write any journaled operations before closing the database connection
+        applyReconcile(true);
+        boolean written = journal.close();
+        if (!written) {
+            System.err.println(lang.getString("operation_failed"));
+        }
+        saveSnapshot();
         scanner.close();
         dbManager.closeConnection();
         System.out.println(lang.getString("operation_successful"));
     }
     
+    /**
+     * Prints the operation metrics of the database manager and the state of the
+     * background services, and refreshes the Prometheus metrics file.
+     */
+    private void showMetrics() {
+        OperationMetrics metrics = dbManager.getMetrics();
+        System.out.println("\n" + lang.getString("menu_metrics"));
+        System.out.println("=".repeat(30));
+        System.out.print(metrics.getReport());
+        System.out.println();
+        System.out.println("Error log: " + ErrorLog.shared().getStats());
+        System.out.println("Languages: " + CatalogCache.shared().getStats());
+        System.out.println("Journaled operations: " + journal.size()
+                           + " (" + journal.getMergedCount() + " edits merged)");
+        System.out.println("Dead-lettered operations: " + journal.getDeadLetterCount());
+        
+        Path prometheus = Paths.get(OperationMetrics.DEFAULT_PROMETHEUS_PATH);
+        try {
+            metrics.writePrometheus(prometheus);
+            System.out.println("Metrics written to " + prometheus);
+        } catch (IOException e) {
+            dbManager.logError("Failed to write metrics", e);
+        }
+    }
+    
     /**
      * Displays the main menu options.
      */
@@ -150,9 +394,10 @@ public class CLI {
         System.out.println("2. " + lang.getString("menu_manage_locations"));
         System.out.println("3. " + lang.getString("menu_manage_supplies"));
         System.out.println("4. " + lang.getString("menu_manage_inquiries"));
-        System.out.println("5. " + lang.getString("menu_exit"));
+        System.out.println("5. " + lang.getString("menu_metrics"));
+        System.out.println("6. " + lang.getString("menu_exit"));
         System.out.println();
-        System.out.print(lang.getString("select_option", 5) + " ");
+        System.out.print(lang.getString("select_option", 6) + " ");
     }
     
     /**
@@ -178,6 +423,9 @@ public class CLI {
                     handlePerson(null); // Add new person
                     break;
                 case 2:
+                    // The startup reconcile updates loaded people in place on its own
+                    // thread, so edits wait until it has finished
+                    applyReconcile(true);
                     // Edit person - first select a person then edit
                     DisasterVictim personToEdit = selectPerson();
                     if (personToEdit != null) {
@@ -195,7 +443,8 @@ public class CLI {
     }
     
     /**
-     * Selects a person from the list.
+     * Selects a person by searching on their name.
+     * An empty search lists everyone.
      * 
      * @return The selected person or null if none
      */
@@ -203,23 +452,49 @@ public class CLI {
         System.out.println("\n" + lang.getString("select_person"));
         System.out.println("=".repeat(30));
         
-        // List all people
         if (persons.isEmpty()) {
             System.out.println(lang.getString("not_found"));
             waitForEnter();
             return null;
         }
         
-        for (int i = 0; i < persons.size(); i++) {
-            DisasterVictim person = persons.get(i);
+        // Narrow the list by name (case and accents are ignored)
+        System.out.print(lang.getString("search_person_prompt") + " ");
+        String search = scanner.nextLine().trim();
+        List<DisasterVictim> matches = search.isEmpty() ? persons.getAll() : persons.findByName(search);
+        
+        // Fall back to similar-sounding or misspelled names, best match first
+        boolean fuzzy = matches.isEmpty() && !search.isEmpty();
+        if (fuzzy) {
+            for (VictimSearchEngine.Match match : personSearch.search(search)) {
+                matches.add(match.getVictim());
+            }
+            if (!matches.isEmpty()) {
+                System.out.println(lang.getString("similar_names"));
+            }
+        }
+        
+        if (matches.isEmpty()) {
+            System.out.println(lang.getString("not_found"));
+            waitForEnter();
+            return null;
+        }
+        
+        // A single fuzzy match is only a guess, so it is still listed for confirmation
+        if (matches.size() == 1 && !fuzzy) {
+            return matches.get(0);
+        }
+        
+        for (int i = 0; i < matches.size(); i++) {
+            DisasterVictim person = matches.get(i);
             System.out.println((i + 1) + ". " + person.getFirstName() + " " + 
                             (person.getLastName() != null ? person.getLastName() : ""));
         }
         
-        System.out.print(lang.getString("select_option", persons.size()) + " ");
-        int index = getIntInput(1, persons.size()) - 1;
+        System.out.print(lang.getString("select_option", matches.size()) + " ");
+        int index = getIntInput(1, matches.size()) - 1;
         
-        return persons.get(index);
+        return matches.get(index);
     }
     
     /**
@@ -336,6 +611,9 @@ public class CLI {
                 if (!dob.isEmpty()) {
                     person.setDateOfBirth(dob);
                 }
+                
+                // Names may have changed
+                persons.update(person);
             } else {
                 // Create new person
                 String entryDate = LocalDate.now().format(DateTimeFormatter.ISO_DATE);
@@ -354,12 +632,12 @@ public class CLI {
                     person.setGender(gender);
                 }
                 
-                // Add to list
+                // Add to registry
                 persons.add(person);
             }
             
-            // Save to database
-            boolean saved = dbManager.savePerson(person);
+            // Journal the save; it is on disk now and written in the background
+            boolean saved = journal.savePerson(person);
             
             if (saved) {
                 System.out.println(lang.getString("operation_successful"));
@@ -0,0 +1,348 @@
+package edu.ucalgary.oop;
+
+import java.io.IOException;
+import java.nio.file.ClosedWatchServiceException;
+import java.nio.file.FileSystems;
+import java.nio.file.Path;
+import java.nio.file.StandardWatchEventKinds;
+import java.nio.file.WatchEvent;
+import java.nio.file.WatchKey;
+import java.nio.file.WatchService;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Holds each loaded language catalog once for the whole process, so every
+ * desk's LanguageManager shares it instead of loading its own copy.
+ *
+ * The cache is a copy-on-write map from language file to Entry: readers see
+ * an immutable map without locking, and loading a new language publishes a
+ * copy with one more entry. Reloading a language swaps the catalog inside
+ * its Entry, so LanguageManagers holding the Entry see the new text on
+ * their next lookup.
+ *
+ * Once startWatching() is called, a background thread watches the
+ * directories of the loaded files and reloads a language whenever its XML
+ * is created or modified. A reload that fails or finds no translations
+ * keeps the previous catalog.
+ *
+ * @author Devante Kwizera
+ * @version 1.0
+ * @since 2025-04-18
+ */
+public final class CatalogCache {
+    // Events arriving this soon after the first are merged into one reload
+    private static final long SETTLE_MILLIS = 50;
+
+    private static final CatalogCache SHARED = new CatalogCache();
+
+    private final AtomicReference<Map<Path, Entry>> entries =
+        new AtomicReference<>(Collections.<Path, Entry>emptyMap());
+    private final ConcurrentHashMap<String, LongAdder> misses = new ConcurrentHashMap<>();
+    private final AtomicLong reloadCount = new AtomicLong();
+    private final AtomicLong failedReloadCount = new AtomicLong();
+    private final AtomicLong totalReloadNanos = new AtomicLong();
+    private final AtomicLong lastReloadNanos = new AtomicLong();
+    private final AtomicLong maxReloadNanos = new AtomicLong();
+
+    private WatchService watcher;
+    private Thread watcherThread;
+    private final Set<Path> watchedDirectories = new HashSet<>();
+
+    CatalogCache() {
+    }
+
+    /**
+     * @return the cache shared by every LanguageManager in the process
+     */
+    public static CatalogCache shared() {
+        return SHARED;
+    }
+
+    /**
+     * A loaded language. The catalog it holds is replaced when the language is reloaded.
+     */
+    public static final class Entry {
+        private final Path file;
+        private final String language;
+        private volatile TranslationCatalog catalog;
+
+        private Entry(Path file, TranslationCatalog catalog) {
+            this.file = file;
+            String name = file.getFileName().toString();
+            this.language = name.endsWith(".xml") ? name.substring(0, name.length() - 4) : name;
+            this.catalog = catalog;
+        }
+
+        public Path getFile() {
+            return file;
+        }
+
+        /**
+         * @return the language code, the file name without .xml
+         */
+        public String getLanguage() {
+            return language;
+        }
+
+        /**
+         * @return the current catalog of the language
+         */
+        public TranslationCatalog getCatalog() {
+            return catalog;
+        }
+    }
+
+    // ---------- Loading ---------- //
+
+    /**
+     * Gets the loaded language, loading it first if no desk has used it yet.
+     * Concurrent first loads of the same file load it once.
+     *
+     * @param xml The language file
+     * @return The entry of the language
+     * @throws IOException if the language file cannot be read
+     */
+    public Entry get(Path xml) throws IOException {
+        Path file = xml.toAbsolutePath().normalize();
+        Entry entry = entries.get().get(file);
+        if (entry != null) {
+            return entry;
+        }
+
+        synchronized (this) {
+            entry = entries.get().get(file);
+            if (entry != null) {
+                return entry;
+            }
+            entry = new Entry(file, TranslationCatalog.load(file));
+            Map<Path, Entry> copy = new HashMap<>(entries.get());
+            copy.put(file, entry);
+            entries.set(Collections.unmodifiableMap(copy));
+            if (watcher != null) {
+                watch(file.getParent());
+            }
+            return entry;
+        }
+    }
+
+    /**
+     * Reloads a loaded language from its XML and publishes the new catalog.
+     * Files that no desk has loaded are ignored.
+     *
+     * @param xml The language file
+     * @return true if a new catalog was published
+     */
+    public boolean reload(Path xml) {
+        Entry entry = entries.get().get(xml.toAbsolutePath().normalize());
+        if (entry == null) {
+            return false;
+        }
+
+        long start = System.nanoTime();
+        TranslationCatalog catalog;
+        try {
+            catalog = TranslationCatalog.load(entry.file);
+        } catch (IOException e) {
+            failedReloadCount.incrementAndGet();
+            System.err.println("Could not reload language file " + entry.file + ": " + e.getMessage());
+            return false;
+        }
+        if (catalog.isEmpty()) {
+            // Most likely caught mid-save; the next event brings the complete file
+            failedReloadCount.incrementAndGet();
+            return false;
+        }
+        entry.catalog = catalog;
+
+        long elapsed = System.nanoTime() - start;
+        reloadCount.incrementAndGet();
+        totalReloadNanos.addAndGet(elapsed);
+        lastReloadNanos.set(elapsed);
+        maxReloadNanos.accumulateAndGet(elapsed, Math::max);
+        return true;
+    }
+
+    /**
+     * @return the number of loaded languages
+     */
+    public int size() {
+        return entries.get().size();
+    }
+
+    // ---------- Watching ---------- //
+
+    /**
+     * Starts reloading languages when their files change. Calling it again while
+     * watching has no effect.
+     *
+     * @return true if the cache is watching for changes
+     */
+    public synchronized boolean startWatching() {
+        if (watcher != null) {
+            return true;
+        }
+        try {
+            watcher = FileSystems.getDefault().newWatchService();
+        } catch (IOException e) {
+            System.err.println("Could not watch language files: " + e.getMessage());
+            return false;
+        }
+        for (Path file : entries.get().keySet()) {
+            watch(file.getParent());
+        }
+        WatchService service = watcher;
+        watcherThread = new Thread(() -> watchLoop(service), "catalog-watcher");
+        watcherThread.setDaemon(true);
+        watcherThread.start();
+        return true;
+    }
+
+    /**
+     * Stops watching for changes. Loaded languages are kept.
+     */
+    public synchronized void stopWatching() {
+        if (watcher == null) {
+            return;
+        }
+        try {
+            watcher.close();
+        } catch (IOException e) {
+            System.err.println("Could not stop watching language files: " + e.getMessage());
+        }
+        watcherThread.interrupt();
+        watcher = null;
+        watcherThread = null;
+        watchedDirectories.clear();
+    }
+
+    private void watch(Path directory) {
+        if (directory == null || !watchedDirectories.add(directory)) {
+            return;
+        }
+        try {
+            directory.register(watcher, StandardWatchEventKinds.ENTRY_CREATE, StandardWatchEventKinds.ENTRY_MODIFY);
+        } catch (IOException e) {
+            watchedDirectories.remove(directory);
+            System.err.println("Could not watch " + directory + ": " + e.getMessage());
+        }
+    }
+
+    private void watchLoop(WatchService service) {
+        try {
+            while (true) {
+                WatchKey key = service.take();
+                // Editors write a file in several steps; wait for them to settle and reload once
+                Thread.sleep(SETTLE_MILLIS);
+                Set<Path> changed = new LinkedHashSet<>();
+                while (key != null) {
+                    collect(key, changed);
+                    key = service.poll();
+                }
+                for (Path file : changed) {
+                    reload(file);
+                }
+            }
+        } catch (InterruptedException | ClosedWatchServiceException e) {
+            // Stopped
+        }
+    }
+
+    private static void collect(WatchKey key, Set<Path> changed) {
+        Path directory = (Path) key.watchable();
+        for (WatchEvent<?> event : key.pollEvents()) {
+            if (event.kind() == StandardWatchEventKinds.OVERFLOW) {
+                continue;
+            }
+            Path name = (Path) event.context();
+            if (name.toString().endsWith(".xml")) {
+                changed.add(directory.resolve(name));
+            }
+        }
+        key.reset();
+    }
+
+    // ---------- Metrics ---------- //
+
+    /**
+     * Counts a lookup of a key the language has no translation for.
+     *
+     * @param language The language code
+     * @param key The missing key
+     */
+    public void recordMiss(String language, String key) {
+        misses.computeIfAbsent(language + ":" + key, k -> new LongAdder()).increment();
+    }
+
+    /**
+     * @return the number of lookups of missing keys
+     */
+    public long getMissCount() {
+        long total = 0;
+        for (LongAdder count : misses.values()) {
+            total += count.sum();
+        }
+        return total;
+    }
+
+    /**
+     * @return lookups of missing keys per "language:key", sorted by key
+     */
+    public Map<String, Long> getMissCounts() {
+        Map<String, Long> counts = new TreeMap<>();
+        for (Map.Entry<String, LongAdder> miss : misses.entrySet()) {
+            counts.put(miss.getKey(), miss.getValue().sum());
+        }
+        return counts;
+    }
+
+    public long getReloadCount() {
+        return reloadCount.get();
+    }
+
+    public long getFailedReloadCount() {
+        return failedReloadCount.get();
+    }
+
+    /**
+     * @return the time the last reload took, in milliseconds
+     */
+    public double getLastReloadMillis() {
+        return lastReloadNanos.get() / 1_000_000.0;
+    }
+
+    /**
+     * @return the longest time a reload took, in milliseconds
+     */
+    public double getMaxReloadMillis() {
+        return maxReloadNanos.get() / 1_000_000.0;
+    }
+
+    /**
+     * @return the average time a reload took, in milliseconds
+     */
+    public double getAverageReloadMillis() {
+        long reloads = reloadCount.get();
+        return reloads == 0 ? 0.0 : totalReloadNanos.get() / (reloads * 1_000_000.0);
+    }
+
+    /**
+     * @return a one-line summary of the cache metrics
+     */
+    public String getStats() {
+        return String.format("languages=%d reloads=%d failed=%d lastReload=%.2fms maxReload=%.2fms " +
+                             "avgReload=%.2fms misses=%d",
+                             size(), getReloadCount(), getFailedReloadCount(), getLastReloadMillis(),
+                             getMaxReloadMillis(), getAverageReloadMillis(), getMissCount());
+    }
+
+}
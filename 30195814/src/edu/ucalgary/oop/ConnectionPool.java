@@ -0,0 +1,649 @@
+package edu.ucalgary.oop;
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Deque;
+import java.util.IdentityHashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * A bounded, thread-safe pool of JDBC connections.
+ * Connections are validated when borrowed, idle connections are evicted after
+ * a timeout, and basic metrics (active, idle, wait time) are tracked.
+ * Borrowed connections are returned to the pool by calling close() on them.
+ *
+ * Each physical connection keeps its own LRU cache of prepared statements,
+ * keyed by SQL text, so code that prepares the same SQL on every call (as
+ * DatabaseManager does) gets the statement the server already parsed and
+ * planned. Closing a cached statement clears its parameters and returns it
+ * to the cache; it is only really closed when it is evicted or its
+ * connection is. A statement on loan is never handed out twice, so the same
+ * SQL can be prepared again while an earlier statement for it is still open.
+ *
+ * @author Devante Kwizera
+ * @version 1.0
+ * @since 2025-04-15
+ */
+public class ConnectionPool {
+    public static final int DEFAULT_MAX_SIZE = 8;
+    public static final long DEFAULT_BORROW_TIMEOUT_MILLIS = 5000;
+    public static final long DEFAULT_IDLE_TIMEOUT_MILLIS = 60000;
+    public static final int DEFAULT_STATEMENT_CACHE_SIZE = 64;
+    private static final int VALIDATION_TIMEOUT_SECONDS = 2;
+
+    private final String url;
+    private final String username;
+    private final String password;
+    private final int maxSize;
+    private final long borrowTimeoutMillis;
+    private final long idleTimeoutMillis;
+    private final int statementCacheSize;
+
+    private final Semaphore permits;
+    private final Deque<IdleConnection> idle = new ArrayDeque<>();
+    // Keyed by the physical connection; identity, since drivers may override equals()
+    private final Map<Connection, StatementCache> statementCaches =
+        Collections.synchronizedMap(new IdentityHashMap<Connection, StatementCache>());
+    private final ScheduledExecutorService evictor;
+    private volatile boolean closed = false;
+    private volatile boolean lastOpenFailed = false;
+
+    private final AtomicInteger activeCount = new AtomicInteger();
+    private final AtomicLong borrowCount = new AtomicLong();
+    private final AtomicLong failedBorrowCount = new AtomicLong();
+    private final AtomicLong createdCount = new AtomicLong();
+    private final AtomicLong evictedCount = new AtomicLong();
+    private final AtomicLong validationFailures = new AtomicLong();
+    private final AtomicLong totalWaitNanos = new AtomicLong();
+    private final AtomicLong maxWaitNanos = new AtomicLong();
+    private final AtomicLong statementHits = new AtomicLong();
+    private final AtomicLong statementMisses = new AtomicLong();
+    private final AtomicLong statementEvictions = new AtomicLong();
+
+    /**
+     * Creates a pool with default size and timeouts. The statement cache holds
+     * the number of statements per connection given by the db.statementCacheSize
+     * system property, 64 by default; 0 turns it off.
+     *
+     * @param url JDBC URL
+     * @param username Database user
+     * @param password Database password
+     * @throws IllegalArgumentException if db.statementCacheSize is negative
+     */
+    public ConnectionPool(String url, String username, String password) throws IllegalArgumentException {
+        this(url, username, password, DEFAULT_MAX_SIZE, DEFAULT_BORROW_TIMEOUT_MILLIS, DEFAULT_IDLE_TIMEOUT_MILLIS,
+             Integer.getInteger("db.statementCacheSize", DEFAULT_STATEMENT_CACHE_SIZE));
+    }
+
+    /**
+     * Creates a pool with explicit limits.
+     *
+     * @param url JDBC URL
+     * @param username Database user
+     * @param password Database password
+     * @param maxSize Maximum number of open connections
+     * @param borrowTimeoutMillis How long borrow() waits for a free connection
+     * @param idleTimeoutMillis How long an unused connection stays open
+     * @throws IllegalArgumentException if a limit is not positive
+     */
+    public ConnectionPool(String url, String username, String password, int maxSize,
+                          long borrowTimeoutMillis, long idleTimeoutMillis) {
+        this(url, username, password, maxSize, borrowTimeoutMillis, idleTimeoutMillis, DEFAULT_STATEMENT_CACHE_SIZE);
+    }
+
+    /**
+     * Creates a pool with explicit limits and statement cache size.
+     *
+     * @param url JDBC URL
+     * @param username Database user
+     * @param password Database password
+     * @param maxSize Maximum number of open connections
+     * @param borrowTimeoutMillis How long borrow() waits for a free connection
+     * @param idleTimeoutMillis How long an unused connection stays open
+     * @param statementCacheSize Prepared statements cached per connection, 0 for none
+     * @throws IllegalArgumentException if a limit is not positive or the cache size is negative
+     */
+    public ConnectionPool(String url, String username, String password, int maxSize,
+                          long borrowTimeoutMillis, long idleTimeoutMillis, int statementCacheSize) {
+        if (maxSize <= 0 || borrowTimeoutMillis <= 0 || idleTimeoutMillis <= 0) {
+            throw new IllegalArgumentException("Pool size and timeouts must be positive");
+        }
+        if (statementCacheSize < 0) {
+            throw new IllegalArgumentException("Statement cache size cannot be negative: " + statementCacheSize);
+        }
+        this.statementCacheSize = statementCacheSize;
+        this.url = url;
+        this.username = username;
+        this.password = password;
+        this.maxSize = maxSize;
+        this.borrowTimeoutMillis = borrowTimeoutMillis;
+        this.idleTimeoutMillis = idleTimeoutMillis;
+        this.permits = new Semaphore(maxSize, true);
+
+        this.evictor = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread t = new Thread(r, "connection-pool-evictor");
+            t.setDaemon(true);
+            return t;
+        });
+        long period = Math.max(1000, idleTimeoutMillis / 2);
+        evictor.scheduleWithFixedDelay(this::evictIdle, period, period, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Borrows a connection, waiting up to the borrow timeout if the pool is exhausted.
+     * Idle connections are validated before being handed out.
+     *
+     * @return A connection that must be closed to return it to the pool
+     * @throws SQLException if the pool is closed, the wait times out, or no connection can be opened
+     */
+    public Connection borrow() throws SQLException {
+        if (closed) {
+            failedBorrowCount.incrementAndGet();
+            throw new SQLException("Connection pool is closed");
+        }
+
+        long start = System.nanoTime();
+        try {
+            if (!permits.tryAcquire(borrowTimeoutMillis, TimeUnit.MILLISECONDS)) {
+                failedBorrowCount.incrementAndGet();
+                throw new SQLException("Timed out after " + borrowTimeoutMillis +
+                                       " ms waiting for a database connection");
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            failedBorrowCount.incrementAndGet();
+            throw new SQLException("Interrupted while waiting for a database connection", e);
+        }
+        recordWait(System.nanoTime() - start);
+
+        try {
+            Connection physical = takeValidIdle();
+            if (physical == null) {
+                physical = open();
+            }
+            activeCount.incrementAndGet();
+            borrowCount.incrementAndGet();
+            return wrap(physical);
+        } catch (SQLException | RuntimeException e) {
+            permits.release();
+            failedBorrowCount.incrementAndGet();
+            throw e;
+        }
+    }
+
+    /**
+     * Closes all idle connections and rejects further borrows.
+     * Connections still on loan are closed when they are returned.
+     */
+    public void close() {
+        closed = true;
+        evictor.shutdownNow();
+        List<IdleConnection> toClose;
+        synchronized (idle) {
+            toClose = new ArrayList<>(idle);
+            idle.clear();
+        }
+        for (IdleConnection entry : toClose) {
+            discard(entry.connection);
+        }
+    }
+
+    /**
+     * Closes idle connections that have not been used within the idle timeout.
+     */
+    void evictIdle() {
+        long cutoff = System.currentTimeMillis() - idleTimeoutMillis;
+        List<Connection> expired = new ArrayList<>();
+        synchronized (idle) {
+            Iterator<IdleConnection> it = idle.iterator();
+            while (it.hasNext()) {
+                IdleConnection entry = it.next();
+                if (entry.lastUsed < cutoff) {
+                    it.remove();
+                    expired.add(entry.connection);
+                }
+            }
+        }
+        for (Connection connection : expired) {
+            evictedCount.incrementAndGet();
+            discard(connection);
+        }
+    }
+
+    // ---------- Metrics ---------- //
+
+    public boolean isClosed() { return closed; }
+    public int getMaxSize() { return maxSize; }
+    public int getActiveCount() { return activeCount.get(); }
+    public long getBorrowCount() { return borrowCount.get(); }
+    public long getFailedBorrowCount() { return failedBorrowCount.get(); }
+    public long getCreatedCount() { return createdCount.get(); }
+    public long getEvictedCount() { return evictedCount.get(); }
+    public long getValidationFailures() { return validationFailures.get(); }
+    public int getStatementCacheSize() { return statementCacheSize; }
+    public long getStatementCacheHits() { return statementHits.get(); }
+    public long getStatementCacheMisses() { return statementMisses.get(); }
+    public long getStatementCacheEvictions() { return statementEvictions.get(); }
+
+    /**
+     * @return the fraction of cacheable prepareStatement() calls served from the cache, 0 if there were none
+     */
+    public double getStatementCacheHitRatio() {
+        long hits = statementHits.get();
+        long total = hits + statementMisses.get();
+        return total == 0 ? 0.0 : (double) hits / total;
+    }
+
+    public int getIdleCount() {
+        synchronized (idle) {
+            return idle.size();
+        }
+    }
+
+    /**
+     * @return true if the pool is open and the most recent attempt to open a connection succeeded
+     */
+    public boolean isHealthy() {
+        return !closed && !lastOpenFailed;
+    }
+
+    /**
+     * @return the average time callers waited for a connection, in milliseconds
+     */
+    public double getAverageWaitMillis() {
+        long borrows = borrowCount.get();
+        return borrows == 0 ? 0.0 : totalWaitNanos.get() / (borrows * 1_000_000.0);
+    }
+
+    /**
+     * @return the longest time a caller waited for a connection, in milliseconds
+     */
+    public double getMaxWaitMillis() {
+        return maxWaitNanos.get() / 1_000_000.0;
+    }
+
+    /**
+     * @return a one-line summary of the pool metrics
+     */
+    public String getStats() {
+        return String.format("active=%d idle=%d max=%d borrows=%d failed=%d created=%d evicted=%d " +
+                             "invalid=%d avgWait=%.2fms maxWait=%.2fms stmtHits=%d stmtMisses=%d stmtEvicted=%d",
+                             getActiveCount(), getIdleCount(), maxSize, getBorrowCount(), getFailedBorrowCount(),
+                             getCreatedCount(), getEvictedCount(), getValidationFailures(),
+                             getAverageWaitMillis(), getMaxWaitMillis(), getStatementCacheHits(),
+                             getStatementCacheMisses(), getStatementCacheEvictions());
+    }
+
+    // ---------- Internals ---------- //
+
+    private Connection open() throws SQLException {
+        try {
+            Connection connection = DriverManager.getConnection(url, username, password);
+            if (statementCacheSize > 0) {
+                statementCaches.put(connection, new StatementCache(connection));
+            }
+            createdCount.incrementAndGet();
+            lastOpenFailed = false;
+            return connection;
+        } catch (SQLException e) {
+            lastOpenFailed = true;
+            throw e;
+        }
+    }
+
+    private Connection takeValidIdle() {
+        while (true) {
+            IdleConnection entry;
+            synchronized (idle) {
+                entry = idle.pollFirst();
+            }
+            if (entry == null) {
+                return null;
+            }
+            try {
+                if (entry.connection.isValid(VALIDATION_TIMEOUT_SECONDS)) {
+                    return entry.connection;
+                }
+            } catch (SQLException e) {
+                // Treat as invalid
+            }
+            validationFailures.incrementAndGet();
+            discard(entry.connection);
+        }
+    }
+
+    private void release(Connection physical) {
+        boolean reusable = !closed;
+        try {
+            if (reusable && !physical.isClosed()) {
+                if (!physical.getAutoCommit()) {
+                    physical.rollback();
+                    physical.setAutoCommit(true);
+                }
+            } else {
+                reusable = false;
+            }
+        } catch (SQLException e) {
+            reusable = false;
+        }
+
+        if (reusable) {
+            synchronized (idle) {
+                idle.addFirst(new IdleConnection(physical, System.currentTimeMillis()));
+            }
+        } else {
+            discard(physical);
+        }
+        activeCount.decrementAndGet();
+        permits.release();
+    }
+
+    private void recordWait(long nanos) {
+        totalWaitNanos.addAndGet(nanos);
+        maxWaitNanos.accumulateAndGet(nanos, Math::max);
+    }
+
+    private Connection wrap(Connection physical) {
+        return (Connection) Proxy.newProxyInstance(
+            Connection.class.getClassLoader(),
+            new Class<?>[] { Connection.class },
+            new PooledConnectionHandler(physical, statementCaches.get(physical)));
+    }
+
+    private void discard(Connection connection) {
+        StatementCache cache = statementCaches.remove(connection);
+        if (cache != null) {
+            cache.discard();
+        }
+        closeQuietly(connection);
+    }
+
+    private static void closeQuietly(Connection connection) {
+        try {
+            connection.close();
+        } catch (SQLException e) {
+            // Nothing useful to do with a failure to close a discarded connection
+        }
+    }
+
+    private static void closeQuietly(Statement statement) {
+        try {
+            statement.close();
+        } catch (SQLException e) {
+            // The statement is being thrown away either way
+        }
+    }
+
+    private static final class IdleConnection {
+        private final Connection connection;
+        private final long lastUsed;
+
+        private IdleConnection(Connection connection, long lastUsed) {
+            this.connection = connection;
+            this.lastUsed = lastUsed;
+        }
+    }
+
+    /**
+     * The SQL text and generated-keys mode a statement was prepared with.
+     */
+    private static final class StatementKey {
+        private final String sql;
+        // Statement.NO_GENERATED_KEYS or RETURN_GENERATED_KEYS
+        private final int generatedKeys;
+
+        private StatementKey(String sql, int generatedKeys) {
+            this.sql = sql;
+            this.generatedKeys = generatedKeys;
+        }
+
+        private PreparedStatement prepare(Connection physical) throws SQLException {
+            return generatedKeys == Statement.NO_GENERATED_KEYS ? physical.prepareStatement(sql)
+                                                                : physical.prepareStatement(sql, generatedKeys);
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (!(o instanceof StatementKey)) {
+                return false;
+            }
+            StatementKey other = (StatementKey) o;
+            return generatedKeys == other.generatedKeys && sql.equals(other.sql);
+        }
+
+        @Override
+        public int hashCode() {
+            return 31 * sql.hashCode() + generatedKeys;
+        }
+    }
+
+    /**
+     * The prepared statements of one physical connection that are not on loan,
+     * least recently returned first. Statements on loan are taken out of the
+     * map, so two callers never share one.
+     */
+    private final class StatementCache {
+        private final Connection physical;
+        private final LinkedHashMap<StatementKey, PreparedStatement> statements;
+        private boolean discarded = false;
+
+        private StatementCache(Connection physical) {
+            this.physical = physical;
+            this.statements = new LinkedHashMap<StatementKey, PreparedStatement>(16, 0.75f, true) {
+                @Override
+                protected boolean removeEldestEntry(Map.Entry<StatementKey, PreparedStatement> eldest) {
+                    if (size() <= statementCacheSize) {
+                        return false;
+                    }
+                    statementEvictions.incrementAndGet();
+                    closeQuietly(eldest.getValue());
+                    return true;
+                }
+            };
+        }
+
+        private PreparedStatement checkOut(StatementKey key) throws SQLException {
+            PreparedStatement statement;
+            synchronized (this) {
+                statement = statements.remove(key);
+            }
+            if (statement != null) {
+                statementHits.incrementAndGet();
+                return statement;
+            }
+            statementMisses.incrementAndGet();
+            return key.prepare(physical);
+        }
+
+        /**
+         * Takes a statement back, or closes it if its connection is gone or
+         * another statement for the same SQL was returned first.
+         */
+        private void checkIn(StatementKey key, PreparedStatement statement) {
+            PreparedStatement replaced;
+            synchronized (this) {
+                if (discarded) {
+                    replaced = statement;
+                } else {
+                    replaced = statements.put(key, statement);
+                }
+            }
+            if (replaced != null) {
+                closeQuietly(replaced);
+            }
+        }
+
+        // The physical connection is about to close, which closes its statements
+        private synchronized void discard() {
+            discarded = true;
+            statements.clear();
+        }
+    }
+
+    /**
+     * Routes calls to a cached statement until close() returns it to its cache.
+     * Changing a statement-wide setting such as the fetch size or query timeout
+     * marks it as not reusable, so the next caller always gets the defaults.
+     */
+    private static final class CachedStatementHandler implements InvocationHandler {
+        private final StatementCache cache;
+        private final StatementKey key;
+        private final PreparedStatement statement;
+        private final Connection connection;
+        private boolean closed = false;
+        private boolean reusable = true;
+        private boolean batched = false;
+
+        private CachedStatementHandler(StatementCache cache, StatementKey key, PreparedStatement statement,
+                                       Connection connection) {
+            this.cache = cache;
+            this.key = key;
+            this.statement = statement;
+            this.connection = connection;
+        }
+
+        @Override
+        public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+            switch (method.getName()) {
+                case "close":
+                    if (!closed) {
+                        closed = true;
+                        giveBack();
+                    }
+                    return null;
+                case "isClosed":
+                    return closed || statement.isClosed();
+                case "equals":
+                    return proxy == args[0];
+                case "hashCode":
+                    return System.identityHashCode(proxy);
+                case "toString":
+                    return "Cached[" + statement + "]";
+                default:
+                    break;
+            }
+            if (closed) {
+                throw new SQLException("Statement has already been closed");
+            }
+            if (method.getName().equals("getConnection")) {
+                return connection;
+            }
+            if (method.getName().equals("addBatch")) {
+                batched = true;
+            } else if (method.getDeclaringClass() == Statement.class &&
+                       (method.getName().startsWith("set") || method.getName().equals("closeOnCompletion"))) {
+                reusable = false;
+            }
+            try {
+                return method.invoke(statement, args);
+            } catch (InvocationTargetException e) {
+                throw e.getCause();
+            }
+        }
+
+        private void giveBack() {
+            if (reusable) {
+                try {
+                    statement.clearParameters();
+                    if (batched) {
+                        statement.clearBatch();
+                    }
+                    cache.checkIn(key, statement);
+                    return;
+                } catch (SQLException e) {
+                    // A statement that cannot be reset is not worth keeping
+                }
+            }
+            closeQuietly(statement);
+        }
+    }
+
+    /**
+     * Routes calls to the physical connection until close() hands it back to the pool.
+     * prepareStatement() with only SQL, or SQL and a generated-keys flag, is served
+     * from the connection's statement cache when it has one.
+     */
+    private final class PooledConnectionHandler implements InvocationHandler {
+        private final Connection physical;
+        private final StatementCache statements;
+        private boolean returned = false;
+
+        private PooledConnectionHandler(Connection physical, StatementCache statements) {
+            this.physical = physical;
+            this.statements = statements;
+        }
+
+        @Override
+        public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+            switch (method.getName()) {
+                case "close":
+                    if (!returned) {
+                        returned = true;
+                        release(physical);
+                    }
+                    return null;
+                case "isClosed":
+                    return returned || physical.isClosed();
+                case "equals":
+                    return proxy == args[0];
+                case "hashCode":
+                    return System.identityHashCode(proxy);
+                case "toString":
+                    return "Pooled[" + physical + "]";
+                default:
+                    break;
+            }
+            if (returned) {
+                throw new SQLException("Connection has already been returned to the pool");
+            }
+            if (statements != null && method.getName().equals("prepareStatement")) {
+                StatementKey key = cacheKey(args);
+                if (key != null) {
+                    PreparedStatement statement = statements.checkOut(key);
+                    return Proxy.newProxyInstance(
+                        PreparedStatement.class.getClassLoader(),
+                        new Class<?>[] { PreparedStatement.class },
+                        new CachedStatementHandler(statements, key, statement, (Connection) proxy));
+                }
+            }
+            try {
+                return method.invoke(physical, args);
+            } catch (InvocationTargetException e) {
+                throw e.getCause();
+            }
+        }
+
+        // Null for the overloads with result set options or key columns, which are not cached
+        private StatementKey cacheKey(Object[] args) {
+            if (args[0] == null) {
+                return null;
+            }
+            if (args.length == 1) {
+                return new StatementKey((String) args[0], Statement.NO_GENERATED_KEYS);
+            }
+            if (args.length == 2 && args[1] instanceof Integer) {
+                return new StatementKey((String) args[0], (Integer) args[1]);
+            }
+            return null;
+        }
+    }
+}
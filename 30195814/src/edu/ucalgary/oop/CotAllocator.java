@@ -0,0 +1,263 @@
+package edu.ucalgary.oop;
+
+import java.util.BitSet;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Tracks which cots are taken and hands out free ones.
+ * Each room has an occupancy bitmap with one bit per grid cell; grid names
+ * such as "G16" are a row letter A-Z followed by a column from 1 to the
+ * configured number of columns, and cell indexes run row by row.
+ * Finding a free cot is a word-at-a-time bitmap search instead of a scan
+ * over every supply, and claiming a taken cot is reported as a conflict.
+ *
+ * @author Devante Kwizera
+ * @version 1.0
+ * @since 2025-04-17
+ */
+public class CotAllocator {
+    public static final int DEFAULT_COLUMNS = 32;
+    private static final int ROWS = 26;
+    private static final Pattern GRID = Pattern.compile("([A-Z])(\\d+)");
+
+    private final int columns;
+    private final Map<Integer, BitSet> occupiedByRoom = new HashMap<>();
+    // Occupant per taken cell, keyed by room and cell; absent if the occupant is unknown
+    private final Map<Long, DisasterVictim> occupants = new HashMap<>();
+
+    /**
+     * Creates an allocator for rooms with DEFAULT_COLUMNS columns per row.
+     */
+    public CotAllocator() {
+        this(DEFAULT_COLUMNS);
+    }
+
+    /**
+     * @param columns Number of grid columns per row in every room
+     * @throws IllegalArgumentException if columns is not positive
+     */
+    public CotAllocator(int columns) throws IllegalArgumentException {
+        if (columns <= 0) {
+            throw new IllegalArgumentException("Number of columns must be positive: " + columns);
+        }
+        this.columns = columns;
+    }
+
+    /**
+     * Outcome of tryClaim().
+     */
+    public enum Claim {
+        /** The cot was free and is now taken by the victim */
+        TAKEN,
+        /** The victim already had the cot */
+        ALREADY_HELD,
+        /** Someone else has the cot */
+        CONFLICT
+    }
+
+    /**
+     * Marks a cot as taken by a victim.
+     *
+     * @param cot The cot
+     * @param victim The victim sleeping on it, or null if unknown
+     * @return true if the cot was free or already belongs to the victim, false on a conflict
+     * @throws IllegalArgumentException if the cot's grid is not valid
+     */
+    public boolean claim(Cot cot, DisasterVictim victim) throws IllegalArgumentException {
+        return tryClaim(cot.getRoom(), cot.getGrid(), victim) != Claim.CONFLICT;
+    }
+
+    /**
+     * Marks a grid cell as taken by a victim.
+     *
+     * @param room The room number
+     * @param grid The grid cell, e.g. "G16"
+     * @param victim The victim sleeping there, or null if unknown
+     * @return true if the cell was free or already belongs to the victim, false on a conflict
+     * @throws IllegalArgumentException if the grid is not valid
+     */
+    public boolean claim(int room, String grid, DisasterVictim victim) throws IllegalArgumentException {
+        return tryClaim(room, grid, victim) != Claim.CONFLICT;
+    }
+
+    /**
+     * Marks a cot as taken by a victim and reports whether this call took it,
+     * so a caller that fails later releases only a cot it took itself.
+     *
+     * @param cot The cot
+     * @param victim The victim sleeping on it, or null if unknown
+     * @return TAKEN if the cot was free, ALREADY_HELD if the victim had it, CONFLICT otherwise
+     * @throws IllegalArgumentException if the cot's grid is not valid
+     */
+    public Claim tryClaim(Cot cot, DisasterVictim victim) throws IllegalArgumentException {
+        return tryClaim(cot.getRoom(), cot.getGrid(), victim);
+    }
+
+    /**
+     * Marks a grid cell as taken by a victim and reports whether this call took it.
+     *
+     * @param room The room number
+     * @param grid The grid cell, e.g. "G16"
+     * @param victim The victim sleeping there, or null if unknown
+     * @return TAKEN if the cell was free, ALREADY_HELD if the victim had it, CONFLICT otherwise
+     * @throws IllegalArgumentException if the grid is not valid
+     */
+    public synchronized Claim tryClaim(int room, String grid, DisasterVictim victim) throws IllegalArgumentException {
+        int cell = cellIndex(grid);
+        BitSet occupied = occupied(room);
+        if (occupied.get(cell)) {
+            return victim != null && occupants.get(key(room, cell)) == victim ? Claim.ALREADY_HELD : Claim.CONFLICT;
+        }
+        take(room, cell, victim);
+        return Claim.TAKEN;
+    }
+
+    /**
+     * Gives a victim the free cot closest to a preferred cell, e.g. next to family.
+     * Distance is measured in cell order, so the cots beside the preferred one
+     * in the same row are tried first.
+     *
+     * @param room The room number
+     * @param grid The preferred grid cell
+     * @param victim The victim to give the cot to, or null
+     * @return The allocated cot, or null if the room is full
+     * @throws IllegalArgumentException if the grid is not valid
+     */
+    public synchronized Cot allocateNear(int room, String grid, DisasterVictim victim) throws IllegalArgumentException {
+        int preferred = cellIndex(grid);
+        BitSet occupied = occupied(room);
+
+        int after = occupied.nextClearBit(preferred);
+        int before = occupied.previousClearBit(preferred);
+        int cell;
+        if (after >= capacity()) {
+            cell = before;
+        } else if (before < 0 || after - preferred <= preferred - before) {
+            cell = after;
+        } else {
+            cell = before;
+        }
+        if (cell < 0) {
+            return null;
+        }
+
+        take(room, cell, victim);
+        return new Cot(room, gridName(cell), 1);
+    }
+
+    /**
+     * Gives a victim the first free cot in a room.
+     *
+     * @param room The room number
+     * @param victim The victim to give the cot to, or null
+     * @return The allocated cot, or null if the room is full
+     */
+    public Cot allocate(int room, DisasterVictim victim) {
+        return allocateNear(room, "A1", victim);
+    }
+
+    /**
+     * Frees a cot. Releasing a free cot has no effect.
+     *
+     * @param cot The cot to free
+     * @throws IllegalArgumentException if the cot's grid is not valid
+     */
+    public synchronized void release(Cot cot) throws IllegalArgumentException {
+        int cell = cellIndex(cot.getGrid());
+        BitSet occupied = occupiedByRoom.get(cot.getRoom());
+        if (occupied != null) {
+            occupied.clear(cell);
+        }
+        occupants.remove(key(cot.getRoom(), cell));
+    }
+
+    /**
+     * @param room The room number
+     * @param grid The grid cell
+     * @return true if nobody has the cot at that cell
+     * @throws IllegalArgumentException if the grid is not valid
+     */
+    public synchronized boolean isFree(int room, String grid) throws IllegalArgumentException {
+        BitSet occupied = occupiedByRoom.get(room);
+        return occupied == null || !occupied.get(cellIndex(grid));
+    }
+
+    /**
+     * @param room The room number
+     * @param grid The grid cell
+     * @return The victim on that cot, or null if it is free or the occupant is unknown
+     * @throws IllegalArgumentException if the grid is not valid
+     */
+    public synchronized DisasterVictim getOccupant(int room, String grid) throws IllegalArgumentException {
+        return occupants.get(key(room, cellIndex(grid)));
+    }
+
+    /**
+     * @param room The room number
+     * @return The number of free cells in the room
+     */
+    public synchronized int getFreeCount(int room) {
+        BitSet occupied = occupiedByRoom.get(room);
+        return capacity() - (occupied == null ? 0 : occupied.cardinality());
+    }
+
+    /**
+     * Frees every cot in every room.
+     */
+    public synchronized void clear() {
+        occupiedByRoom.clear();
+        occupants.clear();
+    }
+
+    /**
+     * @return The number of cells in each room
+     */
+    public int capacity() {
+        return ROWS * columns;
+    }
+
+    /**
+     * Converts a grid name to its cell index.
+     *
+     * @param grid A grid cell such as "G16"
+     * @return The cell index, row by row from "A1" = 0
+     * @throws IllegalArgumentException if the grid is not a row letter and a column in range
+     */
+    int cellIndex(String grid) throws IllegalArgumentException {
+        Matcher matcher = grid == null ? null : GRID.matcher(grid);
+        if (matcher == null || !matcher.matches()) {
+            throw new IllegalArgumentException("Invalid grid cell: " + grid);
+        }
+        int row = matcher.group(1).charAt(0) - 'A';
+        int column = Integer.parseInt(matcher.group(2));
+        if (column < 1 || column > columns) {
+            throw new IllegalArgumentException("Grid column must be between 1 and " + columns + ": " + grid);
+        }
+        return row * columns + column - 1;
+    }
+
+    /**
+     * Converts a cell index back to its grid name.
+     */
+    String gridName(int cell) {
+        return (char) ('A' + cell / columns) + String.valueOf(cell % columns + 1);
+    }
+
+    private BitSet occupied(int room) {
+        return occupiedByRoom.computeIfAbsent(room, r -> new BitSet(capacity()));
+    }
+
+    private void take(int room, int cell, DisasterVictim victim) {
+        occupied(room).set(cell);
+        if (victim != null) {
+            occupants.put(key(room, cell), victim);
+        }
+    }
+
+    private static long key(int room, int cell) {
+        return ((long) room << 32) | cell;
+    }
+}
@@ -2,85 +2,280 @@ package edu.ucalgary.oop;
 
 import java.sql.*;
 import java.time.LocalDate;
-import java.time.format.DateTimeFormatter;
-import java.io.FileWriter;
-import java.io.PrintWriter;
 import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Paths;
 import java.util.ArrayList;
+import java.util.Collection;
 import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
 import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
 
 /**
  * Handles all database operations for the disaster management system.
- * Manages connection, CRUD operations, and data loading/saving.
+ * Manages a shared connection pool, CRUD operations, and data loading/saving.
+ * Each operation borrows its own pooled connection, so one instance can be
+ * used safely from several threads.
  * 
  * @author [Devante Kwizera]
  * @version 1.0
  * @since 2025-04-13
  */
 public class DatabaseManager {
-    private Connection dbConnect;
-    private ResultSet results;
+    private final ConnectionPool pool;
+    private final OperationMetrics metrics;
+    private final DatabaseDialect dialect;
     private final String url;
     private final String username;
     private final String password;
-    private final String ERROR_LOG_PATH = "data/errorlog.txt";
+    private final ErrorLog errorLog = ErrorLog.shared();
+    public static final int DEFAULT_BATCH_SIZE = 100;
+    // Marks never pass the oldest open transaction (see DatabaseDialect.getSyncHorizonQuery());
+    // re-reading this window also catches rows stamped with the same time as the mark
+    public static final long SYNC_OVERLAP_MILLIS = 2000;
+    private static final String[] SYNC_TABLES = { "Person", "Location", "Supply", "Inquiry", "MedicalRecord" };
+
+    private static final String INSERT_PERSON_SQL =
+        "INSERT INTO Person (first_name, last_name, date_of_birth, gender, " +
+        "comments, phone_number, family_group) VALUES (?, ?, ?, ?, ?, ?, ?)";
+    private static final String UPDATE_PERSON_SQL =
+        "UPDATE Person SET first_name = ?, last_name = ?, date_of_birth = ?, " +
+        "gender = ?, comments = ?, phone_number = ?, family_group = ? " +
+        "WHERE person_id = ?";
+    private static final String INSERT_SUPPLY_SQL =
+        "INSERT INTO Supply (type, comments, room, grid) VALUES (?, ?, ?, ?)";
+    // Adds stock to one ledger row, creating it if needed
+    private static final String UPSERT_LEDGER_SQL =
+        "INSERT INTO InventoryLedger (location_id, supply_type, quantity) VALUES (?, ?, ?) " +
+        "ON CONFLICT (location_id, supply_type) DO UPDATE SET quantity = InventoryLedger.quantity + EXCLUDED.quantity";
+    // Takes stock from one ledger row only if enough is left, so concurrent desks cannot over-allocate
+    private static final String TAKE_LEDGER_SQL =
+        "UPDATE InventoryLedger SET quantity = quantity - ? " +
+        "WHERE location_id = ? AND supply_type = ? AND quantity >= ?";
+
+    // Only the columns the mappers read, so queries never drag along unused data
+    static final String PERSON_COLUMNS =
+        "person_id, first_name, last_name, date_of_birth, gender, comments, family_group";
+    static final String LOCATION_COLUMNS = "location_id, name, address";
+    static final String SUPPLY_COLUMNS = "supply_id, type, comments, room, grid";
+    static final String INQUIRY_COLUMNS =
+        "inquiry_id, inquirer_id, seeking_id, location_id, date_of_inquiry, comments";
+    static final String MEDICAL_RECORD_COLUMNS =
+        "medical_record_id, person_id, location_id, date_of_treatment, treatment_details";
+
+    // Loaded and saved entities by primary key, so saves never look IDs up again
+    private final IdentityMap<DisasterVictim> personsById = new IdentityMap<>();
+    private final IdentityMap<Location> locationsById = new IdentityMap<>();
+    private final IdentityMap<Supply> suppliesById = new IdentityMap<>();
+    private volatile int batchSize = DEFAULT_BATCH_SIZE;
+    private volatile boolean appliedOperationTableChecked = false;
+
+    // Newest updated_at seen per table, and the append-only rows already in memory
+    private final Map<String, Timestamp> syncMarks = new ConcurrentHashMap<>();
+    private final Set<Integer> loadedInquiryIds = ConcurrentHashMap.newKeySet();
+    private final Set<Integer> loadedMedicalRecordIds = ConcurrentHashMap.newKeySet();
+    private final WaterExpirySweeper waterExpiry;
+    private final CotAllocator cots = new CotAllocator();
+    private final AllocationService allocations = new AllocationService(this);
 
     /**
-     * Constructor with default PostgreSQL connection settings
+     * Constructor with the connection settings given by the db.url, db.user and
+     * db.password system properties, defaulting to the shared PostgreSQL server.
+     * Run with -Ddb.url=jdbc:sqlite:data/shelter.db to work offline on an embedded database.
      */
     public DatabaseManager() {
-        this.url = "jdbc:postgresql://localhost:5432/ensf380project";
-        this.username = "oop";
-        this.password = "ucalgary";
+        this(System.getProperty("db.url", "jdbc:postgresql://localhost:5432/ensf380project"));
+    }
+
+    /**
+     * Constructor for a database URL, with the user and password from the
+     * db.user and db.password system properties (ignored by SQLite)
+     * 
+     * @param url JDBC URL of the database, jdbc:postgresql: or jdbc:sqlite:
+     * @throws IllegalArgumentException if the URL is not for a supported engine
+     */
+    public DatabaseManager(String url) throws IllegalArgumentException {
+        this(url, System.getProperty("db.user", "oop"), System.getProperty("db.password", "ucalgary"));
+    }
+
+    /**
+     * Constructor for another database, e.g. a scratch copy for benchmarks
+     * 
+     * @param url JDBC URL of the database, jdbc:postgresql: or jdbc:sqlite:
+     * @param username Database user
+     * @param password Database password
+     * @throws IllegalArgumentException if the URL is not for a supported engine
+     */
+    public DatabaseManager(String url, String username, String password) throws IllegalArgumentException {
+        this.dialect = DatabaseDialect.forUrl(url);
+        this.url = dialect.tuneUrl(url);
+        this.username = username;
+        this.password = password;
+        this.pool = new ConnectionPool(this.url, username, password);
+        this.metrics = new OperationMetrics(pool);
+        this.waterExpiry = new WaterExpirySweeper(this, pool);
     }
 
     /**
-     * Creates a connection to the database
+     * Verifies that the pool can hand out a working connection.
+     * Connections are otherwise opened on demand by each operation.
+     * A new embedded database is given its tables first.
      * 
      * @return true if connection successful, false otherwise
      */
     public boolean createConnection() {
-        try {
-            dbConnect = DriverManager.getConnection(url, username, password);
-            return true;
-        } catch (SQLException e) {
+        try (Connection conn = pool.borrow()) {
+            if (dialect.isEmbedded()) {
+                createSchemaIfMissing(conn);
+            }
+            return !conn.isClosed();
+        } catch (SQLException | IOException e) {
             logError("Failed to connect to database", e);
             return false;
         }
     }
 
     /**
-     * Closes the database connection
+     * Runs the dialect's schema script if the database has no Person table yet.
+     * Statements end with a semicolon at the end of a line, except inside
+     * trigger bodies, which end with a line "END;".
      */
-    public void closeConnection() {
-        try {
-            if (dbConnect != null) {
-                dbConnect.close();
+    private void createSchemaIfMissing(Connection conn) throws SQLException, IOException {
+        DatabaseMetaData meta = conn.getMetaData();
+        try (ResultSet tables = meta.getTables(null, null, "Person", new String[] { "TABLE" })) {
+            if (tables.next()) {
+                return;
+            }
+        }
+
+        List<String> statements = new ArrayList<>();
+        StringBuilder statement = new StringBuilder();
+        for (String line : Files.readAllLines(Paths.get(dialect.getSchemaFile()), StandardCharsets.UTF_8)) {
+            String trimmed = line.trim();
+            if (trimmed.isEmpty() || trimmed.startsWith("--")) {
+                continue;
+            }
+            statement.append(line).append('\n');
+            boolean inTrigger = statement.toString().trim().toUpperCase().startsWith("CREATE TRIGGER");
+            if (inTrigger ? trimmed.equalsIgnoreCase("END;") : trimmed.endsWith(";")) {
+                statements.add(statement.toString());
+                statement.setLength(0);
             }
+        }
+
+        conn.setAutoCommit(false);
+        try (Statement stmt = conn.createStatement()) {
+            for (String sql : statements) {
+                stmt.execute(sql);
+            }
+            conn.commit();
         } catch (SQLException e) {
-            logError("Failed to close database connection", e);
+            conn.rollback();
+            throw e;
         }
     }
 
     /**
-     * Logs an error to the error log file
+     * @return The engine this manager is connected to
+     */
+    public DatabaseDialect getDialect() {
+        return dialect;
+    }
+
+    /**
+     * Stops the water expiry sweeps and the metrics export, and closes the connection
+     * pool and all idle connections
+     */
+    public void closeConnection() {
+        waterExpiry.stop();
+        metrics.close();
+        pool.close();
+    }
+
+    /**
+     * Gets the connection pool used by this manager, e.g. to report its metrics
+     * 
+     * @return The connection pool
+     */
+    public ConnectionPool getConnectionPool() {
+        return pool;
+    }
+
+    /**
+     * Gets the latency histograms and counters of this manager's operations
+     * 
+     * @return The operation metrics
+     */
+    public OperationMetrics getMetrics() {
+        return metrics;
+    }
+
+    /**
+     * Gets the sweeper that retires expired water; call start() on it to sweep in the background
+     * 
+     * @return The water expiry sweeper
+     */
+    public WaterExpirySweeper getWaterExpirySweeper() {
+        return waterExpiry;
+    }
+
+    /**
+     * Gets the cot occupancy loaded by loadAllData() and kept current by allocateSupply()
+     * 
+     * @return The cot allocator
+     */
+    public CotAllocator getCotAllocator() {
+        return cots;
+    }
+
+    /**
+     * Gets the service that allocateSupply() hands stock at saved locations to,
+     * whose reservation counters are shared by every desk using this manager
+     * 
+     * @return The allocation service
+     */
+    public AllocationService getAllocationService() {
+        return allocations;
+    }
+
+    /**
+     * Logs an error to the error log file. Returns at once; the shared ErrorLog
+     * writes the record on its own thread.
      * 
      * @param message Error message
      * @param e Exception that occurred
      */
     public void logError(String message, Exception e) {
-        try (FileWriter fw = new FileWriter(ERROR_LOG_PATH, true);
-             PrintWriter pw = new PrintWriter(fw)) {
-            
-            String timestamp = LocalDate.now() + " " + java.time.LocalTime.now();
-            pw.println("[" + timestamp + "] " + message + ": " + e.getMessage());
-            e.printStackTrace(pw);
-            pw.println("-------------------------");
-            
-        } catch (IOException ioEx) {
-            System.err.println("Failed to write to error log: " + ioEx.getMessage());
-        }
+        errorLog.log(message, e);
+    }
+
+    /**
+     * Logs an error about one database record to the error log file
+     * 
+     * @param message Error message
+     * @param e Exception that occurred
+     * @param entityId Database ID of the record, or 0 if it has none yet
+     */
+    public void logError(String message, Exception e, int entityId) {
+        errorLog.log(message, e, entityId > 0 ? entityId : ErrorLog.NO_ENTITY);
+    }
+
+    private void recordRead(String operation, long start, boolean succeeded, int rows) {
+        metrics.addRowsRead(operation, rows);
+        metrics.record(operation, start, succeeded);
+    }
+
+    // A single-entity save writes one row when it succeeds
+    private void recordWrite(String operation, long start, boolean succeeded) {
+        metrics.addRowsWritten(operation, succeeded ? 1 : 0);
+        metrics.record(operation, start, succeeded);
     }
 
     /**
@@ -89,33 +284,33 @@ public class DatabaseManager {
      * @return true if connected, false otherwise
      */
     public boolean isConnected() {
-        try {
-            return dbConnect != null && !dbConnect.isClosed();
-        } catch (SQLException e) {
-            return false;
-        }
+        return pool.isHealthy();
     }
 
     /**
-     * Removes expired water supplies from the database
+     * Removes water allocations that expired while the system was not running.
+     * Later expiries are handled by the WaterExpirySweeper.
      */
     public void removeExpiredWater() {
-        if (!isConnected() && !createConnection()) {
-            return;
-        }
-
         LocalDate yesterday = LocalDate.now().minusDays(1);
         String sql = "DELETE FROM SupplyAllocation WHERE supply_id IN " +
                      "(SELECT supply_id FROM Supply WHERE type = 'water') " +
                      "AND person_id IS NOT NULL " +
                      "AND allocation_date < ?";
 
-        try (PreparedStatement stmt = dbConnect.prepareStatement(sql)) {
+        long start = metrics.start();
+        boolean succeeded = false;
+        try (Connection conn = pool.borrow();
+             PreparedStatement stmt = conn.prepareStatement(sql)) {
             stmt.setDate(1, java.sql.Date.valueOf(yesterday));
             int rowsAffected = stmt.executeUpdate();
+            metrics.addRowsWritten("removeExpiredWater", rowsAffected);
+            succeeded = true;
             System.out.println("Removed " + rowsAffected + " expired water supplies");
         } catch (SQLException e) {
             logError("Failed to remove expired water", e);
+        } finally {
+            metrics.record("removeExpiredWater", start, succeeded);
         }
     }
 
@@ -125,58 +320,91 @@ public class DatabaseManager {
      * @return ArrayList of DisasterVictim objects
      */
     public ArrayList<DisasterVictim> loadPersons() {
+        long start = metrics.start();
+        boolean succeeded = true;
         ArrayList<DisasterVictim> persons = new ArrayList<>();
-        if (!isConnected() && !createConnection()) {
-            return persons;
-        }
 
-        String sql = "SELECT * FROM Person";
+        String sql = "SELECT " + PERSON_COLUMNS + " FROM Person";
 
-        try (Statement stmt = dbConnect.createStatement();
+        try (Connection conn = pool.borrow();
+             Statement stmt = conn.createStatement();
              ResultSet rs = stmt.executeQuery(sql)) {
             
             while (rs.next()) {
-                // Get person data from result set
-                String firstName = rs.getString("first_name");
-                String lastName = rs.getString("last_name");
-                Date dobDate = rs.getDate("date_of_birth");
-                String gender = rs.getString("gender");
-                String comments = rs.getString("comments");
-                String phone = rs.getString("phone_number");
-                int familyGroup = rs.getInt("family_group");
-                
-                // Create person using current date as entry date (not in DB schema)
-                String entryDate = LocalDate.now().format(DateTimeFormatter.ISO_DATE);
-                DisasterVictim person = new DisasterVictim(firstName, entryDate);
-                
-                // Set optional fields
-                if (lastName != null) {
-                    person.setLastName(lastName);
-                }
-                
-                if (dobDate != null) {
-                    person.setDateOfBirth(dobDate.toString());
-                }
-                
-                if (gender != null) {
-                    person.setGender(gender);
-                }
-                
-                if (comments != null) {
-                    person.setComments(comments);
-                }
-                
-                // TODO: Handle family group loading
-                
+                DisasterVictim person = mapPerson(rs);
+                register(person);
                 persons.add(person);
             }
         } catch (SQLException e) {
+            succeeded = false;
             logError("Failed to load persons", e);
         }
         
+        recordRead("loadPersons", start, succeeded, persons.size());
         return persons;
     }
 
+    /**
+     * Builds a DisasterVictim from the current row of a Person result set
+     * 
+     * @param rs Result set positioned on a Person row
+     * @return The mapped DisasterVictim
+     * @throws SQLException if a column cannot be read
+     */
+    static DisasterVictim mapPerson(ResultSet rs) throws SQLException {
+        // Create person using current date as entry date (not in DB schema)
+        DisasterVictim person = new DisasterVictim(rs.getString("first_name"), Dates.today());
+        person.setDatabaseId(rs.getInt("person_id"));
+        applyPersonRow(rs, person);
+        return person;
+    }
+
+    /**
+     * Copies the columns of a Person row onto an existing victim.
+     * A missing date of birth or gender leaves the victim's value alone,
+     * since neither can be cleared once set.
+     * 
+     * @param rs Result set positioned on a Person row
+     * @param person The victim to update
+     * @return true if any field changed
+     * @throws SQLException if a column cannot be read
+     */
+    static boolean applyPersonRow(ResultSet rs, DisasterVictim person) throws SQLException {
+        String firstName = rs.getString("first_name");
+        String lastName = rs.getString("last_name");
+        int dateOfBirth = Dates.fromSqlDate(rs.getDate("date_of_birth"));
+        String gender = rs.getString("gender");
+        String comments = rs.getString("comments");
+        boolean changed = false;
+        
+        if (!Objects.equals(firstName, person.getFirstName())) {
+            person.setFirstName(firstName);
+            changed = true;
+        }
+        
+        if (!Objects.equals(lastName, person.getLastName())) {
+            person.setLastName(lastName);
+            changed = true;
+        }
+        
+        if (dateOfBirth != Dates.NONE && dateOfBirth != person.getDateOfBirthEpochDay()) {
+            person.setDateOfBirthEpochDay(dateOfBirth);
+            changed = true;
+        }
+        
+        if (gender != null && !gender.equalsIgnoreCase(person.getGender())) {
+            person.setGender(gender);
+            changed = true;
+        }
+        
+        if (!Objects.equals(comments, person.getComments())) {
+            person.setComments(comments);
+            changed = true;
+        }
+        
+        return changed;
+    }
+
  
     /**
      * Loads all locations from the database
@@ -184,88 +412,125 @@ public class DatabaseManager {
      * @return ArrayList of Location objects
      */
     public ArrayList<Location> loadLocations() {
+        long start = metrics.start();
+        boolean succeeded = true;
         ArrayList<Location> locations = new ArrayList<>();
-        if (!isConnected() && !createConnection()) {
-            return locations;
-        }
 
-        String sql = "SELECT * FROM Location";
+        String sql = "SELECT " + LOCATION_COLUMNS + " FROM Location";
 
-        try (Statement stmt = dbConnect.createStatement();
+        try (Connection conn = pool.borrow();
+             Statement stmt = conn.createStatement();
              ResultSet rs = stmt.executeQuery(sql)) {
             
             while (rs.next()) {
-                String name = rs.getString("name");
-                String address = rs.getString("address");
-                
-                Location location = new Location(name, address);
+                Location location = mapLocation(rs);
+                register(location);
                 locations.add(location);
             }
         } catch (SQLException e) {
+            succeeded = false;
             logError("Failed to load locations", e);
         }
         
+        recordRead("loadLocations", start, succeeded, locations.size());
         return locations;
     }
 
+    /**
+     * Builds a Location from the current row of a Location result set
+     * 
+     * @param rs Result set positioned on a Location row
+     * @return The mapped Location
+     * @throws SQLException if a column cannot be read
+     */
+    static Location mapLocation(ResultSet rs) throws SQLException {
+        String name = rs.getString("name");
+        String address = rs.getString("address");
+        
+        Location location = new Location(name, address);
+        location.setDatabaseId(rs.getInt("location_id"));
+        return location;
+    }
+
     /**
      * Loads all supplies from the database
      * 
      * @return ArrayList of Supply objects
      */
     public ArrayList<Supply> loadSupplies() {
+        long start = metrics.start();
+        boolean succeeded = true;
         ArrayList<Supply> supplies = new ArrayList<>();
-        if (!isConnected() && !createConnection()) {
-            return supplies;
-        }
 
-        String sql = "SELECT * FROM Supply";
+        String sql = "SELECT " + SUPPLY_COLUMNS + " FROM Supply";
 
-        try (Statement stmt = dbConnect.createStatement();
+        try (Connection conn = pool.borrow();
+             Statement stmt = conn.createStatement();
              ResultSet rs = stmt.executeQuery(sql)) {
             
             while (rs.next()) {
-                int supplyId = rs.getInt("supply_id");
-                String type = rs.getString("type");
-                String comments = rs.getString("comments");
-                
-                Supply supply;
-                
-                // Create appropriate supply type based on 'type' field
-                switch (type.toLowerCase()) {
-                    case "water":
-                        supply = new Water(LocalDate.now(), 1);
-                        break;
-                    case "blanket":
-                        supply = new Blanket(1);
-                        break;
-                    case "cot":
-                        // Parse room and grid from comments if available
-                        String room = "101";
-                        String grid = "A1";
-                        if (comments != null && comments.matches("\\d+ [A-Z]\\d+")) {
-                            String[] parts = comments.split(" ");
-                            room = parts[0];
-                            grid = parts[1];
-                        }
-                        supply = new Cot(Integer.parseInt(room), grid, 1);
-                        break;
-                    case "personal item":
-                        supply = new PersonalBelonging(comments != null ? comments : "Unknown", 1);
-                        break;
-                    default:
-                        supply = new Supply(type, 1);
-                }
-                
+                Supply supply = mapSupply(rs);
+                register(supply);
                 supplies.add(supply);
             }
         } catch (SQLException e) {
+            succeeded = false;
             logError("Failed to load supplies", e);
         }
         
+        recordRead("loadSupplies", start, succeeded, supplies.size());
         return supplies;
     }
 
+    /**
+     * Builds the appropriate Supply subclass from the current row of a Supply result set
+     * 
+     * @param rs Result set positioned on a Supply row
+     * @return The mapped Supply
+     * @throws SQLException if a column cannot be read
+     */
+    static Supply mapSupply(ResultSet rs) throws SQLException {
+        String type = rs.getString("type");
+        String comments = rs.getString("comments");
+        Supply supply;
+        
+        if ("cot".equalsIgnoreCase(type)) {
+            // Cots without a recorded position fall back to room 101, cell A1
+            int room = rs.getInt("room");
+            if (rs.wasNull()) {
+                room = 101;
+            }
+            String grid = rs.getString("grid");
+            supply = new Cot(room, grid != null ? grid : "A1", 1);
+        } else {
+            supply = createSupply(type, comments);
+        }
+        
+        supply.setDatabaseId(rs.getInt("supply_id"));
+        return supply;
+    }
+
+    /**
+     * Builds the Supply subclass for a type, for every type except cots
+     * 
+     * @param type The Supply.type value
+     * @param comments The Supply.comments value, may be null
+     * @return A supply with quantity 1 and no database ID
+     */
+    static Supply createSupply(String type, String comments) {
+        // Create appropriate supply type based on 'type' field
+        switch (type.toLowerCase()) {
+            case "water":
+                return new Water(LocalDate.now(), 1);
+            case "blanket":
+                return new Blanket(1);
+            case "personal item":
+                return new PersonalBelonging(comments != null ? comments : "Unknown", 1);
+            default:
+                return new Supply(type, 1);
+        }
+    }
+
     /**
      * Loads all inquiries from the database
      * 
@@ -275,57 +540,75 @@ public class DatabaseManager {
      */
     public ArrayList<ReliefService> loadInquiries(Map<Integer, DisasterVictim> persons, 
                                                   Map<Integer, Location> locations) {
+        long start = metrics.start();
+        boolean succeeded = true;
+        int rows = 0;
         ArrayList<ReliefService> inquiries = new ArrayList<>();
-        if (!isConnected() && !createConnection()) {
-            return inquiries;
-        }
 
-        String sql = "SELECT * FROM Inquiry";
+        String sql = "SELECT " + INQUIRY_COLUMNS + " FROM Inquiry";
 
-        try (Statement stmt = dbConnect.createStatement();
+        try (Connection conn = pool.borrow();
+             Statement stmt = conn.createStatement();
              ResultSet rs = stmt.executeQuery(sql)) {
             
             while (rs.next()) {
-                int inquirerId = rs.getInt("inquirer_id");
-                int seekingId = rs.getInt("seeking_id");
-                int locationId = rs.getInt("location_id");
-                Timestamp inquiryDate = rs.getTimestamp("date_of_inquiry");
-                String comments = rs.getString("comments");
-                
-                // Skip if we don't have the referenced entities
-                if (!persons.containsKey(inquirerId) || 
-                    !persons.containsKey(seekingId) || 
-                    !locations.containsKey(locationId)) {
-                    continue;
+                rows++;
+                ReliefService inquiry = mapInquiry(rs, persons, locations);
+                if (inquiry != null) {
+                    markInquiryLoaded(rs.getInt("inquiry_id"));
+                    inquiries.add(inquiry);
                 }
-                
-                // Get the referenced entities
-                DisasterVictim inquirer = persons.get(inquirerId);
-                DisasterVictim seeking = persons.get(seekingId);
-                Location location = locations.get(locationId);
-                
-                // Create inquiry object
-                String dateStr = inquiryDate.toLocalDateTime().toLocalDate().toString();
-                
-                // Create inquirer object (can be a DisasterVictim or external Inquirer)
-                Inquirer inquirerObj = new Inquirer(inquirer.getFirstName(), 
-                                                    inquirer.getLastName(),
-                                                    "", // Phone number not in Person table
-                                                    comments != null ? comments : "");
-                
-                ReliefService inquiry = new ReliefService(
-                    inquirerObj, seeking, dateStr, 
-                    comments != null ? comments : "", location);
-                
-                inquiries.add(inquiry);
             }
         } catch (SQLException e) {
+            succeeded = false;
             logError("Failed to load inquiries", e);
         }
         
+        recordRead("loadInquiries", start, succeeded, rows);
         return inquiries;
     }
 
+    /**
+     * Builds a ReliefService from the current row of an Inquiry result set
+     * 
+     * @param rs Result set positioned on an Inquiry row
+     * @param persons Map of loaded persons by ID
+     * @param locations Map of loaded locations by ID
+     * @return The mapped inquiry, or null if a referenced entity is not loaded
+     * @throws SQLException if a column cannot be read
+     */
+    static ReliefService mapInquiry(ResultSet rs, Map<Integer, DisasterVictim> persons,
+                                    Map<Integer, Location> locations) throws SQLException {
+        int inquirerId = rs.getInt("inquirer_id");
+        int seekingId = rs.getInt("seeking_id");
+        int locationId = rs.getInt("location_id");
+        int inquiryDate = Dates.fromTimestamp(rs.getTimestamp("date_of_inquiry"));
+        String comments = rs.getString("comments");
+        
+        // Skip if we don't have the referenced entities
+        if (!persons.containsKey(inquirerId) || 
+            !persons.containsKey(seekingId) || 
+            !locations.containsKey(locationId)) {
+            return null;
+        }
+        
+        // Get the referenced entities
+        DisasterVictim inquirer = persons.get(inquirerId);
+        DisasterVictim seeking = persons.get(seekingId);
+        Location location = locations.get(locationId);
+        
+        // Create inquirer object (can be a DisasterVictim or external Inquirer)
+        Inquirer inquirerObj = new Inquirer(inquirer.getFirstName(), 
+                                            inquirer.getLastName(),
+                                            "", // Phone number not in Person table
+                                            comments != null ? comments : "");
+        inquirerObj.setDatabaseId(inquirerId);
+        
+        return new ReliefService(
+            inquirerObj, seeking, inquiryDate, 
+            comments != null ? comments : "", location);
+    }
+
     /**
      * Loads medical records from the database
      * 
@@ -334,169 +617,130 @@ public class DatabaseManager {
      */
     public void loadMedicalRecords(Map<Integer, DisasterVictim> persons, 
                                   Map<Integer, Location> locations) {
-        if (!isConnected() && !createConnection()) {
-            return;
-        }
+        long start = metrics.start();
+        boolean succeeded = true;
+        int rows = 0;
+        String sql = "SELECT " + MEDICAL_RECORD_COLUMNS + " FROM MedicalRecord";
 
-        String sql = "SELECT * FROM MedicalRecord";
-
-        try (Statement stmt = dbConnect.createStatement();
+        try (Connection conn = pool.borrow();
+             Statement stmt = conn.createStatement();
              ResultSet rs = stmt.executeQuery(sql)) {
             
             while (rs.next()) {
-                int personId = rs.getInt("person_id");
-                int locationId = rs.getInt("location_id");
-                Timestamp treatmentDate = rs.getTimestamp("date_of_treatment");
-                String treatmentDetails = rs.getString("treatment_details");
-                
-                // Skip if we don't have the referenced entities
-                if (!persons.containsKey(personId) || !locations.containsKey(locationId)) {
-                    continue;
+                rows++;
+                if (linkMedicalRecord(rs, persons, locations)) {
+                    markMedicalRecordLoaded(rs.getInt("medical_record_id"));
                 }
-                
-                // Get the referenced entities
-                DisasterVictim person = persons.get(personId);
-                Location location = locations.get(locationId);
-                
-                // Create and add medical record
-                String dateStr = treatmentDate.toLocalDateTime().toLocalDate().toString();
-                MedicalRecord record = new MedicalRecord(location, treatmentDetails, dateStr);
-                
-                person.addMedicalRecord(record);
             }
         } catch (SQLException e) {
+            succeeded = false;
             logError("Failed to load medical records", e);
         }
+        recordRead("loadMedicalRecords", start, succeeded, rows);
     }
 
     /**
-     * Saves a DisasterVictim to the database
+     * Builds a MedicalRecord from the current row of a MedicalRecord result set
+     * and attaches it to the treated person
      * 
-     * @param victim The disaster victim to save
-     * @return true if successful, false otherwise
+     * @param rs Result set positioned on a MedicalRecord row
+     * @param persons Map of loaded persons by ID
+     * @param locations Map of loaded locations by ID
+     * @return true if the record was linked, false if a referenced entity is not loaded
+     * @throws SQLException if a column cannot be read
      */
-    public boolean savePerson(DisasterVictim victim) {
-        if (!isConnected() && !createConnection()) {
+    static boolean linkMedicalRecord(ResultSet rs, Map<Integer, DisasterVictim> persons,
+                                     Map<Integer, Location> locations) throws SQLException {
+        int personId = rs.getInt("person_id");
+        int locationId = rs.getInt("location_id");
+        int treatmentDate = Dates.fromTimestamp(rs.getTimestamp("date_of_treatment"));
+        String treatmentDetails = rs.getString("treatment_details");
+        
+        // Skip if we don't have the referenced entities
+        if (!persons.containsKey(personId) || !locations.containsKey(locationId)) {
             return false;
         }
-
-        // Check if person already exists (by social ID)
-        int personId = getPersonId(victim);
         
-        if (personId > 0) {
-            // Update existing person
-            return updatePerson(personId, victim);
-        } else {
-            // Insert new person
-            return insertPerson(victim);
-        }
+        // Get the referenced entities
+        DisasterVictim person = persons.get(personId);
+        Location location = locations.get(locationId);
+        
+        // Create and add medical record
+        MedicalRecord record = new MedicalRecord(location, treatmentDetails, treatmentDate);
+        
+        person.addMedicalRecord(record);
+        return true;
     }
 
     /**
-     * Gets the database ID for a person
+     * Saves a DisasterVictim to the database.
+     * Victims that already carry a database ID are updated in place;
+     * new victims are inserted and receive their generated ID.
      * 
-     * @param victim The disaster victim
-     * @return The database ID or -1 if not found
+     * @param victim The disaster victim to save
+     * @return true if successful, false otherwise
      */
-    private int getPersonId(DisasterVictim victim) {
-        String sql = "SELECT person_id FROM Person WHERE first_name = ? AND last_name = ?";
-        
-        try (PreparedStatement stmt = dbConnect.prepareStatement(sql)) {
-            stmt.setString(1, victim.getFirstName());
-            stmt.setString(2, victim.getLastName());
-            
-            try (ResultSet rs = stmt.executeQuery()) {
-                if (rs.next()) {
-                    return rs.getInt("person_id");
-                }
-            }
+    public boolean savePerson(DisasterVictim victim) {
+        long start = metrics.start();
+        boolean saved = false;
+        try (Connection conn = pool.borrow()) {
+            saved = savePerson(conn, victim);
         } catch (SQLException e) {
-            logError("Failed to get person ID", e);
+            logError("Failed to save person", e, victim.getDatabaseId());
+        } finally {
+            recordWrite("savePerson", start, saved);
+        }
+        return saved;
+    }
+
+    /**
+     * Saves a DisasterVictim on the caller's connection, inside its transaction if one is open
+     * 
+     * @param conn The connection to use
+     * @param victim The disaster victim to save
+     * @return true if successful, false otherwise
+     */
+    boolean savePerson(Connection conn, DisasterVictim victim) {
+        if (victim.getDatabaseId() > 0) {
+            // Update existing person
+            return updatePerson(conn, victim.getDatabaseId(), victim);
+        } else {
+            // Insert new person
+            return insertPerson(conn, victim);
         }
-        
-        return -1;
     }
 
     /**
      * Updates an existing person in the database
      * 
+     * @param conn The connection to use
      * @param personId The database ID
      * @param victim The disaster victim
      * @return true if successful, false otherwise
      */
-    private boolean updatePerson(int personId, DisasterVictim victim) {
-        String sql = "UPDATE Person SET first_name = ?, last_name = ?, date_of_birth = ?, " +
-                     "gender = ?, comments = ?, phone_number = ?, family_group = ? " +
-                     "WHERE person_id = ?";
-        
-        try (PreparedStatement stmt = dbConnect.prepareStatement(sql)) {
-            stmt.setString(1, victim.getFirstName());
-            stmt.setString(2, victim.getLastName());
-            
-            // Convert date of birth to SQL Date
-            if (victim.getDateOfBirth() != null) {
-                stmt.setDate(3, java.sql.Date.valueOf(victim.getDateOfBirth()));
-            } else {
-                stmt.setNull(3, java.sql.Types.DATE);
-            }
-            
-            stmt.setString(4, victim.getGender());
-            stmt.setString(5, victim.getComments());
-            
-            // Phone number not in DisasterVictim class
-            stmt.setNull(6, java.sql.Types.VARCHAR);
-            
-            // Family group
-            FamilyGroup group = victim.getFamilyGroup();
-            if (group != null) {
-                stmt.setInt(7, Integer.parseInt(group.getGroupId()));
-            } else {
-                stmt.setNull(7, java.sql.Types.INTEGER);
-            }
+    private boolean updatePerson(Connection conn, int personId, DisasterVictim victim) {
+        try (PreparedStatement stmt = conn.prepareStatement(UPDATE_PERSON_SQL)) {
+            bindPerson(stmt, victim);
             
             stmt.setInt(8, personId);
             
             int rowsAffected = stmt.executeUpdate();
             return rowsAffected > 0;
         } catch (SQLException e) {
-            logError("Failed to update person", e);
+            logError("Failed to update person", e, personId);
             return false;
         }
     }
     /**
      * Inserts a new person into the database
      * 
+     * @param conn The connection to use
      * @param victim The disaster victim
      * @return true if successful, false otherwise
      */
-    private boolean insertPerson(DisasterVictim victim) {
-        String sql = "INSERT INTO Person (first_name, last_name, date_of_birth, gender, " +
-                     "comments, phone_number, family_group) VALUES (?, ?, ?, ?, ?, ?, ?)";
-        
-        try (PreparedStatement stmt = dbConnect.prepareStatement(sql, Statement.RETURN_GENERATED_KEYS)) {
-            stmt.setString(1, victim.getFirstName());
-            stmt.setString(2, victim.getLastName());
-            
-            // Convert date of birth to SQL Date
-            if (victim.getDateOfBirth() != null) {
-                stmt.setDate(3, java.sql.Date.valueOf(victim.getDateOfBirth()));
-            } else {
-                stmt.setNull(3, java.sql.Types.DATE);
-            }
-            
-            stmt.setString(4, victim.getGender());
-            stmt.setString(5, victim.getComments());
-            
-            // Phone number not in DisasterVictim class
-            stmt.setNull(6, java.sql.Types.VARCHAR);
-            
-            // Family group
-            FamilyGroup group = victim.getFamilyGroup();
-            if (group != null) {
-                stmt.setInt(7, Integer.parseInt(group.getGroupId()));
-            } else {
-                stmt.setNull(7, java.sql.Types.INTEGER);
-            }
+    private boolean insertPerson(Connection conn, DisasterVictim victim) {
+        try (PreparedStatement stmt = conn.prepareStatement(INSERT_PERSON_SQL, Statement.RETURN_GENERATED_KEYS)) {
+            bindPerson(stmt, victim);
             
             int rowsAffected = stmt.executeUpdate();
             
@@ -504,7 +748,8 @@ public class DatabaseManager {
             if (rowsAffected > 0) {
                 try (ResultSet generatedKeys = stmt.getGeneratedKeys()) {
                     if (generatedKeys.next()) {
-                        // We could store this ID, but it's not currently needed
+                        victim.setDatabaseId(generatedKeys.getInt(1));
+                        register(victim);
                         return true;
                     }
                 }
@@ -518,63 +763,76 @@ public class DatabaseManager {
     }
 
     /**
-     * Saves a location to the database
+     * Binds the Person columns shared by INSERT_PERSON_SQL and UPDATE_PERSON_SQL
      * 
-     * @param location The location to save
-     * @return true if successful, false otherwise
+     * @param stmt Statement whose parameters 1-7 are the Person columns
+     * @param victim The disaster victim
+     * @throws SQLException if a parameter cannot be set
+     * @throws IllegalArgumentException if a value cannot be stored (e.g. a non-numeric family group)
      */
-    public boolean saveLocation(Location location) {
-        if (!isConnected() && !createConnection()) {
-            return false;
+    private static void bindPerson(PreparedStatement stmt, DisasterVictim victim) throws SQLException {
+        stmt.setString(1, victim.getFirstName());
+        stmt.setString(2, victim.getLastName());
+        
+        // Convert date of birth to SQL Date
+        if (victim.getDateOfBirthEpochDay() != Dates.NONE) {
+            stmt.setDate(3, Dates.toSqlDate(victim.getDateOfBirthEpochDay()));
+        } else {
+            stmt.setNull(3, java.sql.Types.DATE);
         }
-
-        // Check if location already exists
-        int locationId = getLocationId(location);
         
-        if (locationId > 0) {
-            // Update existing location
-            return updateLocation(locationId, location);
+        stmt.setString(4, victim.getGender());
+        stmt.setString(5, victim.getComments());
+        
+        // Phone number not in DisasterVictim class
+        stmt.setNull(6, java.sql.Types.VARCHAR);
+        
+        // Family group
+        FamilyGroup group = victim.getFamilyGroup();
+        if (group != null) {
+            stmt.setInt(7, Integer.parseInt(group.getGroupId()));
         } else {
-            // Insert new location
-            return insertLocation(location);
+            stmt.setNull(7, java.sql.Types.INTEGER);
         }
     }
 
     /**
-     * Gets the database ID for a location
+     * Saves a location to the database
      * 
-     * @param location The location
-     * @return The database ID or -1 if not found
+     * @param location The location to save
+     * @return true if successful, false otherwise
      */
-    private int getLocationId(Location location) {
-        String sql = "SELECT location_id FROM Location WHERE name = ?";
-        
-        try (PreparedStatement stmt = dbConnect.prepareStatement(sql)) {
-            stmt.setString(1, location.getName());
-            
-            try (ResultSet rs = stmt.executeQuery()) {
-                if (rs.next()) {
-                    return rs.getInt("location_id");
-                }
+    public boolean saveLocation(Location location) {
+        long start = metrics.start();
+        boolean saved = false;
+        try (Connection conn = pool.borrow()) {
+            if (location.getDatabaseId() > 0) {
+                // Update existing location
+                saved = updateLocation(conn, location.getDatabaseId(), location);
+            } else {
+                // Insert new location
+                saved = insertLocation(conn, location);
             }
         } catch (SQLException e) {
-            logError("Failed to get location ID", e);
+            logError("Failed to save location", e, location.getDatabaseId());
+        } finally {
+            recordWrite("saveLocation", start, saved);
         }
-        
-        return -1;
+        return saved;
     }
 
     /**
      * Updates an existing location in the database
      * 
+     * @param conn The connection to use
      * @param locationId The database ID
      * @param location The location
      * @return true if successful, false otherwise
      */
-    private boolean updateLocation(int locationId, Location location) {
+    private boolean updateLocation(Connection conn, int locationId, Location location) {
         String sql = "UPDATE Location SET name = ?, address = ? WHERE location_id = ?";
         
-        try (PreparedStatement stmt = dbConnect.prepareStatement(sql)) {
+        try (PreparedStatement stmt = conn.prepareStatement(sql)) {
             stmt.setString(1, location.getName());
             stmt.setString(2, location.getAddress());
             stmt.setInt(3, locationId);
@@ -582,7 +840,7 @@ public class DatabaseManager {
             int rowsAffected = stmt.executeUpdate();
             return rowsAffected > 0;
         } catch (SQLException e) {
-            logError("Failed to update location", e);
+            logError("Failed to update location", e, locationId);
             return false;
         }
     }
@@ -590,18 +848,28 @@ public class DatabaseManager {
     /**
      * Inserts a new location into the database
      * 
+     * @param conn The connection to use
      * @param location The location
      * @return true if successful, false otherwise
      */
-    private boolean insertLocation(Location location) {
+    private boolean insertLocation(Connection conn, Location location) {
         String sql = "INSERT INTO Location (name, address) VALUES (?, ?)";
         
-        try (PreparedStatement stmt = dbConnect.prepareStatement(sql)) {
+        try (PreparedStatement stmt = conn.prepareStatement(sql, Statement.RETURN_GENERATED_KEYS)) {
             stmt.setString(1, location.getName());
             stmt.setString(2, location.getAddress());
             
-            int rowsAffected = stmt.executeUpdate();
-            return rowsAffected > 0;
+            if (stmt.executeUpdate() > 0) {
+                try (ResultSet generatedKeys = stmt.getGeneratedKeys()) {
+                    if (generatedKeys.next()) {
+                        location.setDatabaseId(generatedKeys.getInt(1));
+                        register(location);
+                        return true;
+                    }
+                }
+            }
+            
+            return false;
         } catch (SQLException e) {
             logError("Failed to insert location", e);
             return false;
@@ -615,120 +883,366 @@ public class DatabaseManager {
      * @return true if successful, false otherwise
      */
     public boolean saveSupply(Supply supply) {
-        if (!isConnected() && !createConnection()) {
-            return false;
+        long start = metrics.start();
+        boolean saved = false;
+        try (Connection conn = pool.borrow()) {
+            if (supply.getDatabaseId() > 0) {
+                saved = updateSupply(conn, supply);
+            } else {
+                saved = insertSupply(conn, supply);
+            }
+        } catch (SQLException e) {
+            logError("Failed to save supply", e, supply.getDatabaseId());
+        } finally {
+            recordWrite("saveSupply", start, saved);
         }
+        return saved;
+    }
 
-        String sql = "INSERT INTO Supply (type, comments) VALUES (?, ?)";
-        String comments = null;
+    /**
+     * Binds the type, comments, room and grid columns of INSERT_SUPPLY_SQL
+     * 
+     * @param stmt Statement whose parameters 1-4 are type, comments, room and grid
+     * @param supply The supply
+     * @throws SQLException if a parameter cannot be set
+     */
+    private static void bindSupply(PreparedStatement stmt, Supply supply) throws SQLException {
+        String comments = supplyComments(supply);
+        stmt.setString(1, supply.getType());
         
-        // Get comments based on supply type
-        if (supply instanceof PersonalBelonging) {
-            comments = ((PersonalBelonging) supply).getDescription();
-        } else if (supply instanceof Cot) {
-            Cot cot = (Cot) supply;
-            comments = cot.getRoom() + " " + cot.getGrid();
+        if (comments != null) {
+            stmt.setString(2, comments);
+        } else {
+            stmt.setNull(2, java.sql.Types.VARCHAR);
         }
         
-        try (PreparedStatement stmt = dbConnect.prepareStatement(sql)) {
-            stmt.setString(1, supply.getType());
+        if (supply instanceof Cot) {
+            Cot cot = (Cot) supply;
+            stmt.setInt(3, cot.getRoom());
+            stmt.setString(4, cot.getGrid());
+        } else {
+            stmt.setNull(3, java.sql.Types.INTEGER);
+            stmt.setNull(4, java.sql.Types.VARCHAR);
+        }
+    }
+
+    /**
+     * Gets the value stored in Supply.comments for a supply
+     * 
+     * @param supply The supply
+     * @return The comments, or null if this supply type has none
+     */
+    static String supplyComments(Supply supply) {
+        // Get comments based on supply type
+        if (supply instanceof PersonalBelonging) {
+            return ((PersonalBelonging) supply).getDescription();
+        }
+        return null;
+    }
+
+    /**
+     * Inserts a new supply into the database
+     * 
+     * @param conn The connection to use
+     * @param supply The supply
+     * @return true if successful, false otherwise
+     */
+    private boolean insertSupply(Connection conn, Supply supply) {
+        try (PreparedStatement stmt = conn.prepareStatement(INSERT_SUPPLY_SQL, Statement.RETURN_GENERATED_KEYS)) {
+            bindSupply(stmt, supply);
             
-            if (comments != null) {
-                stmt.setString(2, comments);
-            } else {
-                stmt.setNull(2, java.sql.Types.VARCHAR);
+            if (stmt.executeUpdate() > 0) {
+                try (ResultSet generatedKeys = stmt.getGeneratedKeys()) {
+                    if (generatedKeys.next()) {
+                        supply.setDatabaseId(generatedKeys.getInt(1));
+                        register(supply);
+                        return true;
+                    }
+                }
             }
             
+            return false;
+        } catch (SQLException e) {
+            logError("Failed to insert supply", e);
+            return false;
+        }
+    }
+
+    /**
+     * Updates an existing supply in the database
+     * 
+     * @param conn The connection to use
+     * @param supply The supply
+     * @return true if successful, false otherwise
+     */
+    private boolean updateSupply(Connection conn, Supply supply) {
+        String sql = "UPDATE Supply SET type = ?, comments = ?, room = ?, grid = ? WHERE supply_id = ?";
+        
+        try (PreparedStatement stmt = conn.prepareStatement(sql)) {
+            bindSupply(stmt, supply);
+            stmt.setInt(5, supply.getDatabaseId());
+            
             int rowsAffected = stmt.executeUpdate();
             return rowsAffected > 0;
         } catch (SQLException e) {
-            logError("Failed to save supply", e);
+            logError("Failed to update supply", e, supply.getDatabaseId());
             return false;
         }
     }
 
     /**
-     * Allocates a supply to a person or location
+     * Allocates a supply to a person or location.
+     * The person and location must already be saved; an unsaved supply is
+     * inserted first so it has an ID to allocate. The allocation and the
+     * matching InventoryLedger change are written in one transaction:
+     * stock at a location goes up when a supply is allocated to it, and
+     * down when a supply is handed from it to a person. Handing out more
+     * than the location has in stock is refused.
+     * A cot that another person already has is refused.
+     * Stock at a saved location is reserved through getAllocationService()
+     * first, so desks in this process running out of stock are turned away
+     * without a round trip.
      * 
      * @param supply The supply
      * @param person The person (null if allocating to location)
-     * @param location The location
-     * @return true if successful, false otherwise
+     * @param location The location receiving the supply, or for a person the
+     *                 location it is drawn from (may be null)
+     * @return true if successful, false otherwise (including a cot conflict or too little stock)
+     * @throws IllegalArgumentException if a cot's grid cell is not valid
      */
     public boolean allocateSupply(Supply supply, DisasterVictim person, Location location) {
-        if (!isConnected() && !createConnection()) {
-            return false;
+        if (location != null && location.getDatabaseId() > 0 && supply.getQuantity() > 0) {
+            return person != null && person.getDatabaseId() > 0
+                ? allocations.allocate(supply, person, location)
+                : allocations.restock(supply, location);
         }
+        return writeAllocation(supply, person, location);
+    }
 
-        // Get IDs
-        int supplyId = getSupplyId(supply);
-        int personId = person != null ? getPersonId(person) : -1;
-        int locationId = getLocationId(location);
-        
-        if (supplyId <= 0 || (personId <= 0 && locationId <= 0)) {
-            return false;
+    /**
+     * Writes an allocation in its own transaction without reserving stock;
+     * AllocationService calls this once the units are reserved.
+     * 
+     * @param supply The supply
+     * @param person The person (null if allocating to location)
+     * @param location The location receiving the supply, or the location it is drawn from (may be null)
+     * @return true if successful, false otherwise
+     * @throws IllegalArgumentException if a cot's grid cell is not valid
+     */
+    boolean writeAllocation(Supply supply, DisasterVictim person, Location location) {
+        long start = metrics.start();
+        boolean allocated = false;
+        try (Connection conn = pool.borrow()) {
+            PendingAllocation pending = allocateSupply(conn, supply, person, location);
+            if (pending != null) {
+                pending.committed();
+                allocated = true;
+            }
+        } catch (SQLException e) {
+            logError("Failed to allocate supply", e, supply.getDatabaseId());
+        } finally {
+            recordWrite("allocateSupply", start, allocated);
         }
+        return allocated;
+    }
 
+    /**
+     * Allocates a supply on the caller's connection. An unsaved supply is
+     * inserted in the same transaction as the allocation, so a refused
+     * allocation leaves no Supply row behind. If the caller has a
+     * transaction open, the allocation joins it and is not committed here;
+     * otherwise it is committed, or rolled back on failure, here.
+     * Either way the in-memory effects (the cot's occupant, water expiry,
+     * the location's stock) are held back in the returned PendingAllocation: the caller calls
+     * committed() once the allocation is committed, or rolledBack() if its
+     * transaction is rolled back instead.
+     * 
+     * @param conn The connection to use
+     * @param supply The supply
+     * @param person The person (null if allocating to location)
+     * @param location The location receiving the supply, or the location it is drawn from (may be null)
+     * @return The allocation to finish once its transaction ends, or null if it failed
+     * @throws IllegalArgumentException if a cot's grid cell is not valid
+     */
+    PendingAllocation allocateSupply(Connection conn, Supply supply, DisasterVictim person, Location location) {
+        boolean ownTransaction = false;
+        PendingAllocation pending = null;
+        boolean allocated = false;
+        try {
+            ownTransaction = conn.getAutoCommit();
+            conn.setAutoCommit(false);
+            
+            // A supply inserted here loses its row if the transaction rolls back
+            boolean insertedSupply = false;
+            if (supply.getDatabaseId() <= 0) {
+                if (!insertSupply(conn, supply)) {
+                    return null;
+                }
+                insertedSupply = true;
+            }
+            pending = new PendingAllocation(supply, person, location, insertedSupply);
+            allocated = insertAllocation(conn, pending);
+            if (allocated && ownTransaction) {
+                conn.commit();
+            }
+        } catch (SQLException e) {
+            allocated = false;
+            logError("Failed to allocate supply", e, supply.getDatabaseId());
+        } finally {
+            if (!allocated) {
+                if (pending != null) {
+                    pending.rolledBack();
+                }
+                if (ownTransaction) {
+                    try {
+                        conn.rollback();
+                    } catch (SQLException rollbackError) {
+                        logError("Failed to roll back supply allocation", rollbackError, supply.getDatabaseId());
+                    }
+                }
+            }
+        }
+        return allocated ? pending : null;
+    }
+
+    /**
+     * Claims the cot of an allocation and writes its SupplyAllocation row and
+     * InventoryLedger change inside the caller's transaction.
+     * 
+     * @return true if written, false on a cot conflict, too little stock or missing IDs
+     * @throws SQLException if a statement fails
+     */
+    private boolean insertAllocation(Connection conn, PendingAllocation pending) throws SQLException {
         String sql = "INSERT INTO SupplyAllocation (supply_id, person_id, location_id, allocation_date) " +
                      "VALUES (?, ?, ?, ?)";
+        Supply supply = pending.supply;
+        int supplyId = supply.getDatabaseId();
+        int personId = pending.person != null ? pending.person.getDatabaseId() : -1;
+        int locationId = pending.location != null ? pending.location.getDatabaseId() : -1;
+        if (supplyId <= 0 || (personId <= 0 && locationId <= 0)) {
+            return false;
+        }
+        
+        // Claim the cot up front so two desks cannot hand out the same one;
+        // only a cot taken by this call is released again if the allocation fails
+        if (personId > 0 && supply instanceof Cot) {
+            CotAllocator.Claim claim = cots.tryClaim((Cot) supply, pending.person);
+            if (claim == CotAllocator.Claim.CONFLICT) {
+                return false;
+            }
+            pending.claimedCot = claim == CotAllocator.Claim.TAKEN;
+        }
         
-        try (PreparedStatement stmt = dbConnect.prepareStatement(sql)) {
+        pending.allocatedAt = new Timestamp(System.currentTimeMillis());
+        try (PreparedStatement stmt = conn.prepareStatement(sql)) {
             stmt.setInt(1, supplyId);
             
             if (personId > 0) {
                 stmt.setInt(2, personId);
                 stmt.setNull(3, java.sql.Types.INTEGER);
-                
-                // Set allocation date for person (for water expiry)
-                if (supply instanceof Water) {
-                    ((Water) supply).setAllocationDate(LocalDate.now());
-                }
             } else {
                 stmt.setNull(2, java.sql.Types.INTEGER);
                 stmt.setInt(3, locationId);
             }
             
-            stmt.setTimestamp(4, new Timestamp(System.currentTimeMillis()));
+            stmt.setTimestamp(4, pending.allocatedAt);
             
-            int rowsAffected = stmt.executeUpdate();
-            return rowsAffected > 0;
-        } catch (SQLException e) {
-            logError("Failed to allocate supply", e);
-            return false;
+            if (stmt.executeUpdate() == 0) {
+                return false;
+            }
         }
+        
+        if (locationId > 0 && personId > 0) {
+            // False if not enough stock is left at the location
+            return takeFromLedger(conn, locationId, supply.getType(), supply.getQuantity());
+        } else if (locationId > 0) {
+            addToLedger(conn, locationId, supply.getType(), supply.getQuantity());
+        }
+        return true;
     }
 
     /**
-     * Gets the database ID for a supply
+     * Adds stock to one InventoryLedger row inside the caller's transaction
      * 
-     * @param supply The supply
-     * @return The database ID or -1 if not found
+     * @param conn The connection to use
+     * @param locationId The Location.location_id
+     * @param type The supply type
+     * @param quantity The quantity to add
+     * @throws SQLException if the upsert fails
      */
-    private int getSupplyId(Supply supply) {
-        // This is a simplified approach - in a real system, you'd need a better way to identify supplies
-        String sql = "SELECT supply_id FROM Supply WHERE type = ?";
-        
-        if (supply instanceof PersonalBelonging) {
-            sql += " AND comments = ?";
+    private void addToLedger(Connection conn, int locationId, String type, int quantity) throws SQLException {
+        try (PreparedStatement stmt = conn.prepareStatement(UPSERT_LEDGER_SQL)) {
+            stmt.setInt(1, locationId);
+            stmt.setString(2, Location.stockKey(type));
+            stmt.setInt(3, quantity);
+            stmt.executeUpdate();
         }
-        
-        try (PreparedStatement stmt = dbConnect.prepareStatement(sql)) {
-            stmt.setString(1, supply.getType());
-            
-            if (supply instanceof PersonalBelonging) {
-                stmt.setString(2, ((PersonalBelonging) supply).getDescription());
-            }
-            
+    }
+
+    /**
+     * Takes stock from one InventoryLedger row inside the caller's transaction.
+     * The row is only changed if at least the requested quantity is left.
+     * 
+     * @param conn The connection to use
+     * @param locationId The Location.location_id
+     * @param type The supply type
+     * @param quantity The quantity to take
+     * @return true if the stock was taken, false if not enough was left
+     * @throws SQLException if the update fails
+     */
+    private boolean takeFromLedger(Connection conn, int locationId, String type, int quantity) throws SQLException {
+        try (PreparedStatement stmt = conn.prepareStatement(TAKE_LEDGER_SQL)) {
+            stmt.setInt(1, quantity);
+            stmt.setInt(2, locationId);
+            stmt.setString(3, Location.stockKey(type));
+            stmt.setInt(4, quantity);
+            return stmt.executeUpdate() > 0;
+        }
+    }
+
+    /**
+     * Reads the recorded stock of one supply type at a location from InventoryLedger.
+     * This is a single primary-key lookup rather than a count over SupplyAllocation.
+     * 
+     * @param location A saved location
+     * @param type The supply type (case is ignored)
+     * @return The quantity in stock, or 0 if none is recorded or the lookup fails
+     */
+    public int getStock(Location location, String type) {
+        return Math.max(readStock(location, type), 0);
+    }
+
+    /**
+     * Reads the recorded stock like getStock(), telling a failed lookup apart from no stock.
+     * 
+     * @param location A saved location
+     * @param type The supply type (case is ignored)
+     * @return The quantity in stock, 0 if none is recorded, or -1 if the lookup fails
+     */
+    int readStock(Location location, String type) {
+        String sql = "SELECT quantity FROM InventoryLedger WHERE location_id = ? AND supply_type = ?";
+
+        long start = metrics.start();
+        boolean succeeded = true;
+        int rows = 0;
+        try (Connection conn = pool.borrow();
+             PreparedStatement stmt = conn.prepareStatement(sql)) {
+            stmt.setInt(1, location.getDatabaseId());
+            stmt.setString(2, Location.stockKey(type));
             try (ResultSet rs = stmt.executeQuery()) {
-                if (rs.next()) {
-                    return rs.getInt("supply_id");
+                if (!rs.next()) {
+                    return 0;
                 }
+                rows = 1;
+                return rs.getInt("quantity");
             }
         } catch (SQLException e) {
-            logError("Failed to get supply ID", e);
+            succeeded = false;
+            logError("Failed to read stock", e, location.getDatabaseId());
+            return -1;
+        } finally {
+            recordRead("getStock", start, succeeded, rows);
         }
-        
-        return -1;
     }
 
     /**
@@ -738,59 +1252,138 @@ public class DatabaseManager {
      * @return true if successful, false otherwise
      */
     public boolean saveInquiry(ReliefService inquiry) {
-        if (!isConnected() && !createConnection()) {
-            return false;
+        long start = metrics.start();
+        boolean saved = false;
+        try (Connection conn = pool.borrow()) {
+            saved = saveInquiry(conn, inquiry);
+        } catch (SQLException e) {
+            logError("Failed to save inquiry", e);
+        } finally {
+            recordWrite("saveInquiry", start, saved);
         }
+        return saved;
+    }
 
+    /**
+     * Saves an inquiry on the caller's connection, inside its transaction if one is open
+     * 
+     * @param conn The connection to use
+     * @param inquiry The inquiry to save
+     * @return true if successful, false if the inquirer, person or location is not saved
+     * @throws SQLException if the insert fails
+     */
+    boolean saveInquiry(Connection conn, ReliefService inquiry) throws SQLException {
         // Get IDs
         Inquirer inquirer = inquiry.getInquirer();
         DisasterVictim seeking = inquiry.getMissingPerson();
         Location location = inquiry.getLastKnownLocation();
         
+        String sql = "INSERT INTO Inquiry (inquirer_id, seeking_id, location_id, date_of_inquiry, comments) " +
+                     "VALUES (?, ?, ?, ?, ?)";
+
         // This is complex because we need to first ensure the inquirer exists
         // For simplicity, we assume the inquirer, seeking person, and location already exist
         
-        int inquirerId = getInquirerId(inquirer);
-        int seekingId = getPersonId(seeking);
-        int locationId = getLocationId(location);
+        int inquirerId = inquirer.getDatabaseId() > 0
+            ? inquirer.getDatabaseId() : getInquirerId(conn, inquirer);
+        int seekingId = seeking.getDatabaseId();
+        int locationId = location.getDatabaseId();
         
         if (inquirerId <= 0 || seekingId <= 0 || locationId <= 0) {
             return false;
         }
 
-        String sql = "INSERT INTO Inquiry (inquirer_id, seeking_id, location_id, date_of_inquiry, comments) " +
-                     "VALUES (?, ?, ?, ?, ?)";
-        
-        try (PreparedStatement stmt = dbConnect.prepareStatement(sql)) {
+        try (PreparedStatement stmt = conn.prepareStatement(sql, Statement.RETURN_GENERATED_KEYS)) {
             stmt.setInt(1, inquirerId);
             stmt.setInt(2, seekingId);
             stmt.setInt(3, locationId);
             
-            // Parse date
-            LocalDate date = LocalDate.parse(inquiry.getDateOfInquiry(), DateTimeFormatter.ISO_DATE);
-            stmt.setDate(4, java.sql.Date.valueOf(date));
+            stmt.setDate(4, Dates.toSqlDate(inquiry.getDateOfInquiryEpochDay()));
             
             stmt.setString(5, inquiry.getInfoProvided());
             
-            int rowsAffected = stmt.executeUpdate();
-            return rowsAffected > 0;
+            if (stmt.executeUpdate() == 0) {
+                return false;
+            }
+            
+            // Remember our own inquiry so the next sync does not add it a second time
+            try (ResultSet keys = stmt.getGeneratedKeys()) {
+                if (keys.next()) {
+                    markInquiryLoaded(keys.getInt(1));
+                }
+            }
+            return true;
+        }
+    }
+
+    /**
+     * Saves a treatment given to a person
+     * 
+     * @param person The treated person, already saved
+     * @param record The medical record to save
+     * @return true if successful, false otherwise
+     */
+    public boolean saveMedicalRecord(DisasterVictim person, MedicalRecord record) {
+        long start = metrics.start();
+        boolean saved = false;
+        try (Connection conn = pool.borrow()) {
+            saved = saveMedicalRecord(conn, person, record);
         } catch (SQLException e) {
-            logError("Failed to save inquiry", e);
+            logError("Failed to save medical record", e, person.getDatabaseId());
+        } finally {
+            recordWrite("saveMedicalRecord", start, saved);
+        }
+        return saved;
+    }
+
+    /**
+     * Saves a treatment on the caller's connection, inside its transaction if one is open
+     * 
+     * @param conn The connection to use
+     * @param person The treated person
+     * @param record The medical record to save
+     * @return true if successful, false if the person or location is not saved
+     * @throws SQLException if the insert fails
+     */
+    boolean saveMedicalRecord(Connection conn, DisasterVictim person, MedicalRecord record) throws SQLException {
+        String sql = "INSERT INTO MedicalRecord (location_id, person_id, date_of_treatment, treatment_details) " +
+                     "VALUES (?, ?, ?, ?)";
+        Location location = record.getLocation();
+        if (person.getDatabaseId() <= 0 || location == null || location.getDatabaseId() <= 0) {
             return false;
         }
+
+        try (PreparedStatement stmt = conn.prepareStatement(sql, Statement.RETURN_GENERATED_KEYS)) {
+            stmt.setInt(1, location.getDatabaseId());
+            stmt.setInt(2, person.getDatabaseId());
+            stmt.setDate(3, Dates.toSqlDate(record.getDateOfTreatmentEpochDay()));
+            stmt.setString(4, record.getTreatmentDetails());
+            if (stmt.executeUpdate() == 0) {
+                return false;
+            }
+            
+            // The record is already attached to the person, so the next sync must not attach it again
+            try (ResultSet keys = stmt.getGeneratedKeys()) {
+                if (keys.next()) {
+                    markMedicalRecordLoaded(keys.getInt(1));
+                }
+            }
+            return true;
+        }
     }
 
     /**
-     * Gets the database ID for an inquirer
+     * Gets the database ID for an inquirer that was not loaded from the database
      * 
+     * @param conn The connection to use
      * @param inquirer The inquirer
      * @return The database ID or -1 if not found
      */
-    private int getInquirerId(Inquirer inquirer) {
+    private int getInquirerId(Connection conn, Inquirer inquirer) {
         // For simplicity, we assume the inquirer is a person in the database
         String sql = "SELECT person_id FROM Person WHERE first_name = ? AND last_name = ?";
         
-        try (PreparedStatement stmt = dbConnect.prepareStatement(sql)) {
+        try (PreparedStatement stmt = conn.prepareStatement(sql)) {
             stmt.setString(1, inquirer.getFirstName());
             stmt.setString(2, inquirer.getLastName());
             
@@ -806,48 +1399,962 @@ public class DatabaseManager {
         return -1;
     }
 
+    // ---------- Journal replay ---------- //
+
+    /**
+     * Applies one journaled mutation unless it was applied before.
+     * The mutation and an AppliedOperation row holding its ID are committed
+     * in one transaction, so replaying a journal after a crash or a lost
+     * reply cannot apply the same operation twice.
+     * 
+     * @param operationId The unique ID of the operation
+     * @param mutation The statements of the operation
+     * @return true if the operation is now applied, including by an earlier call;
+     *         false if it failed and should be retried later
+     */
+    boolean applyOnce(String operationId, Mutation mutation) {
+        String mark = "INSERT INTO AppliedOperation (operation_id) VALUES (?) ON CONFLICT (operation_id) DO NOTHING";
+        String recordId = "UPDATE AppliedOperation SET entity_id = ? WHERE operation_id = ?";
+
+        try (Connection conn = pool.borrow()) {
+            createAppliedOperationTable(conn);
+            conn.setAutoCommit(false);
+            try (PreparedStatement stmt = conn.prepareStatement(mark)) {
+                stmt.setString(1, operationId);
+                if (stmt.executeUpdate() == 0) {
+                    // Applied by an earlier replay
+                    int createdId = getAppliedEntityId(conn, operationId);
+                    conn.rollback();
+                    if (createdId > 0) {
+                        mutation.restoreCreatedId(createdId);
+                    }
+                    return true;
+                }
+                if (!mutation.apply(conn)) {
+                    conn.rollback();
+                    mutation.rolledBack();
+                    return false;
+                }
+                if (mutation.getCreatedId() > 0) {
+                    try (PreparedStatement update = conn.prepareStatement(recordId)) {
+                        update.setInt(1, mutation.getCreatedId());
+                        update.setString(2, operationId);
+                        update.executeUpdate();
+                    }
+                }
+                conn.commit();
+            } catch (SQLException | RuntimeException e) {
+                conn.rollback();
+                mutation.rolledBack();
+                throw e;
+            }
+            mutation.committed();
+            return true;
+        } catch (SQLException e) {
+            logError("Failed to apply journaled operation " + operationId, e);
+            return false;
+        }
+    }
+
+    /**
+     * Saves the victims of many journaled operations with saveAll()'s JDBC
+     * batches, skipping operations applied before. As in applyOnce(), the
+     * Person rows and an AppliedOperation row per operation are committed in
+     * one transaction. If any victim cannot be saved nothing is written, so
+     * the caller can fall back to applyOnce() one operation at a time.
+     * 
+     * @param victimsByOperation The victim of each operation, keyed by operation ID; every victim at most once
+     * @return true if every operation is now applied, false if the batch was rolled back
+     */
+    boolean saveAllOnce(Map<String, DisasterVictim> victimsByOperation) {
+        String mark = "INSERT INTO AppliedOperation (operation_id) VALUES (?) ON CONFLICT (operation_id) DO NOTHING";
+        String recordId = "UPDATE AppliedOperation SET entity_id = ? WHERE operation_id = ?";
+        if (victimsByOperation.isEmpty()) {
+            return true;
+        }
+
+        long start = metrics.start();
+        Map<String, DisasterVictim> fresh = new HashMap<>();
+        Map<DisasterVictim, Integer> appliedBefore = new HashMap<>();
+        List<DisasterVictim> inserts = new ArrayList<>();
+        List<DisasterVictim> updates = new ArrayList<>();
+        boolean saved = false;
+        try (Connection conn = pool.borrow()) {
+            createAppliedOperationTable(conn);
+            conn.setAutoCommit(false);
+            try {
+                List<String> ids = new ArrayList<>(victimsByOperation.keySet());
+                try (PreparedStatement stmt = conn.prepareStatement(mark)) {
+                    for (String id : ids) {
+                        stmt.setString(1, id);
+                        stmt.addBatch();
+                    }
+                    int[] counts = stmt.executeBatch();
+                    for (int i = 0; i < ids.size(); i++) {
+                        DisasterVictim victim = victimsByOperation.get(ids.get(i));
+                        if (i < counts.length && counts[i] == 0) {
+                            // Applied by an earlier replay
+                            appliedBefore.put(victim, getAppliedEntityId(conn, ids.get(i)));
+                        } else {
+                            fresh.put(ids.get(i), victim);
+                            (victim.getDatabaseId() > 0 ? updates : inserts).add(victim);
+                        }
+                    }
+                }
+
+                BatchResult<DisasterVictim> result = new BatchResult<>();
+                executeBatches(conn, INSERT_PERSON_SQL, inserts, DatabaseManager::bindPerson,
+                               DisasterVictim::setDatabaseId, result);
+                executeBatches(conn, UPDATE_PERSON_SQL, updates, (stmt, victim) -> {
+                    bindPerson(stmt, victim);
+                    stmt.setInt(8, victim.getDatabaseId());
+                }, null, result);
+                if (!result.isSuccessful()) {
+                    conn.rollback();
+                    return false;
+                }
+
+                try (PreparedStatement stmt = conn.prepareStatement(recordId)) {
+                    for (Map.Entry<String, DisasterVictim> operation : fresh.entrySet()) {
+                        stmt.setInt(1, operation.getValue().getDatabaseId());
+                        stmt.setString(2, operation.getKey());
+                        stmt.addBatch();
+                    }
+                    stmt.executeBatch();
+                }
+                conn.commit();
+                saved = true;
+            } catch (SQLException | RuntimeException e) {
+                conn.rollback();
+                throw e;
+            }
+        } catch (SQLException e) {
+            logError("Failed to save journaled persons in batch", e);
+        } finally {
+            if (!saved) {
+                inserts.forEach(victim -> victim.setDatabaseId(0));
+            }
+            metrics.addRowsWritten("saveAllOnce", saved ? fresh.size() : 0);
+            metrics.record("saveAllOnce", start, saved);
+        }
+        if (!saved) {
+            return false;
+        }
+
+        fresh.values().forEach(this::register);
+        for (Map.Entry<DisasterVictim, Integer> victim : appliedBefore.entrySet()) {
+            if (victim.getValue() > 0) {
+                victim.getKey().setDatabaseId(victim.getValue());
+                register(victim.getKey());
+            }
+        }
+        return true;
+    }
+
+    private int getAppliedEntityId(Connection conn, String operationId) throws SQLException {
+        String sql = "SELECT entity_id FROM AppliedOperation WHERE operation_id = ?";
+        try (PreparedStatement stmt = conn.prepareStatement(sql)) {
+            stmt.setString(1, operationId);
+            try (ResultSet rs = stmt.executeQuery()) {
+                return rs.next() ? rs.getInt("entity_id") : 0;
+            }
+        }
+    }
+
+    /**
+     * Creates the AppliedOperation table the first time it is needed, for databases
+     * created before the journal existed.
+     */
+    private void createAppliedOperationTable(Connection conn) throws SQLException {
+        if (appliedOperationTableChecked) {
+            return;
+        }
+        try (Statement stmt = conn.createStatement()) {
+            stmt.execute(dialect.getAppliedOperationTableSql());
+        }
+        appliedOperationTableChecked = true;
+    }
+
+    /**
+     * The statements of one journaled operation, run inside applyOnce()'s transaction.
+     */
+    interface Mutation {
+        /**
+         * @return true if the statements succeeded, false to roll back and retry later
+         */
+        boolean apply(Connection conn) throws SQLException;
+
+        /**
+         * @return The ID of the row the operation created or saved, recorded with it; 0 if none
+         */
+        default int getCreatedId() {
+            return 0;
+        }
+
+        /**
+         * Receives the ID recorded when the operation was applied by an earlier replay.
+         */
+        default void restoreCreatedId(int id) {
+        }
+
+        /**
+         * Called once the operation's transaction has committed, to update in-memory state.
+         */
+        default void committed() {
+        }
+
+        /**
+         * Called after the operation's transaction was rolled back.
+         */
+        default void rolledBack() {
+        }
+    }
+
+    /**
+     * An allocation written by allocateSupply() whose transaction has not
+     * ended yet. Its in-memory effects wait for committed(), so a rolled-back
+     * allocation leaves no cot claimed, no water tracked for expiry and no
+     * change to the location's stock.
+     * Only the first of committed() and rolledBack() has any effect.
+     */
+    final class PendingAllocation {
+        private final Supply supply;
+        private final DisasterVictim person;
+        private final Location location;
+        private final boolean uncommittedSupply;
+        private boolean claimedCot = false;
+        private Timestamp allocatedAt;
+        private boolean finished = false;
+
+        private PendingAllocation(Supply supply, DisasterVictim person, Location location, boolean uncommittedSupply) {
+            this.supply = supply;
+            this.person = person;
+            this.location = location;
+            this.uncommittedSupply = uncommittedSupply;
+        }
+
+        /**
+         * Applies the allocation to in-memory state once it is committed.
+         */
+        void committed() {
+            if (finished) {
+                return;
+            }
+            finished = true;
+            boolean toPerson = person != null && person.getDatabaseId() > 0;
+            // Water given to a person expires a day after it was allocated
+            if (toPerson && supply instanceof Water) {
+                ((Water) supply).setAllocationDate(allocatedAt.toLocalDateTime().toLocalDate());
+                waterExpiry.track(supply.getDatabaseId(), person.getDatabaseId(), allocatedAt);
+            }
+            // Mirror the InventoryLedger change written by insertAllocation()
+            if (location != null && location.getDatabaseId() > 0) {
+                location.adjustStock(supply.getType(), toPerson ? -supply.getQuantity() : supply.getQuantity());
+            }
+        }
+
+        /**
+         * Undoes what was taken ahead of the commit: the cot, if this
+         * allocation claimed it, and the ID of a supply inserted in the
+         * rolled-back transaction.
+         */
+        void rolledBack() {
+            if (finished) {
+                return;
+            }
+            finished = true;
+            if (claimedCot) {
+                cots.release((Cot) supply);
+            }
+            if (uncommittedSupply) {
+                suppliesById.remove(supply.getDatabaseId());
+                supply.setDatabaseId(0);
+            }
+        }
+    }
+
+    /**
+     * Sets how many statements are sent per executeBatch() call by the bulk save methods
+     * 
+     * @param batchSize Number of rows per batch
+     * @throws IllegalArgumentException if batchSize is not positive
+     */
+    public void setBatchSize(int batchSize) {
+        if (batchSize <= 0) {
+            throw new IllegalArgumentException("Batch size must be positive");
+        }
+        this.batchSize = batchSize;
+    }
+
+    public int getBatchSize() {
+        return batchSize;
+    }
+
+    /**
+     * Saves many victims in one transaction using JDBC batches.
+     * New victims are inserted and receive their generated IDs; victims with an ID are updated.
+     * Victims whose values cannot be stored are skipped and reported; if the database
+     * rejects a batch, the whole transaction is rolled back and every victim is reported.
+     * 
+     * @param victims The victims to save
+     * @return Which victims were saved and why the others were not
+     */
+    public BatchResult<DisasterVictim> saveAll(Collection<DisasterVictim> victims) {
+        List<DisasterVictim> inserts = new ArrayList<>();
+        List<DisasterVictim> updates = new ArrayList<>();
+        for (DisasterVictim victim : victims) {
+            (victim.getDatabaseId() > 0 ? updates : inserts).add(victim);
+        }
+
+        return runInTransaction("saveAll", "save persons", victims, (conn, result) -> {
+            executeBatches(conn, INSERT_PERSON_SQL, inserts, DatabaseManager::bindPerson,
+                           DisasterVictim::setDatabaseId, result);
+            executeBatches(conn, UPDATE_PERSON_SQL, updates, (stmt, victim) -> {
+                bindPerson(stmt, victim);
+                stmt.setInt(8, victim.getDatabaseId());
+            }, null, result);
+        }, () -> inserts.forEach(victim -> victim.setDatabaseId(0)), this::register);
+    }
+
+    /**
+     * Inserts many supplies in one transaction using JDBC batches.
+     * Each supply receives its generated ID. If the database rejects a batch,
+     * the whole transaction is rolled back and every supply is reported.
+     * 
+     * @param supplies The supplies to insert
+     * @return Which supplies were saved and why the others were not
+     */
+    public BatchResult<Supply> saveSupplies(Collection<Supply> supplies) {
+        List<Supply> inserts = new ArrayList<>();
+        for (Supply supply : supplies) {
+            if (supply.getDatabaseId() <= 0) {
+                inserts.add(supply);
+            }
+        }
+
+        return runInTransaction("saveSupplies", "save supplies", supplies, (conn, result) -> {
+            // Supplies that already have an ID are already stored
+            for (Supply supply : supplies) {
+                if (supply.getDatabaseId() > 0) {
+                    result.addSaved(supply);
+                }
+            }
+            executeBatches(conn, INSERT_SUPPLY_SQL, inserts, DatabaseManager::bindSupply,
+                           Supply::setDatabaseId, result);
+        }, () -> inserts.forEach(supply -> supply.setDatabaseId(0)), this::register);
+    }
+
+    /**
+     * Runs a bulk save on one pooled connection inside a single transaction.
+     * On commit, saved entities are registered; on failure, the transaction is
+     * rolled back, generated IDs are undone and every entity is reported as failed.
+     */
+    private <T> BatchResult<T> runInTransaction(String method, String operation, Collection<T> entities,
+                                                BatchWork<T> work, Runnable undoKeys,
+                                                Consumer<T> onCommit) {
+        BatchResult<T> result = new BatchResult<>();
+        if (entities.isEmpty()) {
+            return result;
+        }
+
+        long start = metrics.start();
+        try (Connection conn = pool.borrow()) {
+            conn.setAutoCommit(false);
+            try {
+                work.run(conn, result);
+                conn.commit();
+                result.getSaved().forEach(onCommit);
+            } catch (SQLException e) {
+                conn.rollback();
+                undoKeys.run();
+                logError("Failed to " + operation + " in batch", e);
+                result.abort(entities, "Rolled back: " + e.getMessage());
+            }
+        } catch (SQLException e) {
+            logError("Failed to " + operation + " in batch", e);
+            result.abort(entities, e.getMessage());
+        }
+        metrics.addRowsWritten(method, result.getSavedCount());
+        metrics.record(method, start, result.isSuccessful());
+        return result;
+    }
+
     /**
-     * Loads all data from the database
+     * Binds each entity and sends them in batches of batchSize.
+     * Entities that fail to bind are reported and skipped without aborting the batch.
      * 
-     * @return Map containing all loaded data
+     * @param keySetter Receives generated keys in insertion order, or null for updates
+     */
+    private <T> void executeBatches(Connection conn, String sql, List<T> entities, Binder<T> binder,
+                                    KeySetter<T> keySetter, BatchResult<T> result) throws SQLException {
+        if (entities.isEmpty()) {
+            return;
+        }
+
+        try (PreparedStatement stmt = keySetter != null
+                ? conn.prepareStatement(sql, Statement.RETURN_GENERATED_KEYS)
+                : conn.prepareStatement(sql)) {
+            List<T> pending = new ArrayList<>();
+            for (T entity : entities) {
+                try {
+                    binder.bind(stmt, entity);
+                } catch (IllegalArgumentException e) {
+                    result.addFailure(entity, "Invalid value: " + e.getMessage());
+                    stmt.clearParameters();
+                    continue;
+                }
+                if (keySetter != null && !dialect.hasBatchGeneratedKeys()) {
+                    // The driver only reports the last key of a batch, so insert rows one by one
+                    insertOne(stmt, entity, keySetter, result);
+                    continue;
+                }
+                stmt.addBatch();
+                pending.add(entity);
+
+                if (pending.size() >= batchSize) {
+                    flushBatch(stmt, pending, keySetter, result);
+                }
+            }
+            flushBatch(stmt, pending, keySetter, result);
+        }
+    }
+
+    private <T> void insertOne(PreparedStatement stmt, T entity, KeySetter<T> keySetter,
+                               BatchResult<T> result) throws SQLException {
+        stmt.executeUpdate();
+        try (ResultSet keys = stmt.getGeneratedKeys()) {
+            if (!keys.next()) {
+                throw new SQLException("Driver returned no generated key for the row inserted");
+            }
+            keySetter.setKey(entity, keys.getInt(1));
+        }
+        result.addSaved(entity);
+    }
+
+    private <T> void flushBatch(PreparedStatement stmt, List<T> pending, KeySetter<T> keySetter,
+                                BatchResult<T> result) throws SQLException {
+        if (pending.isEmpty()) {
+            return;
+        }
+
+        int[] counts = stmt.executeBatch();
+        if (keySetter != null) {
+            try (ResultSet keys = stmt.getGeneratedKeys()) {
+                for (T entity : pending) {
+                    if (!keys.next()) {
+                        throw new SQLException("Driver returned fewer generated keys than rows inserted");
+                    }
+                    keySetter.setKey(entity, keys.getInt(1));
+                }
+            }
+        }
+
+        for (int i = 0; i < pending.size(); i++) {
+            if (i < counts.length && counts[i] == 0) {
+                result.addFailure(pending.get(i), "No matching row to update");
+            } else {
+                result.addSaved(pending.get(i));
+            }
+        }
+        pending.clear();
+    }
+
+    /**
+     * Binds one entity's values to a prepared statement.
+     */
+    private interface Binder<T> {
+        void bind(PreparedStatement stmt, T entity) throws SQLException;
+    }
+
+    /**
+     * Stores a generated primary key on an entity.
+     */
+    private interface KeySetter<T> {
+        void setKey(T entity, int id);
+    }
+
+    /**
+     * The statements of a bulk save, run inside runInTransaction().
+     */
+    private interface BatchWork<T> {
+        void run(Connection conn, BatchResult<T> result) throws SQLException;
+    }
+
+    /**
+     * Records a loaded or saved person in the identity map
+     * 
+     * @param person A person with a database ID
+     */
+    void register(DisasterVictim person) {
+        personsById.put(person.getDatabaseId(), person);
+    }
+
+    /**
+     * Records a loaded or saved location in the identity map
+     * 
+     * @param location A location with a database ID
+     */
+    void register(Location location) {
+        locationsById.put(location.getDatabaseId(), location);
+    }
+
+    /**
+     * Records a loaded or saved supply in the identity map
+     * 
+     * @param supply A supply with a database ID
+     */
+    void register(Supply supply) {
+        suppliesById.put(supply.getDatabaseId(), supply);
+    }
+
+    /**
+     * @param personId A Person.person_id
+     * @return The loaded person with that ID, or null if not loaded
+     */
+    public DisasterVictim getPersonById(int personId) {
+        return personsById.get(personId);
+    }
+
+    /**
+     * @param locationId A Location.location_id
+     * @return The loaded location with that ID, or null if not loaded
+     */
+    public Location getLocationById(int locationId) {
+        return locationsById.get(locationId);
+    }
+
+    /**
+     * @param supplyId A Supply.supply_id
+     * @return The loaded supply with that ID, or null if not loaded
+     */
+    public Supply getSupplyById(int supplyId) {
+        return suppliesById.get(supplyId);
+    }
+
+    /**
+     * Loads all data from the database.
+     * Tables are fetched in parallel on separate pooled connections and
+     * streamed with a bounded fetch size; see GraphLoader.
+     * 
+     * @return Map containing all loaded data, including per-table "timings" in milliseconds
      */
     public Map<String, Object> loadAllData() {
-        Map<String, Object> data = new HashMap<>();
-        
+        long start = metrics.start();
         // Remove expired water supplies
         removeExpiredWater();
         
-        // Load all persons
-        ArrayList<DisasterVictim> persons = loadPersons();
-        data.put("persons", persons);
+        // Marks are taken before loading, so rows changed during the load are synced later
+        startSyncTracking();
+        GraphLoader loader = new GraphLoader(pool, this, GraphLoader.DEFAULT_FETCH_SIZE);
+        Map<String, Object> data = loader.load();
         
-        // Create a map for easier lookup
-        Map<Integer, DisasterVictim> personMap = new HashMap<>();
-        for (DisasterVictim person : persons) {
-            personMap.put(person.getAssignedSocialID(), person);
+        waterExpiry.loadAllocations();
+        loadCotOccupancy();
+        loadStock();
+        metrics.record("loadAllData", start, true);
+        return data;
+    }
+
+    /**
+     * Takes over the entities of a snapshot in place of loadAllData(), so the
+     * application can start without waiting for the database. The snapshot's
+     * sync marks become this manager's, so the next reconcile() or
+     * syncChanges() only reads rows changed since the snapshot was written.
+     * 
+     * @param snapshot An opened snapshot
+     */
+    public synchronized void restore(Snapshot snapshot) {
+        for (Location location : snapshot.getLocations()) {
+            if (location.getDatabaseId() > 0) {
+                register(location);
+            }
         }
-        
-        // Load all locations
-        ArrayList<Location> locations = loadLocations();
-        data.put("locations", locations);
-        
-        // Create a map for easier lookup
-        Map<Integer, Location> locationMap = new HashMap<>();
-        for (int i = 0; i < locations.size(); i++) {
-            locationMap.put(i + 1, locations.get(i)); // Assuming IDs start from 1
+        for (DisasterVictim person : snapshot.getPersons()) {
+            if (person.getDatabaseId() > 0) {
+                register(person);
+            }
+        }
+        for (Supply supply : snapshot.getSupplies()) {
+            if (supply.getDatabaseId() > 0) {
+                register(supply);
+            }
+        }
+        for (int inquiryId : snapshot.getInquiryIds()) {
+            markInquiryLoaded(inquiryId);
+        }
+        for (int recordId : snapshot.getMedicalRecordIds()) {
+            markMedicalRecordLoaded(recordId);
+        }
+        syncMarks.clear();
+        syncMarks.putAll(snapshot.getSyncMarks());
+    }
+
+    /**
+     * Brings entities restored from a snapshot up to date with the database:
+     * does the expiry and allocation work of loadAllData() and then pulls
+     * every row changed since the snapshot. Meant to run on a background
+     * thread at startup; like syncChanges(), it updates loaded entities in
+     * place, and the returned additions still have to be applied to the
+     * application's own lists.
+     * 
+     * @return The changes since the snapshot; empty if the database is unreachable
+     */
+    public SyncResult reconcile() {
+        long start = metrics.start();
+        removeExpiredWater();
+        SyncResult result = syncChanges();
+        waterExpiry.loadAllocations();
+        loadCotOccupancy();
+        metrics.record("reconcile", start, true);
+        return result;
+    }
+
+    /**
+     * Rebuilds the cot allocator from the cots currently allocated to persons.
+     * Cots recorded for more than one person are logged as conflicts.
+     */
+    private void loadCotOccupancy() {
+        String sql = "SELECT s.room, s.grid, sa.person_id FROM SupplyAllocation sa " +
+                     "JOIN Supply s ON s.supply_id = sa.supply_id " +
+                     "WHERE s.type = 'cot' AND sa.person_id IS NOT NULL " +
+                     "AND s.room IS NOT NULL AND s.grid IS NOT NULL";
+        cots.clear();
+
+        try (Connection conn = pool.borrow();
+             Statement stmt = conn.createStatement();
+             ResultSet rs = stmt.executeQuery(sql)) {
+            
+            while (rs.next()) {
+                int room = rs.getInt("room");
+                String grid = rs.getString("grid");
+                try {
+                    if (!cots.claim(room, grid, getPersonById(rs.getInt("person_id")))) {
+                        logError("Cot conflict", new IllegalStateException(
+                            "Cot " + room + " " + grid + " is allocated to more than one person"));
+                    }
+                } catch (IllegalArgumentException e) {
+                    logError("Skipped cot with invalid grid cell", e);
+                }
+            }
+        } catch (SQLException e) {
+            logError("Failed to load cot occupancy", e);
+        }
+    }
+
+    /**
+     * Sets the stock of every loaded location, and the allocation service's
+     * reservation counters, from InventoryLedger.
+     * If the query fails the counts are left as they were.
+     */
+    private void loadStock() {
+        String sql = "SELECT location_id, supply_type, quantity FROM InventoryLedger";
+        Map<Integer, Map<String, Integer>> stockByLocation = new HashMap<>();
+
+        try (Connection conn = pool.borrow();
+             Statement stmt = conn.createStatement();
+             ResultSet rs = stmt.executeQuery(sql)) {
+            
+            while (rs.next()) {
+                stockByLocation.computeIfAbsent(rs.getInt("location_id"), id -> new HashMap<>())
+                               .put(rs.getString("supply_type"), rs.getInt("quantity"));
+            }
+        } catch (SQLException e) {
+            logError("Failed to load stock", e);
+            return;
+        }
+        for (Location location : locationsById.values()) {
+            Map<String, Integer> stock = stockByLocation.get(location.getDatabaseId());
+            location.setStock(stock != null ? stock : new HashMap<>());
+        }
+        allocations.reload(stockByLocation);
+    }
+
+    // ---------- Streaming ---------- //
+
+    /**
+     * Streams every person without building a list, for reports and exports
+     * over the whole registry. Rows are read through a server-side cursor
+     * GraphLoader.DEFAULT_FETCH_SIZE at a time, so memory use does not grow
+     * with the table. Persons already loaded are returned as the loaded
+     * objects; others are mapped but not added to the identity map.
+     * Close the stream (try-with-resources) if it is not read to the end,
+     * since it holds a pooled connection until then.
+     * 
+     * @return Stream of persons in person_id order; empty if the query fails
+     * @throws IllegalStateException from the stream if a row cannot be read
+     */
+    public Stream<DisasterVictim> streamPersons() {
+        return RowCursor.open(pool, this, "Person",
+            "SELECT " + PERSON_COLUMNS + " FROM Person ORDER BY person_id",
+            GraphLoader.DEFAULT_FETCH_SIZE, rs -> {
+                DisasterVictim loaded = personsById.get(rs.getInt("person_id"));
+                return loaded != null ? loaded : mapPerson(rs);
+            });
+    }
+
+    /**
+     * Streams every location; see streamPersons().
+     * 
+     * @return Stream of locations in location_id order; empty if the query fails
+     * @throws IllegalStateException from the stream if a row cannot be read
+     */
+    public Stream<Location> streamLocations() {
+        return RowCursor.open(pool, this, "Location",
+            "SELECT " + LOCATION_COLUMNS + " FROM Location ORDER BY location_id",
+            GraphLoader.DEFAULT_FETCH_SIZE, rs -> {
+                Location loaded = locationsById.get(rs.getInt("location_id"));
+                return loaded != null ? loaded : mapLocation(rs);
+            });
+    }
+
+    /**
+     * Streams every supply; see streamPersons().
+     * 
+     * @return Stream of supplies in supply_id order; empty if the query fails
+     * @throws IllegalStateException from the stream if a row cannot be read
+     */
+    public Stream<Supply> streamSupplies() {
+        return RowCursor.open(pool, this, "Supply",
+            "SELECT " + SUPPLY_COLUMNS + " FROM Supply ORDER BY supply_id",
+            GraphLoader.DEFAULT_FETCH_SIZE, rs -> {
+                Supply loaded = suppliesById.get(rs.getInt("supply_id"));
+                return loaded != null ? loaded : mapSupply(rs);
+            });
+    }
+
+    // ---------- Incremental sync ---------- //
+
+    /**
+     * Pulls rows changed since the last load or sync into the loaded entities.
+     * Each table's updated_at column (kept current by triggers in project.sql)
+     * is compared to the newest value seen so far, held back to the start of
+     * the oldest transaction still open, so the cost depends on the number of
+     * changed rows rather than the size of the database.
+     * Existing persons, locations and supplies are updated in place through the
+     * identity maps; inquiries and medical records are only ever added.
+     * Deleted rows are not detected.
+     * 
+     * @return The changes applied; empty if nothing changed or the database is unreachable
+     */
+    public synchronized SyncResult syncChanges() {
+        SyncResult result = new SyncResult();
+        if (syncMarks.isEmpty()) {
+            // Nothing loaded yet, so there is nothing to compare against
+            startSyncTracking();
+            return result;
         }
         
-        // Load all supplies
-        ArrayList<Supply> supplies = loadSupplies();
-        data.put("supplies", supplies);
+        // Persons and locations first, so new inquiries and records can refer to them
+        long start = metrics.start();
+        boolean succeeded = true;
+        try (Connection conn = pool.borrow()) {
+            // Read before the tables, so every transaction open during the queries started after it
+            Timestamp horizon = readSyncHorizon(conn);
+            syncTable(conn, "Person", PERSON_COLUMNS, horizon, rs -> mergePerson(rs, result));
+            syncTable(conn, "Location", LOCATION_COLUMNS, horizon, rs -> mergeLocation(rs, result));
+            syncTable(conn, "Supply", SUPPLY_COLUMNS, horizon, rs -> mergeSupply(rs, result));
+            syncTable(conn, "Inquiry", INQUIRY_COLUMNS, horizon, rs -> mergeInquiry(rs, result));
+            syncTable(conn, "MedicalRecord", MEDICAL_RECORD_COLUMNS, horizon, rs -> mergeMedicalRecord(rs, result));
+        } catch (SQLException e) {
+            succeeded = false;
+            logError("Failed to sync changes", e);
+        }
+        if (succeeded) {
+            // InventoryLedger has no updated_at, and one row per location and type, so it is read whole
+            loadStock();
+        }
+        metrics.record("syncChanges", start, succeeded);
+        return result;
+    }
+
+    /**
+     * Records the database's sync horizon as the sync mark of every table.
+     */
+    private void startSyncTracking() {
+        try (Connection conn = pool.borrow()) {
+            Timestamp horizon = readSyncHorizon(conn);
+            for (String table : SYNC_TABLES) {
+                syncMarks.put(table, horizon);
+            }
+        } catch (SQLException e) {
+            logError("Failed to start change tracking", e);
+        }
+    }
+
+    /**
+     * Reads the time up to which sync marks may advance: the start of the oldest
+     * transaction still open, whose rows are not visible yet, or else the current time.
+     */
+    private Timestamp readSyncHorizon(Connection conn) throws SQLException {
+        try (Statement stmt = conn.createStatement();
+             ResultSet rs = stmt.executeQuery(dialect.getSyncHorizonQuery())) {
+            if (!rs.next() || rs.getTimestamp(1) == null) {
+                throw new SQLException("The database did not return a sync horizon");
+            }
+            return rs.getTimestamp(1);
+        }
+    }
+
+    /**
+     * Reads the rows of one table changed since its mark and advances the mark
+     * to the newest updated_at read, but never past the horizon read before the
+     * query, so rows of transactions still open then are read by a later sync.
+     * Rows that fail validation are logged and skipped.
+     */
+    private void syncTable(Connection conn, String table, String columns, Timestamp horizon,
+                           RowMerger merger) throws SQLException {
+        Timestamp mark = syncMarks.get(table);
+        String sql = "SELECT " + columns + ", updated_at FROM " + table + " WHERE updated_at > ? ORDER BY updated_at";
         
-        // Load medical records
-        loadMedicalRecords(personMap, locationMap);
+        try (PreparedStatement stmt = conn.prepareStatement(sql)) {
+            stmt.setTimestamp(1, new Timestamp(mark.getTime() - SYNC_OVERLAP_MILLIS));
+            try (ResultSet rs = stmt.executeQuery()) {
+                Timestamp newest = mark;
+                int rows = 0;
+                while (rs.next()) {
+                    rows++;
+                    try {
+                        merger.merge(rs);
+                    } catch (IllegalArgumentException e) {
+                        logError("Skipped invalid " + table + " row during sync", e);
+                    }
+                    Timestamp updatedAt = rs.getTimestamp("updated_at");
+                    if (updatedAt.after(newest)) {
+                        newest = updatedAt;
+                    }
+                }
+                syncMarks.put(table, newest.after(horizon) ? horizon : newest);
+                metrics.addRowsRead("syncChanges", rows);
+            }
+        }
+    }
+
+    private void mergePerson(ResultSet rs, SyncResult result) throws SQLException {
+        DisasterVictim person = personsById.get(rs.getInt("person_id"));
+        if (person == null) {
+            person = mapPerson(rs);
+            register(person);
+            result.getPersons().getAdded().add(person);
+        } else if (applyPersonRow(rs, person)) {
+            result.getPersons().getUpdated().add(person);
+        }
+    }
+
+    private void mergeLocation(ResultSet rs, SyncResult result) throws SQLException {
+        Location location = locationsById.get(rs.getInt("location_id"));
+        if (location == null) {
+            location = mapLocation(rs);
+            register(location);
+            result.getLocations().getAdded().add(location);
+            return;
+        }
         
-        // Load inquiries
-        ArrayList<ReliefService> inquiries = loadInquiries(personMap, locationMap);
-        data.put("inquiries", inquiries);
+        String name = rs.getString("name");
+        String address = rs.getString("address");
+        if (!Objects.equals(name, location.getName()) || !Objects.equals(address, location.getAddress())) {
+            location.setName(name);
+            location.setAddress(address);
+            result.getLocations().getUpdated().add(location);
+        }
+    }
+
+    private void mergeSupply(ResultSet rs, SyncResult result) throws SQLException {
+        Supply existing = suppliesById.get(rs.getInt("supply_id"));
+        Supply fresh = mapSupply(rs);
+        if (existing == null || existing.getClass() != fresh.getClass()) {
+            // A changed type needs a new object of the right subclass
+            register(fresh);
+            result.getSupplies().getAdded().add(fresh);
+            if (existing != null) {
+                result.getSupplies().getRemoved().add(existing);
+            }
+            return;
+        }
         
-        return data;
+        boolean changed = false;
+        if (existing instanceof Cot) {
+            Cot cot = (Cot) existing;
+            Cot row = (Cot) fresh;
+            changed = cot.getRoom() != row.getRoom() || !Objects.equals(cot.getGrid(), row.getGrid());
+            cot.setRoom(row.getRoom());
+            cot.setGrid(row.getGrid());
+        } else if (existing instanceof PersonalBelonging) {
+            PersonalBelonging belonging = (PersonalBelonging) existing;
+            String description = ((PersonalBelonging) fresh).getDescription();
+            changed = !Objects.equals(belonging.getDescription(), description);
+            belonging.setDescription(description);
+        }
+        if (changed) {
+            result.getSupplies().getUpdated().add(existing);
+        }
+    }
+
+    private void mergeInquiry(ResultSet rs, SyncResult result) throws SQLException {
+        int inquiryId = rs.getInt("inquiry_id");
+        if (loadedInquiryIds.contains(inquiryId)) {
+            return;
+        }
+        ReliefService inquiry = mapInquiry(rs, personsById.asMap(), locationsById.asMap());
+        if (inquiry != null) {
+            markInquiryLoaded(inquiryId);
+            result.getInquiries().add(inquiry);
+        }
+    }
+
+    private void mergeMedicalRecord(ResultSet rs, SyncResult result) throws SQLException {
+        int recordId = rs.getInt("medical_record_id");
+        if (loadedMedicalRecordIds.contains(recordId)) {
+            return;
+        }
+        if (linkMedicalRecord(rs, personsById.asMap(), locationsById.asMap())) {
+            markMedicalRecordLoaded(recordId);
+            result.addMedicalRecord();
+        }
+    }
+
+    /**
+     * Records that an inquiry row is already in memory
+     * 
+     * @param inquiryId An Inquiry.inquiry_id
+     */
+    void markInquiryLoaded(int inquiryId) {
+        loadedInquiryIds.add(inquiryId);
+    }
+
+    /**
+     * Records that a medical record row is already attached to its person
+     * 
+     * @param recordId A MedicalRecord.medical_record_id
+     */
+    void markMedicalRecordLoaded(int recordId) {
+        loadedMedicalRecordIds.add(recordId);
+    }
+
+    /**
+     * @return A copy of the current sync mark of each table
+     */
+    Map<String, Timestamp> getSyncMarks() {
+        return new HashMap<>(syncMarks);
+    }
+
+    /**
+     * @return A copy of the IDs of the inquiry rows already in memory
+     */
+    Set<Integer> getLoadedInquiryIds() {
+        return new HashSet<>(loadedInquiryIds);
+    }
+
+    /**
+     * @return A copy of the IDs of the medical record rows already attached to persons
+     */
+    Set<Integer> getLoadedMedicalRecordIds() {
+        return new HashSet<>(loadedMedicalRecordIds);
+    }
+
+    /**
+     * Applies one changed row during a sync.
+     */
+    private interface RowMerger {
+        void merge(ResultSet rs) throws SQLException;
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,138 @@
+package edu.ucalgary.oop;
+
+/**
+ * The database engines DatabaseManager can run on, and the SQL and settings that differ between them.
+ * PostgreSQL is the shared server used at the central office. SQLite is an
+ * embedded engine for shelters without a server: the whole database is one
+ * file next to the application, created from database/embedded.sql the first
+ * time it is opened.
+ *
+ * @author Devante Kwizera
+ * @version 1.0
+ * @since 2025-04-18
+ */
+public enum DatabaseDialect {
+    POSTGRESQL("jdbc:postgresql:", "LOCALTIMESTAMP", null, true),
+    SQLITE("jdbc:sqlite:", "strftime('%Y-%m-%d %H:%M:%f', 'now', 'localtime')",
+           "database/embedded.sql", false);
+
+    // WAL lets the loader's parallel readers run beside a writer; NORMAL sync is safe in WAL mode.
+    // Timestamps are stored as text in the driver's default yyyy-MM-dd HH:mm:ss.SSS format so that
+    // they sort and compare like the values written by the schema's defaults and triggers.
+    private static final String[][] SQLITE_SETTINGS = {
+        { "journal_mode", "WAL" },
+        { "synchronous", "NORMAL" },
+        { "cache_size", "-65536" },
+        { "foreign_keys", "true" },
+        { "busy_timeout", "5000" },
+        { "date_class", "TEXT" }
+    };
+
+    private final String urlPrefix;
+    private final String currentTimestamp;
+    private final String schemaFile;
+    private final boolean batchGeneratedKeys;
+
+    DatabaseDialect(String urlPrefix, String currentTimestamp, String schemaFile, boolean batchGeneratedKeys) {
+        this.urlPrefix = urlPrefix;
+        this.currentTimestamp = currentTimestamp;
+        this.schemaFile = schemaFile;
+        this.batchGeneratedKeys = batchGeneratedKeys;
+    }
+
+    /**
+     * Finds the dialect of a JDBC URL.
+     *
+     * @param url The JDBC URL
+     * @return The matching dialect
+     * @throws IllegalArgumentException if the URL is not for a supported engine
+     */
+    public static DatabaseDialect forUrl(String url) throws IllegalArgumentException {
+        if (url != null) {
+            for (DatabaseDialect dialect : values()) {
+                if (url.startsWith(dialect.urlPrefix)) {
+                    return dialect;
+                }
+            }
+        }
+        throw new IllegalArgumentException("Unsupported database URL: " + url +
+                                           ". Expected jdbc:postgresql: or jdbc:sqlite:");
+    }
+
+    /**
+     * Adds this engine's local tuning settings to a URL. Settings already in the URL are kept.
+     *
+     * @param url A JDBC URL for this dialect
+     * @return The URL to connect with
+     */
+    public String tuneUrl(String url) {
+        if (this != SQLITE) {
+            return url;
+        }
+        StringBuilder tuned = new StringBuilder(url);
+        int query = url.indexOf('?');
+        for (String[] setting : SQLITE_SETTINGS) {
+            if (query < 0 || !url.substring(query).contains(setting[0] + "=")) {
+                tuned.append(tuned.indexOf("?") < 0 ? '?' : '&').append(setting[0]).append('=').append(setting[1]);
+            }
+        }
+        return tuned.toString();
+    }
+
+    /**
+     * @return true if the database lives in a local file rather than on a server
+     */
+    public boolean isEmbedded() {
+        return schemaFile != null;
+    }
+
+    /**
+     * @return A query whose single column is the database's current local time
+     */
+    public String getCurrentTimestampQuery() {
+        return "SELECT " + currentTimestamp;
+    }
+
+    /**
+     * Gives the time up to which change tracking may safely advance. A row's
+     * updated_at is the start time of the transaction that wrote it, so a long
+     * PostgreSQL transaction can commit rows older than rows already read; the
+     * horizon is therefore the start of the oldest transaction still open in
+     * the database, or the current time if there is none. pg_stat_activity
+     * only shows the transactions of sessions with the same role, which every
+     * desk connects as. SQLite has a single writer whose rows are all newer
+     * than any committed row, so its horizon is the current time.
+     *
+     * @return A query whose single column is the sync horizon in local time
+     */
+    public String getSyncHorizonQuery() {
+        if (this != POSTGRESQL) {
+            return getCurrentTimestampQuery();
+        }
+        return "SELECT LEAST(" + currentTimestamp + ", (SELECT min(xact_start)::timestamp FROM pg_stat_activity " +
+               "WHERE datname = current_database() AND backend_type = 'client backend' " +
+               "AND pid <> pg_backend_pid()))";
+    }
+
+    /**
+     * @return A statement creating the AppliedOperation table of project.sql if it does not exist yet
+     */
+    public String getAppliedOperationTableSql() {
+        return "CREATE TABLE IF NOT EXISTS AppliedOperation (operation_id VARCHAR PRIMARY KEY, entity_id INT, " +
+               "applied_at TIMESTAMP NOT NULL DEFAULT (" + currentTimestamp + "))";
+    }
+
+    /**
+     * @return The script that creates an empty embedded database, or null for server databases
+     */
+    public String getSchemaFile() {
+        return schemaFile;
+    }
+
+    /**
+     * @return true if the driver returns one generated key per row of a batched insert
+     */
+    public boolean hasBatchGeneratedKeys() {
+        return batchGeneratedKeys;
+    }
+}
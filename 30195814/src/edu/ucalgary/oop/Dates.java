@@ -0,0 +1,164 @@
+package edu.ucalgary.oop;
+
+import java.sql.Timestamp;
+import java.time.LocalDate;
+
+/**
+ * Calendar dates stored as epoch days, the number of days since 1970-01-01
+ * as returned by LocalDate.toEpochDay().
+ * Dates are held as plain ints so that comparing them is an int comparison.
+ * Parsing checks the YYYY-MM-DD layout and the calendar, leap years
+ * included, in a single pass over the characters without regexes,
+ * exceptions or temporary strings.
+ *
+ * @author Devante Kwizera
+ * @version 1.0
+ * @since 2025-04-17
+ */
+public final class Dates {
+    /** Stands for a missing or invalid date. Every real date sorts after it. */
+    public static final int NONE = Integer.MIN_VALUE;
+
+    // Days from 0000-03-01 to 1970-01-01 in the proleptic Gregorian calendar
+    private static final int DAYS_0000_TO_1970 = 719_468;
+    private static final int DAYS_PER_400_YEARS = 146_097;
+
+    private Dates() {
+    }
+
+    /**
+     * Parses a YYYY-MM-DD date.
+     *
+     * @param date The text to parse, may be null
+     * @return The epoch day, or NONE if the text is not a valid calendar date
+     */
+    public static int parse(String date) {
+        if (date == null || date.length() != 10 || date.charAt(4) != '-' || date.charAt(7) != '-') {
+            return NONE;
+        }
+        int year = digits(date, 0, 4);
+        int month = digits(date, 5, 7);
+        int day = digits(date, 8, 10);
+        if (year < 0 || month < 1 || month > 12 || day < 1 || day > lengthOfMonth(year, month)) {
+            return NONE;
+        }
+        return toEpochDay(year, month, day);
+    }
+
+    /**
+     * @param date The text to check, may be null
+     * @return true if the text is a valid YYYY-MM-DD calendar date
+     */
+    public static boolean isValid(String date) {
+        return parse(date) != NONE;
+    }
+
+    /**
+     * Formats an epoch day as YYYY-MM-DD.
+     *
+     * @param epochDay The epoch day
+     * @return The formatted date, or null for NONE
+     */
+    public static String format(int epochDay) {
+        if (epochDay == NONE) {
+            return null;
+        }
+        // Inverse of toEpochDay, counting from March so leap days fall at the end of the year
+        int z = epochDay + DAYS_0000_TO_1970;
+        int era = Math.floorDiv(z, DAYS_PER_400_YEARS);
+        int dayOfEra = z - era * DAYS_PER_400_YEARS;
+        int yearOfEra = (dayOfEra - dayOfEra / 1460 + dayOfEra / 36524 - dayOfEra / 146096) / 365;
+        int dayOfYear = dayOfEra - (365 * yearOfEra + yearOfEra / 4 - yearOfEra / 100);
+        int shiftedMonth = (5 * dayOfYear + 2) / 153;
+        int day = dayOfYear - (153 * shiftedMonth + 2) / 5 + 1;
+        int month = shiftedMonth < 10 ? shiftedMonth + 3 : shiftedMonth - 9;
+        int year = yearOfEra + era * 400 + (month <= 2 ? 1 : 0);
+        if (year < 0 || year > 9999) {
+            return LocalDate.ofEpochDay(epochDay).toString();
+        }
+
+        char[] text = new char[10];
+        text[0] = (char) ('0' + year / 1000);
+        text[1] = (char) ('0' + year / 100 % 10);
+        text[2] = (char) ('0' + year / 10 % 10);
+        text[3] = (char) ('0' + year % 10);
+        text[4] = '-';
+        text[5] = (char) ('0' + month / 10);
+        text[6] = (char) ('0' + month % 10);
+        text[7] = '-';
+        text[8] = (char) ('0' + day / 10);
+        text[9] = (char) ('0' + day % 10);
+        return new String(text);
+    }
+
+    /**
+     * @return Today's epoch day in the system time zone
+     */
+    public static int today() {
+        return (int) LocalDate.now().toEpochDay();
+    }
+
+    /**
+     * @param date A DATE column value, may be null
+     * @return Its epoch day, or NONE for null
+     */
+    public static int fromSqlDate(java.sql.Date date) {
+        return date == null ? NONE : (int) date.toLocalDate().toEpochDay();
+    }
+
+    /**
+     * @param timestamp A TIMESTAMP column value, may be null
+     * @return The epoch day of its date in the system time zone, or NONE for null
+     */
+    public static int fromTimestamp(Timestamp timestamp) {
+        return timestamp == null ? NONE : (int) timestamp.toLocalDateTime().toLocalDate().toEpochDay();
+    }
+
+    /**
+     * @param epochDay The epoch day
+     * @return The DATE value for binding to a statement, or null for NONE
+     */
+    public static java.sql.Date toSqlDate(int epochDay) {
+        return epochDay == NONE ? null : java.sql.Date.valueOf(LocalDate.ofEpochDay(epochDay));
+    }
+
+    /**
+     * Epoch day of a calendar date, without creating a LocalDate.
+     */
+    static int toEpochDay(int year, int month, int day) {
+        // Count years from March so that February's leap day is the last day of the year
+        int y = month <= 2 ? year - 1 : year;
+        int era = Math.floorDiv(y, 400);
+        int yearOfEra = y - era * 400;
+        int dayOfYear = (153 * (month > 2 ? month - 3 : month + 9) + 2) / 5 + day - 1;
+        int dayOfEra = yearOfEra * 365 + yearOfEra / 4 - yearOfEra / 100 + dayOfYear;
+        return era * DAYS_PER_400_YEARS + dayOfEra - DAYS_0000_TO_1970;
+    }
+
+    private static int lengthOfMonth(int year, int month) {
+        switch (month) {
+            case 2:
+                return (year % 4 == 0 && (year % 100 != 0 || year % 400 == 0)) ? 29 : 28;
+            case 4:
+            case 6:
+            case 9:
+            case 11:
+                return 30;
+            default:
+                return 31;
+        }
+    }
+
+    // Value of the decimal digits in [start, end), or -1 if any character is not a digit
+    private static int digits(String text, int start, int end) {
+        int value = 0;
+        for (int i = start; i < end; i++) {
+            int digit = text.charAt(i) - '0';
+            if (digit < 0 || digit > 9) {
+                return -1;
+            }
+            value = value * 10 + digit;
+        }
+        return value;
+    }
+}
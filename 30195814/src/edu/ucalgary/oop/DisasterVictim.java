@@ -1,7 +1,6 @@
 package edu.ucalgary.oop;
 
 import java.util.List;
-import java.util.Arrays;
 import java.util.ArrayList;
 import java.time.LocalDate;
 
@@ -18,14 +17,16 @@ public class DisasterVictim {
 
     private String firstName;
     private String lastName;
-    private String dateOfBirth;
+    // Epoch days (see Dates); dateOfBirth is Dates.NONE until set
+    private int dateOfBirth = Dates.NONE;
     private final int ASSIGNED_SOCIAL_ID;
     private FamilyGroup familyGroup;
     private ArrayList<MedicalRecord> medicalRecords = new ArrayList<>();
-    private Supply[] personalBelongings;
-    private final String ENTRY_DATE;
+    private final Belongings personalBelongings = new Belongings();
+    private final int ENTRY_DATE;
     private String gender;
     private String comments;
+    private int databaseId;
 
 
      /**
@@ -35,11 +36,17 @@ public class DisasterVictim {
      * @throws IllegalArgumentException if date format is invalid.
      */
     public DisasterVictim(String firstName, String ENTRY_DATE) throws IllegalArgumentException {
+        this(firstName, parseEntryDate(ENTRY_DATE));
+    }
+
+    /**
+     * Constructor for creating a disaster victim from an already parsed entry date.
+     * @param firstName Victim's first name.
+     * @param entryEpochDay Entry date as an epoch day (see Dates).
+     */
+    DisasterVictim(String firstName, int entryEpochDay) {
         this.firstName = firstName;
-        if (!isValidDateFormat(ENTRY_DATE)) {
-            throw new IllegalArgumentException("Invalid date format for entry date. Expected format: YYYY-MM-DD");
-        }
-        this.ENTRY_DATE = ENTRY_DATE;
+        this.ENTRY_DATE = entryEpochDay;
         this.ASSIGNED_SOCIAL_ID = generateSocialID();
     }
 
@@ -51,12 +58,7 @@ public class DisasterVictim {
      * @throws IllegalArgumentException if format is invalid or birth is after entry.
      */
     public DisasterVictim(String firstName, String ENTRY_DATE, String dateOfBirth) throws IllegalArgumentException {
-        this.firstName = firstName;
-        if (!isValidDateFormat(ENTRY_DATE)) {
-            throw new IllegalArgumentException("Invalid date format for entry date. Expected format: YYYY-MM-DD");
-        }
-        this.ENTRY_DATE = ENTRY_DATE;
-        this.ASSIGNED_SOCIAL_ID = generateSocialID();
+        this(firstName, parseEntryDate(ENTRY_DATE));
         setDateOfBirth(dateOfBirth);
     }
 
@@ -66,17 +68,12 @@ public class DisasterVictim {
         return counter;
     }
 
-    private static boolean isValidDateFormat(String date) {
-        String dateFormatPattern = "^\\d{4}-\\d{2}-\\d{2}$";
-        return date.matches(dateFormatPattern);
-    }
-
-    private static int convertDateStringToInt(String dateStr) {
-        // Use regex to remove dashes from the date string
-        String formattedDate = dateStr.replaceAll("-", "");
-        
-        // Convert the formatted string to an integer
-        return Integer.parseInt(formattedDate);
+    private static int parseEntryDate(String entryDate) throws IllegalArgumentException {
+        int epochDay = Dates.parse(entryDate);
+        if (epochDay == Dates.NONE) {
+            throw new IllegalArgumentException("Invalid date format for entry date. Expected format: YYYY-MM-DD");
+        }
+        return epochDay;
     }
 
   
@@ -99,18 +96,29 @@ public class DisasterVictim {
     }
 
     public String getDateOfBirth() {
+        return Dates.format(dateOfBirth);
+    }
+
+    // Date of birth as an epoch day, or Dates.NONE if unknown
+    public int getDateOfBirthEpochDay() {
         return dateOfBirth;
     }
 
     public void setDateOfBirth(String dateOfBirth) throws IllegalArgumentException {
-        if (!isValidDateFormat(dateOfBirth)) {
+        int birthDate = Dates.parse(dateOfBirth);
+        if (birthDate == Dates.NONE) {
             throw new IllegalArgumentException("Invalid date format for date of birth. Expected format: YYYY-MM-DD");
         }
+        setDateOfBirthEpochDay(birthDate);
+    }
+
+    public void setDateOfBirthEpochDay(int dateOfBirth) throws IllegalArgumentException {
+        if (dateOfBirth == Dates.NONE) {
+            throw new IllegalArgumentException("Date of birth is required");
+        }
 
         // A person cannot be born after entering a centre
-        int entryDate = convertDateStringToInt(ENTRY_DATE);
-        int birthDate = convertDateStringToInt(dateOfBirth);
-        if (birthDate > entryDate) {
+        if (dateOfBirth > ENTRY_DATE) {
             throw new IllegalArgumentException("Birthdate must be the same as or before entry date");
         }
         
@@ -121,6 +129,15 @@ public class DisasterVictim {
         return ASSIGNED_SOCIAL_ID;
     }
 
+    // Person.person_id, or 0 if this victim has not been saved yet
+    public int getDatabaseId() {
+        return databaseId;
+    }
+
+    void setDatabaseId(int databaseId) {
+        this.databaseId = databaseId;
+    }
+
     public FamilyGroup getFamilyGroup() {
         return familyGroup;
     }
@@ -129,8 +146,8 @@ public class DisasterVictim {
         return medicalRecords.toArray(new MedicalRecord[0]);
     }
 
-    public Supply[] getPersonalBelongings() {
-        return this.personalBelongings;
+    public synchronized Supply[] getPersonalBelongings() {
+        return personalBelongings.toArray();
     }
 
 
@@ -145,48 +162,18 @@ public class DisasterVictim {
         }
     }
 
-    public void setPersonalBelongings(Supply[] belongings) {
-        this.personalBelongings = belongings;
+    public synchronized void setPersonalBelongings(Supply[] belongings) {
+        personalBelongings.setAll(belongings);
     }
 
-    // Add a Supply to personalBelonging
-    public void addPersonalBelonging(Supply supply) {
-
-        if (this.personalBelongings == null) {
-            Supply tmpSupply[] = { supply };
-            this.setPersonalBelongings(tmpSupply);
-            return;
-        }
-
-        // Create an array one larger than the previous array
-        int newLength = this.personalBelongings.length + 1;
-        Supply tmpPersonalBelongings[] = new Supply[newLength];
-
-        // Copy all the items in the current array to the new array
-        int i;
-        for (i=0; i < personalBelongings.length; i++) {
-            tmpPersonalBelongings[i] = this.personalBelongings[i];
-        }
-
-        // Add the new element at the end of the new array
-        tmpPersonalBelongings[i] = supply;
-
-        // Replace the original array with the new array
-        this.personalBelongings = tmpPersonalBelongings;
+    // Add a Supply to personalBelongings in amortized constant time
+    public synchronized void addPersonalBelonging(Supply supply) {
+        personalBelongings.add(supply);
     }
 
     // Remove a Supply from personalBelongings, we assume it only appears once
-    public void removePersonalBelonging(Supply unwantedSupply) {
-        Supply[] updatedBelongings = new Supply[personalBelongings.length-1];
-        int index = 0;
-        int newIndex = index;
-        for (Supply supply : personalBelongings) {
-            if (!supply.equals(unwantedSupply)) {
-                updatedBelongings[newIndex] = supply;
-                newIndex++;
-            }
-            index++;
-        }
+    public synchronized void removePersonalBelonging(Supply unwantedSupply) {
+        personalBelongings.remove(unwantedSupply);
     }
 
 
@@ -196,6 +183,10 @@ public class DisasterVictim {
     }
 
     public String getEntryDate() {
+        return Dates.format(ENTRY_DATE);
+    }
+
+    public int getEntryEpochDay() {
         return ENTRY_DATE;
     }
 
@@ -217,39 +208,13 @@ public class DisasterVictim {
         }
         this.gender = gender.toLowerCase(); // Store in a consistent format
     }
-     /**
+    /**
      * Removes all expired water supplies (used one day after allocation).
+     * The belongings are compacted in place in a single pass. Belongings are
+     * guarded by this victim's lock, since the water sweeper calls this from
+     * its own thread while the menus edit the same victim.
      */
-   
-    public void removeExpiredWater() {
-        if (personalBelongings == null || personalBelongings.length == 0) {
-             return;
-        }
-
-        int count = 0;
-        for (Supply supply : personalBelongings) {
-          if (!(supply instanceof Water && ((Water) supply).isExpired())) {
-             count++;
-          }
-        }
-
-        Supply[] filtered = new Supply[count];
-        int i = 0;
-        for (Supply supply : personalBelongings) {
-          if (!(supply instanceof Water && ((Water) supply).isExpired())) {
-             filtered[i++] = supply;
-          }
-        }
-
-         this.personalBelongings = filtered;
-}
-
+    public synchronized void removeExpiredWater() {
+        personalBelongings.removeExpiredWater(LocalDate.now().toEpochDay());
+    }
 }
-
-   
-
-
-
-
-
-
@@ -0,0 +1,449 @@
+package edu.ucalgary.oop;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.io.StringWriter;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.sql.SQLException;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Writes error records to the error log on a background thread, so logging an
+ * error never waits on the file system.
+ *
+ * Callers put records into a fixed-size ring buffer and return. A single
+ * writer thread drains whatever has accumulated, writes it through one open
+ * writer and flushes once per batch. When the buffer is full, new records
+ * are dropped and counted rather than making the caller wait.
+ *
+ * Each record starts with one line of fields: timestamp, operation, SQL
+ * state, entity ID and the exception, followed by the stack trace and a
+ * separator line. The file is rotated to errorlog.txt.1, .2, ... when it
+ * grows past a size limit or gets older than an age limit.
+ *
+ * @author Devante Kwizera
+ * @version 1.0
+ * @since 2025-04-18
+ */
+public class ErrorLog {
+    public static final String DEFAULT_PATH = "data/errorlog.txt";
+    public static final int DEFAULT_CAPACITY = 4096;
+    public static final long DEFAULT_MAX_BYTES = 5L * 1024 * 1024;
+    public static final long DEFAULT_MAX_AGE_MILLIS = TimeUnit.DAYS.toMillis(1);
+    public static final int DEFAULT_KEEP_FILES = 5;
+    public static final int NO_ENTITY = -1;
+    private static final long CLOSE_TIMEOUT_MILLIS = 5000;
+    private static final String SEPARATOR = "-------------------------";
+
+    private static ErrorLog shared;
+
+    private final Path path;
+    private final long maxBytes;
+    private final long maxAgeMillis;
+    private final int keepFiles;
+
+    // Ring buffer: records[head] is the oldest, count records follow it
+    private final Record[] records;
+    private int head = 0;
+    private int count = 0;
+    private long accepted = 0;
+    private long written = 0;
+    private boolean closed = false;
+
+    private final ReentrantLock lock = new ReentrantLock();
+    private final Condition notEmpty = lock.newCondition();
+    private final Condition drained = lock.newCondition();
+    private final Thread writer;
+
+    // Used only by the writer thread
+    private BufferedWriter out;
+    private long fileBytes;
+    private long fileStartedMillis;
+
+    private final AtomicLong droppedCount = new AtomicLong();
+    private final AtomicLong batchCount = new AtomicLong();
+    private final AtomicLong rotationCount = new AtomicLong();
+
+    /**
+     * @return the log that writes to data/errorlog.txt, started on first use and
+     *         drained when the JVM exits
+     */
+    public static synchronized ErrorLog shared() {
+        if (shared == null) {
+            shared = new ErrorLog(Paths.get(DEFAULT_PATH), DEFAULT_CAPACITY, DEFAULT_MAX_BYTES,
+                                  DEFAULT_MAX_AGE_MILLIS, DEFAULT_KEEP_FILES);
+            ErrorLog log = shared;
+            Runtime.getRuntime().addShutdownHook(new Thread(log::close, "error-log-shutdown"));
+        }
+        return shared;
+    }
+
+    /**
+     * @param path The log file
+     * @param capacity Maximum number of records waiting to be written
+     * @param maxBytes Size after which the file is rotated
+     * @param maxAgeMillis Age after which the file is rotated
+     * @param keepFiles Number of rotated files kept
+     * @throws IllegalArgumentException if a limit is not positive or keepFiles is negative
+     */
+    public ErrorLog(Path path, int capacity, long maxBytes, long maxAgeMillis, int keepFiles) {
+        if (capacity <= 0 || maxBytes <= 0 || maxAgeMillis <= 0 || keepFiles < 0) {
+            throw new IllegalArgumentException("Error log limits must be positive");
+        }
+        this.path = path;
+        this.records = new Record[capacity];
+        this.maxBytes = maxBytes;
+        this.maxAgeMillis = maxAgeMillis;
+        this.keepFiles = keepFiles;
+
+        this.writer = new Thread(this::runWriter, "error-log");
+        this.writer.setDaemon(true);
+        this.writer.start();
+    }
+
+    /**
+     * One error, captured on the caller's thread and formatted on the writer's.
+     */
+    private static final class Record {
+        final long timeMillis;
+        final String thread;
+        final String operation;
+        final int entityId;
+        final Throwable error;
+
+        Record(String operation, int entityId, Throwable error) {
+            this.timeMillis = System.currentTimeMillis();
+            this.thread = Thread.currentThread().getName();
+            this.operation = operation;
+            this.entityId = entityId;
+            this.error = error;
+        }
+    }
+
+    // ---------- Logging ---------- //
+
+    /**
+     * Logs an error without an entity ID.
+     *
+     * @param operation What was being done, e.g. "Failed to save person"
+     * @param error The exception that occurred, or null
+     * @return true if the record was accepted, false if the buffer was full or the log closed
+     */
+    public boolean log(String operation, Throwable error) {
+        return log(operation, error, NO_ENTITY);
+    }
+
+    /**
+     * Logs an error. Never blocks on I/O.
+     *
+     * @param operation What was being done, e.g. "Failed to save person"
+     * @param error The exception that occurred, or null
+     * @param entityId The database ID of the record involved, or NO_ENTITY
+     * @return true if the record was accepted, false if the buffer was full or the log closed
+     */
+    public boolean log(String operation, Throwable error, int entityId) {
+        Record record = new Record(operation, entityId, error);
+        lock.lock();
+        try {
+            if (closed || count == records.length) {
+                droppedCount.incrementAndGet();
+                return false;
+            }
+            records[(head + count) % records.length] = record;
+            count++;
+            accepted++;
+            if (count == 1) {
+                notEmpty.signal();
+            }
+            return true;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Waits until every record accepted so far has been written.
+     *
+     * @param timeoutMillis Longest time to wait
+     * @return true if they were written in time
+     */
+    public boolean flush(long timeoutMillis) {
+        lock.lock();
+        try {
+            long target = accepted;
+            long remaining = TimeUnit.MILLISECONDS.toNanos(timeoutMillis);
+            while (written < target && writer.isAlive()) {
+                if (remaining <= 0) {
+                    return false;
+                }
+                remaining = drained.awaitNanos(remaining);
+            }
+            return written >= target;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return false;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Stops accepting records, writes the ones already accepted and closes the file.
+     */
+    public void close() {
+        lock.lock();
+        try {
+            if (closed) {
+                return;
+            }
+            closed = true;
+            notEmpty.signal();
+        } finally {
+            lock.unlock();
+        }
+        try {
+            writer.join(CLOSE_TIMEOUT_MILLIS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    // ---------- Writer thread ---------- //
+
+    private void runWriter() {
+        Record[] batch = new Record[records.length];
+        while (true) {
+            int size;
+            lock.lock();
+            try {
+                while (count == 0 && !closed) {
+                    notEmpty.awaitUninterruptibly();
+                }
+                if (count == 0) {
+                    break;
+                }
+                // Take everything that has accumulated
+                size = count;
+                for (int i = 0; i < size; i++) {
+                    int slot = (head + i) % records.length;
+                    batch[i] = records[slot];
+                    records[slot] = null;
+                }
+                head = (head + size) % records.length;
+                count = 0;
+            } finally {
+                lock.unlock();
+            }
+
+            writeBatch(batch, size);
+
+            lock.lock();
+            try {
+                written += size;
+                drained.signalAll();
+            } finally {
+                lock.unlock();
+            }
+        }
+        closeFile();
+        lock.lock();
+        try {
+            drained.signalAll();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private void writeBatch(Record[] batch, int size) {
+        try {
+            for (int i = 0; i < size; i++) {
+                String text = format(batch[i]);
+                batch[i] = null;
+                if (out == null || shouldRotate()) {
+                    openFile(out != null);
+                }
+                out.write(text);
+                fileBytes += text.getBytes(StandardCharsets.UTF_8).length;
+            }
+            out.flush();
+            batchCount.incrementAndGet();
+        } catch (IOException e) {
+            System.err.println("Failed to write to error log: " + e.getMessage());
+            closeFile();
+        }
+    }
+
+    private boolean shouldRotate() {
+        return fileBytes >= maxBytes || System.currentTimeMillis() - fileStartedMillis >= maxAgeMillis;
+    }
+
+    /**
+     * Opens the log for appending, first rotating the current file if asked to or
+     * if the file left by an earlier run is already over a limit.
+     */
+    private void openFile(boolean rotate) throws IOException {
+        closeFile();
+        Path parent = path.toAbsolutePath().getParent();
+        if (parent != null) {
+            Files.createDirectories(parent);
+        }
+        if (Files.exists(path)) {
+            BasicFileAttributes attributes = Files.readAttributes(path, BasicFileAttributes.class);
+            fileBytes = attributes.size();
+            fileStartedMillis = attributes.creationTime().toMillis();
+            if (rotate || (fileBytes > 0 && shouldRotate())) {
+                rotate();
+            }
+        }
+        if (!Files.exists(path)) {
+            fileBytes = 0;
+            fileStartedMillis = System.currentTimeMillis();
+        }
+        out = Files.newBufferedWriter(path, StandardCharsets.UTF_8,
+                                      StandardOpenOption.CREATE, StandardOpenOption.APPEND);
+    }
+
+    // errorlog.txt becomes errorlog.txt.1, which becomes .2, and so on up to keepFiles
+    private void rotate() throws IOException {
+        if (keepFiles == 0) {
+            Files.delete(path);
+        } else {
+            Files.deleteIfExists(rotated(keepFiles));
+            for (int i = keepFiles - 1; i >= 1; i--) {
+                if (Files.exists(rotated(i))) {
+                    Files.move(rotated(i), rotated(i + 1), StandardCopyOption.REPLACE_EXISTING);
+                }
+            }
+            Files.move(path, rotated(1), StandardCopyOption.REPLACE_EXISTING);
+        }
+        rotationCount.incrementAndGet();
+    }
+
+    private Path rotated(int generation) {
+        return path.resolveSibling(path.getFileName() + "." + generation);
+    }
+
+    private void closeFile() {
+        if (out == null) {
+            return;
+        }
+        try {
+            out.close();
+        } catch (IOException e) {
+            System.err.println("Failed to close error log: " + e.getMessage());
+        }
+        out = null;
+    }
+
+    /**
+     * Formats a record: a line of fields, the stack trace and a separator.
+     */
+    private static String format(Record record) {
+        Throwable error = record.error;
+        StringBuilder text = new StringBuilder(256);
+        text.append('[')
+            .append(LocalDateTime.ofInstant(Instant.ofEpochMilli(record.timeMillis), ZoneId.systemDefault()))
+            .append("] operation=").append(quote(record.operation))
+            .append(" sqlState=").append(error == null ? "-" : sqlState(error))
+            .append(" entityId=").append(record.entityId == NO_ENTITY ? "-" : Integer.toString(record.entityId))
+            .append(" thread=").append(quote(record.thread));
+        if (error != null) {
+            text.append(" error=").append(error.getClass().getName())
+                .append(" message=").append(quote(error.getMessage()));
+        }
+        text.append(System.lineSeparator());
+        if (error != null) {
+            StringWriter trace = new StringWriter();
+            error.printStackTrace(new PrintWriter(trace));
+            text.append(trace);
+        }
+        text.append(SEPARATOR).append(System.lineSeparator());
+        return text.toString();
+    }
+
+    /**
+     * @return the SQL state of the first SQLException in the cause chain, or "-"
+     */
+    private static String sqlState(Throwable error) {
+        for (Throwable cause = error; cause != null; cause = cause.getCause()) {
+            if (cause instanceof SQLException && ((SQLException) cause).getSQLState() != null) {
+                return ((SQLException) cause).getSQLState();
+            }
+            if (cause.getCause() == cause) {
+                break;
+            }
+        }
+        return "-";
+    }
+
+    private static String quote(String value) {
+        if (value == null) {
+            return "-";
+        }
+        return '"' + value.replace("\\", "\\\\").replace("\"", "\\\"")
+                          .replace("\n", "\\n").replace("\r", "\\r") + '"';
+    }
+
+    // ---------- Metrics ---------- //
+
+    /**
+     * @return the number of records waiting to be written
+     */
+    public int size() {
+        lock.lock();
+        try {
+            return count;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public long getWrittenCount() {
+        lock.lock();
+        try {
+            return written;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * @return the number of records dropped because the buffer was full or the log closed
+     */
+    public long getDroppedCount() {
+        return droppedCount.get();
+    }
+
+    /**
+     * @return the number of batches written, each ending with one flush
+     */
+    public long getBatchCount() {
+        return batchCount.get();
+    }
+
+    public long getRotationCount() {
+        return rotationCount.get();
+    }
+
+    /**
+     * @return a one-line summary of the log metrics
+     */
+    public String getStats() {
+        return String.format("pending=%d written=%d dropped=%d batches=%d rotations=%d",
+                             size(), getWrittenCount(), getDroppedCount(), getBatchCount(),
+                             getRotationCount());
+    }
+}
@@ -0,0 +1,245 @@
+package edu.ucalgary.oop;
+
+import java.sql.Connection;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * Loads the complete object graph in one pass.
+ * Independent tables are queried in parallel on separate pooled connections,
+ * rows are streamed with a fixed fetch size, and medical records and inquiries
+ * are linked to their persons and locations as their rows are read.
+ *
+ * @author Devante Kwizera
+ * @version 1.0
+ * @since 2025-04-15
+ */
+class GraphLoader {
+    static final int DEFAULT_FETCH_SIZE = 500;
+
+    private final ConnectionPool pool;
+    private final DatabaseManager dbManager;
+    private final int fetchSize;
+    private final Map<String, Long> timings = new ConcurrentHashMap<>();
+    // Family group id of each person, filled in while persons are streamed
+    private final Map<DisasterVictim, Integer> familyGroupIds = new ConcurrentHashMap<>();
+
+    /**
+     * @param pool Pool to borrow one connection per table from
+     * @param dbManager Manager used for error logging
+     * @param fetchSize Number of rows the driver fetches per round trip
+     */
+    GraphLoader(ConnectionPool pool, DatabaseManager dbManager, int fetchSize) {
+        this.pool = pool;
+        this.dbManager = dbManager;
+        this.fetchSize = fetchSize;
+    }
+
+    /**
+     * Loads persons, locations, supplies, medical records and inquiries.
+     * The returned map has the same keys as DatabaseManager.loadAllData(),
+     * plus "familyGroups" and "timings" (milliseconds per table).
+     *
+     * @return Map containing all loaded data
+     */
+    Map<String, Object> load() {
+        long start = System.nanoTime();
+        int threads = Math.min(5, pool.getMaxSize());
+        ExecutorService executor = Executors.newFixedThreadPool(threads, r -> {
+            Thread t = new Thread(r, "graph-loader");
+            t.setDaemon(true);
+            return t;
+        });
+
+        try {
+            // Dependencies are submitted first so a small pool can never starve them
+            CompletableFuture<Map<Integer, DisasterVictim>> persons =
+                CompletableFuture.supplyAsync(this::loadPersons, executor);
+            CompletableFuture<Map<Integer, Location>> locations =
+                CompletableFuture.supplyAsync(this::loadLocations, executor);
+            CompletableFuture<ArrayList<Supply>> supplies =
+                CompletableFuture.supplyAsync(this::loadSupplies, executor);
+            CompletableFuture<Integer> medicalRecords =
+                CompletableFuture.supplyAsync(() -> loadMedicalRecords(persons, locations), executor);
+            CompletableFuture<ArrayList<ReliefService>> inquiries =
+                CompletableFuture.supplyAsync(() -> loadInquiries(persons, locations), executor);
+
+            Map<String, Object> data = new HashMap<>();
+            data.put("persons", new ArrayList<>(persons.join().values()));
+            data.put("locations", new ArrayList<>(locations.join().values()));
+            data.put("supplies", supplies.join());
+            data.put("inquiries", inquiries.join());
+            data.put("familyGroups", buildFamilyGroups(persons.join()));
+            medicalRecords.join();
+
+            timings.put("total", elapsedMillis(start));
+            data.put("timings", orderedTimings());
+            return data;
+        } catch (CompletionException e) {
+            Throwable cause = e.getCause() != null ? e.getCause() : e;
+            dbManager.logError("Failed to load data graph", new Exception(cause.getMessage(), cause));
+            throw new IllegalStateException("Failed to load data graph: " + cause.getMessage(), cause);
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    private Map<Integer, DisasterVictim> loadPersons() {
+        Map<Integer, DisasterVictim> persons = new LinkedHashMap<>();
+        stream("Person", "SELECT " + DatabaseManager.PERSON_COLUMNS + " FROM Person", rs -> {
+            DisasterVictim person = DatabaseManager.mapPerson(rs);
+            int familyGroup = rs.getInt("family_group");
+            if (!rs.wasNull()) {
+                familyGroupIds.put(person, familyGroup);
+            }
+            dbManager.register(person);
+            persons.put(person.getDatabaseId(), person);
+        });
+        return persons;
+    }
+
+    private Map<Integer, Location> loadLocations() {
+        Map<Integer, Location> locations = new LinkedHashMap<>();
+        stream("Location", "SELECT " + DatabaseManager.LOCATION_COLUMNS + " FROM Location", rs -> {
+            Location location = DatabaseManager.mapLocation(rs);
+            dbManager.register(location);
+            locations.put(location.getDatabaseId(), location);
+        });
+        return locations;
+    }
+
+    private ArrayList<Supply> loadSupplies() {
+        ArrayList<Supply> supplies = new ArrayList<>();
+        stream("Supply", "SELECT " + DatabaseManager.SUPPLY_COLUMNS + " FROM Supply", rs -> {
+            Supply supply = DatabaseManager.mapSupply(rs);
+            dbManager.register(supply);
+            supplies.add(supply);
+        });
+        return supplies;
+    }
+
+    private int loadMedicalRecords(CompletableFuture<Map<Integer, DisasterVictim>> persons,
+                                   CompletableFuture<Map<Integer, Location>> locations) {
+        int[] linked = { 0 };
+        String sql = "SELECT " + DatabaseManager.MEDICAL_RECORD_COLUMNS + " FROM MedicalRecord";
+        stream("MedicalRecord", sql, new RowHandler() {
+            private Map<Integer, DisasterVictim> personMap;
+            private Map<Integer, Location> locationMap;
+
+            @Override
+            public void handle(ResultSet rs) throws SQLException {
+                // The query is already running; only wait for the lookups once rows arrive
+                if (personMap == null) {
+                    personMap = persons.join();
+                    locationMap = locations.join();
+                }
+                if (DatabaseManager.linkMedicalRecord(rs, personMap, locationMap)) {
+                    dbManager.markMedicalRecordLoaded(rs.getInt("medical_record_id"));
+                    linked[0]++;
+                }
+            }
+        });
+        return linked[0];
+    }
+
+    private ArrayList<ReliefService> loadInquiries(CompletableFuture<Map<Integer, DisasterVictim>> persons,
+                                                   CompletableFuture<Map<Integer, Location>> locations) {
+        ArrayList<ReliefService> inquiries = new ArrayList<>();
+        String sql = "SELECT " + DatabaseManager.INQUIRY_COLUMNS + " FROM Inquiry";
+        stream("Inquiry", sql, new RowHandler() {
+            private Map<Integer, DisasterVictim> personMap;
+            private Map<Integer, Location> locationMap;
+
+            @Override
+            public void handle(ResultSet rs) throws SQLException {
+                if (personMap == null) {
+                    personMap = persons.join();
+                    locationMap = locations.join();
+                }
+                ReliefService inquiry = DatabaseManager.mapInquiry(rs, personMap, locationMap);
+                if (inquiry != null) {
+                    dbManager.markInquiryLoaded(rs.getInt("inquiry_id"));
+                    inquiries.add(inquiry);
+                }
+            }
+        });
+        return inquiries;
+    }
+
+    private ArrayList<FamilyGroup> buildFamilyGroups(Map<Integer, DisasterVictim> persons) {
+        Map<Integer, FamilyGroup> groups = new LinkedHashMap<>();
+        for (DisasterVictim person : persons.values()) {
+            Integer groupId = familyGroupIds.get(person);
+            if (groupId != null) {
+                groups.computeIfAbsent(groupId, id -> new FamilyGroup(String.valueOf(id)))
+                      .addMember(person);
+            }
+        }
+        return new ArrayList<>(groups.values());
+    }
+
+    /**
+     * Runs a query on its own pooled connection and hands each row to the handler.
+     * Autocommit is turned off so drivers such as PostgreSQL use a cursor and
+     * honour the fetch size instead of buffering the whole result.
+     */
+    private void stream(String table, String sql, RowHandler handler) {
+        OperationMetrics metrics = dbManager.getMetrics();
+        String operation = "loadAllData." + table;
+        long start = System.nanoTime();
+        boolean succeeded = false;
+        long rows = 0;
+        try (Connection conn = pool.borrow()) {
+            conn.setAutoCommit(false);
+            try (Statement stmt = conn.createStatement()) {
+                stmt.setFetchSize(fetchSize);
+                try (ResultSet rs = stmt.executeQuery(sql)) {
+                    while (rs.next()) {
+                        rows++;
+                        handler.handle(rs);
+                    }
+                }
+            }
+            conn.commit();
+            succeeded = true;
+        } catch (SQLException e) {
+            dbManager.logError("Failed to load " + table, e);
+        } finally {
+            timings.put(table, elapsedMillis(start));
+            metrics.addRowsRead(operation, rows);
+            metrics.record(operation, start, succeeded);
+        }
+    }
+
+    private Map<String, Long> orderedTimings() {
+        Map<String, Long> ordered = new LinkedHashMap<>();
+        for (String table : new String[] { "Person", "Location", "Supply", "MedicalRecord", "Inquiry", "total" }) {
+            if (timings.containsKey(table)) {
+                ordered.put(table, timings.get(table));
+            }
+        }
+        return Collections.unmodifiableMap(ordered);
+    }
+
+    private static long elapsedMillis(long startNanos) {
+        return (System.nanoTime() - startNanos) / 1_000_000;
+    }
+
+    /**
+     * Consumes one row of a streamed result set.
+     */
+    private interface RowHandler {
+        void handle(ResultSet rs) throws SQLException;
+    }
+}
@@ -0,0 +1,78 @@
+package edu.ucalgary.oop;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Maps database primary keys to the in-memory objects loaded or saved for them,
+ * so each row is represented by a single object and saves never need to look
+ * an ID up again.
+ * 
+ * @param <T> The entity type
+ * @author Devante Kwizera
+ * @version 1.0
+ * @since 2025-04-15
+ */
+public class IdentityMap<T> {
+    private final Map<Integer, T> entities = new ConcurrentHashMap<>();
+
+    /**
+     * Records the object for a primary key, replacing any previous one.
+     * 
+     * @param id The primary key (must be positive)
+     * @param entity The object representing that row
+     * @throws IllegalArgumentException if the id is not positive
+     */
+    public void put(int id, T entity) {
+        if (id <= 0) {
+            throw new IllegalArgumentException("Database IDs must be positive: " + id);
+        }
+        entities.put(id, entity);
+    }
+
+    /**
+     * @param id The primary key
+     * @return The object for that key, or null if none is known
+     */
+    public T get(int id) {
+        return entities.get(id);
+    }
+
+    /**
+     * @param id The primary key to forget
+     */
+    public void remove(int id) {
+        entities.remove(id);
+    }
+
+    /**
+     * @return true if an object is known for the key
+     */
+    public boolean contains(int id) {
+        return entities.containsKey(id);
+    }
+
+    public int size() {
+        return entities.size();
+    }
+
+    public void clear() {
+        entities.clear();
+    }
+
+    /**
+     * @return a read-only live view of the objects by ID
+     */
+    public Map<Integer, T> asMap() {
+        return Collections.unmodifiableMap(entities);
+    }
+
+    /**
+     * @return a snapshot of all known objects
+     */
+    public ArrayList<T> values() {
+        return new ArrayList<>(entities.values());
+    }
+}
@@ -5,6 +5,7 @@ public class Inquirer {
     private final String LAST_NAME;
     private final String INFO;
     private final String SERVICES_PHONE;
+    private int databaseId;
 
     public Inquirer(String firstName, String lastName, String phone, String info) {
         this.FIRST_NAME = firstName;
@@ -18,11 +19,13 @@ public class Inquirer {
         this.LAST_NAME = disasterVictim.getLastName();
         this.SERVICES_PHONE = phone;
         this.INFO = info;
-        
+        this.databaseId = disasterVictim.getDatabaseId();
     }
 
     public String getFirstName() { return this.FIRST_NAME; }
     public String getLastName() { return this.LAST_NAME; }
     public String getServicesPhoneNum() { return this.SERVICES_PHONE; }
     public String getInfo() { return this.INFO; }
+    public int getDatabaseId() { return this.databaseId; }
+    void setDatabaseId(int databaseId) { this.databaseId = databaseId; }
 }
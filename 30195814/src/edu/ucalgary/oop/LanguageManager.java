@@ -1,16 +1,16 @@
 package edu.ucalgary.oop;
 
-import java.io.BufferedReader;
 import java.io.File;
-import java.io.FileReader;
 import java.io.IOException;
-import java.util.HashMap;
-import java.util.Map;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
 
 /**
  * Manages language settings and text translation for the application.
- * Supports loading language files in XML format.
- * Uses only basic Java I/O for parsing.
+ * Supports loading language files in XML format, compiled into a
+ * TranslationCatalog. Loaded languages are shared through the process-wide
+ * CatalogCache, so a reloaded language file shows up on the next lookup.
  * 
  * @author Devante Kwizera
  * @version 1.0
@@ -20,7 +20,8 @@ public class LanguageManager {
     private static final String DEFAULT_LANGUAGE = "en-CA";
     private static final String LANGUAGE_DIR = "data";
     
-    private Map<String, String> translations;
+    private final CatalogCache cache;
+    private CatalogCache.Entry language;
     private String currentLanguage;
     
     /**
@@ -30,7 +31,17 @@ public class LanguageManager {
      * @param languageCode The language code to load (e.g., "en-CA", "fr-CA")
      */
     public LanguageManager(String languageCode) {
-        translations = new HashMap<>();
+        this(languageCode, CatalogCache.shared());
+    }
+    
+    /**
+     * Constructor that loads languages through the given cache.
+     * 
+     * @param languageCode The language code to load (e.g., "en-CA", "fr-CA")
+     * @param cache The cache to share loaded languages through
+     */
+    LanguageManager(String languageCode, CatalogCache cache) {
+        this.cache = cache;
         
         if (languageCode == null || !isValidLanguageCode(languageCode) || !loadLanguage(languageCode)) {
             System.out.println("Warning: Could not load language '" + languageCode + 
@@ -40,126 +51,28 @@ public class LanguageManager {
     }
     
     /**
-     * Loads a language file.
+     * Loads a language file through the shared cache, loading its compiled catalog
+     * on first use.
+     * The current translations are kept if the file cannot be loaded.
      * 
      * @param languageCode The language code to load
      * @return true if successful, false otherwise
      */
     public boolean loadLanguage(String languageCode) {
-        String filename = LANGUAGE_DIR + File.separator + languageCode + ".xml";
-        File languageFile = new File(filename);
+        Path languageFile = Paths.get(LANGUAGE_DIR, languageCode + ".xml");
         
-        if (!languageFile.exists()) {
+        if (!Files.exists(languageFile)) {
             return false;
         }
         
-        try (BufferedReader reader = new BufferedReader(new FileReader(languageFile))) {
-            // Clear previous translations
-            translations.clear();
-            
-            String line;
-            String key = null;
-            String value = null;
-            boolean inTranslation = false;
-            boolean inKey = false;
-            boolean inValue = false;
-            StringBuilder buffer = new StringBuilder();
-            
-            while ((line = reader.readLine()) != null) {
-                line = line.trim();
-                
-                // Check for start of translation
-                if (line.contains("<translation>")) {
-                    inTranslation = true;
-                    key = null;
-                    value = null;
-                    continue;
-                }
-                
-                // Check for end of translation
-                if (line.contains("</translation>")) {
-                    if (key != null && value != null) {
-                        translations.put(key, value);
-                    }
-                    inTranslation = false;
-                    continue;
-                }
-                
-                // Only process lines within a translation tag
-                if (!inTranslation) {
-                    continue;
-                }
-                
-                // Check for key tags
-                if (line.contains("<key>")) {
-                    inKey = true;
-                    buffer.setLength(0); // Clear the buffer
-                    
-                    // Extract key if on same line
-                    int startIdx = line.indexOf("<key>") + 5;
-                    int endIdx = line.indexOf("</key>");
-                    if (endIdx > startIdx) {
-                        key = line.substring(startIdx, endIdx).trim();
-                        inKey = false;
-                    } else {
-                        // Key spans multiple lines or is on next line
-                        buffer.append(line.substring(startIdx));
-                    }
-                    
-                    continue;
-                }
-                
-                // Check for end of key
-                if (line.contains("</key>")) {
-                    int endIdx = line.indexOf("</key>");
-                    if (endIdx > 0) {
-                        buffer.append(" ").append(line.substring(0, endIdx).trim());
-                    }
-                    key = buffer.toString().trim();
-                    inKey = false;
-                    continue;
-                }
-                
-                // Check for value tags
-                if (line.contains("<value>")) {
-                    inValue = true;
-                    buffer.setLength(0); // Clear the buffer
-                    
-                    // Extract value if on same line
-                    int startIdx = line.indexOf("<value>") + 7;
-                    int endIdx = line.indexOf("</value>");
-                    if (endIdx > startIdx) {
-                        value = line.substring(startIdx, endIdx).trim();
-                        inValue = false;
-                    } else {
-                        // Value spans multiple lines or is on next line
-                        buffer.append(line.substring(startIdx));
-                    }
-                    
-                    continue;
-                }
-                
-                // Check for end of value
-                if (line.contains("</value>")) {
-                    int endIdx = line.indexOf("</value>");
-                    if (endIdx > 0) {
-                        buffer.append(" ").append(line.substring(0, endIdx).trim());
-                    }
-                    value = buffer.toString().trim();
-                    inValue = false;
-                    continue;
-                }
-                
-                // Add content to buffer if inside a tag
-                if (inKey) {
-                    buffer.append(" ").append(line.trim());
-                } else if (inValue) {
-                    buffer.append(" ").append(line.trim());
-                }
+        try {
+            CatalogCache.Entry loaded = cache.get(languageFile);
+            if (loaded.getCatalog().isEmpty()) {
+                return false;
             }
-            
+            language = loaded;
             currentLanguage = languageCode;
-            return !translations.isEmpty();
+            return true;
         } catch (IOException e) {
             System.err.println("Error loading language file: " + e.getMessage());
             return false;
@@ -173,7 +86,13 @@ public class LanguageManager {
      * @return The translated string, or the key itself if not found
      */
     public String getString(String key) {
-        return translations.getOrDefault(key, key);
+        TranslationCatalog catalog = catalog();
+        int index = catalog.indexOf(key);
+        if (index < 0) {
+            cache.recordMiss(currentLanguage, key);
+            return key;
+        }
+        return catalog.get(index);
     }
     
     /**
@@ -181,16 +100,21 @@ public class LanguageManager {
      * 
      * @param key The translation key
      * @param args Arguments for string formatting
-     * @return The formatted, translated string
+     * @return The formatted, translated string, or the unformatted template
+     *         if the arguments do not fit it
      */
     public String getString(String key, Object... args) {
-        String template = getString(key);
-        try {
-            return String.format(template, args);
-        } catch (Exception e) {
-            // If format fails, return the unformatted template
-            return template;
+        TranslationCatalog catalog = catalog();
+        int index = catalog.indexOf(key);
+        if (index < 0) {
+            cache.recordMiss(currentLanguage, key);
+            return catalog.format(key, args);
         }
+        return catalog.format(index, args);
+    }
+    
+    private TranslationCatalog catalog() {
+        return language == null ? TranslationCatalog.EMPTY : language.getCatalog();
     }
     
     /**
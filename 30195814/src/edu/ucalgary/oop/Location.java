@@ -1,10 +1,18 @@
 package edu.ucalgary.oop;
 
 import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
 
 /**
  * Represents a physical location where disaster victims can be placed and supplies can be stored.
  * Supplies can only be stored at locations unless allocated to individuals by DisasterVictim logic.
+ * A running count of the stored quantity per supply type is kept alongside
+ * the supply list, so stock levels can be read without scanning it. For a
+ * saved location DatabaseManager sets the counts from InventoryLedger when
+ * it loads or syncs, and adjusts them when an allocation commits.
  * 
  * @author Devante Kwizera
  * @version 1.0
@@ -15,6 +23,8 @@ public class Location {
     private String address;
     private ArrayList<DisasterVictim> occupants;
     private ArrayList<Supply> supplies;
+    private Map<String, Integer> stock;
+    private int databaseId;
 
     /**
      * Constructs a Location with a name and address.
@@ -27,6 +37,7 @@ public class Location {
         this.address = address;
         this.occupants = new ArrayList<>();
         this.supplies = new ArrayList<>();
+        this.stock = new ConcurrentHashMap<>();
     }
 
     // ---------- Getters and Setters ---------- //
@@ -59,6 +70,20 @@ public class Location {
         this.address = address;
     }
 
+    /**
+     * @return the Location.location_id of this location, or 0 if not yet saved
+     */
+    public int getDatabaseId() {
+        return databaseId;
+    }
+
+    /**
+     * @param databaseId the primary key assigned by the database
+     */
+    void setDatabaseId(int databaseId) {
+        this.databaseId = databaseId;
+    }
+
     /**
      * @return a list of current occupants
      */
@@ -73,6 +98,21 @@ public class Location {
         return new ArrayList<>(supplies);
     }
 
+    /**
+     * @param type a supply type such as "blanket" (case is ignored)
+     * @return the total quantity of that type stored here
+     */
+    public int getStock(String type) {
+        return stock.getOrDefault(stockKey(type), 0);
+    }
+
+    /**
+     * @return the total quantity stored here per supply type
+     */
+    public Map<String, Integer> getStock() {
+        return new HashMap<>(stock);
+    }
+
     // ---------- Core Logic ---------- //
 
     /**
@@ -106,6 +146,7 @@ public class Location {
             throw new IllegalArgumentException("Personal belongings cannot be added to a location.");
         }
         supplies.add(supply);
+        adjustStock(supply, supply.getQuantity());
     }
 
     /**
@@ -114,6 +155,52 @@ public class Location {
      * @param supply the supply to remove
      */
     public void removeSupply(Supply supply) {
-        supplies.remove(supply);
+        if (supplies.remove(supply)) {
+            adjustStock(supply, -supply.getQuantity());
+        }
+    }
+
+    private void adjustStock(Supply supply, int delta) {
+        adjustStock(supply.getType(), delta);
+    }
+
+    /**
+     * Changes the stored quantity of a supply type; types that reach zero are dropped.
+     * 
+     * @param type  a supply type (case is ignored)
+     * @param delta the quantity added, or taken if negative
+     */
+    void adjustStock(String type, int delta) {
+        stock.compute(stockKey(type), (key, quantity) -> {
+            int adjusted = (quantity == null ? 0 : quantity) + delta;
+            return adjusted > 0 ? adjusted : null;
+        });
+    }
+
+    /**
+     * Replaces the stored quantities, e.g. with the rows of InventoryLedger.
+     * 
+     * @param quantities the quantity per supply type
+     */
+    void setStock(Map<String, Integer> quantities) {
+        stock.keySet().retainAll(quantities.keySet());
+        for (Map.Entry<String, Integer> entry : quantities.entrySet()) {
+            if (entry.getValue() > 0) {
+                stock.put(stockKey(entry.getKey()), entry.getValue());
+            } else {
+                stock.remove(stockKey(entry.getKey()));
+            }
+        }
+    }
+
+    /**
+     * Normalizes a supply type for use as a stock key.
+     * The same key is stored in InventoryLedger.supply_type.
+     * 
+     * @param type a supply type
+     * @return the type in lower case, or an empty string for null
+     */
+    static String stockKey(String type) {
+        return type == null ? "" : type.trim().toLowerCase(Locale.ROOT);
     }
 }
@@ -29,13 +29,8 @@ public class Main {
             System.err.println("Fatal error: " + e.getMessage());
             e.printStackTrace();
             
-            // Log the error
-            try {
-                DatabaseManager dbManager = new DatabaseManager();
-                dbManager.logError("Fatal error in main", e);
-            } catch (Exception logError) {
-                System.err.println("Could not log error: " + logError.getMessage());
-            }
+            // Log the error; the log is drained before the JVM exits
+            ErrorLog.shared().log("Fatal error in main", e);
             
             System.exit(1);
         }
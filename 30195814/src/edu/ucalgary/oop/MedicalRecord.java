@@ -1,21 +1,26 @@
 package edu.ucalgary.oop;
 
-import java.time.LocalDate;
-import java.time.format.DateTimeFormatter;
-
 public class MedicalRecord {
     private Location location;
     private String treatmentDetails;
-    private String dateOfTreatment;
+    // Epoch day, see Dates
+    private int dateOfTreatment;
 
     public MedicalRecord(Location location, String treatmentDetails, String dateOfTreatment) throws IllegalArgumentException {
         setLocation(location);
         this.treatmentDetails = treatmentDetails;
 
         // Check if the treatmentDetails string matches the expected date format
-        if (!isValidDateFormat(dateOfTreatment)) {
+        this.dateOfTreatment = Dates.parse(dateOfTreatment);
+        if (this.dateOfTreatment == Dates.NONE) {
             throw new IllegalArgumentException("Invalid date format for treatment details. Expected format: YYYY-MM-DD");
         }
+    }
+
+    // Constructor for a treatment date that is already an epoch day, e.g. read from the database
+    MedicalRecord(Location location, String treatmentDetails, int dateOfTreatment) {
+        setLocation(location);
+        this.treatmentDetails = treatmentDetails;
         this.dateOfTreatment = dateOfTreatment;
     }
 
@@ -40,24 +45,19 @@ public class MedicalRecord {
 
     // Getter and setter for dateOfTreatment
     public String getDateOfTreatment() {
+        return Dates.format(dateOfTreatment);
+    }
+
+    public int getDateOfTreatmentEpochDay() {
         return dateOfTreatment;
     }
 
     public void setDateOfTreatment(String dateOfTreatment) throws IllegalArgumentException {
         // Check if the date of treatment string matches the expected date format
-        if (!isValidDateFormat(dateOfTreatment)) {
+        int parsed = Dates.parse(dateOfTreatment);
+        if (parsed == Dates.NONE) {
             throw new IllegalArgumentException("Invalid date format. Expected format: YYYY-MM-DD");
         }
-        this.dateOfTreatment = dateOfTreatment;
-    }
-
-    // Helper method to check if a string matches the YYYY-MM-DD date format
-    private boolean isValidDateFormat(String date) {
-        try {
-            LocalDate.parse(date, DateTimeFormatter.ISO_DATE);
-            return true;
-        } catch (Exception e) {
-            return false;
-        }
+        this.dateOfTreatment = parsed;
     }
 }
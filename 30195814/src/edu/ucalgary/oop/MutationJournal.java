@@ -0,0 +1,1320 @@
+package edu.ucalgary.oop;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.sql.Connection;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.IdentityHashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.zip.CRC32;
+
+/**
+ * Append-only journal of intake operations, so intake keeps working while the database is down.
+ * Registering or editing a victim, allocating a supply, recording a treatment
+ * and logging an inquiry are each appended as one line and forced to disk
+ * before the call returns; a worker thread then replays the journal into the
+ * database in order, backing off while it is unreachable.
+ *
+ * Appends are group-committed: while one caller forces the file, others keep
+ * appending, and the next force covers all of them, so many desks cost one
+ * fsync rather than one each. At most a bounded number of operations wait
+ * in memory; when the database falls that far behind, callers wait briefly
+ * for room and are then refused.
+ *
+ * Victim edits are written behind: a further edit to a victim whose PERSON
+ * operation is still waiting is merged into it, keeping its place and ID,
+ * and a run of waiting PERSON operations is flushed with
+ * DatabaseManager.saveAllOnce() in one batched transaction. Every operation carries a unique ID that
+ * DatabaseManager.applyOnce() records in the same transaction as the change,
+ * so replaying an operation that was already written, after a crash or a
+ * lost reply, does nothing.
+ *
+ * Lines are tab-separated: operation ID, kind, the fields of the kind, and a
+ * CRC32 of everything before it. A torn last line from a crash fails its
+ * check and is ignored. Locations must already be saved; victims may be new,
+ * and later operations refer to them by the key of their PERSON line.
+ *
+ * An operation the database keeps refusing while it is reachable, such as
+ * an allocation from stock that ran out, is never dropped: it is moved to a
+ * dead-letter file next to the journal (data/mutations.journal.deadletter),
+ * so the operations behind it can proceed. Once the cause is fixed the
+ * operator re-queues it with requeueDeadLetters() at the next start.
+ *
+ * Edits left in data/writebehind.journal by the write-behind queue of
+ * earlier versions are imported by recover() as PERSON operations.
+ *
+ * @author Devante Kwizera
+ * @version 1.0
+ * @since 2025-04-18
+ */
+public class MutationJournal {
+    public static final String DEFAULT_JOURNAL_PATH = "data/mutations.journal";
+    public static final long DEFAULT_REPLAY_INTERVAL_MILLIS = 2000;
+    public static final int DEFAULT_CAPACITY = 1000;
+    private static final long APPEND_TIMEOUT_MILLIS = 5000;
+    private static final long MAX_RETRY_DELAY_MILLIS = 60000;
+    // Attempts while the database is reachable before an operation is moved to the dead-letter file
+    private static final int MAX_ATTEMPTS = 5;
+    private static final String DEAD_LETTER_SUFFIX = ".deadletter";
+    // Left next to the journal by the write-behind queue of earlier versions
+    private static final String WRITE_BEHIND_FILE = "writebehind.journal";
+    private static final int PERSON_FIELDS = 9;
+    private static final String NULL_FIELD = "\\N";
+
+    private enum Kind { PERSON, ALLOCATION, TREATMENT, INQUIRY }
+
+    private final DatabaseManager dbManager;
+    private final Path journalPath;
+    private final long replayIntervalMillis;
+    private final int capacity;
+
+    private final ReentrantLock lock = new ReentrantLock();
+    private final Condition synced = lock.newCondition();
+    private final Condition notFull = lock.newCondition();
+    private final Condition replayRequested = lock.newCondition();
+    private final ReentrantLock replayLock = new ReentrantLock();
+    private final ArrayDeque<Operation> pending = new ArrayDeque<>();
+    // Journal keys of victims that were new when journaled, so later operations name the same victim
+    private final Map<DisasterVictim, String> personKeys = new IdentityHashMap<>();
+    // The last waiting PERSON operation of each victim, which further edits are merged into
+    private final Map<DisasterVictim, Operation> queuedPersons = new IdentityHashMap<>();
+    private final Thread worker;
+    private FileChannel channel;
+    private long appended = 0;
+    private long durable = 0;
+    private boolean syncing = false;
+    private boolean closed = false;
+    private boolean recovered = false;
+    private long syncCount = 0;
+    private long rejectedCount = 0;
+    private long deadLetterCount = 0;
+    private long mergedCount = 0;
+
+    /**
+     * Creates a journal with the default file, replay interval and capacity.
+     *
+     * @param dbManager The manager operations are replayed into
+     */
+    public MutationJournal(DatabaseManager dbManager) {
+        this(dbManager, Paths.get(DEFAULT_JOURNAL_PATH), DEFAULT_REPLAY_INTERVAL_MILLIS);
+    }
+
+    /**
+     * Creates a journal with the default capacity.
+     *
+     * @param dbManager The manager operations are replayed into
+     * @param journalPath File that holds operations until they are replayed
+     * @param replayIntervalMillis How often the worker retries when nothing asks it to replay
+     * @throws IllegalArgumentException if the interval is not positive
+     */
+    public MutationJournal(DatabaseManager dbManager, Path journalPath, long replayIntervalMillis) {
+        this(dbManager, journalPath, replayIntervalMillis, DEFAULT_CAPACITY);
+    }
+
+    /**
+     * @param dbManager The manager operations are replayed into
+     * @param journalPath File that holds operations until they are replayed
+     * @param replayIntervalMillis How often the worker retries when nothing asks it to replay
+     * @param capacity Most operations waiting to be written before new ones are refused
+     * @throws IllegalArgumentException if the interval or capacity is not positive
+     */
+    public MutationJournal(DatabaseManager dbManager, Path journalPath, long replayIntervalMillis, int capacity) {
+        if (replayIntervalMillis <= 0 || capacity <= 0) {
+            throw new IllegalArgumentException("Replay interval and capacity must be positive");
+        }
+        this.dbManager = dbManager;
+        this.journalPath = journalPath;
+        this.replayIntervalMillis = replayIntervalMillis;
+        this.capacity = capacity;
+
+        this.worker = new Thread(this::runWorker, "mutation-journal");
+        this.worker.setDaemon(true);
+        this.worker.start();
+    }
+
+    // ---------- Operations ---------- //
+
+    /**
+     * Journals the registration of a new victim or an edit to an existing one.
+     * The victim's values at replay time are written, so an edit to a victim
+     * whose PERSON operation has not started replaying is merged into it.
+     *
+     * @param victim The victim
+     * @return true once the operation is on disk, false if it could not be
+     *         written or the journal stayed full
+     */
+    public boolean savePerson(DisasterVictim victim) {
+        lock.lock();
+        try {
+            Operation queued = queuedPersons.get(victim);
+            if (queued != null && !queued.applying) {
+                // Same ID, so after a crash whichever of its lines replays first writes the victim once
+                Operation merged = personOperation(queued.id, victim);
+                if (!write(merged)) {
+                    return false;
+                }
+                queued.line = merged.line;
+                mergedCount++;
+                return force(merged, false);
+            }
+            Operation operation = personOperation(newId(), victim);
+            if (!append(operation)) {
+                return false;
+            }
+            queuedPersons.put(victim, operation);
+            return true;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Journals a supply allocation; see DatabaseManager.allocateSupply().
+     *
+     * @param supply The supply, saved or new
+     * @param person The person receiving it, or null if allocating to the location
+     * @param location The location receiving the supply or the one it is drawn from; must be saved if given
+     * @return true once the operation is on disk
+     * @throws IllegalArgumentException if neither a person nor a saved location is given
+     */
+    public boolean allocateSupply(Supply supply, DisasterVictim person, Location location) {
+        if (person == null && (location == null || location.getDatabaseId() <= 0)) {
+            throw new IllegalArgumentException("A supply is allocated to a person or a saved location");
+        }
+        lock.lock();
+        try {
+            String[] fields = {
+                String.valueOf(supply.getDatabaseId()),
+                supply.getType(),
+                DatabaseManager.supplyComments(supply),
+                supply instanceof Cot ? String.valueOf(((Cot) supply).getRoom()) : null,
+                supply instanceof Cot ? ((Cot) supply).getGrid() : null,
+                String.valueOf(supply.getQuantity()),
+                person != null ? personKey(person) : null,
+                String.valueOf(locationId(location))
+            };
+            return append(new Operation(newId(), Kind.ALLOCATION, fields,
+                allocationMutation(supply, person, location), person, supply));
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Journals a treatment given to a victim.
+     *
+     * @param person The treated victim
+     * @param record The medical record, whose location must be saved
+     * @return true once the operation is on disk
+     */
+    public boolean saveMedicalRecord(DisasterVictim person, MedicalRecord record) {
+        lock.lock();
+        try {
+            String[] fields = {
+                personKey(person),
+                String.valueOf(locationId(record.getLocation())),
+                record.getDateOfTreatment(),
+                record.getTreatmentDetails()
+            };
+            return append(new Operation(newId(), Kind.TREATMENT, fields,
+                conn -> dbManager.saveMedicalRecord(conn, person, record), person, null));
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Journals an inquiry about a victim.
+     *
+     * @param inquiry The inquiry, whose location must be saved
+     * @return true once the operation is on disk
+     */
+    public boolean saveInquiry(ReliefService inquiry) {
+        lock.lock();
+        try {
+            Inquirer inquirer = inquiry.getInquirer();
+            String[] fields = {
+                String.valueOf(inquirer.getDatabaseId()),
+                inquirer.getFirstName(),
+                inquirer.getLastName(),
+                inquirer.getServicesPhoneNum(),
+                inquirer.getInfo(),
+                personKey(inquiry.getMissingPerson()),
+                String.valueOf(locationId(inquiry.getLastKnownLocation())),
+                inquiry.getDateOfInquiry(),
+                inquiry.getInfoProvided()
+            };
+            return append(new Operation(newId(), Kind.INQUIRY, fields,
+                conn -> dbManager.saveInquiry(conn, inquiry), inquiry.getMissingPerson(), null));
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * @return the number of operations not yet written to the database
+     */
+    public int size() {
+        lock.lock();
+        try {
+            return pending.size();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * @return how many times the journal has been forced to disk; lower than the
+     *         number of operations when appends were group-committed
+     */
+    public long getSyncCount() {
+        lock.lock();
+        try {
+            return syncCount;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * @return how many operations held values the database can never store and were dropped
+     */
+    public long getRejectedCount() {
+        lock.lock();
+        try {
+            return rejectedCount;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * @return how many victim edits were merged into an operation already waiting
+     */
+    public long getMergedCount() {
+        lock.lock();
+        try {
+            return mergedCount;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * @return how many operations were moved to the dead-letter file in this session
+     */
+    public long getDeadLetterCount() {
+        lock.lock();
+        try {
+            return deadLetterCount;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    // ---------- Replay ---------- //
+
+    /**
+     * Writes pending operations to the database in journal order on the calling thread.
+     * Runs of PERSON operations are written in batches of the manager's batch
+     * size; if a batch fails, the rest of this replay goes one operation at a time.
+     * Stops at the first operation that cannot be written yet, so later
+     * operations never overtake the ones they depend on.
+     *
+     * @return true if every operation has been written
+     */
+    public boolean replay() {
+        replayLock.lock();
+        try {
+            int written = 0;
+            boolean batching = true;
+            try {
+                while (true) {
+                    List<Operation> batch = batching ? nextBatch() : new ArrayList<>();
+                    if (batch.size() > 1) {
+                        if (applyBatch(batch)) {
+                            finish(batch);
+                            written += batch.size();
+                            continue;
+                        }
+                        batching = false;
+                    }
+
+                    Operation operation;
+                    lock.lock();
+                    try {
+                        operation = pending.peek();
+                        if (operation != null) {
+                            operation.applying = true;
+                        }
+                    } finally {
+                        lock.unlock();
+                    }
+                    if (operation == null) {
+                        return true;
+                    }
+                    if (!apply(operation)) {
+                        lock.lock();
+                        try {
+                            operation.applying = false;
+                        } finally {
+                            lock.unlock();
+                        }
+                        return false;
+                    }
+                    finish(Arrays.asList(operation));
+                    written++;
+                }
+            } finally {
+                if (written > 0) {
+                    lock.lock();
+                    try {
+                        compactJournal();
+                    } finally {
+                        lock.unlock();
+                    }
+                }
+            }
+        } finally {
+            replayLock.unlock();
+        }
+    }
+
+    /**
+     * Stops accepting operations, replays what is pending and stops the worker.
+     * Anything that could not be written stays in the journal for the next start.
+     *
+     * @return true if every operation was written
+     */
+    public boolean close() {
+        lock.lock();
+        try {
+            closed = true;
+            replayRequested.signal();
+        } finally {
+            lock.unlock();
+        }
+
+        boolean drained = replay();
+        worker.interrupt();
+
+        lock.lock();
+        try {
+            while (syncing) {
+                synced.awaitUninterruptibly();
+            }
+            closeChannel();
+        } finally {
+            lock.unlock();
+        }
+        return drained;
+    }
+
+    /**
+     * @return how many operations wait in the dead-letter file, from this or earlier sessions
+     */
+    public int countDeadLetters() {
+        lock.lock();
+        try {
+            Path deadLetters = deadLetterPath();
+            return Files.exists(deadLetters) ? Files.readAllLines(deadLetters, StandardCharsets.UTF_8).size() : 0;
+        } catch (IOException e) {
+            dbManager.logError("Failed to read dead-lettered operations", e);
+            return 0;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Moves the operations in the dead-letter file back into the journal, so
+     * the following recover() queues them for replay again, e.g. after the
+     * stock or inquirer they were missing has been added. An operation that
+     * is still refused is moved back to the dead-letter file.
+     *
+     * @return how many operations were re-queued, or -1 if the files could not be read or written
+     * @throws IllegalStateException if recover() has already been called
+     */
+    public int requeueDeadLetters() {
+        lock.lock();
+        try {
+            if (recovered) {
+                throw new IllegalStateException("Dead letters must be re-queued before recover()");
+            }
+            Path deadLetters = deadLetterPath();
+            if (!Files.exists(deadLetters)) {
+                return 0;
+            }
+            while (syncing) {
+                synced.awaitUninterruptibly();
+            }
+            List<String> lines = Files.readAllLines(deadLetters, StandardCharsets.UTF_8);
+            FileChannel file = openChannel();
+            for (String line : lines) {
+                ByteBuffer bytes = StandardCharsets.UTF_8.encode(line + "\n");
+                while (bytes.hasRemaining()) {
+                    file.write(bytes);
+                }
+            }
+            file.force(false);
+            // Lines copied twice after a crash here are written once, as their IDs are recorded
+            Files.delete(deadLetters);
+            return lines.size();
+        } catch (IOException e) {
+            dbManager.logError("Failed to re-queue dead-lettered operations", e);
+            return -1;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Reads operations left in the journal by a previous run and queues them for replay.
+     * Should be called after loading data, so that operations on loaded victims
+     * and locations are applied to the loaded objects. Treatments are attached
+     * to their victims unless an equal record is already there.
+     *
+     * @return the victims and inquiries of the recovered operations, for adding to the application's lists
+     */
+    public Recovery recover() {
+        Recovery recovery = new Recovery();
+        lock.lock();
+        try {
+            recovered = true;
+        } finally {
+            lock.unlock();
+        }
+        List<String[]> journaled = new ArrayList<>();
+        Set<String> journaledIds = new HashSet<>();
+        if (Files.exists(journalPath)) {
+            try {
+                for (String line : Files.readAllLines(journalPath, StandardCharsets.UTF_8)) {
+                    String[] fields = parse(line);
+                    if (fields == null) {
+                        dbManager.logError("Skipping damaged mutation journal line",
+                                           new IllegalStateException("Checksum mismatch: " + line));
+                        continue;
+                    }
+                    journaled.add(fields);
+                    journaledIds.add(fields[0]);
+                }
+            } catch (IOException e) {
+                dbManager.logError("Failed to read mutation journal", e);
+                return recovery;
+            }
+        }
+
+        // Write-behind edits are older than anything journaled here, so they go first
+        Map<String, DisasterVictim> personsByKey = new HashMap<>();
+        List<Operation> recovered = recoverWriteBehind(journaledIds, personsByKey, recovery);
+        Map<String, Operation> recoveredById = new HashMap<>();
+        for (Operation operation : recovered) {
+            recoveredById.put(operation.id, operation);
+        }
+        for (String[] fields : journaled) {
+            try {
+                Operation operation = fromJournal(fields, personsByKey, recovery);
+                if (operation == null) {
+                    continue;
+                }
+                // A merged edit repeats the ID of its operation: keep the place, take the newer line
+                Operation earlier = recoveredById.putIfAbsent(operation.id, operation);
+                if (earlier == null) {
+                    recovered.add(operation);
+                } else {
+                    earlier.line = operation.line;
+                }
+            } catch (IllegalArgumentException e) {
+                dbManager.logError("Skipping unreadable mutation journal entry", e);
+            }
+        }
+
+        // Rewrite the journal so it holds exactly what is pending, in the current format
+        lock.lock();
+        try {
+            for (Map.Entry<String, DisasterVictim> person : personsByKey.entrySet()) {
+                if (person.getValue().getDatabaseId() <= 0) {
+                    personKeys.put(person.getValue(), person.getKey());
+                }
+            }
+            pending.addAll(recovered);
+            for (Operation operation : recovered) {
+                if (operation.kind == Kind.PERSON) {
+                    queuedPersons.put(operation.person, operation);
+                }
+            }
+            if (compactJournal()) {
+                // The imported write-behind edits are in the journal now
+                Files.deleteIfExists(journalPath.resolveSibling(WRITE_BEHIND_FILE));
+            }
+            replayRequested.signal();
+        } catch (IOException e) {
+            dbManager.logError("Failed to delete write-behind journal", e);
+        } finally {
+            lock.unlock();
+        }
+        return recovery;
+    }
+
+    /**
+     * Turns the edits of a write-behind journal into PERSON operations. Each
+     * operation is named after its line, so if the process dies before the
+     * old file is deleted, the next start skips the lines already imported
+     * and a replay skips the ones already written.
+     *
+     * @param journaledIds IDs of the operations already in this journal
+     */
+    private List<Operation> recoverWriteBehind(Set<String> journaledIds, Map<String, DisasterVictim> personsByKey,
+                                               Recovery recovery) {
+        List<Operation> operations = new ArrayList<>();
+        Path writeBehind = journalPath.resolveSibling(WRITE_BEHIND_FILE);
+        if (!Files.exists(writeBehind)) {
+            return operations;
+        }
+
+        List<String> lines;
+        try {
+            lines = Files.readAllLines(writeBehind, StandardCharsets.UTF_8);
+        } catch (IOException e) {
+            dbManager.logError("Failed to read write-behind journal", e);
+            return operations;
+        }
+        for (String line : lines) {
+            String id = UUID.nameUUIDFromBytes(line.getBytes(StandardCharsets.UTF_8)).toString();
+            String[] values = line.split("\t", -1);
+            if (values.length != PERSON_FIELDS) {
+                dbManager.logError("Skipping unreadable write-behind journal entry",
+                                   new IllegalStateException("Expected " + PERSON_FIELDS + " fields: " + line));
+                continue;
+            }
+            if (journaledIds.contains(id)) {
+                continue;
+            }
+            for (int i = 0; i < values.length; i++) {
+                values[i] = unescape(values[i]);
+            }
+            try {
+                operations.add(personFromJournal(id, values, personsByKey, recovery));
+            } catch (IllegalArgumentException e) {
+                dbManager.logError("Skipping unreadable write-behind journal entry", e);
+            }
+        }
+        return operations;
+    }
+
+    /**
+     * Victims and inquiries rebuilt from a journal by recover().
+     */
+    public static final class Recovery {
+        private final List<DisasterVictim> persons = new ArrayList<>();
+        private final List<ReliefService> inquiries = new ArrayList<>();
+
+        public List<DisasterVictim> getPersons() {
+            return persons;
+        }
+
+        public List<ReliefService> getInquiries() {
+            return inquiries;
+        }
+    }
+
+    // ---------- Worker ---------- //
+
+    private void runWorker() {
+        long delay = replayIntervalMillis;
+        while (true) {
+            lock.lock();
+            try {
+                if (closed) {
+                    return;
+                }
+                replayRequested.await(delay, TimeUnit.MILLISECONDS);
+            } catch (InterruptedException e) {
+                return;
+            } finally {
+                lock.unlock();
+            }
+
+            // Back off while the database is unreachable
+            delay = replay() ? replayIntervalMillis : Math.min(delay * 2, MAX_RETRY_DELAY_MILLIS);
+        }
+    }
+
+    /**
+     * Takes the run of PERSON operations at the head of the queue, up to the
+     * manager's batch size and each victim once, and marks them as applying
+     * so later edits are not merged into them.
+     */
+    private List<Operation> nextBatch() {
+        List<Operation> batch = new ArrayList<>();
+        Set<DisasterVictim> victims = Collections.newSetFromMap(new IdentityHashMap<>());
+        lock.lock();
+        try {
+            for (Operation operation : pending) {
+                if (operation.kind != Kind.PERSON || batch.size() >= dbManager.getBatchSize()
+                        || !victims.add(operation.person)) {
+                    break;
+                }
+                batch.add(operation);
+            }
+            if (batch.size() > 1) {
+                batch.forEach(operation -> operation.applying = true);
+            }
+        } finally {
+            lock.unlock();
+        }
+        return batch;
+    }
+
+    /**
+     * Writes a batch of PERSON operations in one transaction.
+     *
+     * @return true if all of them are written, false if none are
+     */
+    private boolean applyBatch(List<Operation> batch) {
+        Map<String, DisasterVictim> victims = new LinkedHashMap<>();
+        for (Operation operation : batch) {
+            victims.put(operation.id, operation.person);
+        }
+        boolean applied = dbManager.saveAllOnce(victims);
+        if (!applied) {
+            lock.lock();
+            try {
+                batch.forEach(operation -> operation.applying = false);
+            } finally {
+                lock.unlock();
+            }
+        }
+        return applied;
+    }
+
+    /**
+     * Removes operations that are done with from the head of the queue.
+     */
+    private void finish(List<Operation> done) {
+        lock.lock();
+        try {
+            for (Operation operation : done) {
+                pending.poll();
+                if (operation.kind == Kind.PERSON) {
+                    queuedPersons.remove(operation.person, operation);
+                }
+            }
+            notFull.signalAll();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Writes one operation, undoing IDs handed out by a rolled-back transaction.
+     *
+     * @return true if the operation is done with: written, written before, rejected or dead-lettered
+     */
+    private boolean apply(Operation operation) {
+        int personId = operation.person != null ? operation.person.getDatabaseId() : 0;
+        int supplyId = operation.supply != null ? operation.supply.getDatabaseId() : 0;
+        boolean applied = false;
+        try {
+            applied = dbManager.applyOnce(operation.id, operation.mutation);
+        } catch (IllegalArgumentException e) {
+            // A value the database can never store, such as an invalid cot cell
+            reject(operation, e);
+            return true;
+        } finally {
+            if (!applied && operation.person != null && personId <= 0) {
+                operation.person.setDatabaseId(personId);
+            }
+            if (!applied && operation.supply != null && supplyId <= 0) {
+                operation.supply.setDatabaseId(supplyId);
+            }
+        }
+        if (applied) {
+            return true;
+        }
+
+        // Refused while the database is reachable: stock ran out, an inquirer is unknown, ...
+        // Set it aside so it stops holding up the operations behind it
+        if (dbManager.isConnected() && ++operation.attempts >= MAX_ATTEMPTS) {
+            return deadLetter(operation);
+        }
+        return false;
+    }
+
+    /**
+     * Appends an operation to the dead-letter file and forces it to disk.
+     *
+     * @return true if it is on disk, false if it must stay pending
+     */
+    private boolean deadLetter(Operation operation) {
+        try (FileChannel file = FileChannel.open(deadLetterPath(), StandardOpenOption.CREATE,
+                                                 StandardOpenOption.WRITE, StandardOpenOption.APPEND)) {
+            ByteBuffer bytes = StandardCharsets.UTF_8.encode(operation.line + "\n");
+            while (bytes.hasRemaining()) {
+                file.write(bytes);
+            }
+            file.force(false);
+        } catch (IOException e) {
+            dbManager.logError("Failed to dead-letter journaled " + operation.kind + " operation", e);
+            return false;
+        }
+        dbManager.logError("Moved journaled " + operation.kind + " operation " + operation.id
+                           + " to " + deadLetterPath(), new IllegalStateException(
+                           "Refused by the database " + operation.attempts + " times"));
+        lock.lock();
+        try {
+            deadLetterCount++;
+        } finally {
+            lock.unlock();
+        }
+        return true;
+    }
+
+    private Path deadLetterPath() {
+        return journalPath.resolveSibling(journalPath.getFileName() + DEAD_LETTER_SUFFIX);
+    }
+
+    private void reject(Operation operation, Exception cause) {
+        dbManager.logError("Dropped journaled " + operation.kind + " operation " + operation.id, cause);
+        lock.lock();
+        try {
+            rejectedCount++;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    // ---------- Journal ---------- //
+
+    /**
+     * Queues an operation and waits until it is on disk, first waiting a while
+     * for room if the queue is full. Called with the lock held.
+     */
+    private boolean append(Operation operation) {
+        long remaining = TimeUnit.MILLISECONDS.toNanos(APPEND_TIMEOUT_MILLIS);
+        while (!closed && pending.size() >= capacity) {
+            if (remaining <= 0) {
+                dbManager.logError("Refused " + operation.kind + " operation",
+                                   new IllegalStateException(capacity + " operations are waiting to be written"));
+                return false;
+            }
+            try {
+                remaining = notFull.awaitNanos(remaining);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return false;
+            }
+        }
+        if (!write(operation)) {
+            return false;
+        }
+        pending.add(operation);
+        return force(operation, true);
+    }
+
+    /**
+     * Appends an operation's line to the journal file without forcing it. Called with the lock held.
+     */
+    private boolean write(Operation operation) {
+        if (closed) {
+            return false;
+        }
+        try {
+            openChannel();
+            ByteBuffer bytes = StandardCharsets.UTF_8.encode(operation.line + "\n");
+            while (bytes.hasRemaining()) {
+                channel.write(bytes);
+            }
+        } catch (IOException e) {
+            dbManager.logError("Failed to journal " + operation.kind + " operation", e);
+            return false;
+        }
+        return true;
+    }
+
+    /**
+     * Waits until the line written last is on disk. Called with the lock held;
+     * the lock is released while this thread forces the file, so other callers can
+     * append in the meantime and be covered by the next force.
+     *
+     * @param queued true if the operation was queued and must be taken off the queue if the force fails
+     */
+    private boolean force(Operation operation, boolean queued) {
+        long sequence = ++appended;
+
+        while (durable < sequence) {
+            if (syncing) {
+                synced.awaitUninterruptibly();
+                continue;
+            }
+            syncing = true;
+            long target = appended;
+            IOException failure = null;
+            FileChannel forcing = null;
+            try {
+                // Compaction may have closed the channel; forcing a new one flushes the same file
+                forcing = openChannel();
+            } catch (IOException e) {
+                failure = e;
+            }
+            lock.unlock();
+            try {
+                if (forcing != null) {
+                    forcing.force(false);
+                }
+            } catch (IOException e) {
+                failure = e;
+            } finally {
+                lock.lock();
+                syncing = false;
+                synced.signalAll();
+            }
+            if (failure != null) {
+                dbManager.logError("Failed to force mutation journal to disk", failure);
+                if (queued) {
+                    pending.remove(operation);
+                    notFull.signalAll();
+                }
+                return false;
+            }
+            durable = Math.max(durable, target);
+            syncCount++;
+        }
+        replayRequested.signal();
+        return true;
+    }
+
+    /**
+     * Rewrites the journal so it holds exactly the pending operations.
+     * Called with the lock held.
+     *
+     * @return true if the journal on disk now matches the pending operations
+     */
+    private boolean compactJournal() {
+        while (syncing) {
+            synced.awaitUninterruptibly();
+        }
+        closeChannel();
+        try {
+            if (pending.isEmpty()) {
+                Files.deleteIfExists(journalPath);
+                durable = appended;
+                return true;
+            }
+            Path temp = journalPath.resolveSibling(journalPath.getFileName() + ".tmp");
+            List<String> lines = new ArrayList<>();
+            for (Operation operation : pending) {
+                lines.add(operation.line);
+            }
+            Files.write(temp, lines, StandardCharsets.UTF_8);
+            try (FileChannel file = FileChannel.open(temp, StandardOpenOption.WRITE)) {
+                file.force(false);
+            }
+            Files.move(temp, journalPath, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            // Everything pending is in the forced copy
+            durable = appended;
+            return true;
+        } catch (IOException e) {
+            dbManager.logError("Failed to compact mutation journal", e);
+            return false;
+        }
+    }
+
+    /**
+     * Opens the journal for appending if it is not open. Called with the lock held.
+     */
+    private FileChannel openChannel() throws IOException {
+        if (channel == null) {
+            Path parent = journalPath.getParent();
+            if (parent != null) {
+                Files.createDirectories(parent);
+            }
+            channel = FileChannel.open(journalPath, StandardOpenOption.CREATE,
+                                       StandardOpenOption.WRITE, StandardOpenOption.APPEND);
+        }
+        return channel;
+    }
+
+    private void closeChannel() {
+        if (channel != null) {
+            try {
+                channel.close();
+            } catch (IOException e) {
+                dbManager.logError("Failed to close mutation journal", e);
+            }
+            channel = null;
+        }
+    }
+
+    // ---------- Encoding ---------- //
+
+    private static String newId() {
+        return UUID.randomUUID().toString();
+    }
+
+    /**
+     * Builds the PERSON operation of a victim. Called with the lock held.
+     */
+    private Operation personOperation(String id, DisasterVictim victim) {
+        FamilyGroup group = victim.getFamilyGroup();
+        String[] fields = {
+            personKey(victim),
+            String.valueOf(victim.getDatabaseId()),
+            victim.getEntryDate(),
+            victim.getFirstName(),
+            victim.getLastName(),
+            victim.getDateOfBirth(),
+            victim.getGender(),
+            victim.getComments(),
+            group != null ? group.getGroupId() : null
+        };
+        return new Operation(id, Kind.PERSON, fields, personMutation(victim), victim, null);
+    }
+
+    /**
+     * Rebuilds the victim of a PERSON operation and the operation itself.
+     * Fields: key, database ID, entry date, first name, last name, date of birth,
+     * gender, comments, family group.
+     *
+     * @throws IllegalArgumentException if a field is not valid
+     */
+    private Operation personFromJournal(String id, String[] values, Map<String, DisasterVictim> personsByKey,
+                                        Recovery recovery) {
+        String key = values[0];
+        DisasterVictim victim = personsByKey.get(key);
+        int databaseId = Integer.parseInt(values[1]);
+        if (victim == null && databaseId > 0) {
+            victim = dbManager.getPersonById(databaseId);
+        }
+        if (victim == null) {
+            victim = new DisasterVictim(values[3], values[2]);
+            if (databaseId > 0) {
+                victim.setDatabaseId(databaseId);
+            }
+        }
+
+        victim.setFirstName(values[3]);
+        victim.setLastName(values[4]);
+        if (values[5] != null) {
+            victim.setDateOfBirth(values[5]);
+        }
+        if (values[6] != null) {
+            victim.setGender(values[6]);
+        }
+        victim.setComments(values[7]);
+        if (values[8] != null && victim.getFamilyGroup() == null) {
+            new FamilyGroup(values[8]).addMember(victim);
+        }
+
+        if (!personsByKey.containsKey(key)) {
+            recovery.getPersons().add(victim);
+        }
+        personsByKey.put(key, victim);
+        return new Operation(id, Kind.PERSON, values, personMutation(victim), victim, null);
+    }
+
+    /**
+     * The mutation of a PERSON operation. The victim's ID is recorded with the
+     * operation, so a replay of an operation that was already written gives a
+     * recovered victim the ID it was saved under.
+     */
+    private DatabaseManager.Mutation personMutation(DisasterVictim victim) {
+        return new DatabaseManager.Mutation() {
+            @Override
+            public boolean apply(Connection conn) {
+                return dbManager.savePerson(conn, victim);
+            }
+
+            @Override
+            public int getCreatedId() {
+                return victim.getDatabaseId();
+            }
+
+            @Override
+            public void restoreCreatedId(int id) {
+                victim.setDatabaseId(id);
+                dbManager.register(victim);
+            }
+        };
+    }
+
+    /**
+     * The mutation of an ALLOCATION operation, recording the ID of a new supply; see personMutation().
+     */
+    private DatabaseManager.Mutation allocationMutation(Supply supply, DisasterVictim person, Location location) {
+        return new DatabaseManager.Mutation() {
+            private DatabaseManager.PendingAllocation pending;
+
+            @Override
+            public boolean apply(Connection conn) {
+                pending = dbManager.allocateSupply(conn, supply, person, location);
+                return pending != null;
+            }
+
+            @Override
+            public void committed() {
+                pending.committed();
+            }
+
+            @Override
+            public void rolledBack() {
+                if (pending != null) {
+                    pending.rolledBack();
+                }
+            }
+
+            @Override
+            public int getCreatedId() {
+                return supply.getDatabaseId();
+            }
+
+            @Override
+            public void restoreCreatedId(int id) {
+                supply.setDatabaseId(id);
+                dbManager.register(supply);
+            }
+        };
+    }
+
+    /**
+     * The key that names a victim in this journal. Called with the lock held.
+     */
+    private String personKey(DisasterVictim victim) {
+        String key = personKeys.get(victim);
+        if (key != null) {
+            return key;
+        }
+        if (victim.getDatabaseId() > 0) {
+            return "db" + victim.getDatabaseId();
+        }
+        key = "new-" + newId();
+        personKeys.put(victim, key);
+        return key;
+    }
+
+    private static int locationId(Location location) {
+        return location != null ? location.getDatabaseId() : 0;
+    }
+
+    /**
+     * Splits a journal line and checks its checksum.
+     *
+     * @return The unescaped fields without the checksum, or null if the line is damaged
+     */
+    private static String[] parse(String line) {
+        int last = line.lastIndexOf('\t');
+        if (last < 0 || !checksum(line.substring(0, last)).equals(line.substring(last + 1))) {
+            return null;
+        }
+        String[] fields = line.substring(0, last).split("\t", -1);
+        for (int i = 0; i < fields.length; i++) {
+            fields[i] = unescape(fields[i]);
+        }
+        return fields;
+    }
+
+    private static String checksum(String text) {
+        CRC32 crc = new CRC32();
+        crc.update(text.getBytes(StandardCharsets.UTF_8));
+        return Long.toHexString(crc.getValue());
+    }
+
+    /**
+     * Escapes a field so it holds no tabs or line breaks; null is written as \N.
+     */
+    private static String escape(String value) {
+        if (value == null) {
+            return NULL_FIELD;
+        }
+        StringBuilder out = new StringBuilder(value.length());
+        for (char c : value.toCharArray()) {
+            switch (c) {
+                case '\\': out.append("\\\\"); break;
+                case '\t': out.append("\\t"); break;
+                case '\n': out.append("\\n"); break;
+                case '\r': out.append("\\r"); break;
+                default: out.append(c);
+            }
+        }
+        return out.toString();
+    }
+
+    private static String unescape(String value) {
+        if (NULL_FIELD.equals(value)) {
+            return null;
+        }
+        StringBuilder out = new StringBuilder(value.length());
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            if (c == '\\' && i + 1 < value.length()) {
+                char next = value.charAt(++i);
+                switch (next) {
+                    case 't': out.append('\t'); break;
+                    case 'n': out.append('\n'); break;
+                    case 'r': out.append('\r'); break;
+                    default: out.append(next);
+                }
+            } else {
+                out.append(c);
+            }
+        }
+        return out.toString();
+    }
+
+    /**
+     * Rebuilds an operation and the objects it works on from a journal line.
+     *
+     * @return The operation, or null if what it refers to is not loaded
+     * @throws IllegalArgumentException if a field is not valid
+     */
+    private Operation fromJournal(String[] fields, Map<String, DisasterVictim> personsByKey, Recovery recovery) {
+        String id = fields[0];
+        Kind kind = Kind.valueOf(fields[1]);
+        String[] values = Arrays.copyOfRange(fields, 2, fields.length);
+        switch (kind) {
+            case PERSON:
+                return personFromJournal(id, values, personsByKey, recovery);
+            case ALLOCATION: {
+                Supply supply = findSupply(values);
+                DisasterVictim person = values[6] != null ? findPerson(values[6], personsByKey) : null;
+                Location location = findLocation(values[7]);
+                if ((values[6] != null && person == null) || (values[6] == null && location == null)) {
+                    return unresolved(kind, id);
+                }
+                return new Operation(id, kind, values, allocationMutation(supply, person, location), person, supply);
+            }
+            case TREATMENT: {
+                DisasterVictim person = findPerson(values[0], personsByKey);
+                Location location = findLocation(values[1]);
+                if (person == null || location == null) {
+                    return unresolved(kind, id);
+                }
+                MedicalRecord record = new MedicalRecord(location, values[3], values[2]);
+                if (!hasRecord(person, record)) {
+                    person.addMedicalRecord(record);
+                }
+                return new Operation(id, kind, values,
+                    conn -> dbManager.saveMedicalRecord(conn, person, record), person, null);
+            }
+            case INQUIRY: {
+                DisasterVictim person = findPerson(values[5], personsByKey);
+                Location location = findLocation(values[6]);
+                if (person == null || location == null) {
+                    return unresolved(kind, id);
+                }
+                Inquirer inquirer = new Inquirer(values[1], values[2], values[3], values[4]);
+                int inquirerId = Integer.parseInt(values[0]);
+                if (inquirerId > 0) {
+                    inquirer.setDatabaseId(inquirerId);
+                }
+                ReliefService inquiry = new ReliefService(inquirer, person, values[7], values[8], location);
+                recovery.getInquiries().add(inquiry);
+                return new Operation(id, kind, values, conn -> dbManager.saveInquiry(conn, inquiry), person, null);
+            }
+            default:
+                throw new IllegalArgumentException("Unknown operation kind " + kind);
+        }
+    }
+
+    private Operation unresolved(Kind kind, String id) {
+        dbManager.logError("Skipping journaled " + kind + " operation " + id,
+                           new IllegalStateException("Its victim or location is not loaded"));
+        return null;
+    }
+
+    private DisasterVictim findPerson(String key, Map<String, DisasterVictim> personsByKey) {
+        DisasterVictim person = personsByKey.get(key);
+        if (person == null && key.startsWith("db")) {
+            person = dbManager.getPersonById(Integer.parseInt(key.substring(2)));
+        }
+        return person;
+    }
+
+    private Location findLocation(String id) {
+        int locationId = Integer.parseInt(id);
+        return locationId > 0 ? dbManager.getLocationById(locationId) : null;
+    }
+
+    private Supply findSupply(String[] values) {
+        int supplyId = Integer.parseInt(values[0]);
+        Supply supply = supplyId > 0 ? dbManager.getSupplyById(supplyId) : null;
+        if (supply != null) {
+            return supply;
+        }
+        if ("cot".equalsIgnoreCase(values[1])) {
+            supply = new Cot(Integer.parseInt(values[3]), values[4], 1);
+        } else {
+            supply = DatabaseManager.createSupply(values[1], values[2]);
+        }
+        supply.setQuantity(Integer.parseInt(values[5]));
+        if (supplyId > 0) {
+            supply.setDatabaseId(supplyId);
+        }
+        return supply;
+    }
+
+    private static boolean hasRecord(DisasterVictim person, MedicalRecord record) {
+        for (MedicalRecord existing : person.getMedicalRecords()) {
+            if (existing.getLocation() == record.getLocation()
+                    && existing.getDateOfTreatmentEpochDay() == record.getDateOfTreatmentEpochDay()
+                    && Objects.equals(existing.getTreatmentDetails(), record.getTreatmentDetails())) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * One journaled operation: its line, the statements that apply it, and the
+     * new victim or supply whose generated ID is undone if the transaction rolls back.
+     */
+    private static final class Operation {
+        final String id;
+        final Kind kind;
+        // Replaced by the line of a later edit merged into a PERSON operation
+        String line;
+        final DatabaseManager.Mutation mutation;
+        final DisasterVictim person;
+        final Supply supply;
+        int attempts = 0;
+        // Set while the operation is being written, so edits are no longer merged into it
+        boolean applying = false;
+
+        Operation(String id, Kind kind, String[] fields, DatabaseManager.Mutation mutation,
+                  DisasterVictim person, Supply supply) {
+            this.id = id;
+            this.kind = kind;
+            this.mutation = mutation;
+            this.person = person;
+            this.supply = supply;
+
+            StringBuilder text = new StringBuilder();
+            text.append(escape(id)).append('\t').append(kind);
+            for (String field : fields) {
+                text.append('\t').append(escape(field));
+            }
+            String checksum = checksum(text.toString());
+            this.line = text.append('\t').append(checksum).toString();
+        }
+    }
+}
@@ -0,0 +1,413 @@
+package edu.ucalgary.oop;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.time.LocalDateTime;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Latency histograms and counters for the operations of a DatabaseManager.
+ * Each operation (loadPersons, savePerson, ...) gets a LatencyHistogram and
+ * counters for calls, failures and rows read and written. Connection
+ * acquisitions and failures, and statement cache hits and misses, come from
+ * the manager's ConnectionPool.
+ *
+ * Operations slower than the slow threshold (the db.slowQueryMillis system
+ * property, 500 ms by default) are written to data/slowqueries.log and kept
+ * in a short list of recent ones.
+ *
+ * getReport() gives a text dump; writePrometheus() writes the same metrics
+ * in the Prometheus text format, for a scraper such as node_exporter's
+ * textfile collector. startExport() rewrites that file periodically.
+ *
+ * @author Devante Kwizera
+ * @version 1.0
+ * @since 2025-04-18
+ */
+public class OperationMetrics {
+    public static final long DEFAULT_SLOW_THRESHOLD_MILLIS = 500;
+    public static final String DEFAULT_SLOW_LOG_PATH = "data/slowqueries.log";
+    public static final String DEFAULT_PROMETHEUS_PATH = "data/metrics.prom";
+    public static final long DEFAULT_EXPORT_INTERVAL_MILLIS = 15_000;
+    private static final int RECENT_SLOW_OPERATIONS = 20;
+    private static final String PREFIX = "disaster_db_";
+    // Upper bounds of the Prometheus histogram buckets, in seconds
+    private static final double[] BUCKET_SECONDS = {
+        0.0005, 0.001, 0.0025, 0.005, 0.01, 0.025, 0.05, 0.1, 0.25, 0.5, 1, 2.5, 5, 10
+    };
+
+    private final ConnectionPool pool;
+    private final long slowThresholdNanos;
+    private final Path slowLogPath;
+    private final ConcurrentHashMap<String, Operation> operations = new ConcurrentHashMap<>();
+    private final Deque<String> recentSlow = new ArrayDeque<>();
+    private final LongAdder slowCount = new LongAdder();
+    private ErrorLog slowLog;
+    private ScheduledExecutorService exporter;
+
+    /**
+     * Per-operation histogram and counters.
+     */
+    private static final class Operation {
+        final LatencyHistogram latency = new LatencyHistogram();
+        final LongAdder failures = new LongAdder();
+        final LongAdder rowsRead = new LongAdder();
+        final LongAdder rowsWritten = new LongAdder();
+    }
+
+    /**
+     * Creates metrics with the slow threshold from the db.slowQueryMillis system property.
+     *
+     * @param pool The pool whose connection counters are reported
+     */
+    public OperationMetrics(ConnectionPool pool) {
+        this(pool, Long.getLong("db.slowQueryMillis", DEFAULT_SLOW_THRESHOLD_MILLIS),
+             Paths.get(DEFAULT_SLOW_LOG_PATH));
+    }
+
+    /**
+     * @param pool The pool whose connection counters are reported
+     * @param slowThresholdMillis Operations taking at least this long are logged as slow
+     * @param slowLogPath File slow operations are written to
+     * @throws IllegalArgumentException if the threshold is negative
+     */
+    public OperationMetrics(ConnectionPool pool, long slowThresholdMillis, Path slowLogPath) {
+        if (slowThresholdMillis < 0) {
+            throw new IllegalArgumentException("Slow threshold must not be negative: " + slowThresholdMillis);
+        }
+        this.pool = pool;
+        this.slowThresholdNanos = TimeUnit.MILLISECONDS.toNanos(slowThresholdMillis);
+        this.slowLogPath = slowLogPath;
+    }
+
+    // ---------- Recording ---------- //
+
+    /**
+     * @return the start time to pass to record()
+     */
+    public long start() {
+        return System.nanoTime();
+    }
+
+    /**
+     * Records one call of an operation that started at startNanos.
+     *
+     * @param operation The operation name, e.g. "savePerson"
+     * @param startNanos The value returned by start()
+     * @param succeeded false if the operation failed
+     */
+    public void record(String operation, long startNanos, boolean succeeded) {
+        long elapsed = System.nanoTime() - startNanos;
+        Operation stats = operation(operation);
+        stats.latency.record(elapsed);
+        if (!succeeded) {
+            stats.failures.increment();
+        }
+        if (elapsed >= slowThresholdNanos) {
+            recordSlow(operation, elapsed, succeeded);
+        }
+    }
+
+    /**
+     * @param operation The operation that read the rows
+     * @param rows The number of rows read
+     */
+    public void addRowsRead(String operation, long rows) {
+        operation(operation).rowsRead.add(rows);
+    }
+
+    /**
+     * @param operation The operation that wrote the rows
+     * @param rows The number of rows written
+     */
+    public void addRowsWritten(String operation, long rows) {
+        operation(operation).rowsWritten.add(rows);
+    }
+
+    private Operation operation(String name) {
+        Operation stats = operations.get(name);
+        return stats != null ? stats : operations.computeIfAbsent(name, n -> new Operation());
+    }
+
+    private void recordSlow(String operation, long elapsedNanos, boolean succeeded) {
+        slowCount.increment();
+        String line = String.format("%s took %.1f ms (threshold %d ms)%s", operation,
+                                    elapsedNanos / 1_000_000.0, TimeUnit.NANOSECONDS.toMillis(slowThresholdNanos),
+                                    succeeded ? "" : " and failed");
+        ErrorLog log;
+        synchronized (recentSlow) {
+            recentSlow.addFirst(LocalDateTime.now() + " " + line);
+            if (recentSlow.size() > RECENT_SLOW_OPERATIONS) {
+                recentSlow.removeLast();
+            }
+            if (slowLog == null) {
+                slowLog = new ErrorLog(slowLogPath, ErrorLog.DEFAULT_CAPACITY, ErrorLog.DEFAULT_MAX_BYTES,
+                                       ErrorLog.DEFAULT_MAX_AGE_MILLIS, ErrorLog.DEFAULT_KEEP_FILES);
+            }
+            log = slowLog;
+        }
+        log.log(line, null);
+    }
+
+    // ---------- Reading ---------- //
+
+    /**
+     * @param operation The operation name
+     * @return its latency histogram, or null if it was never recorded
+     */
+    public LatencyHistogram getLatency(String operation) {
+        Operation stats = operations.get(operation);
+        return stats == null ? null : stats.latency;
+    }
+
+    public long getFailureCount(String operation) {
+        Operation stats = operations.get(operation);
+        return stats == null ? 0 : stats.failures.sum();
+    }
+
+    public long getRowsRead(String operation) {
+        Operation stats = operations.get(operation);
+        return stats == null ? 0 : stats.rowsRead.sum();
+    }
+
+    public long getRowsWritten(String operation) {
+        Operation stats = operations.get(operation);
+        return stats == null ? 0 : stats.rowsWritten.sum();
+    }
+
+    /**
+     * @return the number of operations that reached the slow threshold
+     */
+    public long getSlowCount() {
+        return slowCount.sum();
+    }
+
+    /**
+     * @return the most recent slow operations, newest first
+     */
+    public List<String> getRecentSlowOperations() {
+        synchronized (recentSlow) {
+            return new ArrayList<>(recentSlow);
+        }
+    }
+
+    /**
+     * Waits until logged slow operations are in the slow log file.
+     */
+    void flushSlowLog() {
+        ErrorLog log;
+        synchronized (recentSlow) {
+            log = slowLog;
+        }
+        if (log != null) {
+            log.flush(5000);
+        }
+    }
+
+    // ---------- Output ---------- //
+
+    /**
+     * @return a text dump of every operation, the connection counters and recent slow operations
+     */
+    public String getReport() {
+        StringBuilder report = new StringBuilder();
+        report.append(String.format("%-28s %8s %6s %9s %9s %9s %9s %9s %9s %9s%n", "Operation", "Calls", "Fails",
+                                    "Mean ms", "p50 ms", "p90 ms", "p99 ms", "Max ms", "Rows in", "Rows out"));
+        for (Map.Entry<String, Operation> entry : sortedOperations().entrySet()) {
+            Operation stats = entry.getValue();
+            LatencyHistogram latency = stats.latency;
+            report.append(String.format("%-28s %8d %6d %9.2f %9.2f %9.2f %9.2f %9.2f %9d %9d%n", entry.getKey(),
+                                        latency.getCount(), stats.failures.sum(), latency.getMeanNanos() / 1e6,
+                                        latency.getValueAtPercentile(50) / 1e6, latency.getValueAtPercentile(90) / 1e6,
+                                        latency.getValueAtPercentile(99) / 1e6, latency.getMaxNanos() / 1e6,
+                                        stats.rowsRead.sum(), stats.rowsWritten.sum()));
+        }
+        if (pool != null) {
+            report.append(String.format("%nConnections: acquired=%d failed=%d opened=%d active=%d idle=%d " +
+                                        "avgWait=%.2fms maxWait=%.2fms%n",
+                                        pool.getBorrowCount(), pool.getFailedBorrowCount(), pool.getCreatedCount(),
+                                        pool.getActiveCount(), pool.getIdleCount(), pool.getAverageWaitMillis(),
+                                        pool.getMaxWaitMillis()));
+            report.append(String.format("Statement cache: size=%d/connection hits=%d misses=%d evicted=%d " +
+                                        "hitRatio=%.1f%%%n",
+                                        pool.getStatementCacheSize(), pool.getStatementCacheHits(),
+                                        pool.getStatementCacheMisses(), pool.getStatementCacheEvictions(),
+                                        pool.getStatementCacheHitRatio() * 100));
+        }
+        report.append(String.format("%nSlow operations (>= %d ms): %d%n",
+                                    TimeUnit.NANOSECONDS.toMillis(slowThresholdNanos), getSlowCount()));
+        for (String slow : getRecentSlowOperations()) {
+            report.append("  ").append(slow).append(System.lineSeparator());
+        }
+        return report.toString();
+    }
+
+    /**
+     * Writes the metrics in the Prometheus text format. The file is replaced
+     * atomically, so a scraper never reads half of it.
+     *
+     * @param path The file to write
+     * @throws IOException if the file cannot be written
+     */
+    public void writePrometheus(Path path) throws IOException {
+        Path parent = path.toAbsolutePath().getParent();
+        Files.createDirectories(parent);
+        Path temp = Files.createTempFile(parent, path.getFileName().toString(), ".tmp");
+        try {
+            try (BufferedWriter out = Files.newBufferedWriter(temp, StandardCharsets.UTF_8)) {
+                out.write(toPrometheus());
+            }
+            Files.move(temp, path, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } finally {
+            Files.deleteIfExists(temp);
+        }
+    }
+
+    /**
+     * @return the metrics in the Prometheus text exposition format
+     */
+    public String toPrometheus() {
+        Map<String, Operation> sorted = sortedOperations();
+        StringBuilder text = new StringBuilder();
+
+        header(text, "operation_seconds", "histogram", "Latency of DatabaseManager operations.");
+        for (Map.Entry<String, Operation> entry : sorted.entrySet()) {
+            String label = "operation=\"" + escapeLabel(entry.getKey()) + "\"";
+            LatencyHistogram latency = entry.getValue().latency;
+            for (double bound : BUCKET_SECONDS) {
+                long count = latency.getCountAtOrBelow((long) (bound * 1e9));
+                text.append(PREFIX).append("operation_seconds_bucket{").append(label)
+                    .append(",le=\"").append(bound).append("\"} ").append(count).append('\n');
+            }
+            long count = latency.getCount();
+            text.append(PREFIX).append("operation_seconds_bucket{").append(label).append(",le=\"+Inf\"} ")
+                .append(count).append('\n');
+            text.append(PREFIX).append("operation_seconds_sum{").append(label).append("} ")
+                .append(latency.getTotalNanos() / 1e9).append('\n');
+            text.append(PREFIX).append("operation_seconds_count{").append(label).append("} ")
+                .append(count).append('\n');
+        }
+
+        counters(text, sorted, "operation_failures_total", "Failed DatabaseManager operations.", 0);
+        counters(text, sorted, "rows_read_total", "Rows read from the database.", 1);
+        counters(text, sorted, "rows_written_total", "Rows written to the database.", 2);
+
+        header(text, "slow_operations_total", "counter", "Operations that reached the slow threshold.");
+        text.append(PREFIX).append("slow_operations_total ").append(getSlowCount()).append('\n');
+        if (pool != null) {
+            header(text, "connection_acquisitions_total", "counter", "Connections borrowed from the pool.");
+            text.append(PREFIX).append("connection_acquisitions_total ").append(pool.getBorrowCount()).append('\n');
+            header(text, "connection_failures_total", "counter", "Failed attempts to borrow a connection.");
+            text.append(PREFIX).append("connection_failures_total ").append(pool.getFailedBorrowCount()).append('\n');
+            header(text, "connections_active", "gauge", "Connections on loan.");
+            text.append(PREFIX).append("connections_active ").append(pool.getActiveCount()).append('\n');
+            header(text, "connections_idle", "gauge", "Idle pooled connections.");
+            text.append(PREFIX).append("connections_idle ").append(pool.getIdleCount()).append('\n');
+            header(text, "statement_cache_hits_total", "counter", "Prepared statements reused from the cache.");
+            text.append(PREFIX).append("statement_cache_hits_total ").append(pool.getStatementCacheHits())
+                .append('\n');
+            header(text, "statement_cache_misses_total", "counter", "Prepared statements the server had to prepare.");
+            text.append(PREFIX).append("statement_cache_misses_total ").append(pool.getStatementCacheMisses())
+                .append('\n');
+            header(text, "statement_cache_evictions_total", "counter", "Cached statements closed to make room.");
+            text.append(PREFIX).append("statement_cache_evictions_total ").append(pool.getStatementCacheEvictions())
+                .append('\n');
+        }
+        return text.toString();
+    }
+
+    private static void header(StringBuilder text, String name, String type, String help) {
+        text.append("# HELP ").append(PREFIX).append(name).append(' ').append(help).append('\n');
+        text.append("# TYPE ").append(PREFIX).append(name).append(' ').append(type).append('\n');
+    }
+
+    // Which: 0 failures, 1 rows read, 2 rows written
+    private static void counters(StringBuilder text, Map<String, Operation> sorted, String name, String help,
+                                 int which) {
+        header(text, name, "counter", help);
+        for (Map.Entry<String, Operation> entry : sorted.entrySet()) {
+            Operation stats = entry.getValue();
+            LongAdder counter = which == 0 ? stats.failures : which == 1 ? stats.rowsRead : stats.rowsWritten;
+            text.append(PREFIX).append(name).append("{operation=\"").append(escapeLabel(entry.getKey()))
+                .append("\"} ").append(counter.sum()).append('\n');
+        }
+    }
+
+    private static String escapeLabel(String value) {
+        return value.replace("\\", "\\\\").replace("\"", "\\\"").replace("\n", "\\n");
+    }
+
+    private Map<String, Operation> sortedOperations() {
+        return new TreeMap<>(operations);
+    }
+
+    // ---------- Export ---------- //
+
+    /**
+     * Starts rewriting the Prometheus file on a background thread. Calling it again
+     * while running has no effect.
+     *
+     * @param path The file to write
+     * @param intervalMillis Delay between writes
+     * @throws IllegalArgumentException if intervalMillis is not positive
+     */
+    public synchronized void startExport(Path path, long intervalMillis) throws IllegalArgumentException {
+        if (intervalMillis <= 0) {
+            throw new IllegalArgumentException("Export interval must be positive: " + intervalMillis);
+        }
+        if (exporter != null) {
+            return;
+        }
+        exporter = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread t = new Thread(r, "metrics-export");
+            t.setDaemon(true);
+            return t;
+        });
+        exporter.scheduleWithFixedDelay(() -> {
+            try {
+                writePrometheus(path);
+            } catch (IOException e) {
+                ErrorLog.shared().log("Failed to write metrics to " + path, e);
+            }
+        }, 0, intervalMillis, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Stops the background export.
+     */
+    public synchronized void stopExport() {
+        if (exporter != null) {
+            exporter.shutdownNow();
+            exporter = null;
+        }
+    }
+
+    /**
+     * Stops the background export and writes out the slow operations logged so far.
+     */
+    public void close() {
+        stopExport();
+        ErrorLog log;
+        synchronized (recentSlow) {
+            log = slowLog;
+            slowLog = null;
+        }
+        if (log != null) {
+            log.close();
+        }
+    }}
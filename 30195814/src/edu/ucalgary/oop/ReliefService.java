@@ -1,11 +1,10 @@
 package edu.ucalgary.oop;
-import java.time.LocalDate;
-import java.time.format.DateTimeFormatter;
 
 public class ReliefService {
     private Inquirer inquirer;
     private DisasterVictim missingPerson;
-    private String dateOfInquiry;
+    // Epoch day, see Dates
+    private int dateOfInquiry;
     private String infoProvided;
     private Location lastKnownLocation;
 
@@ -18,6 +17,15 @@ public class ReliefService {
         this.lastKnownLocation = lastKnownLocation;
     }
 
+    // Constructor for an inquiry date that is already an epoch day, e.g. read from the database
+    ReliefService(Inquirer inquirer, DisasterVictim missingPerson, int dateOfInquiry, String infoProvided, Location lastKnownLocation) {
+        this.inquirer = inquirer;
+        this.missingPerson = missingPerson;
+        this.dateOfInquiry = dateOfInquiry;
+        this.infoProvided = infoProvided;
+        this.lastKnownLocation = lastKnownLocation;
+    }
+
     // Getter and setter for inquirer
     public Inquirer getInquirer() {
         return inquirer;
@@ -38,15 +46,20 @@ public class ReliefService {
 
     // Getter and setter for dateOfInquiry
     public String getDateOfInquiry() {
+        return Dates.format(dateOfInquiry);
+    }
+
+    public int getDateOfInquiryEpochDay() {
         return dateOfInquiry;
     }
 
     public void setDateOfInquiry(String dateOfInquiry) throws IllegalArgumentException {
         // Check if the dateOfInquiry string matches the expected date format
-        if (!isValidDateFormat(dateOfInquiry)) {
+        int parsed = Dates.parse(dateOfInquiry);
+        if (parsed == Dates.NONE) {
             throw new IllegalArgumentException("Invalid date format for date of inquiry. Expected format: YYYY-MM-DD");
         }
-        this.dateOfInquiry = dateOfInquiry;
+        this.dateOfInquiry = parsed;
     }
 
     // Getter and setter for infoProvided
@@ -67,19 +80,10 @@ public class ReliefService {
         this.lastKnownLocation = lastKnownLocation;
     }
 
-    // Helper method to check if a string matches the YYYY-MM-DD date format
-    private boolean isValidDateFormat(String date) {
-        try {
-            LocalDate.parse(date, DateTimeFormatter.ISO_DATE);
-            return true;
-        } catch (Exception e) {
-            return false;
-        }
-    }
     public String getLogDetails() {
        return "Inquirer: " + inquirer.getFirstName() + 
            ", Missing Person: " + missingPerson.getFirstName() + 
-           ", Date of Inquiry: " + dateOfInquiry + 
+           ", Date of Inquiry: " + getDateOfInquiry() + 
            ", Info Provided: " + infoProvided + 
            ", Last Known Location: " + lastKnownLocation.getName();
 }
@@ -0,0 +1,132 @@
+package edu.ucalgary.oop;
+
+import java.sql.Connection;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
+
+/**
+ * Adapts a server-side cursor to a Stream.
+ * The query runs on its own pooled connection with autocommit off, so drivers
+ * such as PostgreSQL fetch fetchSize rows at a time instead of buffering the
+ * whole result. Rows are mapped one at a time as the stream is consumed.
+ * The connection goes back to the pool when the stream is closed or the last
+ * row has been read, whichever comes first.
+ *
+ * @author Devante Kwizera
+ * @version 1.0
+ * @since 2025-04-16
+ */
+class RowCursor<T> extends Spliterators.AbstractSpliterator<T> {
+    private final DatabaseManager dbManager;
+    private final String table;
+    private final RowMapper<T> mapper;
+    private Connection conn;
+    private Statement stmt;
+    private ResultSet rs;
+    private boolean closed = false;
+
+    /**
+     * Builds one object from the current row of a result set.
+     */
+    interface RowMapper<T> {
+        T map(ResultSet rs) throws SQLException;
+    }
+
+    private RowCursor(DatabaseManager dbManager, String table, RowMapper<T> mapper) {
+        super(Long.MAX_VALUE, Spliterator.ORDERED | Spliterator.NONNULL);
+        this.dbManager = dbManager;
+        this.table = table;
+        this.mapper = mapper;
+    }
+
+    /**
+     * Runs a query and returns its rows as a lazily mapped stream.
+     * The stream must be closed, ideally with try-with-resources, unless it is read to the end.
+     *
+     * @param pool Pool to borrow the connection from
+     * @param dbManager Manager used for error logging
+     * @param table Table name used in error messages
+     * @param sql The query to run
+     * @param fetchSize Number of rows the driver fetches per round trip
+     * @param mapper Builds one object per row
+     * @return The mapped rows; empty if the query could not be started
+     */
+    static <T> Stream<T> open(ConnectionPool pool, DatabaseManager dbManager, String table,
+                              String sql, int fetchSize, RowMapper<T> mapper) {
+        RowCursor<T> cursor = new RowCursor<>(dbManager, table, mapper);
+        try {
+            cursor.conn = pool.borrow();
+            cursor.conn.setAutoCommit(false);
+            cursor.stmt = cursor.conn.createStatement();
+            cursor.stmt.setFetchSize(fetchSize);
+            cursor.rs = cursor.stmt.executeQuery(sql);
+        } catch (SQLException e) {
+            dbManager.logError("Failed to stream " + table, e);
+            cursor.close();
+            return Stream.empty();
+        }
+        return StreamSupport.stream(cursor, false).onClose(cursor::close);
+    }
+
+    /**
+     * Maps the next row.
+     *
+     * @throws IllegalStateException if the row cannot be read; the cursor is closed first
+     */
+    @Override
+    public boolean tryAdvance(Consumer<? super T> action) {
+        if (closed) {
+            return false;
+        }
+        T row;
+        try {
+            if (!rs.next()) {
+                close();
+                return false;
+            }
+            row = mapper.map(rs);
+        } catch (SQLException e) {
+            dbManager.logError("Failed to read " + table, e);
+            close();
+            throw new IllegalStateException("Failed to read " + table + ": " + e.getMessage(), e);
+        }
+        action.accept(row);
+        return true;
+    }
+
+    /**
+     * Closes the result set and statement and returns the connection to the pool.
+     * Closing more than once has no effect.
+     */
+    void close() {
+        if (closed) {
+            return;
+        }
+        closed = true;
+        // The pool rolls back the read-only transaction and restores autocommit
+        try {
+            if (rs != null) {
+                rs.close();
+            }
+            if (stmt != null) {
+                stmt.close();
+            }
+        } catch (SQLException e) {
+            dbManager.logError("Failed to close cursor on " + table, e);
+        } finally {
+            try {
+                if (conn != null) {
+                    conn.close();
+                }
+            } catch (SQLException e) {
+                dbManager.logError("Failed to release connection for " + table, e);
+            }
+        }
+    }
+}
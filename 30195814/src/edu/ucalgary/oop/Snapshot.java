@@ -0,0 +1,521 @@
+package edu.ucalgary.oop;
+
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.sql.Timestamp;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.zip.CRC32;
+import java.util.zip.CheckedOutputStream;
+
+/**
+ * A binary copy of the in-memory model, so the CLI can start without loading every table.
+ * The file holds one section per entity type followed by a directory of
+ * section offsets, the sync marks and the loaded inquiry and medical record
+ * IDs, and ends with a fixed footer: the directory offset, a CRC32 of
+ * everything before the footer, and a magic number. Entities refer to each
+ * other by their position in their section, so unsaved objects survive too.
+ *
+ * Snapshots are written to a temporary file, forced to disk and renamed over
+ * the old one, so a crash leaves either the old or the new snapshot. Reading
+ * maps the file and checks the footer and checksum; each section is only
+ * decoded when it is first asked for.
+ *
+ * @author Devante Kwizera
+ * @version 1.0
+ * @since 2025-04-18
+ */
+public final class Snapshot {
+    private static final int MAGIC = 0x44565331; // "DVS1"
+    private static final int VERSION = 1;
+    private static final int FOOTER_BYTES = 16;
+
+    // Section order in the directory
+    private static final int LOCATIONS = 0;
+    private static final int PERSONS = 1;
+    private static final int FAMILY_GROUPS = 2;
+    private static final int MEDICAL_RECORDS = 3;
+    private static final int SUPPLIES = 4;
+    private static final int INQUIRIES = 5;
+    private static final int SECTIONS = 6;
+
+    // Supply subclasses
+    private static final byte SUPPLY = 0;
+    private static final byte WATER = 1;
+    private static final byte BLANKET = 2;
+    private static final byte PERSONAL_BELONGING = 3;
+    private static final byte COT = 4;
+
+    private final ByteBuffer buffer;
+    private final long createdAtMillis;
+    private final Map<String, Timestamp> syncMarks = new LinkedHashMap<>();
+    private final int[] sectionOffsets = new int[SECTIONS];
+    private final int[] sectionCounts = new int[SECTIONS];
+    private final int[] inquiryIds;
+    private final int[] medicalRecordIds;
+
+    private List<Location> locations;
+    private List<DisasterVictim> persons;
+    private List<FamilyGroup> familyGroups;
+    private List<Supply> supplies;
+    private List<ReliefService> inquiries;
+
+    private Snapshot(ByteBuffer buffer, int directoryOffset) {
+        this.buffer = buffer;
+        ByteBuffer in = at(directoryOffset);
+        if (in.getInt() != VERSION) {
+            throw new IllegalArgumentException("Unsupported snapshot version");
+        }
+        createdAtMillis = in.getLong();
+        for (int i = in.getInt(); i > 0; i--) {
+            String table = getString(in);
+            Timestamp mark = new Timestamp(in.getLong());
+            mark.setNanos(in.getInt());
+            syncMarks.put(table, mark);
+        }
+        for (int s = 0; s < SECTIONS; s++) {
+            sectionOffsets[s] = in.getInt();
+            sectionCounts[s] = in.getInt();
+        }
+        inquiryIds = getInts(in);
+        medicalRecordIds = getInts(in);
+    }
+
+    // ---------- Reading ---------- //
+
+    /**
+     * Maps a snapshot file and checks that it is complete.
+     *
+     * @param path The snapshot file
+     * @return The snapshot, with no entities decoded yet
+     * @throws IOException if the file cannot be read, or is truncated, corrupt or of another version
+     */
+    public static Snapshot open(Path path) throws IOException {
+        MappedByteBuffer buffer;
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            long size = channel.size();
+            if (size < FOOTER_BYTES || size > Integer.MAX_VALUE) {
+                throw new IOException("Snapshot " + path + " has an invalid size of " + size + " bytes");
+            }
+            buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, size);
+        }
+
+        int footer = buffer.capacity() - FOOTER_BYTES;
+        long directoryOffset = buffer.getLong(footer);
+        int checksum = buffer.getInt(footer + 8);
+        if (buffer.getInt(footer + 12) != MAGIC || directoryOffset < 0 || directoryOffset >= footer) {
+            throw new IOException("Snapshot " + path + " is not a snapshot file or was not completely written");
+        }
+        CRC32 crc = new CRC32();
+        ByteBuffer body = buffer.duplicate();
+        body.limit(footer);
+        crc.update(body);
+        if ((int) crc.getValue() != checksum) {
+            throw new IOException("Snapshot " + path + " is corrupt: checksum mismatch");
+        }
+
+        try {
+            return new Snapshot(buffer, (int) directoryOffset);
+        } catch (RuntimeException e) {
+            throw new IOException("Snapshot " + path + " cannot be read: " + e.getMessage(), e);
+        }
+    }
+
+    /**
+     * @return When the snapshot was written, in epoch milliseconds
+     */
+    public long getCreatedAtMillis() {
+        return createdAtMillis;
+    }
+
+    /**
+     * @return The DatabaseManager sync marks at the time of the snapshot
+     */
+    public Map<String, Timestamp> getSyncMarks() {
+        return Collections.unmodifiableMap(syncMarks);
+    }
+
+    /**
+     * @return Inquiry.inquiry_id of every inquiry already in the snapshot
+     */
+    public int[] getInquiryIds() {
+        return inquiryIds.clone();
+    }
+
+    /**
+     * @return MedicalRecord.medical_record_id of every medical record already in the snapshot
+     */
+    public int[] getMedicalRecordIds() {
+        return medicalRecordIds.clone();
+    }
+
+    public synchronized List<Location> getLocations() {
+        if (locations == null) {
+            ByteBuffer in = at(sectionOffsets[LOCATIONS]);
+            List<Location> decoded = new ArrayList<>(sectionCounts[LOCATIONS]);
+            for (int i = 0; i < sectionCounts[LOCATIONS]; i++) {
+                int id = in.getInt();
+                Location location = new Location(getString(in), getString(in));
+                if (id > 0) {
+                    location.setDatabaseId(id);
+                }
+                decoded.add(location);
+            }
+            locations = decoded;
+        }
+        return locations;
+    }
+
+    /**
+     * Decodes the persons together with their family groups and medical records.
+     */
+    public synchronized List<DisasterVictim> getPersons() {
+        if (persons == null) {
+            ByteBuffer in = at(sectionOffsets[PERSONS]);
+            List<DisasterVictim> decoded = new ArrayList<>(sectionCounts[PERSONS]);
+            for (int i = 0; i < sectionCounts[PERSONS]; i++) {
+                int id = in.getInt();
+                String firstName = getString(in);
+                DisasterVictim person = new DisasterVictim(firstName, in.getInt());
+                int dateOfBirth = in.getInt();
+                if (dateOfBirth != Dates.NONE) {
+                    person.setDateOfBirthEpochDay(dateOfBirth);
+                }
+                person.setLastName(getString(in));
+                String gender = getString(in);
+                if (gender != null) {
+                    person.setGender(gender);
+                }
+                person.setComments(getString(in));
+                if (id > 0) {
+                    person.setDatabaseId(id);
+                }
+                decoded.add(person);
+            }
+
+            List<Location> knownLocations = getLocations();
+            in = at(sectionOffsets[MEDICAL_RECORDS]);
+            for (int i = 0; i < sectionCounts[MEDICAL_RECORDS]; i++) {
+                DisasterVictim person = decoded.get(in.getInt());
+                Location location = get(knownLocations, in.getInt());
+                int dateOfTreatment = in.getInt();
+                person.addMedicalRecord(new MedicalRecord(location, getString(in), dateOfTreatment));
+            }
+
+            in = at(sectionOffsets[FAMILY_GROUPS]);
+            List<FamilyGroup> groups = new ArrayList<>(sectionCounts[FAMILY_GROUPS]);
+            for (int i = 0; i < sectionCounts[FAMILY_GROUPS]; i++) {
+                FamilyGroup group = new FamilyGroup(getString(in));
+                for (int m = in.getInt(); m > 0; m--) {
+                    group.addMember(decoded.get(in.getInt()));
+                }
+                groups.add(group);
+            }
+            familyGroups = groups;
+            persons = decoded;
+        }
+        return persons;
+    }
+
+    public synchronized List<FamilyGroup> getFamilyGroups() {
+        getPersons();
+        return familyGroups;
+    }
+
+    public synchronized List<Supply> getSupplies() {
+        if (supplies == null) {
+            ByteBuffer in = at(sectionOffsets[SUPPLIES]);
+            List<Supply> decoded = new ArrayList<>(sectionCounts[SUPPLIES]);
+            for (int i = 0; i < sectionCounts[SUPPLIES]; i++) {
+                int id = in.getInt();
+                byte kind = in.get();
+                String type = getString(in);
+                int quantity = in.getInt();
+                Supply supply;
+                switch (kind) {
+                    case WATER:
+                        int allocated = in.getInt();
+                        Water water = new Water(null, quantity);
+                        if (allocated != Integer.MIN_VALUE) {
+                            water.setAllocationDate(LocalDate.ofEpochDay(allocated));
+                        }
+                        supply = water;
+                        break;
+                    case BLANKET:
+                        supply = new Blanket(quantity);
+                        break;
+                    case PERSONAL_BELONGING:
+                        supply = new PersonalBelonging(getString(in), quantity);
+                        break;
+                    case COT:
+                        int room = in.getInt();
+                        supply = new Cot(room, getString(in), quantity);
+                        break;
+                    default:
+                        supply = new Supply(type, quantity);
+                }
+                supply.setType(type);
+                if (id > 0) {
+                    supply.setDatabaseId(id);
+                }
+                decoded.add(supply);
+            }
+            supplies = decoded;
+        }
+        return supplies;
+    }
+
+    public synchronized List<ReliefService> getInquiries() {
+        if (inquiries == null) {
+            List<DisasterVictim> knownPersons = getPersons();
+            List<Location> knownLocations = getLocations();
+            ByteBuffer in = at(sectionOffsets[INQUIRIES]);
+            List<ReliefService> decoded = new ArrayList<>(sectionCounts[INQUIRIES]);
+            for (int i = 0; i < sectionCounts[INQUIRIES]; i++) {
+                int inquirerId = in.getInt();
+                Inquirer inquirer = new Inquirer(getString(in), getString(in), getString(in), getString(in));
+                if (inquirerId > 0) {
+                    inquirer.setDatabaseId(inquirerId);
+                }
+                DisasterVictim missingPerson = get(knownPersons, in.getInt());
+                Location location = get(knownLocations, in.getInt());
+                int dateOfInquiry = in.getInt();
+                decoded.add(new ReliefService(inquirer, missingPerson, dateOfInquiry, getString(in), location));
+            }
+            inquiries = decoded;
+        }
+        return inquiries;
+    }
+
+    // ---------- Writing ---------- //
+
+    /**
+     * Writes a snapshot, replacing any previous one only once the new file is complete and on disk.
+     *
+     * @param path The snapshot file
+     * @param dbManager Manager whose sync marks and loaded IDs are recorded
+     * @param persons Persons, with their medical records and family groups
+     * @param locations Locations
+     * @param supplies Supplies
+     * @param inquiries Inquiries
+     * @throws IOException if the snapshot cannot be written; the previous snapshot is then left alone
+     */
+    public static void write(Path path, DatabaseManager dbManager, Collection<DisasterVictim> persons,
+                             Collection<Location> locations, Collection<Supply> supplies,
+                             Collection<ReliefService> inquiries) throws IOException {
+        Path parent = path.toAbsolutePath().getParent();
+        Files.createDirectories(parent);
+        Path temp = Files.createTempFile(parent, path.getFileName().toString(), ".tmp");
+
+        try {
+            try (FileOutputStream file = new FileOutputStream(temp.toFile())) {
+                CRC32 crc = new CRC32();
+                DataOutputStream out = new DataOutputStream(
+                    new CheckedOutputStream(new BufferedOutputStream(file, 1 << 16), crc));
+                long directoryOffset = writeSections(out, dbManager, persons, locations, supplies, inquiries);
+                out.flush();
+
+                // The footer is not covered by the checksum it holds
+                DataOutputStream footer = new DataOutputStream(file);
+                footer.writeLong(directoryOffset);
+                footer.writeInt((int) crc.getValue());
+                footer.writeInt(MAGIC);
+                footer.flush();
+                file.getFD().sync();
+            }
+            Files.move(temp, path, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } finally {
+            Files.deleteIfExists(temp);
+        }
+    }
+
+    /**
+     * Writes the sections and the directory.
+     *
+     * @return The offset of the directory
+     */
+    private static long writeSections(DataOutputStream out, DatabaseManager dbManager,
+                                      Collection<DisasterVictim> persons, Collection<Location> locations,
+                                      Collection<Supply> supplies, Collection<ReliefService> inquiries)
+            throws IOException {
+        int[] offsets = new int[SECTIONS];
+        int[] counts = new int[SECTIONS];
+        Map<Location, Integer> locationIndex = new IdentityHashMap<>();
+        Map<DisasterVictim, Integer> personIndex = new IdentityHashMap<>();
+
+        offsets[LOCATIONS] = out.size();
+        for (Location location : locations) {
+            locationIndex.put(location, locationIndex.size());
+            out.writeInt(location.getDatabaseId());
+            putString(out, location.getName());
+            putString(out, location.getAddress());
+        }
+        counts[LOCATIONS] = locationIndex.size();
+
+        offsets[PERSONS] = out.size();
+        Map<FamilyGroup, List<Integer>> groups = new LinkedHashMap<>();
+        for (DisasterVictim person : persons) {
+            int index = personIndex.size();
+            personIndex.put(person, index);
+            out.writeInt(person.getDatabaseId());
+            putString(out, person.getFirstName());
+            out.writeInt(person.getEntryEpochDay());
+            out.writeInt(person.getDateOfBirthEpochDay());
+            putString(out, person.getLastName());
+            putString(out, person.getGender());
+            putString(out, person.getComments());
+            if (person.getFamilyGroup() != null) {
+                groups.computeIfAbsent(person.getFamilyGroup(), g -> new ArrayList<>()).add(index);
+            }
+        }
+        counts[PERSONS] = personIndex.size();
+
+        offsets[FAMILY_GROUPS] = out.size();
+        for (Map.Entry<FamilyGroup, List<Integer>> group : groups.entrySet()) {
+            putString(out, group.getKey().getGroupId());
+            out.writeInt(group.getValue().size());
+            for (int member : group.getValue()) {
+                out.writeInt(member);
+            }
+        }
+        counts[FAMILY_GROUPS] = groups.size();
+
+        offsets[MEDICAL_RECORDS] = out.size();
+        for (DisasterVictim person : persons) {
+            for (MedicalRecord record : person.getMedicalRecords()) {
+                out.writeInt(personIndex.get(person));
+                out.writeInt(locationIndex.getOrDefault(record.getLocation(), -1));
+                out.writeInt(record.getDateOfTreatmentEpochDay());
+                putString(out, record.getTreatmentDetails());
+                counts[MEDICAL_RECORDS]++;
+            }
+        }
+
+        offsets[SUPPLIES] = out.size();
+        for (Supply supply : supplies) {
+            out.writeInt(supply.getDatabaseId());
+            if (supply instanceof Water) {
+                out.writeByte(WATER);
+            } else if (supply instanceof Blanket) {
+                out.writeByte(BLANKET);
+            } else if (supply instanceof PersonalBelonging) {
+                out.writeByte(PERSONAL_BELONGING);
+            } else if (supply instanceof Cot) {
+                out.writeByte(COT);
+            } else {
+                out.writeByte(SUPPLY);
+            }
+            putString(out, supply.getType());
+            out.writeInt(supply.getQuantity());
+            if (supply instanceof Water) {
+                out.writeInt(((Water) supply).getAllocationEpochDay());
+            } else if (supply instanceof PersonalBelonging) {
+                putString(out, ((PersonalBelonging) supply).getDescription());
+            } else if (supply instanceof Cot) {
+                out.writeInt(((Cot) supply).getRoom());
+                putString(out, ((Cot) supply).getGrid());
+            }
+        }
+        counts[SUPPLIES] = supplies.size();
+
+        offsets[INQUIRIES] = out.size();
+        for (ReliefService inquiry : inquiries) {
+            Inquirer inquirer = inquiry.getInquirer();
+            out.writeInt(inquirer.getDatabaseId());
+            putString(out, inquirer.getFirstName());
+            putString(out, inquirer.getLastName());
+            putString(out, inquirer.getServicesPhoneNum());
+            putString(out, inquirer.getInfo());
+            out.writeInt(personIndex.getOrDefault(inquiry.getMissingPerson(), -1));
+            out.writeInt(locationIndex.getOrDefault(inquiry.getLastKnownLocation(), -1));
+            out.writeInt(inquiry.getDateOfInquiryEpochDay());
+            putString(out, inquiry.getInfoProvided());
+        }
+        counts[INQUIRIES] = inquiries.size();
+
+        int directoryOffset = out.size();
+        out.writeInt(VERSION);
+        out.writeLong(System.currentTimeMillis());
+        Map<String, Timestamp> marks = dbManager.getSyncMarks();
+        out.writeInt(marks.size());
+        for (Map.Entry<String, Timestamp> mark : marks.entrySet()) {
+            putString(out, mark.getKey());
+            out.writeLong(mark.getValue().getTime());
+            out.writeInt(mark.getValue().getNanos());
+        }
+        for (int s = 0; s < SECTIONS; s++) {
+            out.writeInt(offsets[s]);
+            out.writeInt(counts[s]);
+        }
+        putInts(out, dbManager.getLoadedInquiryIds());
+        putInts(out, dbManager.getLoadedMedicalRecordIds());
+        if (out.size() < 0) {
+            throw new IOException("Snapshot would exceed 2 GB");
+        }
+        return directoryOffset;
+    }
+
+    // ---------- Encoding ---------- //
+
+    private ByteBuffer at(int offset) {
+        ByteBuffer in = buffer.duplicate();
+        in.position(offset);
+        return in;
+    }
+
+    // Strings are a byte length, -1 for null, followed by UTF-8 bytes
+    private static void putString(DataOutputStream out, String value) throws IOException {
+        if (value == null) {
+            out.writeInt(-1);
+            return;
+        }
+        byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+        out.writeInt(bytes.length);
+        out.write(bytes);
+    }
+
+    private static String getString(ByteBuffer in) {
+        int length = in.getInt();
+        if (length < 0) {
+            return null;
+        }
+        byte[] bytes = new byte[length];
+        in.get(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    private static void putInts(DataOutputStream out, Collection<Integer> values) throws IOException {
+        out.writeInt(values.size());
+        for (int value : values) {
+            out.writeInt(value);
+        }
+    }
+
+    private static int[] getInts(ByteBuffer in) {
+        int[] values = new int[in.getInt()];
+        for (int i = 0; i < values.length; i++) {
+            values[i] = in.getInt();
+        }
+        return values;
+    }
+
+    private static <T> T get(List<T> values, int index) {
+        return index < 0 ? null : values.get(index);
+    }
+}
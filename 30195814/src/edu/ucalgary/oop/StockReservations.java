@@ -0,0 +1,182 @@
+package edu.ucalgary.oop;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Lock-free counters of the units still available per location and supply type.
+ * Intake desks reserve units here before writing an allocation, so two desks
+ * can never both take the last unit: a reservation is a compare-and-set on
+ * the counter that is retried while other desks change it, and fails once
+ * too few units are left. Counters for different locations and types are
+ * independent, so desks working on different stock never contend.
+ *
+ * @author Devante Kwizera
+ * @version 1.0
+ * @since 2025-04-17
+ */
+public class StockReservations {
+    private final Map<Integer, Map<String, AtomicInteger>> available = new ConcurrentHashMap<>();
+    private final LongAdder reservations = new LongAdder();
+    private final LongAdder rejections = new LongAdder();
+    private final LongAdder retries = new LongAdder();
+
+    /**
+     * Sets the number of units available, e.g. after reading InventoryLedger.
+     *
+     * @param locationId The Location.location_id
+     * @param type The supply type (case is ignored)
+     * @param quantity Units available
+     * @throws IllegalArgumentException if quantity is negative
+     */
+    public void setAvailable(int locationId, String type, int quantity) throws IllegalArgumentException {
+        if (quantity < 0) {
+            throw new IllegalArgumentException("Available quantity cannot be negative: " + quantity);
+        }
+        counter(locationId, type).set(quantity);
+    }
+
+    /**
+     * Starts tracking a location and type unless it is already tracked, so
+     * desks that seed the same counter at once cannot undo each other's reservations.
+     *
+     * @param locationId The Location.location_id
+     * @param type The supply type (case is ignored)
+     * @param quantity Units available if the counter is new
+     * @return true if the counter was created, false if it already existed
+     * @throws IllegalArgumentException if quantity is negative
+     */
+    public boolean track(int locationId, String type, int quantity) throws IllegalArgumentException {
+        if (quantity < 0) {
+            throw new IllegalArgumentException("Available quantity cannot be negative: " + quantity);
+        }
+        AtomicInteger created = new AtomicInteger(quantity);
+        return available.computeIfAbsent(locationId, id -> new ConcurrentHashMap<>())
+                        .putIfAbsent(Location.stockKey(type), created) == null;
+    }
+
+    /**
+     * Resets every tracked counter to the stock read from InventoryLedger, so
+     * restocks and allocations written by other processes become visible.
+     * A tracked location and type without a row has no stock left. Types not
+     * tracked yet are not started; they are read when first reserved.
+     *
+     * @param stockByLocation Units per supply type, keyed by Location.location_id
+     */
+    public void reload(Map<Integer, Map<String, Integer>> stockByLocation) {
+        for (Map.Entry<Integer, Map<String, AtomicInteger>> location : available.entrySet()) {
+            Map<String, Integer> rows = new HashMap<>();
+            Map<String, Integer> stock = stockByLocation.get(location.getKey());
+            if (stock != null) {
+                for (Map.Entry<String, Integer> row : stock.entrySet()) {
+                    rows.merge(Location.stockKey(row.getKey()), row.getValue(), Integer::sum);
+                }
+            }
+            for (Map.Entry<String, AtomicInteger> counter : location.getValue().entrySet()) {
+                counter.getValue().set(Math.max(rows.getOrDefault(counter.getKey(), 0), 0));
+            }
+        }
+    }
+
+    /**
+     * @param locationId The Location.location_id
+     * @param type The supply type
+     * @return true if this location and type has a counter
+     */
+    public boolean isTracked(int locationId, String type) {
+        Map<String, AtomicInteger> byType = available.get(locationId);
+        return byType != null && byType.containsKey(Location.stockKey(type));
+    }
+
+    /**
+     * @param locationId The Location.location_id
+     * @param type The supply type
+     * @return Units still available, or 0 if not tracked
+     */
+    public int getAvailable(int locationId, String type) {
+        Map<String, AtomicInteger> byType = available.get(locationId);
+        AtomicInteger counter = byType == null ? null : byType.get(Location.stockKey(type));
+        return counter == null ? 0 : counter.get();
+    }
+
+    /**
+     * Reserves units if enough are available. Never blocks; a failed
+     * compare-and-set means another desk got there first, so the current
+     * count is read again and the check repeated.
+     *
+     * @param locationId The Location.location_id
+     * @param type The supply type
+     * @param quantity Units to reserve
+     * @return true if reserved, false if fewer units are available or the type is not tracked
+     * @throws IllegalArgumentException if quantity is not positive
+     */
+    public boolean tryReserve(int locationId, String type, int quantity) throws IllegalArgumentException {
+        if (quantity <= 0) {
+            throw new IllegalArgumentException("Reserved quantity must be positive: " + quantity);
+        }
+        Map<String, AtomicInteger> byType = available.get(locationId);
+        AtomicInteger counter = byType == null ? null : byType.get(Location.stockKey(type));
+        if (counter == null) {
+            rejections.increment();
+            return false;
+        }
+
+        while (true) {
+            int current = counter.get();
+            if (current < quantity) {
+                rejections.increment();
+                return false;
+            }
+            if (counter.compareAndSet(current, current - quantity)) {
+                reservations.increment();
+                return true;
+            }
+            retries.increment();
+        }
+    }
+
+    /**
+     * Returns units to the pool, either because a reserved allocation could not
+     * be written or because new stock arrived.
+     *
+     * @param locationId The Location.location_id
+     * @param type The supply type
+     * @param quantity Units to return
+     * @throws IllegalArgumentException if quantity is not positive
+     */
+    public void release(int locationId, String type, int quantity) throws IllegalArgumentException {
+        if (quantity <= 0) {
+            throw new IllegalArgumentException("Released quantity must be positive: " + quantity);
+        }
+        counter(locationId, type).addAndGet(quantity);
+    }
+
+    /**
+     * @return Successful reservations so far
+     */
+    public long getReservationCount() {
+        return reservations.sum();
+    }
+
+    /**
+     * @return Reservations refused for lack of stock
+     */
+    public long getRejectionCount() {
+        return rejections.sum();
+    }
+
+    /**
+     * @return Compare-and-set attempts lost to another desk and retried
+     */
+    public long getRetryCount() {
+        return retries.sum();
+    }
+
+    private AtomicInteger counter(int locationId, String type) {
+        return available.computeIfAbsent(locationId, id -> new ConcurrentHashMap<>())
+                        .computeIfAbsent(Location.stockKey(type), t -> new AtomicInteger());
+    }
+}
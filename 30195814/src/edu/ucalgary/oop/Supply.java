@@ -8,6 +8,7 @@ package edu.ucalgary.oop;
 public class Supply {
     private String type;
     private int quantity;
+    private int databaseId;
 
     public Supply(String type, int quantity) {
         this.type = type;
@@ -18,4 +19,6 @@ public class Supply {
     public void setQuantity(int quantity) { this.quantity = quantity; }
     public String getType() { return this.type; }
     public int getQuantity() { return this.quantity; }
+    public int getDatabaseId() { return this.databaseId; }
+    void setDatabaseId(int databaseId) { this.databaseId = databaseId; }
 }
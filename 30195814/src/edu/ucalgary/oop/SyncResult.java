@@ -0,0 +1,93 @@
+package edu.ucalgary.oop;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Changes pulled from the database by DatabaseManager.syncChanges().
+ * Updated entities are the same objects that were already in memory,
+ * changed in place; added entities are new objects that callers still
+ * need to put into their own lists.
+ *
+ * @author Devante Kwizera
+ * @version 1.0
+ * @since 2025-04-16
+ */
+public class SyncResult {
+    private final ChangeSet<DisasterVictim> persons = new ChangeSet<>();
+    private final ChangeSet<Location> locations = new ChangeSet<>();
+    private final ChangeSet<Supply> supplies = new ChangeSet<>();
+    private final List<ReliefService> inquiries = new ArrayList<>();
+    private int medicalRecords;
+
+    public ChangeSet<DisasterVictim> getPersons() {
+        return persons;
+    }
+
+    public ChangeSet<Location> getLocations() {
+        return locations;
+    }
+
+    public ChangeSet<Supply> getSupplies() {
+        return supplies;
+    }
+
+    /**
+     * @return Inquiries added since the last sync
+     */
+    public List<ReliefService> getInquiries() {
+        return inquiries;
+    }
+
+    /**
+     * @return Number of medical records added to loaded persons since the last sync
+     */
+    public int getMedicalRecordCount() {
+        return medicalRecords;
+    }
+
+    void addMedicalRecord() {
+        medicalRecords++;
+    }
+
+    /**
+     * @return Total number of entities added, updated or removed
+     */
+    public int getChangeCount() {
+        return persons.size() + locations.size() + supplies.size() + inquiries.size() + medicalRecords;
+    }
+
+    public boolean isEmpty() {
+        return getChangeCount() == 0;
+    }
+
+    /**
+     * Entities of one type that were added, updated or removed.
+     *
+     * @param <T> The entity type
+     */
+    public static class ChangeSet<T> {
+        private final List<T> added = new ArrayList<>();
+        private final List<T> updated = new ArrayList<>();
+        private final List<T> removed = new ArrayList<>();
+
+        public List<T> getAdded() {
+            return added;
+        }
+
+        public List<T> getUpdated() {
+            return updated;
+        }
+
+        /**
+         * @return Entities that were replaced by an added entity of a different type
+         */
+        public List<T> getRemoved() {
+            return removed;
+        }
+
+        public int size() {
+            return added.size() + updated.size() + removed.size();
+        }
+    }
+}
@@ -0,0 +1,484 @@
+package edu.ucalgary.oop;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.math.BigInteger;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * A language file compiled for lookup: interned keys mapped to an index, and
+ * each message split once into literal text and argument slots, so
+ * formatting a message is string concatenation rather than String.format().
+ *
+ * The compiled form is cached in a binary file next to the XML
+ * (data/en-CA.xml becomes data/en-CA.catalog) stamped with the XML's
+ * modification time and size; load() reads the cache while the stamp still
+ * matches and recompiles the XML otherwise.
+ *
+ * Templates support %s, %d, %n, %% and explicit argument indexes such as
+ * %2$s. Any other conversion, flag or width keeps its whole template on
+ * String.format().
+ *
+ * @author Devante Kwizera
+ * @version 1.0
+ * @since 2025-04-18
+ */
+public final class TranslationCatalog {
+    private static final int MAGIC = 0x54435431; // "TCT1"
+    private static final int VERSION = 1;
+    private static final String CACHE_EXTENSION = ".catalog";
+
+    // Template parts: a literal, or an argument slot of one conversion
+    private static final byte LITERAL = 0;
+    private static final byte STRING_ARG = 1;
+    private static final byte DECIMAL_ARG = 2;
+
+    /** A catalog without translations. */
+    public static final TranslationCatalog EMPTY = new TranslationCatalog(new String[0], new String[0]);
+
+    private final String[] keys;
+    private final String[] values;
+    private final Map<String, Integer> index;
+    private final Template[] templates;
+
+    private TranslationCatalog(String[] keys, String[] values) {
+        this.keys = keys;
+        this.values = values;
+        this.index = new HashMap<>(keys.length * 2);
+        this.templates = new Template[keys.length];
+        for (int i = 0; i < keys.length; i++) {
+            keys[i] = keys[i].intern();
+            index.put(keys[i], i);
+            templates[i] = Template.parse(values[i]);
+        }
+    }
+
+    private TranslationCatalog(String[] keys, String[] values, Template[] templates) {
+        this.keys = keys;
+        this.values = values;
+        this.index = new HashMap<>(keys.length * 2);
+        this.templates = templates;
+        for (int i = 0; i < keys.length; i++) {
+            keys[i] = keys[i].intern();
+            index.put(keys[i], i);
+        }
+    }
+
+    // ---------- Loading ---------- //
+
+    /**
+     * Loads the catalog of a language file from its cache, compiling and caching it
+     * first if the cache is missing or older than the XML.
+     * A cache that cannot be written only costs the next start a compile.
+     *
+     * @param xml The language file
+     * @return The catalog
+     * @throws IOException if the language file cannot be read
+     */
+    public static TranslationCatalog load(Path xml) throws IOException {
+        long modified = Files.getLastModifiedTime(xml).toMillis();
+        long size = Files.size(xml);
+        Path cache = cachePath(xml);
+
+        if (Files.exists(cache)) {
+            try {
+                TranslationCatalog cached = readCache(cache, modified, size);
+                if (cached != null) {
+                    return cached;
+                }
+            } catch (IOException | RuntimeException e) {
+                System.err.println("Ignoring unreadable translation cache " + cache + ": " + e.getMessage());
+            }
+        }
+
+        TranslationCatalog catalog = compile(xml);
+        try {
+            catalog.writeCache(cache, modified, size);
+        } catch (IOException e) {
+            System.err.println("Could not write translation cache " + cache + ": " + e.getMessage());
+        }
+        return catalog;
+    }
+
+    /**
+     * Compiles a language file without using or writing a cache.
+     * Each translation is a key and value element inside a translation element;
+     * text spread over several lines is joined with single spaces.
+     *
+     * @param xml The language file
+     * @return The catalog
+     * @throws IOException if the file cannot be read
+     */
+    public static TranslationCatalog compile(Path xml) throws IOException {
+        String text = new String(Files.readAllBytes(xml), StandardCharsets.UTF_8);
+        List<String> keys = new ArrayList<>();
+        List<String> values = new ArrayList<>();
+        Map<String, Integer> positions = new HashMap<>();
+
+        int from = 0;
+        while (true) {
+            int start = text.indexOf("<translation>", from);
+            if (start < 0) {
+                break;
+            }
+            int end = text.indexOf("</translation>", start);
+            if (end < 0) {
+                break;
+            }
+            String key = element(text, "key", start, end);
+            String value = element(text, "value", start, end);
+            if (key != null && value != null) {
+                // A repeated key replaces the earlier translation
+                Integer position = positions.putIfAbsent(key, keys.size());
+                if (position == null) {
+                    keys.add(key);
+                    values.add(value);
+                } else {
+                    values.set(position, value);
+                }
+            }
+            from = end + "</translation>".length();
+        }
+        return new TranslationCatalog(keys.toArray(new String[0]), values.toArray(new String[0]));
+    }
+
+    /**
+     * @return the text of the first element with this name in [from, to), whitespace collapsed; null if absent
+     */
+    private static String element(String text, String name, int from, int to) {
+        String open = "<" + name + ">";
+        int start = text.indexOf(open, from);
+        int end = start < 0 ? -1 : text.indexOf("</" + name + ">", start);
+        if (start < 0 || end < 0 || end > to) {
+            return null;
+        }
+        StringBuilder joined = new StringBuilder();
+        for (String line : text.substring(start + open.length(), end).split("\n")) {
+            String trimmed = line.trim();
+            if (!trimmed.isEmpty()) {
+                if (joined.length() > 0) {
+                    joined.append(' ');
+                }
+                joined.append(trimmed);
+            }
+        }
+        return joined.toString();
+    }
+
+    static Path cachePath(Path xml) {
+        String name = xml.getFileName().toString();
+        int dot = name.lastIndexOf('.');
+        return xml.resolveSibling((dot > 0 ? name.substring(0, dot) : name) + CACHE_EXTENSION);
+    }
+
+    // ---------- Lookup ---------- //
+
+    /**
+     * @return the number of translations
+     */
+    public int size() {
+        return keys.length;
+    }
+
+    public boolean isEmpty() {
+        return keys.length == 0;
+    }
+
+    /**
+     * @param key The translation key
+     * @return The index of its translation, or -1 if there is none
+     */
+    public int indexOf(String key) {
+        Integer i = index.get(key);
+        return i == null ? -1 : i;
+    }
+
+    /**
+     * @param key The translation key
+     * @return The translated text, or the key itself if there is none
+     */
+    public String get(String key) {
+        Integer i = index.get(key);
+        return i == null ? key : values[i];
+    }
+
+    /**
+     * @param index An index returned by indexOf()
+     * @return The translated text
+     */
+    public String get(int index) {
+        return values[index];
+    }
+
+    /**
+     * Formats the translated message at an index returned by indexOf().
+     *
+     * @param index The translation index
+     * @param args The message arguments
+     * @return The formatted message, or the unformatted text if the arguments do not fit the template
+     */
+    public String format(int index, Object... args) {
+        return templates[index].format(values[index], args);
+    }
+
+    /**
+     * Formats a translated message.
+     *
+     * @param key The translation key
+     * @param args The message arguments
+     * @return The formatted message; the unformatted text if the arguments do not
+     *         fit the template; the key itself if there is no translation
+     */
+    public String format(String key, Object... args) {
+        Integer i = index.get(key);
+        if (i == null) {
+            return Template.parse(key).format(key, args);
+        }
+        return templates[i].format(values[i], args);
+    }
+
+    // ---------- Cache ---------- //
+
+    /**
+     * @return the cached catalog, or null if the cache was built from another version of the XML
+     */
+    private static TranslationCatalog readCache(Path cache, long modified, long size) throws IOException {
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(Files.newInputStream(cache)))) {
+            if (in.readInt() != MAGIC || in.readInt() != VERSION
+                    || in.readLong() != modified || in.readLong() != size) {
+                return null;
+            }
+            int count = in.readInt();
+            String[] keys = new String[count];
+            String[] values = new String[count];
+            Template[] templates = new Template[count];
+            for (int i = 0; i < count; i++) {
+                keys[i] = in.readUTF();
+                values[i] = in.readUTF();
+                templates[i] = Template.read(in);
+            }
+            return new TranslationCatalog(keys, values, templates);
+        }
+    }
+
+    private void writeCache(Path cache, long modified, long size) throws IOException {
+        Path temp = Files.createTempFile(cache.toAbsolutePath().getParent(), cache.getFileName().toString(), ".tmp");
+        try {
+            try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(temp)))) {
+                out.writeInt(MAGIC);
+                out.writeInt(VERSION);
+                out.writeLong(modified);
+                out.writeLong(size);
+                out.writeInt(keys.length);
+                for (int i = 0; i < keys.length; i++) {
+                    out.writeUTF(keys[i]);
+                    out.writeUTF(values[i]);
+                    templates[i].write(out);
+                }
+            }
+            Files.move(temp, cache, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } finally {
+            Files.deleteIfExists(temp);
+        }
+    }
+
+    // ---------- Templates ---------- //
+
+    /**
+     * A message split into parts. Literal parts hold text; argument parts hold
+     * the zero-based index of the argument they print.
+     */
+    private static final class Template {
+        // Shared by every message without format specifiers
+        private static final Template PLAIN = new Template(null, null, null, 0);
+        // Shared by every message left to String.format()
+        private static final Template FALLBACK = new Template(null, null, null, 0);
+
+        private final byte[] kinds;
+        private final String[] literals;
+        private final int[] arguments;
+        private final int argumentCount;
+
+        private Template(byte[] kinds, String[] literals, int[] arguments, int argumentCount) {
+            this.kinds = kinds;
+            this.literals = literals;
+            this.arguments = arguments;
+            this.argumentCount = argumentCount;
+        }
+
+        /**
+         * @return the parsed template, or FALLBACK if the text needs String.format()
+         */
+        static Template parse(String text) {
+            if (text.indexOf('%') < 0) {
+                return PLAIN;
+            }
+            List<Byte> kinds = new ArrayList<>();
+            List<String> literals = new ArrayList<>();
+            List<Integer> arguments = new ArrayList<>();
+            StringBuilder literal = new StringBuilder();
+            int next = 0;
+            int count = 0;
+
+            for (int i = 0; i < text.length(); i++) {
+                char c = text.charAt(i);
+                if (c != '%') {
+                    literal.append(c);
+                    continue;
+                }
+                if (++i >= text.length()) {
+                    return FALLBACK;
+                }
+                // Optional explicit index: %2$s
+                int explicit = 0;
+                int j = i;
+                while (j < text.length() && Character.isDigit(text.charAt(j))) {
+                    explicit = explicit * 10 + (text.charAt(j) - '0');
+                    j++;
+                }
+                if (j > i && j < text.length() && text.charAt(j) == '$' && explicit > 0) {
+                    i = j + 1;
+                    if (i >= text.length()) {
+                        return FALLBACK;
+                    }
+                } else {
+                    explicit = 0;
+                }
+
+                char conversion = text.charAt(i);
+                if (conversion == '%' && explicit == 0) {
+                    literal.append('%');
+                } else if (conversion == 'n' && explicit == 0) {
+                    literal.append(System.lineSeparator());
+                } else if (conversion == 's' || conversion == 'd') {
+                    kinds.add(LITERAL);
+                    literals.add(literal.toString());
+                    arguments.add(-1);
+                    literal.setLength(0);
+
+                    int argument = explicit > 0 ? explicit - 1 : next++;
+                    kinds.add(conversion == 's' ? STRING_ARG : DECIMAL_ARG);
+                    literals.add(null);
+                    arguments.add(argument);
+                    count = Math.max(count, argument + 1);
+                } else {
+                    return FALLBACK;
+                }
+            }
+            kinds.add(LITERAL);
+            literals.add(literal.toString());
+            arguments.add(-1);
+
+            byte[] kindArray = new byte[kinds.size()];
+            int[] argumentArray = new int[arguments.size()];
+            for (int k = 0; k < kindArray.length; k++) {
+                kindArray[k] = kinds.get(k);
+                argumentArray[k] = arguments.get(k);
+            }
+            return new Template(kindArray, literals.toArray(new String[0]), argumentArray, count);
+        }
+
+        /**
+         * @param text The text the template was parsed from
+         * @param args The arguments
+         * @return The formatted text, or the text itself if the arguments do not fit
+         */
+        String format(String text, Object[] args) {
+            if (this == PLAIN) {
+                return text;
+            }
+            if (this == FALLBACK) {
+                return fallback(text, args);
+            }
+            if (args == null || args.length < argumentCount) {
+                return text;
+            }
+            StringBuilder out = new StringBuilder(text.length() + 16 * argumentCount);
+            for (int k = 0; k < kinds.length; k++) {
+                switch (kinds[k]) {
+                    case LITERAL:
+                        out.append(literals[k]);
+                        break;
+                    case STRING_ARG:
+                        out.append(args[arguments[k]]);
+                        break;
+                    default:
+                        Object arg = args[arguments[k]];
+                        if (arg == null) {
+                            out.append("null");
+                        } else if (arg instanceof Integer || arg instanceof Long || arg instanceof Short
+                                   || arg instanceof Byte || arg instanceof BigInteger) {
+                            out.append(arg);
+                        } else {
+                            return text;
+                        }
+                }
+            }
+            return out.toString();
+        }
+
+        private static String fallback(String text, Object[] args) {
+            try {
+                return String.format(text, args);
+            } catch (RuntimeException e) {
+                return text;
+            }
+        }
+
+        static Template read(DataInputStream in) throws IOException {
+            int parts = in.readInt();
+            if (parts == 0) {
+                return PLAIN;
+            }
+            if (parts < 0) {
+                return FALLBACK;
+            }
+            byte[] kinds = new byte[parts];
+            String[] literals = new String[parts];
+            int[] arguments = new int[parts];
+            int count = 0;
+            for (int k = 0; k < parts; k++) {
+                kinds[k] = in.readByte();
+                if (kinds[k] == LITERAL) {
+                    literals[k] = in.readUTF();
+                    arguments[k] = -1;
+                } else {
+                    arguments[k] = in.readInt();
+                    count = Math.max(count, arguments[k] + 1);
+                }
+            }
+            return new Template(kinds, literals, arguments, count);
+        }
+
+        // Parts count: 0 for PLAIN, -1 for a template left to String.format()
+        void write(DataOutputStream out) throws IOException {
+            if (this == PLAIN) {
+                out.writeInt(0);
+                return;
+            }
+            if (this == FALLBACK) {
+                out.writeInt(-1);
+                return;
+            }
+            out.writeInt(kinds.length);
+            for (int k = 0; k < kinds.length; k++) {
+                out.writeByte(kinds[k]);
+                if (kinds[k] == LITERAL) {
+                    out.writeUTF(literals[k]);
+                } else {
+                    out.writeInt(arguments[k]);
+                }
+            }
+        }
+    }
+}
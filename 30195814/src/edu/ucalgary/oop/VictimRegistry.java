@@ -0,0 +1,260 @@
+package edu.ucalgary.oop;
+
+import java.text.Normalizer;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.regex.Pattern;
+
+/**
+ * In-memory registry of disaster victims with indexes for fast lookup.
+ * Victims can be found by assigned social ID in constant time, by name
+ * (ignoring case and accents) in logarithmic time, and by family group.
+ * Victims by database ID are found through DatabaseManager.getPersonById().
+ * Call update() after changing a registered victim's name or family group
+ * so the indexes stay current. Listeners such as VictimSearchEngine are told
+ * about every change so their own indexes can follow the registry.
+ *
+ * @author Devante Kwizera
+ * @version 1.0
+ * @since 2025-04-16
+ */
+public class VictimRegistry {
+    private static final Pattern COMBINING_MARKS = Pattern.compile("\\p{M}+");
+    private static final Pattern WHITESPACE = Pattern.compile("\\s+");
+
+    private final Map<Integer, DisasterVictim> bySocialId = new LinkedHashMap<>();
+    private final TreeMap<String, Set<DisasterVictim>> byName = new TreeMap<>();
+    private final Map<String, Set<DisasterVictim>> byFamilyGroup = new HashMap<>();
+    // The keys each victim is currently indexed under, so update() can remove stale entries
+    private final Map<DisasterVictim, IndexKeys> indexed = new IdentityHashMap<>();
+    private final List<Listener> listeners = new CopyOnWriteArrayList<>();
+
+    /**
+     * Receives changes to the registry. Callbacks run while the registry is locked,
+     * so they must not call back into it.
+     */
+    public interface Listener {
+        void victimAdded(DisasterVictim victim);
+
+        void victimRemoved(DisasterVictim victim);
+    }
+
+    /**
+     * Registers a listener for future changes. Victims already in the registry
+     * are not replayed; use getAll() to catch up.
+     *
+     * @param listener The listener to add
+     */
+    public void addListener(Listener listener) {
+        listeners.add(listener);
+    }
+
+    public void removeListener(Listener listener) {
+        listeners.remove(listener);
+    }
+
+    /**
+     * Adds a victim to the registry. Adding a registered victim again just re-indexes it.
+     *
+     * @param victim The victim to add
+     */
+    public synchronized void add(DisasterVictim victim) {
+        if (indexed.containsKey(victim)) {
+            update(victim);
+            return;
+        }
+        bySocialId.put(victim.getAssignedSocialID(), victim);
+        index(victim);
+        for (Listener listener : listeners) {
+            listener.victimAdded(victim);
+        }
+    }
+
+    /**
+     * Adds every victim in the collection.
+     *
+     * @param victims The victims to add
+     */
+    public synchronized void addAll(Iterable<DisasterVictim> victims) {
+        for (DisasterVictim victim : victims) {
+            add(victim);
+        }
+    }
+
+    /**
+     * Removes a victim from the registry and all indexes.
+     *
+     * @param victim The victim to remove
+     */
+    public synchronized void remove(DisasterVictim victim) {
+        if (!indexed.containsKey(victim)) {
+            return;
+        }
+        bySocialId.remove(victim.getAssignedSocialID());
+        unindex(victim);
+        for (Listener listener : listeners) {
+            listener.victimRemoved(victim);
+        }
+    }
+
+    /**
+     * Re-indexes a registered victim after its name or family group changed.
+     *
+     * @param victim The victim that changed
+     */
+    public synchronized void update(DisasterVictim victim) {
+        if (!indexed.containsKey(victim)) {
+            return;
+        }
+        unindex(victim);
+        index(victim);
+        for (Listener listener : listeners) {
+            listener.victimRemoved(victim);
+            listener.victimAdded(victim);
+        }
+    }
+
+    /**
+     * Removes every victim.
+     */
+    public synchronized void clear() {
+        for (DisasterVictim victim : bySocialId.values()) {
+            for (Listener listener : listeners) {
+                listener.victimRemoved(victim);
+            }
+        }
+        bySocialId.clear();
+        byName.clear();
+        byFamilyGroup.clear();
+        indexed.clear();
+    }
+
+    public synchronized boolean contains(DisasterVictim victim) {
+        return indexed.containsKey(victim);
+    }
+
+    public synchronized int size() {
+        return bySocialId.size();
+    }
+
+    public synchronized boolean isEmpty() {
+        return bySocialId.isEmpty();
+    }
+
+    /**
+     * @return all victims in the order they were added
+     */
+    public synchronized List<DisasterVictim> getAll() {
+        return new ArrayList<>(bySocialId.values());
+    }
+
+    /**
+     * @param socialId An assigned social ID
+     * @return The victim with that ID, or null
+     */
+    public synchronized DisasterVictim getBySocialId(int socialId) {
+        return bySocialId.get(socialId);
+    }
+
+    /**
+     * Finds victims whose first name, last name or full name (in either order)
+     * starts with the given text, ignoring case and accents.
+     * "aurelie", "Aur\u00e9lie Dup" and "dupont" all find "Aur\u00e9lie Dupont".
+     *
+     * @param text The name or name prefix to look for
+     * @return Matching victims in name order; empty if text is blank
+     */
+    public synchronized List<DisasterVictim> findByName(String text) {
+        String prefix = normalize(text);
+        if (prefix.isEmpty()) {
+            return new ArrayList<>();
+        }
+        Set<DisasterVictim> matches = new LinkedHashSet<>();
+        for (Set<DisasterVictim> victims : byName.subMap(prefix, true, prefix + Character.MAX_VALUE, true).values()) {
+            matches.addAll(victims);
+        }
+        return new ArrayList<>(matches);
+    }
+
+    /**
+     * @param groupId A family group ID
+     * @return The registered members of that family group
+     */
+    public synchronized List<DisasterVictim> getFamilyMembers(String groupId) {
+        Set<DisasterVictim> members = byFamilyGroup.get(groupId);
+        return members == null ? new ArrayList<>() : new ArrayList<>(members);
+    }
+
+    /**
+     * Converts a name to its index form: accents removed, lower case, single spaces.
+     *
+     * @param name A name, possibly null
+     * @return The normalized name, or an empty string for null
+     */
+    public static String normalize(String name) {
+        if (name == null) {
+            return "";
+        }
+        String stripped = COMBINING_MARKS.matcher(Normalizer.normalize(name, Normalizer.Form.NFD)).replaceAll("");
+        return WHITESPACE.matcher(stripped.toLowerCase(Locale.ROOT)).replaceAll(" ").trim();
+    }
+
+    // ---------- Index maintenance ---------- //
+
+    private void index(DisasterVictim victim) {
+        IndexKeys keys = new IndexKeys();
+        String first = normalize(victim.getFirstName());
+        String last = normalize(victim.getLastName());
+
+        for (String key : new String[] { first, last, (first + " " + last).trim(), (last + " " + first).trim() }) {
+            if (!key.isEmpty() && keys.names.add(key)) {
+                byName.computeIfAbsent(key, k -> new LinkedHashSet<>()).add(victim);
+            }
+        }
+
+        FamilyGroup group = victim.getFamilyGroup();
+        if (group != null) {
+            keys.familyGroup = group.getGroupId();
+            byFamilyGroup.computeIfAbsent(keys.familyGroup, k -> new LinkedHashSet<>()).add(victim);
+        }
+
+        indexed.put(victim, keys);
+    }
+
+    private void unindex(DisasterVictim victim) {
+        IndexKeys keys = indexed.remove(victim);
+        if (keys == null) {
+            return;
+        }
+        for (String key : keys.names) {
+            removeFrom(byName, key, victim);
+        }
+        if (keys.familyGroup != null) {
+            removeFrom(byFamilyGroup, keys.familyGroup, victim);
+        }
+    }
+
+    private static void removeFrom(Map<String, Set<DisasterVictim>> index, String key, DisasterVictim victim) {
+        Set<DisasterVictim> victims = index.get(key);
+        if (victims != null) {
+            victims.remove(victim);
+            if (victims.isEmpty()) {
+                index.remove(key);
+            }
+        }
+    }
+
+    private static final class IndexKeys {
+        private final Set<String> names = new LinkedHashSet<>();
+        private String familyGroup;
+    }
+}
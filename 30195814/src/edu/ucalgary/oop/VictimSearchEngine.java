@@ -0,0 +1,367 @@
+package edu.ucalgary.oop;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Fuzzy name search over a VictimRegistry, used to match the missing person
+ * described in an inquiry to a registered victim.
+ * Each distinct name token (first or last name part) is indexed by its
+ * trigrams and by two phonetic codes: plain Soundex for English spellings and
+ * Soundex after folding common French spellings ("eau", "ph", silent endings).
+ * A query is scored token by token against the distinct tokens rather than
+ * every victim, so lookups stay fast when many victims share common names.
+ *
+ * @author Devante Kwizera
+ * @version 1.0
+ * @since 2025-04-16
+ */
+public class VictimSearchEngine implements VictimRegistry.Listener {
+    public static final int DEFAULT_MAX_RESULTS = 10;
+    public static final double DEFAULT_MIN_SCORE = 0.4;
+
+    // Score given to a token that only matches phonetically ("Dupond" for "Dupont")
+    private static final double PHONETIC_SCORE = 0.8;
+    // Tokens scoring below this are ignored rather than dragging a candidate in
+    private static final double MIN_TOKEN_SCORE = 0.3;
+
+    private final Map<String, Set<DisasterVictim>> victimsByToken = new HashMap<>();
+    private final Map<String, Set<String>> tokensByTrigram = new HashMap<>();
+    private final Map<String, Set<String>> tokensByPhonetic = new HashMap<>();
+    private final Map<DisasterVictim, List<String>> tokensOf = new IdentityHashMap<>();
+
+    /**
+     * Creates a search engine over the registry and keeps it in sync with later changes.
+     *
+     * @param registry The registry to search
+     */
+    public VictimSearchEngine(VictimRegistry registry) {
+        synchronized (registry) {
+            for (DisasterVictim victim : registry.getAll()) {
+                victimAdded(victim);
+            }
+            registry.addListener(this);
+        }
+    }
+
+    /**
+     * Creates an empty search engine that is fed through victimAdded() and victimRemoved().
+     */
+    public VictimSearchEngine() {
+    }
+
+    /**
+     * Searches with the default result limit and minimum score.
+     *
+     * @param query A full or partial name, possibly misspelled
+     * @return Ranked matches, best first
+     */
+    public List<Match> search(String query) {
+        return search(query, DEFAULT_MAX_RESULTS, DEFAULT_MIN_SCORE);
+    }
+
+    /**
+     * Ranks victims by how closely their names match the query.
+     * Each query token is compared to every name token of a victim; the best
+     * similarity per query token is averaged into a score between 0 and 1.
+     *
+     * @param query A full or partial name, possibly misspelled
+     * @param maxResults Maximum number of matches to return
+     * @param minScore Minimum score a match needs, between 0 and 1
+     * @return Ranked matches, best first; empty if the query has no letters
+     * @throws IllegalArgumentException if maxResults is not positive
+     */
+    public synchronized List<Match> search(String query, int maxResults, double minScore) throws IllegalArgumentException {
+        if (maxResults <= 0) {
+            throw new IllegalArgumentException("Maximum results must be positive: " + maxResults);
+        }
+        List<String> queryTokens = tokenize(query);
+        if (queryTokens.isEmpty()) {
+            return new ArrayList<>();
+        }
+
+        // Sum of each query token's best similarity, per candidate victim
+        Map<DisasterVictim, double[]> scores = new IdentityHashMap<>();
+        for (int q = 0; q < queryTokens.size(); q++) {
+            for (Map.Entry<String, Double> token : similarTokens(queryTokens.get(q)).entrySet()) {
+                for (DisasterVictim victim : victimsByToken.get(token.getKey())) {
+                    double[] perToken = scores.computeIfAbsent(victim, v -> new double[queryTokens.size()]);
+                    perToken[q] = Math.max(perToken[q], token.getValue());
+                }
+            }
+        }
+
+        List<Match> matches = new ArrayList<>();
+        for (Map.Entry<DisasterVictim, double[]> entry : scores.entrySet()) {
+            double total = 0;
+            for (double score : entry.getValue()) {
+                total += score;
+            }
+            double score = total / queryTokens.size();
+            if (score >= minScore) {
+                matches.add(new Match(entry.getKey(), score));
+            }
+        }
+        matches.sort((a, b) -> {
+            int byScore = Double.compare(b.score, a.score);
+            return byScore != 0 ? byScore
+                : Integer.compare(a.victim.getAssignedSocialID(), b.victim.getAssignedSocialID());
+        });
+        return matches.size() > maxResults ? new ArrayList<>(matches.subList(0, maxResults)) : matches;
+    }
+
+    /**
+     * @return The number of distinct name tokens in the index
+     */
+    public synchronized int getTokenCount() {
+        return victimsByToken.size();
+    }
+
+    /**
+     * @return The number of indexed victims
+     */
+    public synchronized int size() {
+        return tokensOf.size();
+    }
+
+    @Override
+    public synchronized void victimAdded(DisasterVictim victim) {
+        if (tokensOf.containsKey(victim)) {
+            victimRemoved(victim);
+        }
+        List<String> tokens = new ArrayList<>(tokenize(victim.getFirstName()));
+        tokens.addAll(tokenize(victim.getLastName()));
+        tokensOf.put(victim, tokens);
+
+        for (String token : tokens) {
+            Set<DisasterVictim> victims = victimsByToken.get(token);
+            if (victims == null) {
+                victims = new LinkedHashSet<>();
+                victimsByToken.put(token, victims);
+                for (String trigram : trigrams(token)) {
+                    tokensByTrigram.computeIfAbsent(trigram, k -> new LinkedHashSet<>()).add(token);
+                }
+                for (String code : phoneticCodes(token)) {
+                    tokensByPhonetic.computeIfAbsent(code, k -> new LinkedHashSet<>()).add(token);
+                }
+            }
+            victims.add(victim);
+        }
+    }
+
+    @Override
+    public synchronized void victimRemoved(DisasterVictim victim) {
+        List<String> tokens = tokensOf.remove(victim);
+        if (tokens == null) {
+            return;
+        }
+        for (String token : tokens) {
+            Set<DisasterVictim> victims = victimsByToken.get(token);
+            if (victims == null || !victims.remove(victim) || !victims.isEmpty()) {
+                continue;
+            }
+            // Last victim with this token; drop the token from the other indexes too
+            victimsByToken.remove(token);
+            for (String trigram : trigrams(token)) {
+                removeFrom(tokensByTrigram, trigram, token);
+            }
+            for (String code : phoneticCodes(token)) {
+                removeFrom(tokensByPhonetic, code, token);
+            }
+        }
+    }
+
+    /**
+     * Finds indexed tokens similar to one query token.
+     * Trigram similarity is the Dice coefficient of the two trigram sets;
+     * a phonetic match raises it to at least PHONETIC_SCORE.
+     */
+    private Map<String, Double> similarTokens(String queryToken) {
+        Set<String> queryTrigrams = trigrams(queryToken);
+        Map<String, Integer> shared = new HashMap<>();
+        for (String trigram : queryTrigrams) {
+            Set<String> tokens = tokensByTrigram.get(trigram);
+            if (tokens != null) {
+                for (String token : tokens) {
+                    shared.merge(token, 1, Integer::sum);
+                }
+            }
+        }
+
+        Map<String, Double> similar = new HashMap<>();
+        for (Map.Entry<String, Integer> entry : shared.entrySet()) {
+            double dice = 2.0 * entry.getValue() / (queryTrigrams.size() + trigrams(entry.getKey()).size());
+            if (dice >= MIN_TOKEN_SCORE) {
+                similar.put(entry.getKey(), dice);
+            }
+        }
+        for (String code : phoneticCodes(queryToken)) {
+            Set<String> tokens = tokensByPhonetic.get(code);
+            if (tokens != null) {
+                for (String token : tokens) {
+                    similar.merge(token, PHONETIC_SCORE, Math::max);
+                }
+            }
+        }
+        return similar;
+    }
+
+    private static void removeFrom(Map<String, Set<String>> index, String key, String token) {
+        Set<String> tokens = index.get(key);
+        if (tokens != null) {
+            tokens.remove(token);
+            if (tokens.isEmpty()) {
+                index.remove(key);
+            }
+        }
+    }
+
+    /**
+     * Splits a name into normalized tokens. Hyphens and apostrophes separate
+     * tokens, so "Jean-Luc D'Amour" gives "jean", "luc", "d" and "amour".
+     */
+    static List<String> tokenize(String name) {
+        List<String> tokens = new ArrayList<>();
+        for (String token : VictimRegistry.normalize(name).split("[^a-z0-9]+")) {
+            if (!token.isEmpty()) {
+                tokens.add(token);
+            }
+        }
+        return tokens;
+    }
+
+    /**
+     * Returns the trigrams of a token padded with one space on each side,
+     * so "ana" gives " an", "ana" and "na ".
+     */
+    static Set<String> trigrams(String token) {
+        String padded = " " + token + " ";
+        Set<String> trigrams = new LinkedHashSet<>();
+        for (int i = 0; i + 3 <= padded.length(); i++) {
+            trigrams.add(padded.substring(i, i + 3));
+        }
+        return trigrams;
+    }
+
+    /**
+     * Returns the English and French phonetic codes of a token.
+     * Tokens without letters have no codes.
+     */
+    static Set<String> phoneticCodes(String token) {
+        Set<String> codes = new LinkedHashSet<>();
+        String english = soundex(token);
+        if (!english.isEmpty()) {
+            codes.add(english);
+            codes.add(soundex(foldFrench(token)));
+        }
+        return codes;
+    }
+
+    /**
+     * Rewrites common French spellings to how they sound, before Soundex is
+     * applied: "Thibeault" and "Thibo" both fold to "tibo".
+     */
+    static String foldFrench(String token) {
+        String folded = token
+            .replace("eau", "o")
+            .replace("au", "o")
+            .replace("ph", "f")
+            .replace("qu", "k")
+            .replace("gn", "n")
+            .replace("ou", "u")
+            .replace("th", "t");
+        // Silent endings: a final "e", then final "s", "t", "x", "d", "z" or "lt"
+        if (folded.length() > 2 && folded.endsWith("e")) {
+            folded = folded.substring(0, folded.length() - 1);
+        }
+        if (folded.length() > 3 && folded.endsWith("lt")) {
+            folded = folded.substring(0, folded.length() - 2);
+        }
+        while (folded.length() > 2 && "stxdz".indexOf(folded.charAt(folded.length() - 1)) >= 0) {
+            folded = folded.substring(0, folded.length() - 1);
+        }
+        return folded;
+    }
+
+    /**
+     * American Soundex: the first letter followed by three digits.
+     * Non-letters are ignored, and "h" and "w" do not separate equal codes.
+     *
+     * @param token A normalized (lower case, unaccented) token
+     * @return The Soundex code, or an empty string if the token has no letters
+     */
+    static String soundex(String token) {
+        StringBuilder code = new StringBuilder(4);
+        char previous = 0;
+        for (int i = 0; i < token.length() && code.length() < 4; i++) {
+            char c = token.charAt(i);
+            if (c < 'a' || c > 'z') {
+                continue;
+            }
+            char digit = soundexDigit(c);
+            if (code.length() == 0) {
+                code.append(Character.toUpperCase(c));
+            } else if (digit != '0' && digit != previous) {
+                code.append(digit);
+            }
+            if (c != 'h' && c != 'w') {
+                previous = digit;
+            }
+        }
+        if (code.length() == 0) {
+            return "";
+        }
+        while (code.length() < 4) {
+            code.append('0');
+        }
+        return code.toString();
+    }
+
+    private static char soundexDigit(char c) {
+        switch (c) {
+            case 'b': case 'f': case 'p': case 'v':
+                return '1';
+            case 'c': case 'g': case 'j': case 'k': case 'q': case 's': case 'x': case 'z':
+                return '2';
+            case 'd': case 't':
+                return '3';
+            case 'l':
+                return '4';
+            case 'm': case 'n':
+                return '5';
+            case 'r':
+                return '6';
+            default:
+                return '0';
+        }
+    }
+
+    /**
+     * A victim and how closely its name matched a query.
+     */
+    public static final class Match {
+        private final DisasterVictim victim;
+        private final double score;
+
+        Match(DisasterVictim victim, double score) {
+            this.victim = victim;
+            this.score = score;
+        }
+
+        public DisasterVictim getVictim() {
+            return victim;
+        }
+
+        /**
+         * @return Similarity between 0 and 1, where 1 is an exact match
+         */
+        public double getScore() {
+            return score;
+        }
+    }
+}
@@ -3,22 +3,38 @@ package edu.ucalgary.oop;
 import java.time.LocalDate;
 
 public class Water extends Supply {
-    private LocalDate allocationDate;
+    // Allocation day as LocalDate.toEpochDay(), or Dates.NONE; an int avoids a LocalDate per bottle
+    private int allocationEpochDay;
 
     public Water(LocalDate allocationDate, int quantity) {
         super("water",quantity);
-        this.allocationDate = allocationDate;
+        setAllocationDate(allocationDate);
     }
 
     public LocalDate getAllocationDate() {
-        return allocationDate;
+        return allocationEpochDay == Dates.NONE ? null : LocalDate.ofEpochDay(allocationEpochDay);
     }
 
     public void setAllocationDate(LocalDate allocationDate) {
-        this.allocationDate = allocationDate;
+        this.allocationEpochDay = allocationDate == null ? Dates.NONE : (int) allocationDate.toEpochDay();
+    }
+
+    /**
+     * @return the allocation day as LocalDate.toEpochDay(), or Dates.NONE if not allocated
+     */
+    public int getAllocationEpochDay() {
+        return allocationEpochDay;
     }
 
     public boolean isExpired() {
-        return allocationDate != null && LocalDate.now().isAfter(allocationDate.plusDays(1));
+        return isExpired(LocalDate.now().toEpochDay());
+    }
+
+    /**
+     * @param todayEpochDay the current day as LocalDate.toEpochDay()
+     * @return true if the water was allocated more than one day before that day
+     */
+    public boolean isExpired(long todayEpochDay) {
+        return allocationEpochDay != Dates.NONE && todayEpochDay > allocationEpochDay + 1L;
     }
 }
@@ -0,0 +1,266 @@
+package edu.ucalgary.oop;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.time.LocalDate;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.PriorityQueue;
+import java.util.Set;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Retires water allocated to persons once it expires, a day after the day it was allocated.
+ * Allocations are kept in a min-heap ordered by expiry time, so a sweep only
+ * looks at the allocations that are actually due. Each sweep removes them
+ * with one batched DELETE by primary key and drops the expired water from
+ * the belongings of loaded persons. Sweeps run on a background thread once
+ * start() is called.
+ *
+ * @author Devante Kwizera
+ * @version 1.0
+ * @since 2025-04-16
+ */
+public class WaterExpirySweeper {
+    public static final long DEFAULT_SWEEP_INTERVAL_MILLIS = 60_000;
+
+    private static final String LOAD_SQL =
+        "SELECT sa.supply_id, sa.person_id, sa.allocation_date FROM SupplyAllocation sa " +
+        "JOIN Supply s ON s.supply_id = sa.supply_id " +
+        "WHERE s.type = 'water' AND sa.person_id IS NOT NULL AND sa.allocation_date >= ?";
+    private static final String DELETE_SQL =
+        "DELETE FROM SupplyAllocation WHERE supply_id = ? AND allocation_date = ?";
+
+    private final DatabaseManager dbManager;
+    private final ConnectionPool pool;
+    private final PriorityQueue<Allocation> heap =
+        new PriorityQueue<>(Comparator.comparingLong(a -> a.expiresAtMillis));
+    private ScheduledExecutorService scheduler;
+    private long retiredCount = 0;
+
+    /**
+     * @param dbManager Manager used for error logging and to find loaded persons
+     * @param pool Pool to borrow connections from
+     */
+    WaterExpirySweeper(DatabaseManager dbManager, ConnectionPool pool) {
+        this.dbManager = dbManager;
+        this.pool = pool;
+    }
+
+    /**
+     * Starts sweeping every DEFAULT_SWEEP_INTERVAL_MILLIS.
+     */
+    public void start() {
+        start(DEFAULT_SWEEP_INTERVAL_MILLIS);
+    }
+
+    /**
+     * Starts sweeping on a background thread. Calling it again while running has no effect.
+     *
+     * @param intervalMillis Delay between sweeps
+     * @throws IllegalArgumentException if intervalMillis is not positive
+     */
+    public synchronized void start(long intervalMillis) throws IllegalArgumentException {
+        if (intervalMillis <= 0) {
+            throw new IllegalArgumentException("Sweep interval must be positive: " + intervalMillis);
+        }
+        if (scheduler != null) {
+            return;
+        }
+        scheduler = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread t = new Thread(r, "water-expiry");
+            t.setDaemon(true);
+            return t;
+        });
+        scheduler.scheduleWithFixedDelay(this::scheduledSweep, intervalMillis, intervalMillis, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Stops the background sweeps. Tracked allocations are kept.
+     */
+    public synchronized void stop() {
+        if (scheduler != null) {
+            scheduler.shutdownNow();
+            scheduler = null;
+        }
+    }
+
+    /**
+     * Replaces the tracked allocations with the unexpired water allocations in the database.
+     * Already expired ones are left to DatabaseManager.removeExpiredWater().
+     *
+     * @return The number of allocations now tracked
+     */
+    public int loadAllocations() {
+        List<Allocation> loaded = new ArrayList<>();
+        Timestamp cutoff = Timestamp.valueOf(LocalDate.now().minusDays(1).atStartOfDay());
+
+        try (Connection conn = pool.borrow();
+             PreparedStatement stmt = conn.prepareStatement(LOAD_SQL)) {
+            stmt.setTimestamp(1, cutoff);
+            try (ResultSet rs = stmt.executeQuery()) {
+                while (rs.next()) {
+                    loaded.add(new Allocation(rs.getInt("supply_id"), rs.getInt("person_id"),
+                                              rs.getTimestamp("allocation_date")));
+                }
+            }
+        } catch (SQLException e) {
+            dbManager.logError("Failed to load water allocations", e);
+            return size();
+        }
+
+        synchronized (this) {
+            heap.clear();
+            heap.addAll(loaded);
+            return heap.size();
+        }
+    }
+
+    /**
+     * Tracks a new water allocation to a person.
+     *
+     * @param supplyId The allocated Supply.supply_id
+     * @param personId The receiving Person.person_id
+     * @param allocatedAt The allocation_date written to SupplyAllocation
+     */
+    public synchronized void track(int supplyId, int personId, Timestamp allocatedAt) {
+        heap.add(new Allocation(supplyId, personId, allocatedAt));
+    }
+
+    /**
+     * @return The number of allocations waiting to expire
+     */
+    public synchronized int size() {
+        return heap.size();
+    }
+
+    /**
+     * @return The number of allocations retired by sweeps so far
+     */
+    public synchronized long getRetiredCount() {
+        return retiredCount;
+    }
+
+    /**
+     * Runs a sweep from the scheduler. An exception escaping the task would
+     * cancel every later sweep, so it is logged and the next sweep runs as usual.
+     */
+    private void scheduledSweep() {
+        try {
+            sweep();
+        } catch (RuntimeException e) {
+            dbManager.logError("Water expiry sweep failed", e);
+        }
+    }
+
+    /**
+     * Retires every allocation that has expired by now.
+     *
+     * @return The number of allocations deleted
+     */
+    public int sweep() {
+        return sweep(System.currentTimeMillis());
+    }
+
+    /**
+     * Retires every allocation expiring at or before the given time.
+     * If the delete fails the allocations are tracked again for the next sweep.
+     *
+     * @param nowMillis The current time in epoch milliseconds
+     * @return The number of allocations deleted
+     */
+    int sweep(long nowMillis) {
+        List<Allocation> due = new ArrayList<>();
+        synchronized (this) {
+            while (!heap.isEmpty() && heap.peek().expiresAtMillis <= nowMillis) {
+                due.add(heap.poll());
+            }
+        }
+        if (due.isEmpty()) {
+            return 0;
+        }
+
+        if (!delete(due)) {
+            synchronized (this) {
+                heap.addAll(due);
+            }
+            return 0;
+        }
+
+        // Each person is cleaned up once, however many of their allocations expired
+        Set<Integer> personIds = new LinkedHashSet<>();
+        for (Allocation allocation : due) {
+            personIds.add(allocation.personId);
+        }
+        for (int personId : personIds) {
+            DisasterVictim person = dbManager.getPersonById(personId);
+            if (person != null) {
+                person.removeExpiredWater();
+            }
+        }
+
+        synchronized (this) {
+            retiredCount += due.size();
+        }
+        return due.size();
+    }
+
+    private boolean delete(List<Allocation> due) {
+        try (Connection conn = pool.borrow()) {
+            conn.setAutoCommit(false);
+            try (PreparedStatement stmt = conn.prepareStatement(DELETE_SQL)) {
+                for (Allocation allocation : due) {
+                    stmt.setInt(1, allocation.supplyId);
+                    stmt.setTimestamp(2, allocation.allocatedAt);
+                    stmt.addBatch();
+                }
+                stmt.executeBatch();
+                conn.commit();
+                return true;
+            } catch (SQLException e) {
+                conn.rollback();
+                throw e;
+            }
+        } catch (SQLException e) {
+            dbManager.logError("Failed to delete expired water", e);
+            return false;
+        }
+    }
+
+    /**
+     * Time at which water allocated at the given moment expires: the start of
+     * the second day after the allocation day, matching Water.isExpired().
+     *
+     * @param allocatedAt The allocation time
+     * @return Expiry time in epoch milliseconds
+     */
+    static long expiryMillis(Timestamp allocatedAt) {
+        LocalDate expiryDay = allocatedAt.toLocalDateTime().toLocalDate().plusDays(2);
+        return expiryDay.atStartOfDay(ZoneId.systemDefault()).toInstant().toEpochMilli();
+    }
+
+    /**
+     * One row of SupplyAllocation, identified by its primary key.
+     */
+    private static final class Allocation {
+        private final int supplyId;
+        private final int personId;
+        private final Timestamp allocatedAt;
+        private final long expiresAtMillis;
+
+        Allocation(int supplyId, int personId, Timestamp allocatedAt) {
+            this.supplyId = supplyId;
+            this.personId = personId;
+            this.allocatedAt = allocatedAt;
+            this.expiresAtMillis = expiryMillis(allocatedAt);
+        }
+    }
+}
@@ -0,0 +1,45 @@
+package edu.ucalgary.oop;
+
+import org.junit.Before;
+import org.junit.Test;
+import static org.junit.Assert.*;
+import java.util.Arrays;
+
+public class BatchResultTest {
+    private BatchResult<Supply> result;
+    private Supply water;
+    private Supply blanket;
+
+    @Before
+    public void setUp() {
+        result = new BatchResult<>();
+        water = new Supply("water", 1);
+        blanket = new Supply("blanket", 1);
+    }
+
+    @Test
+    public void testEmptyResultIsSuccessful() {
+        assertTrue("A result with no failures should be successful", result.isSuccessful());
+        assertEquals("No entities should be saved", 0, result.getSavedCount());
+    }
+
+    @Test
+    public void testSavedAndFailedAreReported() {
+        result.addSaved(water);
+        result.addFailure(blanket, "Invalid value");
+        assertEquals("One entity should be saved", 1, result.getSavedCount());
+        assertEquals("One entity should have failed", 1, result.getFailedCount());
+        assertEquals("The failure reason should be kept", "Invalid value", result.getFailures().get(blanket));
+        assertFalse("A result with failures is not successful", result.isSuccessful());
+    }
+
+    @Test
+    public void testAbortFailsEverythingButKeepsEarlierReasons() {
+        result.addSaved(water);
+        result.addFailure(blanket, "Invalid value");
+        result.abort(Arrays.asList(water, blanket), "Rolled back");
+        assertEquals("Nothing should remain saved after a rollback", 0, result.getSavedCount());
+        assertEquals("Saved entities should be reported as rolled back", "Rolled back", result.getFailures().get(water));
+        assertEquals("Earlier failures should keep their reason", "Invalid value", result.getFailures().get(blanket));
+    }
+}
@@ -0,0 +1,80 @@
+package edu.ucalgary.oop;
+
+import org.junit.Before;
+import org.junit.Test;
+import java.time.LocalDate;
+import static org.junit.Assert.*;
+
+public class BelongingsTest {
+    private Belongings belongings;
+    private long today;
+
+    @Before
+    public void setUp() {
+        belongings = new Belongings();
+        today = LocalDate.of(2025, 4, 17).toEpochDay();
+    }
+
+    @Test
+    public void testAddGrowsPastInitialCapacity() {
+        for (int i = 0; i < 100; i++) {
+            belongings.add(new Supply("blanket", 1));
+        }
+        assertEquals("Every added item should be kept", 100, belongings.size());
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testAddNull() {
+        belongings.add(null);
+    }
+
+    @Test
+    public void testRemoveByIdentity() {
+        Supply first = new Supply("blanket", 1);
+        Supply second = new Supply("blanket", 1);
+        Supply third = new Supply("toothbrush", 1);
+        belongings.add(first);
+        belongings.add(second);
+        belongings.add(third);
+
+        assertTrue("A held item should be removed", belongings.remove(first));
+        assertFalse("A removed item should not be found again", belongings.remove(first));
+        assertEquals("Only the removed item should be gone", 2, belongings.size());
+        assertFalse("The removed item should not be held", belongings.contains(first));
+        assertTrue("The other items should still be held", belongings.contains(second) && belongings.contains(third));
+    }
+
+    @Test
+    public void testRemoveExpiredWaterCompactsInPlace() {
+        Supply blanket = new Supply("blanket", 1);
+        Water fresh = new Water(LocalDate.ofEpochDay(today), 1);
+        Water stale = new Water(LocalDate.ofEpochDay(today - 2), 1);
+        Water staler = new Water(LocalDate.ofEpochDay(today - 5), 1);
+        belongings.add(stale);
+        belongings.add(blanket);
+        belongings.add(staler);
+        belongings.add(fresh);
+
+        assertEquals("Both expired bottles should be removed", 2, belongings.removeExpiredWater(today));
+        assertArrayEquals("Remaining items should keep their order", new Supply[] { blanket, fresh }, belongings.toArray());
+    }
+
+    @Test
+    public void testWaterExpiresTwoDaysAfterAllocation() {
+        Water water = new Water(LocalDate.ofEpochDay(today), 1);
+        assertFalse("Water should last the day after allocation", water.isExpired(today + 1));
+        assertTrue("Water should expire the second day after allocation", water.isExpired(today + 2));
+        assertEquals("The allocation date should round-trip", LocalDate.ofEpochDay(today), water.getAllocationDate());
+    }
+
+    @Test
+    public void testDisasterVictimRemovePersonalBelonging() {
+        DisasterVictim victim = new DisasterVictim("Raman", "2025-01-18");
+        Supply blanket = new Supply("blanket", 1);
+        victim.addPersonalBelonging(blanket);
+        victim.addPersonalBelonging(new Supply("toothbrush", 1));
+
+        victim.removePersonalBelonging(blanket);
+        assertEquals("The unwanted item should be removed", 1, victim.getPersonalBelongings().length);
+    }
+}
@@ -0,0 +1,100 @@
+package edu.ucalgary.oop;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import static org.junit.Assert.*;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Loads, shares and reloads language files in a temporary directory.
+ */
+public class CatalogCacheTest {
+    private CatalogCache cache;
+    private Path dir;
+    private Path xml;
+
+    @Before
+    public void setUp() throws IOException {
+        cache = new CatalogCache();
+        dir = Files.createTempDirectory("catalogs");
+        xml = dir.resolve("en-CA.xml");
+        write("Welcome");
+    }
+
+    @After
+    public void tearDown() throws IOException {
+        cache.stopWatching();
+        Files.deleteIfExists(TranslationCatalog.cachePath(xml));
+        Files.deleteIfExists(xml);
+        Files.deleteIfExists(dir);
+    }
+
+    private void write(String welcome) throws IOException {
+        String text = "<translations>\n  <translation><key>welcome</key><value>" + welcome
+                      + "</value></translation>\n</translations>\n";
+        long previous = Files.exists(xml) ? Files.getLastModifiedTime(xml).toMillis() : 0;
+        Files.write(xml, text.getBytes(StandardCharsets.UTF_8));
+        // Make sure the compiled cache sees a new version even on coarse file clocks
+        if (Files.getLastModifiedTime(xml).toMillis() <= previous) {
+            Files.setLastModifiedTime(xml, FileTime.fromMillis(previous + 1000));
+        }
+    }
+
+    @Test
+    public void testLanguageIsLoadedOnce() throws IOException {
+        CatalogCache.Entry first = cache.get(xml);
+        assertSame("Both desks should share one entry", first, cache.get(dir.resolve(".").resolve("en-CA.xml")));
+        assertEquals("en-CA", first.getLanguage());
+        assertEquals(1, cache.size());
+    }
+
+    @Test
+    public void testReloadSwapsCatalog() throws IOException {
+        CatalogCache.Entry entry = cache.get(xml);
+        TranslationCatalog before = entry.getCatalog();
+        write("Bienvenue");
+        assertTrue("The reload should publish a catalog", cache.reload(xml));
+        assertNotSame(before, entry.getCatalog());
+        assertEquals("Bienvenue", entry.getCatalog().get("welcome"));
+        assertEquals(1, cache.getReloadCount());
+        assertFalse("Unloaded files should be ignored", cache.reload(dir.resolve("fr-CA.xml")));
+    }
+
+    @Test
+    public void testEmptyReloadKeepsCatalog() throws IOException {
+        CatalogCache.Entry entry = cache.get(xml);
+        Files.write(xml, "<translations>".getBytes(StandardCharsets.UTF_8));
+        assertFalse("A half-written file should not be published", cache.reload(xml));
+        assertEquals("Welcome", entry.getCatalog().get("welcome"));
+        assertEquals(1, cache.getFailedReloadCount());
+    }
+
+    @Test
+    public void testWatcherReloadsEditedFile() throws IOException, InterruptedException {
+        CatalogCache.Entry entry = cache.get(xml);
+        assertTrue("The cache should watch for changes", cache.startWatching());
+        write("Bonjour");
+
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(10);
+        while (!"Bonjour".equals(entry.getCatalog().get("welcome")) && System.nanoTime() < deadline) {
+            Thread.sleep(20);
+        }
+        assertEquals("The edit should reach the loaded entry", "Bonjour", entry.getCatalog().get("welcome"));
+        assertTrue("The reload should be timed", cache.getMaxReloadMillis() > 0);
+    }
+
+    @Test
+    public void testMissesAreCounted() {
+        cache.recordMiss("en-CA", "missing_key");
+        cache.recordMiss("en-CA", "missing_key");
+        cache.recordMiss("fr-CA", "other_key");
+        assertEquals(3, cache.getMissCount());
+        assertEquals(Long.valueOf(2), cache.getMissCounts().get("en-CA:missing_key"));
+    }
+}
@@ -0,0 +1,81 @@
+package edu.ucalgary.oop;
+
+import org.junit.Before;
+import org.junit.Test;
+import static org.junit.Assert.*;
+
+public class CotAllocatorTest {
+    private CotAllocator allocator;
+    private DisasterVictim victim;
+    private DisasterVictim other;
+
+    @Before
+    public void setUp() {
+        allocator = new CotAllocator(4);
+        victim = new DisasterVictim("Raman", "2025-01-18");
+        other = new DisasterVictim("Chanida", "2025-01-18");
+    }
+
+    @Test
+    public void testCellIndexRoundTrip() {
+        assertEquals("A1 should be the first cell", 0, allocator.cellIndex("A1"));
+        assertEquals("B3 should follow the four cells of row A", 6, allocator.cellIndex("B3"));
+        assertEquals("Cell indexes should convert back to grid names", "B3", allocator.gridName(6));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testInvalidColumn() {
+        allocator.cellIndex("A5");
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testInvalidGrid() {
+        allocator.claim(410, "16G", victim);
+    }
+
+    @Test
+    public void testClaimDetectsConflict() {
+        assertTrue("A free cot should be claimed", allocator.claim(410, "A2", victim));
+        assertTrue("Claiming your own cot again should succeed", allocator.claim(410, "A2", victim));
+        assertFalse("Another victim's cot should be refused", allocator.claim(410, "A2", other));
+        assertSame("The first claimant should keep the cot", victim, allocator.getOccupant(410, "A2"));
+    }
+
+    @Test
+    public void testTryClaimReportsWhoTookTheCot() {
+        assertEquals("A free cot should be taken", CotAllocator.Claim.TAKEN, allocator.tryClaim(410, "A3", victim));
+        assertEquals("A second claim by the same victim did not take it", CotAllocator.Claim.ALREADY_HELD,
+                     allocator.tryClaim(410, "A3", victim));
+        assertEquals("Another victim's cot is a conflict", CotAllocator.Claim.CONFLICT,
+                     allocator.tryClaim(410, "A3", other));
+    }
+
+    @Test
+    public void testAllocateNearPicksClosestFreeCot() {
+        allocator.claim(410, "B2", victim);
+        allocator.claim(410, "B3", victim);
+        allocator.claim(410, "B1", victim);
+        Cot cot = allocator.allocateNear(410, "B2", other);
+        assertEquals("The closest free cot should be B4", "B4", cot.getGrid());
+        assertEquals("The cot should be in the requested room", 410, cot.getRoom());
+        assertFalse("The allocated cot should now be taken", allocator.isFree(410, "B4"));
+    }
+
+    @Test
+    public void testAllocateWhenRoomIsFull() {
+        for (int i = 0; i < allocator.capacity(); i++) {
+            assertNotNull("Every cell should be allocated once", allocator.allocate(7, null));
+        }
+        assertEquals("A full room has no free cells", 0, allocator.getFreeCount(7));
+        assertNull("A full room should not allocate", allocator.allocate(7, victim));
+    }
+
+    @Test
+    public void testRelease() {
+        Cot cot = allocator.allocate(410, victim);
+        allocator.release(cot);
+        assertTrue("A released cot should be free", allocator.isFree(410, cot.getGrid()));
+        assertNull("A released cot should have no occupant", allocator.getOccupant(410, cot.getGrid()));
+        assertTrue("Another victim can then claim it", allocator.claim(cot, other));
+    }
+}
@@ -0,0 +1,40 @@
+package edu.ucalgary.oop;
+
+import org.junit.Test;
+import static org.junit.Assert.*;
+
+public class DatabaseDialectTest {
+
+    @Test
+    public void testForUrl() {
+        assertEquals("PostgreSQL URLs should use the server dialect", DatabaseDialect.POSTGRESQL,
+                     DatabaseDialect.forUrl("jdbc:postgresql://localhost:5432/ensf380project"));
+        assertEquals("SQLite URLs should use the embedded dialect", DatabaseDialect.SQLITE,
+                     DatabaseDialect.forUrl("jdbc:sqlite:data/shelter.db"));
+        assertTrue("SQLite should be embedded", DatabaseDialect.SQLITE.isEmbedded());
+        assertFalse("PostgreSQL should not be embedded", DatabaseDialect.POSTGRESQL.isEmbedded());
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testUnsupportedUrl() {
+        DatabaseDialect.forUrl("jdbc:mysql://localhost/ensf380project");
+    }
+
+    @Test
+    public void testTuneUrlKeepsExplicitSettings() {
+        String tuned = DatabaseDialect.SQLITE.tuneUrl("jdbc:sqlite:data/shelter.db?cache_size=-1000");
+        assertTrue("WAL mode should be added", tuned.contains("journal_mode=WAL"));
+        assertTrue("An explicit cache size should be kept", tuned.contains("cache_size=-1000"));
+        assertFalse("An explicit cache size should not be overridden", tuned.contains("cache_size=-65536"));
+        assertEquals("Server URLs should not change", "jdbc:postgresql://localhost/db",
+                     DatabaseDialect.POSTGRESQL.tuneUrl("jdbc:postgresql://localhost/db"));
+    }
+
+    @Test
+    public void testSyncHorizonQuery() {
+        assertTrue("PostgreSQL should cap the horizon at the oldest open transaction",
+                   DatabaseDialect.POSTGRESQL.getSyncHorizonQuery().contains("min(xact_start)"));
+        assertEquals("SQLite's horizon should be the current time", DatabaseDialect.SQLITE.getCurrentTimestampQuery(),
+                     DatabaseDialect.SQLITE.getSyncHorizonQuery());
+    }
+}
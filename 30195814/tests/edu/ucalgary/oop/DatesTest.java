@@ -0,0 +1,50 @@
+package edu.ucalgary.oop;
+
+import org.junit.Test;
+import java.time.LocalDate;
+import static org.junit.Assert.*;
+
+public class DatesTest {
+
+    @Test
+    public void testParseMatchesLocalDate() {
+        LocalDate date = LocalDate.of(1600, 1, 1);
+        while (date.getYear() < 2500) {
+            assertEquals("Epoch day should match LocalDate for " + date,
+                         date.toEpochDay(), Dates.parse(date.toString()));
+            date = date.plusDays(13);
+        }
+    }
+
+    @Test
+    public void testFormatRoundTrip() {
+        for (int epochDay = -200_000; epochDay < 200_000; epochDay += 7) {
+            assertEquals("Formatting should match LocalDate for epoch day " + epochDay,
+                         LocalDate.ofEpochDay(epochDay).toString(), Dates.format(epochDay));
+        }
+    }
+
+    @Test
+    public void testLeapDays() {
+        assertTrue("2024 is a leap year", Dates.isValid("2024-02-29"));
+        assertTrue("2000 is a leap year", Dates.isValid("2000-02-29"));
+        assertFalse("2025 is not a leap year", Dates.isValid("2025-02-29"));
+        assertFalse("1900 is not a leap year", Dates.isValid("1900-02-29"));
+    }
+
+    @Test
+    public void testInvalidDates() {
+        assertEquals("Null should not parse", Dates.NONE, Dates.parse(null));
+        assertEquals("Missing dashes should not parse", Dates.NONE, Dates.parse("20250112"));
+        assertEquals("Day-first dates should not parse", Dates.NONE, Dates.parse("18/01/2025"));
+        assertEquals("Month 13 should not parse", Dates.NONE, Dates.parse("2025-13-01"));
+        assertEquals("April 31 should not parse", Dates.NONE, Dates.parse("2025-04-31"));
+        assertEquals("Signs should not parse", Dates.NONE, Dates.parse("2025-+1-01"));
+    }
+
+    @Test
+    public void testNoneFormatsAsNull() {
+        assertNull("A missing date should format as null", Dates.format(Dates.NONE));
+        assertNull("A missing date should bind as SQL NULL", Dates.toSqlDate(Dates.NONE));
+    }
+}
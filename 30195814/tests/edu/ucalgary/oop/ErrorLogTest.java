@@ -0,0 +1,106 @@
+package edu.ucalgary.oop;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import static org.junit.Assert.*;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.sql.SQLException;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+
+/**
+ * Writes error records to a log in a temporary directory.
+ */
+public class ErrorLogTest {
+    private Path dir;
+    private Path file;
+    private ErrorLog log;
+
+    @Before
+    public void setUp() throws IOException {
+        dir = Files.createTempDirectory("errorlog");
+        file = dir.resolve("errorlog.txt");
+    }
+
+    @After
+    public void tearDown() throws IOException {
+        if (log != null) {
+            log.close();
+        }
+        try (Stream<Path> files = Files.list(dir)) {
+            for (Path path : (Iterable<Path>) files::iterator) {
+                Files.delete(path);
+            }
+        }
+        Files.delete(dir);
+    }
+
+    private String read(Path path) throws IOException {
+        return new String(Files.readAllBytes(path), StandardCharsets.UTF_8);
+    }
+
+    @Test
+    public void testRecordIsStructured() throws IOException {
+        log = new ErrorLog(file, 16, 1024 * 1024, TimeUnit.DAYS.toMillis(1), 2);
+        SQLException cause = new SQLException("Connection refused", "08001");
+        assertTrue(log.log("Failed to save person", new IllegalStateException("wrapped", cause), 42));
+        assertTrue(log.log("Failed to load \"all\" persons", null));
+        assertTrue("Records should be written", log.flush(5000));
+
+        String text = read(file);
+        assertTrue("Operation should be recorded", text.contains("operation=\"Failed to save person\""));
+        assertTrue("SQL state should come from the cause", text.contains("sqlState=08001"));
+        assertTrue("Entity ID should be recorded", text.contains("entityId=42"));
+        assertTrue("Stack trace should follow", text.contains("Caused by: java.sql.SQLException: Connection refused"));
+        assertTrue("Quotes should be escaped", text.contains("operation=\"Failed to load \\\"all\\\" persons\""));
+        assertTrue("Missing fields should be marked", text.contains("sqlState=- entityId=-"));
+        assertEquals(2, log.getWrittenCount());
+    }
+
+    @Test
+    public void testFileIsRotatedBySize() throws IOException {
+        log = new ErrorLog(file, 16, 300, TimeUnit.DAYS.toMillis(1), 2);
+        for (int i = 0; i < 10; i++) {
+            log.log("Failed operation " + i, new SQLException("boom"));
+            log.flush(5000);
+        }
+        log.close();
+
+        assertTrue("The log should have been rotated", log.getRotationCount() > 0);
+        assertTrue("The first rotated file should exist", Files.exists(dir.resolve("errorlog.txt.1")));
+        assertTrue("The second rotated file should exist", Files.exists(dir.resolve("errorlog.txt.2")));
+        assertFalse("No more than two rotated files should be kept", Files.exists(dir.resolve("errorlog.txt.3")));
+        assertTrue("The newest record should be in the current file", read(file).contains("Failed operation 9"));
+    }
+
+    @Test
+    public void testBurstNeverBlocks() {
+        log = new ErrorLog(file, 8, 1024 * 1024 * 1024, TimeUnit.DAYS.toMillis(1), 0);
+        int total = 20000;
+        int accepted = 0;
+        for (int i = 0; i < total; i++) {
+            if (log.log("Failed operation", new SQLException("outage", "08006"), i)) {
+                accepted++;
+            }
+        }
+        assertTrue("Records should be written", log.flush(10000));
+        assertEquals("Every record is either written or dropped", total,
+                     log.getWrittenCount() + log.getDroppedCount());
+        assertEquals(accepted, log.getWrittenCount());
+        assertTrue("Records should be written in batches", log.getBatchCount() <= accepted);
+    }
+
+    @Test
+    public void testClosedLogDropsRecords() throws IOException {
+        log = new ErrorLog(file, 16, 1024 * 1024, TimeUnit.DAYS.toMillis(1), 2);
+        log.log("Before close", null);
+        log.close();
+        assertFalse("A closed log should refuse records", log.log("After close", null));
+        assertEquals(1, log.getDroppedCount());
+        assertTrue("Accepted records should be written on close", read(file).contains("Before close"));
+    }
+}
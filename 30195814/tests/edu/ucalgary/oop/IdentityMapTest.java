@@ -0,0 +1,55 @@
+package edu.ucalgary.oop;
+
+import org.junit.Before;
+import org.junit.Test;
+import static org.junit.Assert.*;
+
+public class IdentityMapTest {
+    private IdentityMap<DisasterVictim> map;
+    private DisasterVictim victim;
+
+    @Before
+    public void setUp() {
+        map = new IdentityMap<>();
+        victim = new DisasterVictim("Aur\u00e9lie", "2025-01-18");
+    }
+
+    @Test
+    public void testPutAndGet() {
+        map.put(7, victim);
+        assertSame("get should return the object registered for the ID", victim, map.get(7));
+        assertTrue("contains should report a registered ID", map.contains(7));
+        assertEquals("size should count registered objects", 1, map.size());
+    }
+
+    @Test
+    public void testGetUnknownIdReturnsNull() {
+        assertNull("get should return null for an unknown ID", map.get(42));
+    }
+
+    @Test
+    public void testPutReplacesExisting() {
+        DisasterVictim other = new DisasterVictim("Raman", "2025-01-18");
+        map.put(7, victim);
+        map.put(7, other);
+        assertSame("A later put should replace the earlier object", other, map.get(7));
+        assertEquals("Replacing should not grow the map", 1, map.size());
+    }
+
+    @Test
+    public void testRemove() {
+        map.put(7, victim);
+        map.remove(7);
+        assertFalse("remove should forget the ID", map.contains(7));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testPutRejectsUnsavedId() {
+        map.put(0, victim);
+    }
+
+    @Test
+    public void testNewVictimHasNoDatabaseId() {
+        assertEquals("A new victim should not have a database ID yet", 0, victim.getDatabaseId());
+    }
+}
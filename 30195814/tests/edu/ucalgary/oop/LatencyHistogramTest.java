@@ -0,0 +1,60 @@
+package edu.ucalgary.oop;
+
+import org.junit.Test;
+import static org.junit.Assert.*;
+
+/**
+ * Checks the bucketing and percentiles of LatencyHistogram.
+ */
+public class LatencyHistogramTest {
+
+    @Test
+    public void testBucketsCoverEveryValue() {
+        long[] values = { 0, 1, 31, 32, 33, 63, 64, 1000, 1_000_000, 123_456_789, Long.MAX_VALUE };
+        for (long value : values) {
+            int bucket = LatencyHistogram.bucketOf(value);
+            assertTrue("Value should not be below its bucket: " + value, LatencyHistogram.lowestValueOf(bucket) <= value);
+            assertTrue("Value should not be above its bucket: " + value, LatencyHistogram.highestValueOf(bucket) >= value);
+        }
+        assertEquals("Buckets should be contiguous", LatencyHistogram.highestValueOf(100) + 1,
+                     LatencyHistogram.lowestValueOf(101));
+    }
+
+    @Test
+    public void testPrecisionIsRelative() {
+        for (long value = 32; value < 1L << 40; value = value * 3 + 7) {
+            int bucket = LatencyHistogram.bucketOf(value);
+            long width = LatencyHistogram.highestValueOf(bucket) - LatencyHistogram.lowestValueOf(bucket) + 1;
+            assertTrue("Bucket width should stay within about 3% of the value: " + value, width <= value / 31.0 + 1);
+        }
+    }
+
+    @Test
+    public void testPercentiles() {
+        LatencyHistogram histogram = new LatencyHistogram();
+        for (int i = 1; i <= 1000; i++) {
+            histogram.record(i * 1_000_000L);
+        }
+        assertEquals(1000, histogram.getCount());
+        assertEquals(1_000_000_000L, histogram.getMaxNanos());
+        assertEquals(500.5e6, histogram.getMeanNanos(), 1);
+        assertEquals(500e6, histogram.getValueAtPercentile(50), 500e6 * 0.04);
+        assertEquals(990e6, histogram.getValueAtPercentile(99), 990e6 * 0.04);
+        assertEquals("The 100th percentile is the maximum", 1_000_000_000L, histogram.getValueAtPercentile(100));
+        assertEquals(100, histogram.getCountAtOrBelow(100_000_000L), 4);
+    }
+
+    @Test
+    public void testEmptyHistogram() {
+        LatencyHistogram histogram = new LatencyHistogram();
+        assertEquals(0, histogram.getValueAtPercentile(99));
+        assertEquals(0.0, histogram.getMeanNanos(), 0.0);
+        histogram.record(-5);
+        assertEquals("Negative latencies should count as 0", 0, histogram.getMaxNanos());
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testInvalidPercentile() {
+        new LatencyHistogram().getValueAtPercentile(101);
+    }
+}
@@ -4,6 +4,8 @@ import org.junit.Before;
 import org.junit.Test;
 import static org.junit.Assert.*;
 import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Map;
 
 public class LocationTest {
     private Location location;
@@ -85,4 +87,40 @@ public class LocationTest {
         location.setSupplies(newSupplies);
         assertTrue("setSupplies should replace the supplies list with the new list", containsSupply(location.getSupplies(), supply));
     }
+
+    @Test
+    public void testStockCountsByType() {
+        location.addSupply(supply);
+        location.addSupply(new Supply("water bottle", 5));
+        location.addSupply(new Blanket(2));
+        assertEquals("getStock should sum quantities of a type, ignoring case", 15, location.getStock("WATER BOTTLE"));
+        assertEquals("getStock should count each type separately", 2, location.getStock("blanket"));
+        assertEquals("getStock should be zero for a type not stored here", 0, location.getStock("cot"));
+    }
+
+    @Test
+    public void testRemoveSupplyUpdatesStock() {
+        location.addSupply(supply);
+        location.removeSupply(supply);
+        location.removeSupply(supply); // Removing a supply that is no longer here has no effect
+        assertEquals("removeSupply should take the quantity out of stock", 0, location.getStock("Water Bottle"));
+        assertTrue("Empty types should not be reported", location.getStock().isEmpty());
+    }
+
+    @Test
+    public void testStockFromLedger() {
+        Map<String, Integer> ledger = new HashMap<>();
+        ledger.put("blanket", 4);
+        ledger.put("water", 0);
+        location.addSupply(supply);
+        location.setStock(ledger);
+        assertEquals("setStock should replace the counts", 4, location.getStock("Blanket"));
+        assertEquals("Types missing from the ledger should be dropped", 0, location.getStock("Water Bottle"));
+        assertFalse("Types with no stock should not be reported", location.getStock().containsKey("water"));
+
+        location.adjustStock("BLANKET", -3);
+        assertEquals("adjustStock should take from the count", 1, location.getStock("blanket"));
+        location.adjustStock("blanket", -1);
+        assertTrue("A count reaching zero should be dropped", location.getStock().isEmpty());
+    }
 }
@@ -0,0 +1,184 @@
+package edu.ucalgary.oop;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import static org.junit.Assert.*;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Exercises the mutation journal without a reachable database,
+ * so every replay fails and operations must survive in the journal.
+ */
+public class MutationJournalTest {
+    private DatabaseManager dbManager;
+    private Path journal;
+    private Location shelter;
+
+    @Before
+    public void setUp() throws IOException {
+        dbManager = new DatabaseManager();
+        journal = Files.createTempFile("mutations", ".journal");
+        Files.delete(journal);
+        shelter = new Location("Shelter A", "140 8 Ave NW");
+        shelter.setDatabaseId(1);
+        dbManager.register(shelter);
+    }
+
+    @After
+    public void tearDown() throws IOException {
+        dbManager.closeConnection();
+        Files.deleteIfExists(journal);
+        Files.deleteIfExists(journal.resolveSibling("writebehind.journal"));
+        Files.deleteIfExists(deadLetters());
+    }
+
+    @Test
+    public void testOperationsAreRecovered() {
+        MutationJournal first = new MutationJournal(dbManager, journal, 60000);
+        DisasterVictim victim = new DisasterVictim("Aur\u00e9lie", "2025-01-18", "1985-03-15");
+        victim.setLastName("Dupont\tTab");
+        assertTrue("Registration should be journaled", first.savePerson(victim));
+        assertTrue("Treatment should be journaled",
+                   first.saveMedicalRecord(victim, new MedicalRecord(shelter, "Sprained ankle", "2025-01-19")));
+        assertFalse("Close should report that nothing could be written", first.close());
+        assertTrue("Journal should keep the unwritten operations", Files.exists(journal));
+
+        MutationJournal restarted = new MutationJournal(dbManager, journal, 60000);
+        MutationJournal.Recovery recovery = restarted.recover();
+        assertEquals("Both operations should be pending", 2, restarted.size());
+        assertEquals("The new victim should be recovered", 1, recovery.getPersons().size());
+        DisasterVictim copy = recovery.getPersons().get(0);
+        assertEquals("Escaped characters should survive the journal", "Dupont\tTab", copy.getLastName());
+        assertEquals("Treatment should be attached to the recovered victim", 1, copy.getMedicalRecords().length);
+        assertSame("Treatment should refer to the loaded location", shelter,
+                   copy.getMedicalRecords()[0].getLocation());
+        restarted.close();
+    }
+
+    @Test
+    public void testTornLineIsIgnored() throws IOException {
+        MutationJournal first = new MutationJournal(dbManager, journal, 60000);
+        first.savePerson(new DisasterVictim("Luc", "2025-01-18"));
+        first.close();
+        String torn = "3f2a\tPERSON\tnew-1\t0\t2025-01-18\tRa";
+        Files.write(journal, torn.getBytes(StandardCharsets.UTF_8), StandardOpenOption.APPEND);
+
+        MutationJournal restarted = new MutationJournal(dbManager, journal, 60000);
+        assertEquals("Only the complete line should be recovered", 1, restarted.recover().getPersons().size());
+        assertEquals("Only the complete line should be pending", 1, restarted.size());
+        restarted.close();
+    }
+
+    @Test
+    public void testWriteBehindEditsAreImported() throws IOException {
+        Path writeBehind = journal.resolveSibling("writebehind.journal");
+        List<String> lines = Arrays.asList("new7@123\t0\t2025-01-18\tRaman\tSingh\\tTab\t1985-03-15\twoman\t\\N\t\\N");
+        Files.write(writeBehind, lines, StandardCharsets.UTF_8);
+
+        MutationJournal first = new MutationJournal(dbManager, journal, 60000);
+        MutationJournal.Recovery recovery = first.recover();
+        assertEquals("The queued edit should become a pending operation", 1, first.size());
+        assertFalse("The write-behind journal should be removed once imported", Files.exists(writeBehind));
+        DisasterVictim copy = recovery.getPersons().get(0);
+        assertEquals("Escaped characters should survive the import", "Singh\tTab", copy.getLastName());
+        assertEquals("Gender should survive the import", "woman", copy.getGender());
+        first.close();
+
+        // As if the process died after the import but before the old file was deleted
+        Files.write(writeBehind, lines, StandardCharsets.UTF_8);
+        MutationJournal restarted = new MutationJournal(dbManager, journal, 60000);
+        assertEquals("An imported edit should not be imported again", 1, restarted.recover().getPersons().size());
+        assertEquals("An imported edit should be pending once", 1, restarted.size());
+        restarted.close();
+    }
+
+    @Test
+    public void testEditsToOneVictimAreMerged() {
+        MutationJournal first = new MutationJournal(dbManager, journal, 60000, 1);
+        DisasterVictim victim = new DisasterVictim("Luc", "2025-01-18");
+        assertTrue("Registration should be journaled", first.savePerson(victim));
+        victim.setComments("Moved to Shelter A");
+        assertTrue("An edit should be merged even when the journal is full", first.savePerson(victim));
+        assertEquals("The edit should be merged into the registration", 1, first.size());
+        assertEquals("One merge should be counted", 1, first.getMergedCount());
+        first.close();
+
+        MutationJournal restarted = new MutationJournal(dbManager, journal, 60000);
+        MutationJournal.Recovery recovery = restarted.recover();
+        assertEquals("The merged operation should be pending once", 1, restarted.size());
+        assertEquals("The victim should be recovered once", 1, recovery.getPersons().size());
+        assertEquals("The later edit should win", "Moved to Shelter A", recovery.getPersons().get(0).getComments());
+        restarted.close();
+    }
+
+    @Test
+    public void testDeadLettersAreRequeued() throws IOException {
+        MutationJournal first = new MutationJournal(dbManager, journal, 60000);
+        first.savePerson(new DisasterVictim("Luc", "2025-01-18"));
+        first.close();
+        // As left behind by a session whose database refused the registration
+        Files.move(journal, deadLetters());
+
+        MutationJournal restarted = new MutationJournal(dbManager, journal, 60000);
+        assertEquals("The refused operation should be counted", 1, restarted.countDeadLetters());
+        assertEquals("The refused operation should be re-queued", 1, restarted.requeueDeadLetters());
+        assertFalse("The dead-letter file should be emptied", Files.exists(deadLetters()));
+        assertEquals("The re-queued victim should be recovered", 1, restarted.recover().getPersons().size());
+        assertEquals("The re-queued operation should be pending", 1, restarted.size());
+        try {
+            restarted.requeueDeadLetters();
+            fail("Re-queuing after recover() should be refused");
+        } catch (IllegalStateException expected) {
+            // recover() has already read the journal
+        }
+        restarted.close();
+    }
+
+    @Test
+    public void testConcurrentAppendsShareSyncs() throws InterruptedException {
+        MutationJournal shared = new MutationJournal(dbManager, journal, 60000);
+        int threads = 8;
+        int perThread = 25;
+        List<Thread> desks = new ArrayList<>();
+        for (int t = 0; t < threads; t++) {
+            Thread desk = new Thread(() -> {
+                for (int i = 0; i < perThread; i++) {
+                    shared.savePerson(new DisasterVictim("Raman", "2025-01-18"));
+                }
+            });
+            desks.add(desk);
+            desk.start();
+        }
+        for (Thread desk : desks) {
+            desk.join();
+        }
+
+        assertEquals("Every operation should be pending", threads * perThread, shared.size());
+        assertTrue("No more syncs than operations", shared.getSyncCount() <= threads * perThread);
+        shared.close();
+
+        MutationJournal restarted = new MutationJournal(dbManager, journal, 60000);
+        assertEquals("Every operation should survive", threads * perThread, restarted.recover().getPersons().size());
+        restarted.close();
+    }
+
+    @Test
+    public void testOperationAfterCloseIsRejected() {
+        MutationJournal closed = new MutationJournal(dbManager, journal, 60000);
+        closed.close();
+        assertFalse("A closed journal should reject operations",
+                    closed.savePerson(new DisasterVictim("Raman", "2025-01-18")));
+    }
+
+    private Path deadLetters() {
+        return journal.resolveSibling(journal.getFileName() + ".deadletter");
+    }
+}
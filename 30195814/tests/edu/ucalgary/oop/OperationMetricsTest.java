@@ -0,0 +1,101 @@
+package edu.ucalgary.oop;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import static org.junit.Assert.*;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Records operations and checks the report, the Prometheus output and the slow log.
+ */
+public class OperationMetricsTest {
+    private Path dir;
+    private OperationMetrics metrics;
+
+    @Before
+    public void setUp() throws IOException {
+        dir = Files.createTempDirectory("metrics");
+        metrics = new OperationMetrics(null, 50, dir.resolve("slowqueries.log"));
+    }
+
+    @After
+    public void tearDown() throws IOException {
+        metrics.close();
+        for (String name : new String[] { "slowqueries.log", "metrics.prom" }) {
+            Files.deleteIfExists(dir.resolve(name));
+        }
+        Files.delete(dir);
+    }
+
+    @Test
+    public void testOperationsAreCounted() {
+        for (int i = 0; i < 10; i++) {
+            metrics.record("savePerson", metrics.start(), i % 5 != 0);
+            metrics.addRowsWritten("savePerson", 1);
+        }
+        metrics.addRowsRead("loadPersons", 250);
+
+        assertEquals(10, metrics.getLatency("savePerson").getCount());
+        assertEquals(2, metrics.getFailureCount("savePerson"));
+        assertEquals(10, metrics.getRowsWritten("savePerson"));
+        assertEquals(250, metrics.getRowsRead("loadPersons"));
+        assertNull("Unrecorded operations have no histogram", metrics.getLatency("saveInquiry"));
+        assertTrue("The report should list the operation", metrics.getReport().contains("savePerson"));
+        assertEquals("Fast operations are not slow", 0, metrics.getSlowCount());
+    }
+
+    @Test
+    public void testSlowOperationIsLogged() throws IOException {
+        metrics.record("loadPersons", System.nanoTime() - TimeUnit.MILLISECONDS.toNanos(120), true);
+        assertEquals(1, metrics.getSlowCount());
+        assertTrue("The slow operation should be listed",
+                   metrics.getRecentSlowOperations().get(0).contains("loadPersons took 12"));
+
+        metrics.flushSlowLog();
+        String log = new String(Files.readAllBytes(dir.resolve("slowqueries.log")), StandardCharsets.UTF_8);
+        assertTrue("The slow log should name the operation and threshold",
+                   log.contains("loadPersons took") && log.contains("(threshold 50 ms)"));
+    }
+
+    @Test
+    public void testPrometheusFormat() throws IOException {
+        metrics.record("saveInquiry", System.nanoTime() - TimeUnit.MILLISECONDS.toNanos(3), true);
+        metrics.record("saveInquiry", metrics.start(), false);
+        Path file = dir.resolve("metrics.prom");
+        metrics.writePrometheus(file);
+
+        String text = new String(Files.readAllBytes(file), StandardCharsets.UTF_8);
+        assertTrue(text.contains("# TYPE disaster_db_operation_seconds histogram"));
+        assertTrue(text.contains("disaster_db_operation_seconds_bucket{operation=\"saveInquiry\",le=\"0.001\"} 1"));
+        assertTrue(text.contains("disaster_db_operation_seconds_bucket{operation=\"saveInquiry\",le=\"0.005\"} 2"));
+        assertTrue(text.contains("disaster_db_operation_seconds_bucket{operation=\"saveInquiry\",le=\"+Inf\"} 2"));
+        assertTrue(text.contains("disaster_db_operation_seconds_count{operation=\"saveInquiry\"} 2"));
+        assertTrue(text.contains("disaster_db_operation_failures_total{operation=\"saveInquiry\"} 1"));
+        for (String line : text.split("\n")) {
+            assertTrue("Every line should be a comment or a sample: " + line,
+                       line.startsWith("# ") || line.matches("disaster_db_[a-z_]+(\\{[^}]*\\})? \\S+"));
+        }
+    }
+
+    @Test
+    public void testFailedSaveIsRecordedByManager() {
+        // No database is reachable here, so the save fails to get a connection
+        DatabaseManager dbManager = new DatabaseManager();
+        try {
+            assertFalse(dbManager.savePerson(new DisasterVictim("Luc", "2025-01-18")));
+            OperationMetrics managerMetrics = dbManager.getMetrics();
+            assertEquals(1, managerMetrics.getLatency("savePerson").getCount());
+            assertEquals(1, managerMetrics.getFailureCount("savePerson"));
+            assertEquals(0, managerMetrics.getRowsWritten("savePerson"));
+            assertEquals(1, dbManager.getConnectionPool().getFailedBorrowCount());
+            assertTrue(managerMetrics.getReport().contains("failed=1"));
+        } finally {
+            dbManager.closeConnection();
+        }
+    }
+}
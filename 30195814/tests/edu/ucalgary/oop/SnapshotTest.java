@@ -0,0 +1,105 @@
+package edu.ucalgary.oop;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import static org.junit.Assert.*;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDate;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Writes snapshots of a small model and reads them back, without a database.
+ */
+public class SnapshotTest {
+    private DatabaseManager dbManager;
+    private Path path;
+
+    @Before
+    public void setUp() throws IOException {
+        dbManager = new DatabaseManager();
+        path = Files.createTempFile("snapshot", ".bin");
+    }
+
+    @After
+    public void tearDown() throws IOException {
+        dbManager.closeConnection();
+        Files.deleteIfExists(path);
+    }
+
+    @Test
+    public void testRoundTrip() throws IOException {
+        Location shelter = new Location("Shelter A", "140 8 Ave NW");
+        DisasterVictim mother = new DisasterVictim("Aur\u00e9lie", "2025-01-18", "1985-03-15");
+        mother.setLastName("Dupont");
+        mother.setGender("woman");
+        mother.addMedicalRecord(new MedicalRecord(shelter, "Sprained ankle", "2025-01-19"));
+        DisasterVictim son = new DisasterVictim("Luc", "2025-01-18");
+        FamilyGroup family = new FamilyGroup("7");
+        family.addMember(mother);
+        family.addMember(son);
+        Inquirer inquirer = new Inquirer("Marie", "Dupont", "555-0100", "Looking for her sister");
+        ReliefService inquiry = new ReliefService(inquirer, mother, "2025-01-20", "Last seen downtown", shelter);
+        List<Supply> supplies = Arrays.asList(new Water(LocalDate.of(2025, 1, 19), 1), new Blanket(2),
+                                              new PersonalBelonging("Photo album", 1), new Cot(101, "A3", 1));
+
+        Snapshot.write(path, dbManager, Arrays.asList(mother, son), Collections.singletonList(shelter),
+                       supplies, Collections.singletonList(inquiry));
+        Snapshot snapshot = Snapshot.open(path);
+
+        Location location = snapshot.getLocations().get(0);
+        assertEquals("Location address should survive", "140 8 Ave NW", location.getAddress());
+
+        List<DisasterVictim> persons = snapshot.getPersons();
+        assertEquals("Both persons should be read", 2, persons.size());
+        DisasterVictim copy = persons.get(0);
+        assertEquals("First name should survive", "Aur\u00e9lie", copy.getFirstName());
+        assertEquals("Date of birth should survive", "1985-03-15", copy.getDateOfBirth());
+        assertEquals("Entry date should survive", "2025-01-18", copy.getEntryDate());
+        assertEquals("Gender should survive", "woman", copy.getGender());
+        assertNull("Missing comments should stay null", copy.getComments());
+        assertEquals("Medical record should be attached", 1, copy.getMedicalRecords().length);
+        assertSame("Medical record should refer to the snapshot's location", location,
+                   copy.getMedicalRecords()[0].getLocation());
+        assertSame("Family members should share one group", copy.getFamilyGroup(), persons.get(1).getFamilyGroup());
+        assertEquals("Family group ID should survive", "7", snapshot.getFamilyGroups().get(0).getGroupId());
+
+        List<Supply> supplyCopies = snapshot.getSupplies();
+        assertEquals("Water allocation date should survive", LocalDate.of(2025, 1, 19),
+                     ((Water) supplyCopies.get(0)).getAllocationDate());
+        assertEquals("Blanket quantity should survive", 2, supplyCopies.get(1).getQuantity());
+        assertEquals("Belonging description should survive", "Photo album",
+                     ((PersonalBelonging) supplyCopies.get(2)).getDescription());
+        assertEquals("Cot grid should survive", "A3", ((Cot) supplyCopies.get(3)).getGrid());
+
+        ReliefService inquiryCopy = snapshot.getInquiries().get(0);
+        assertSame("Inquiry should refer to the snapshot's person", copy, inquiryCopy.getMissingPerson());
+        assertEquals("Inquirer phone should survive", "555-0100", inquiryCopy.getInquirer().getServicesPhoneNum());
+        assertEquals("Inquiry date should survive", "2025-01-20", inquiryCopy.getDateOfInquiry());
+    }
+
+    @Test(expected = IOException.class)
+    public void testCorruptSnapshotIsRejected() throws IOException {
+        Snapshot.write(path, dbManager, Collections.singletonList(new DisasterVictim("Luc", "2025-01-18")),
+                       Collections.<Location>emptyList(), Collections.<Supply>emptyList(),
+                       Collections.<ReliefService>emptyList());
+        byte[] bytes = Files.readAllBytes(path);
+        bytes[4] ^= 1;
+        Files.write(path, bytes);
+        Snapshot.open(path);
+    }
+
+    @Test(expected = IOException.class)
+    public void testTruncatedSnapshotIsRejected() throws IOException {
+        Snapshot.write(path, dbManager, Collections.singletonList(new DisasterVictim("Luc", "2025-01-18")),
+                       Collections.<Location>emptyList(), Collections.<Supply>emptyList(),
+                       Collections.<ReliefService>emptyList());
+        byte[] bytes = Files.readAllBytes(path);
+        Files.write(path, Arrays.copyOf(bytes, bytes.length - 3));
+        Snapshot.open(path);
+    }
+}
@@ -0,0 +1,217 @@
+package edu.ucalgary.oop;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import static org.junit.Assert.*;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.Driver;
+import java.sql.DriverManager;
+import java.sql.DriverPropertyInfo;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.SQLFeatureNotSupportedException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Properties;
+import java.util.logging.Logger;
+
+/**
+ * Checks the prepared-statement cache of ConnectionPool against a fake
+ * driver that counts the statements it prepares.
+ */
+public class StatementCacheTest {
+    private static final String URL = "jdbc:statementcachetest:";
+    private static final FakeDriver DRIVER = new FakeDriver();
+
+    private ConnectionPool pool;
+
+    @Before
+    public void setUp() throws SQLException {
+        DriverManager.registerDriver(DRIVER);
+        DRIVER.prepared.clear();
+        pool = new ConnectionPool(URL, "oop", "ucalgary", 2, 1000, 60000, 2);
+    }
+
+    @After
+    public void tearDown() throws SQLException {
+        pool.close();
+        DriverManager.deregisterDriver(DRIVER);
+    }
+
+    @Test
+    public void testRepeatedSqlReusesStatement() throws SQLException {
+        for (int i = 0; i < 3; i++) {
+            try (Connection conn = pool.borrow();
+                 PreparedStatement stmt = conn.prepareStatement("SELECT person_id FROM Person WHERE first_name = ?")) {
+                stmt.setString(1, "Luc");
+                assertSame("The statement should belong to the pooled connection", conn, stmt.getConnection());
+            }
+        }
+        assertEquals("The SQL should be prepared once", 1, DRIVER.prepared.size());
+        assertFalse("The cached statement should stay open", DRIVER.prepared.get(0).closed);
+        assertEquals(2, pool.getStatementCacheHits());
+        assertEquals(1, pool.getStatementCacheMisses());
+        assertEquals(3, DRIVER.prepared.get(0).clearParameterCalls);
+    }
+
+    @Test
+    public void testGeneratedKeysAreCachedSeparately() throws SQLException {
+        String sql = "INSERT INTO Location (name, address) VALUES (?, ?)";
+        try (Connection conn = pool.borrow()) {
+            conn.prepareStatement(sql).close();
+            conn.prepareStatement(sql, Statement.RETURN_GENERATED_KEYS).close();
+            conn.prepareStatement(sql, Statement.RETURN_GENERATED_KEYS).close();
+        }
+        assertEquals(2, DRIVER.prepared.size());
+        assertEquals(1, pool.getStatementCacheHits());
+    }
+
+    @Test
+    public void testLeastRecentlyUsedIsEvicted() throws SQLException {
+        try (Connection conn = pool.borrow()) {
+            conn.prepareStatement("SELECT 1").close();
+            conn.prepareStatement("SELECT 2").close();
+            conn.prepareStatement("SELECT 1").close();
+            conn.prepareStatement("SELECT 3").close();
+            conn.prepareStatement("SELECT 1").close();
+        }
+        assertEquals(3, DRIVER.prepared.size());
+        assertTrue("SELECT 2 was used least recently", DRIVER.prepared.get(1).closed);
+        assertFalse(DRIVER.prepared.get(0).closed);
+        assertEquals(1, pool.getStatementCacheEvictions());
+        assertEquals(2, pool.getStatementCacheHits());
+    }
+
+    @Test
+    public void testOpenStatementIsNotSharedAndSettingsAreNotKept() throws SQLException {
+        try (Connection conn = pool.borrow()) {
+            PreparedStatement first = conn.prepareStatement("SELECT 1");
+            PreparedStatement second = conn.prepareStatement("SELECT 1");
+            assertEquals("Both statements are open, so both need preparing", 2, DRIVER.prepared.size());
+            second.close();
+            first.close();
+            assertTrue("Only one statement per SQL is kept", DRIVER.prepared.get(1).closed);
+            assertTrue(first.isClosed());
+
+            try {
+                first.setInt(1, 5);
+                fail("A closed statement should reject calls");
+            } catch (SQLException e) {
+                // Expected
+            }
+
+            PreparedStatement tuned = conn.prepareStatement("SELECT 1");
+            tuned.setFetchSize(500);
+            tuned.close();
+            assertTrue("A statement with changed settings should not be reused", DRIVER.prepared.get(0).closed);
+        }
+    }
+
+    @Test
+    public void testDisabledCache() throws SQLException {
+        pool.close();
+        pool = new ConnectionPool(URL, "oop", "ucalgary", 2, 1000, 60000, 0);
+        try (Connection conn = pool.borrow()) {
+            conn.prepareStatement("SELECT 1").close();
+            conn.prepareStatement("SELECT 1").close();
+        }
+        assertEquals(2, DRIVER.prepared.size());
+        assertTrue(DRIVER.prepared.get(0).closed);
+        assertEquals(0, pool.getStatementCacheHits());
+        assertEquals(0, pool.getStatementCacheMisses());
+    }
+
+    /**
+     * State of one statement prepared by the fake driver.
+     */
+    private static final class FakeStatement {
+        private boolean closed = false;
+        private int clearParameterCalls = 0;
+    }
+
+    /**
+     * Accepts URL and hands out connections that prepare FakeStatements.
+     */
+    private static final class FakeDriver implements Driver {
+        private final List<FakeStatement> prepared = new ArrayList<>();
+
+        @Override
+        public Connection connect(String url, Properties info) {
+            if (!acceptsURL(url)) {
+                return null;
+            }
+            boolean[] closed = { false };
+            return (Connection) Proxy.newProxyInstance(Connection.class.getClassLoader(),
+                                                       new Class<?>[] { Connection.class },
+                                                       (proxy, method, args) -> {
+                switch (method.getName()) {
+                    case "prepareStatement":
+                        return statement(new FakeStatement());
+                    case "close":
+                        closed[0] = true;
+                        return null;
+                    case "isClosed":
+                        return closed[0];
+                    case "isValid":
+                    case "getAutoCommit":
+                        return true;
+                    default:
+                        return null;
+                }
+            });
+        }
+
+        private PreparedStatement statement(FakeStatement state) {
+            prepared.add(state);
+            return (PreparedStatement) Proxy.newProxyInstance(PreparedStatement.class.getClassLoader(),
+                                                              new Class<?>[] { PreparedStatement.class },
+                                                              (proxy, method, args) -> {
+                switch (method.getName()) {
+                    case "close":
+                        state.closed = true;
+                        return null;
+                    case "isClosed":
+                        return state.closed;
+                    case "clearParameters":
+                        state.clearParameterCalls++;
+                        return null;
+                    default:
+                        return null;
+                }
+            });
+        }
+
+        @Override
+        public boolean acceptsURL(String url) {
+            return url.startsWith(URL);
+        }
+
+        @Override
+        public DriverPropertyInfo[] getPropertyInfo(String url, Properties info) {
+            return new DriverPropertyInfo[0];
+        }
+
+        @Override
+        public int getMajorVersion() {
+            return 1;
+        }
+
+        @Override
+        public int getMinorVersion() {
+            return 0;
+        }
+
+        @Override
+        public boolean jdbcCompliant() {
+            return false;
+        }
+
+        @Override
+        public Logger getParentLogger() throws SQLFeatureNotSupportedException {
+            throw new SQLFeatureNotSupportedException();
+        }
+    }
+}
@@ -0,0 +1,86 @@
+package edu.ucalgary.oop;
+
+import org.junit.Before;
+import org.junit.Test;
+import static org.junit.Assert.*;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+
+public class StockReservationsTest {
+    private StockReservations reservations;
+
+    @Before
+    public void setUp() {
+        reservations = new StockReservations();
+        reservations.setAvailable(1, "Water", 3);
+    }
+
+    @Test
+    public void testReserveUntilEmpty() {
+        assertTrue("Reserving two of three units should succeed", reservations.tryReserve(1, "water", 2));
+        assertFalse("Reserving more than is left should fail", reservations.tryReserve(1, "water", 2));
+        assertTrue("The last unit should still be available", reservations.tryReserve(1, "WATER", 1));
+        assertEquals("Nothing should be left", 0, reservations.getAvailable(1, "water"));
+        assertEquals("Two reservations should be counted", 2, reservations.getReservationCount());
+        assertEquals("One rejection should be counted", 1, reservations.getRejectionCount());
+    }
+
+    @Test
+    public void testUntrackedStockIsRefused() {
+        assertFalse("An untracked type should not be reserved", reservations.tryReserve(1, "blanket", 1));
+        assertFalse("An untracked location should not be reserved", reservations.tryReserve(2, "water", 1));
+    }
+
+    @Test
+    public void testReleaseReturnsUnits() {
+        reservations.tryReserve(1, "water", 3);
+        reservations.release(1, "water", 1);
+        assertEquals("A released unit should be available again", 1, reservations.getAvailable(1, "water"));
+    }
+
+    @Test
+    public void testTrackDoesNotOverwrite() {
+        reservations.tryReserve(1, "water", 1);
+        assertFalse("Tracking a tracked type should not reset it", reservations.track(1, "water", 3));
+        assertEquals("The reservation should still count", 2, reservations.getAvailable(1, "water"));
+        assertTrue("Tracking a new type should create it", reservations.track(1, "blanket", 4));
+    }
+
+    @Test
+    public void testReloadResetsTrackedCounters() {
+        reservations.setAvailable(1, "Blanket", 2);
+        reservations.tryReserve(1, "water", 3);
+        Map<Integer, Map<String, Integer>> ledger = new HashMap<>();
+        ledger.computeIfAbsent(1, id -> new HashMap<>()).put("Water", 5);
+        ledger.computeIfAbsent(2, id -> new HashMap<>()).put("water", 7);
+        reservations.reload(ledger);
+        assertEquals("A restock elsewhere should become available", 5, reservations.getAvailable(1, "water"));
+        assertEquals("A type without a ledger row should have nothing left", 0, reservations.getAvailable(1, "blanket"));
+        assertFalse("An untracked location should stay untracked", reservations.isTracked(2, "water"));
+    }
+
+    @Test
+    public void testConcurrentDesksNeverOverAllocate() throws InterruptedException {
+        reservations.setAvailable(1, "water", 10_000);
+        AtomicInteger handedOut = new AtomicInteger();
+        Thread[] desks = new Thread[4];
+        for (int i = 0; i < desks.length; i++) {
+            desks[i] = new Thread(() -> {
+                while (reservations.tryReserve(1, "water", 1)) {
+                    handedOut.incrementAndGet();
+                }
+            });
+            desks[i].start();
+        }
+        for (Thread desk : desks) {
+            desk.join();
+        }
+        assertEquals("Exactly the stock should be handed out", 10_000, handedOut.get());
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testInvalidQuantity() {
+        reservations.tryReserve(1, "water", 0);
+    }
+}
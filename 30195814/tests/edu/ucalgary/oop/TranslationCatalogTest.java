@@ -0,0 +1,103 @@
+package edu.ucalgary.oop;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import static org.junit.Assert.*;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+import java.util.Arrays;
+
+/**
+ * Compiles small language files and checks lookups, formatting and the cache.
+ */
+public class TranslationCatalogTest {
+    private Path dir;
+    private Path xml;
+
+    @Before
+    public void setUp() throws IOException {
+        dir = Files.createTempDirectory("catalog");
+        xml = dir.resolve("en-CA.xml");
+        write("<translations>\n"
+              + "  <translation>\n"
+              + "    <key>welcome</key>\n"
+              + "    <value>Welcome</value>\n"
+              + "  </translation>\n"
+              + "  <translation>\n"
+              + "    <key>entered</key>\n"
+              + "    <value>\n"
+              + "      %s entered the %s\n"
+              + "      facility on %s.\n"
+              + "    </value>\n"
+              + "  </translation>\n"
+              + "  <translation><key>select</key><value>Select an option (1-%d):</value></translation>\n"
+              + "  <translation><key>swap</key><value>%2$s before %1$s, 100%%</value></translation>\n"
+              + "  <translation><key>padded</key><value>[%5s]</value></translation>\n"
+              + "</translations>\n");
+    }
+
+    @After
+    public void tearDown() throws IOException {
+        Files.deleteIfExists(TranslationCatalog.cachePath(xml));
+        Files.deleteIfExists(xml);
+        Files.deleteIfExists(dir);
+    }
+
+    private void write(String text) throws IOException {
+        Files.write(xml, text.getBytes(StandardCharsets.UTF_8));
+    }
+
+    @Test
+    public void testLookup() throws IOException {
+        TranslationCatalog catalog = TranslationCatalog.compile(xml);
+        assertEquals("Every translation should be compiled", 5, catalog.size());
+        assertEquals("Welcome", catalog.get("welcome"));
+        assertEquals("Multi-line values should be joined", "%s entered the %s facility on %s.", catalog.get("entered"));
+        assertEquals("Missing keys should return the key", "missing", catalog.get("missing"));
+    }
+
+    @Test
+    public void testFormatting() throws IOException {
+        TranslationCatalog catalog = TranslationCatalog.compile(xml);
+        assertEquals("Ana entered the Shelter A facility on 2025-01-18.",
+                     catalog.format("entered", "Ana", "Shelter A", "2025-01-18"));
+        assertEquals("Select an option (1-7):", catalog.format("select", 7));
+        assertEquals("Explicit indexes and %% should be honoured", "b before a, 100%", catalog.format("swap", "a", "b"));
+        assertEquals("Unsupported specifiers should use String.format", "[   ab]", catalog.format("padded", "ab"));
+        assertEquals("Missing arguments should leave the template", "Select an option (1-%d):", catalog.format("select"));
+        assertEquals("A non-integer for %d should leave the template", "Select an option (1-%d):",
+                     catalog.format("select", "seven"));
+        assertEquals("Results should match String.format", String.format("Select an option (1-%d):", 12L),
+                     catalog.format("select", 12L));
+    }
+
+    @Test
+    public void testCacheIsReusedUntilXmlChanges() throws IOException {
+        TranslationCatalog first = TranslationCatalog.load(xml);
+        Path cache = TranslationCatalog.cachePath(xml);
+        assertTrue("Loading should write the cache", Files.exists(cache));
+        assertEquals(first.size(), TranslationCatalog.load(xml).size());
+        assertEquals("Cached templates should format", "Select an option (1-3):",
+                     TranslationCatalog.load(xml).format("select", 3));
+
+        write("<translations>\n  <translation><key>welcome</key><value>Bienvenue</value></translation>\n</translations>\n");
+        Files.setLastModifiedTime(xml, FileTime.fromMillis(Files.getLastModifiedTime(cache).toMillis() + 5000));
+        TranslationCatalog changed = TranslationCatalog.load(xml);
+        assertEquals("A changed XML should be recompiled", 1, changed.size());
+        assertEquals("Bienvenue", changed.get("welcome"));
+    }
+
+    @Test
+    public void testCorruptCacheIsRebuilt() throws IOException {
+        TranslationCatalog.load(xml);
+        Path cache = TranslationCatalog.cachePath(xml);
+        byte[] bytes = Files.readAllBytes(cache);
+        Files.write(cache, Arrays.copyOf(bytes, bytes.length / 2));
+        assertEquals("A truncated cache should be ignored", "Welcome", TranslationCatalog.load(xml).get("welcome"));
+        assertEquals("The cache should be rewritten", bytes.length, Files.size(cache));
+    }
+}
@@ -0,0 +1,78 @@
+package edu.ucalgary.oop;
+
+import org.junit.Before;
+import org.junit.Test;
+import static org.junit.Assert.*;
+import java.util.List;
+
+public class VictimRegistryTest {
+    private VictimRegistry registry;
+    private DisasterVictim aurelie;
+    private DisasterVictim nathalie;
+
+    @Before
+    public void setUp() {
+        registry = new VictimRegistry();
+        aurelie = new DisasterVictim("Aur\u00e9lie", "2025-01-18");
+        aurelie.setLastName("Dupont");
+        nathalie = new DisasterVictim("Nathalie", "2025-01-18");
+        nathalie.setLastName("Dupont-Nwosu");
+        FamilyGroup group = new FamilyGroup("1");
+        group.addMember(aurelie);
+        group.addMember(nathalie);
+        registry.add(aurelie);
+        registry.add(nathalie);
+    }
+
+    @Test
+    public void testNormalizeIgnoresCaseAndAccents() {
+        assertEquals("Accents and case should be removed", "aurelie dupont", VictimRegistry.normalize("  AUR\u00c9LIE   Dupont "));
+    }
+
+    @Test
+    public void testFindByNameWithoutAccents() {
+        List<DisasterVictim> matches = registry.findByName("aurelie");
+        assertEquals("Searching without the accent should find Aur\u00e9lie", 1, matches.size());
+        assertSame("The match should be Aur\u00e9lie", aurelie, matches.get(0));
+    }
+
+    @Test
+    public void testFindByLastNamePrefix() {
+        List<DisasterVictim> matches = registry.findByName("dupont");
+        assertEquals("Both Duponts should match the last name prefix", 2, matches.size());
+    }
+
+    @Test
+    public void testFindByFullName() {
+        List<DisasterVictim> matches = registry.findByName("Nathalie Dup");
+        assertEquals("Full name prefix should match one person", 1, matches.size());
+        assertSame("The match should be Nathalie", nathalie, matches.get(0));
+    }
+
+    @Test
+    public void testGetBySocialId() {
+        assertSame("Lookup by social ID should return the victim", aurelie,
+                   registry.getBySocialId(aurelie.getAssignedSocialID()));
+    }
+
+    @Test
+    public void testRenameIsReindexed() {
+        aurelie.setFirstName("Zo\u00e9");
+        registry.update(aurelie);
+        assertTrue("The old name should no longer match", registry.findByName("aurelie").isEmpty());
+        assertEquals("The new name should match", 1, registry.findByName("zoe").size());
+    }
+
+    @Test
+    public void testFamilyMembers() {
+        assertEquals("Both members of group 1 should be indexed", 2, registry.getFamilyMembers("1").size());
+    }
+
+    @Test
+    public void testRemove() {
+        registry.remove(aurelie);
+        assertFalse("Removed victim should not be contained", registry.contains(aurelie));
+        assertEquals("Size should drop after removal", 1, registry.size());
+        assertEquals("Removed victim should leave the family index", 1, registry.getFamilyMembers("1").size());
+    }
+}
@@ -0,0 +1,82 @@
+package edu.ucalgary.oop;
+
+import org.junit.Before;
+import org.junit.Test;
+import static org.junit.Assert.*;
+import java.util.List;
+
+public class VictimSearchEngineTest {
+    private VictimRegistry registry;
+    private VictimSearchEngine engine;
+    private DisasterVictim thibeault;
+    private DisasterVictim dupont;
+
+    @Before
+    public void setUp() {
+        registry = new VictimRegistry();
+        thibeault = new DisasterVictim("Genevi\u00e8ve", "2025-01-18");
+        thibeault.setLastName("Thibeault");
+        dupont = new DisasterVictim("Jean-Luc", "2025-01-18");
+        dupont.setLastName("Dupont");
+        registry.add(thibeault);
+        engine = new VictimSearchEngine(registry);
+        registry.add(dupont);
+    }
+
+    @Test
+    public void testSoundex() {
+        assertEquals("Robert should encode as R163", "R163", VictimSearchEngine.soundex("robert"));
+        assertEquals("Ashcraft should encode as A261", "A261", VictimSearchEngine.soundex("ashcraft"));
+        assertEquals("Short names should be padded", "L000", VictimSearchEngine.soundex("lee"));
+        assertEquals("Tokens without letters have no code", "", VictimSearchEngine.soundex("42"));
+    }
+
+    @Test
+    public void testFoldFrench() {
+        assertEquals("Silent French spellings should fold", "tibo", VictimSearchEngine.foldFrench("thibeault"));
+    }
+
+    @Test
+    public void testMisspelledNameIsFound() {
+        List<VictimSearchEngine.Match> matches = engine.search("Genevieve Thibault");
+        assertFalse("A misspelled name should still match", matches.isEmpty());
+        assertSame("The closest victim should be ranked first", thibeault, matches.get(0).getVictim());
+    }
+
+    @Test
+    public void testPhoneticMatch() {
+        List<VictimSearchEngine.Match> matches = engine.search("Dupond");
+        assertFalse("A name that sounds the same should match", matches.isEmpty());
+        assertSame("Dupond should find Dupont", dupont, matches.get(0).getVictim());
+    }
+
+    @Test
+    public void testExactMatchScoresOne() {
+        List<VictimSearchEngine.Match> matches = engine.search("jean luc dupont");
+        assertEquals("An exact name should score 1", 1.0, matches.get(0).getScore(), 1e-9);
+    }
+
+    @Test
+    public void testFollowsRegistryChanges() {
+        dupont.setLastName("Martin");
+        registry.update(dupont);
+        assertTrue("The old name should no longer match", engine.search("Dupont").isEmpty());
+        registry.remove(thibeault);
+        assertTrue("Removed victims should no longer match", engine.search("Thibeault").isEmpty());
+        assertEquals("Only one victim should remain indexed", 1, engine.size());
+    }
+
+    @Test
+    public void testMaxResults() {
+        for (int i = 0; i < 5; i++) {
+            DisasterVictim victim = new DisasterVictim("Jean", "2025-01-18");
+            registry.add(victim);
+        }
+        assertEquals("Results should be limited", 3, engine.search("Jean", 3, 0.1).size());
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testInvalidMaxResults() {
+        engine.search("Jean", 0, 0.5);
+    }
+}
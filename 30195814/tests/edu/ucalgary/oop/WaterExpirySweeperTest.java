@@ -0,0 +1,61 @@
+package edu.ucalgary.oop;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import static org.junit.Assert.*;
+import java.sql.Timestamp;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+
+public class WaterExpirySweeperTest {
+    private DatabaseManager dbManager;
+    private WaterExpirySweeper sweeper;
+
+    @Before
+    public void setUp() {
+        dbManager = new DatabaseManager();
+        sweeper = dbManager.getWaterExpirySweeper();
+    }
+
+    @After
+    public void tearDown() {
+        dbManager.closeConnection();
+    }
+
+    private static long startOfDay(LocalDate day) {
+        return day.atStartOfDay(ZoneId.systemDefault()).toInstant().toEpochMilli();
+    }
+
+    @Test
+    public void testExpiryIsStartOfSecondDay() {
+        Timestamp allocatedAt = Timestamp.valueOf(LocalDateTime.of(2025, 4, 10, 23, 59));
+        assertEquals("Water should expire at the start of the second day after allocation",
+                     startOfDay(LocalDate.of(2025, 4, 12)), WaterExpirySweeper.expiryMillis(allocatedAt));
+    }
+
+    @Test
+    public void testSweepIgnoresUnexpiredAllocations() {
+        sweeper.track(1, 1, Timestamp.valueOf(LocalDateTime.of(2025, 4, 10, 9, 0)));
+        assertEquals("Nothing should be retired before expiry", 0,
+                     sweeper.sweep(startOfDay(LocalDate.of(2025, 4, 11))));
+        assertEquals("The allocation should still be tracked", 1, sweeper.size());
+    }
+
+    @Test
+    public void testFailedSweepKeepsAllocations() {
+        sweeper.track(1, 1, Timestamp.valueOf(LocalDateTime.of(2025, 4, 10, 9, 0)));
+        sweeper.track(2, 1, Timestamp.valueOf(LocalDateTime.of(2025, 4, 11, 9, 0)));
+        // Without a database the delete fails, so the due allocation must be tracked again
+        assertEquals("A failed delete should retire nothing", 0,
+                     sweeper.sweep(startOfDay(LocalDate.of(2025, 4, 12))));
+        assertEquals("Both allocations should still be tracked", 2, sweeper.size());
+        assertEquals("Nothing should be counted as retired", 0, sweeper.getRetiredCount());
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testInvalidInterval() {
+        sweeper.start(0);
+    }
+}